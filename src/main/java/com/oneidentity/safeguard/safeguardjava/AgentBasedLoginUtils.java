@@ -1,5 +1,6 @@
 package com.oneidentity.safeguard.safeguardjava;
 
+import com.oneidentity.safeguard.safeguardjava.data.FullResponse;
 import com.oneidentity.safeguard.safeguardjava.exceptions.SafeguardForJavaException;
 import com.oneidentity.safeguard.safeguardjava.restclient.RestClient;
 import java.net.URI;
@@ -11,7 +12,6 @@ import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import javax.net.ssl.HostnameVerifier;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
 
 /**
  * Utility class for agent-based and PKCE OAuth2 login flows.
@@ -95,19 +95,20 @@ public final class AgentBasedLoginUtils {
                 "{\"grant_type\":\"authorization_code\",\"redirect_uri\":\"%s\",\"code\":\"%s\",\"code_verifier\":\"%s\"}",
                 redirectUri, authorizationCode, codeVerifier);
 
-        CloseableHttpResponse response = rstsClient.execPOST("oauth2/token", null, null, null,
+        FullResponse response = rstsClient.execPOSTFull("oauth2/token", null, null, null,
                 new com.oneidentity.safeguard.safeguardjava.data.JsonBody(body));
 
         if (response == null) {
+            Deadline.checkCurrent();
             throw new SafeguardForJavaException(
                     String.format("Unable to connect to RSTS service %s", rstsUrl));
         }
 
-        String reply = Utils.getResponse(response);
-        if (!Utils.isSuccessful(response.getCode())) {
+        String reply = response.getBody();
+        if (!Utils.isSuccessful(response.getStatusCode())) {
             throw new SafeguardForJavaException(
                     "Error exchanging authorization code for RSTS token, Error: "
-                    + String.format("%d %s", response.getCode(), reply));
+                    + String.format("%d %s", response.getStatusCode(), reply));
         }
 
         Map<String, String> map = Utils.parseResponse(reply);
@@ -138,19 +139,20 @@ public final class AgentBasedLoginUtils {
 
         String body = String.format("{\"StsAccessToken\":\"%s\"}", new String(rstsAccessToken));
 
-        CloseableHttpResponse response = coreClient.execPOST("Token/LoginResponse", null, null, null,
+        FullResponse response = coreClient.execPOSTFull("Token/LoginResponse", null, null, null,
                 new com.oneidentity.safeguard.safeguardjava.data.JsonBody(body));
 
         if (response == null) {
+            Deadline.checkCurrent();
             throw new SafeguardForJavaException(
                     String.format("Unable to connect to web service %s", coreUrl));
         }
 
-        String reply = Utils.getResponse(response);
-        if (!Utils.isSuccessful(response.getCode())) {
+        String reply = response.getBody();
+        if (!Utils.isSuccessful(response.getStatusCode())) {
             throw new SafeguardForJavaException(
                     "Error exchanging RSTS token for Safeguard API access token, Error: "
-                    + String.format("%d %s", response.getCode(), reply));
+                    + String.format("%d %s", response.getStatusCode(), reply));
         }
 
         return Utils.parseResponse(reply);
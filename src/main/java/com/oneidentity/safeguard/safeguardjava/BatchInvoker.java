@@ -0,0 +1,95 @@
+package com.oneidentity.safeguard.safeguardjava;
+
+import com.oneidentity.safeguard.safeguardjava.data.BatchResult;
+import com.oneidentity.safeguard.safeguardjava.data.FullResponse;
+import com.oneidentity.safeguard.safeguardjava.data.SafeguardRequest;
+import com.oneidentity.safeguard.safeguardjava.exceptions.ArgumentException;
+import com.oneidentity.safeguard.safeguardjava.exceptions.ObjectDisposedException;
+import com.oneidentity.safeguard.safeguardjava.exceptions.SafeguardForJavaException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Sends the requests of a batch on the non-blocking client of a connection,
+ * keeping at most a fixed number of them in flight. Requests are started
+ * from the calling thread as earlier ones complete, so token checks and
+ * deadlines behave as for individual calls.
+ */
+class BatchInvoker {
+
+    /** Default number of batch requests in flight at the same time. */
+    static final int DEFAULT_CONCURRENCY = 8;
+
+    private BatchInvoker() {
+    }
+
+    static List<BatchResult> invoke(ISafeguardConnection connection, List<SafeguardRequest> requests, Integer maxConcurrency)
+            throws SafeguardForJavaException, ArgumentException {
+
+        if (requests == null) {
+            throw new ArgumentException("Parameter requests may not be null");
+        }
+        if (maxConcurrency != null && maxConcurrency <= 0) {
+            throw new ArgumentException("Parameter maxConcurrency must be greater than zero");
+        }
+        int concurrency = maxConcurrency != null ? maxConcurrency : DEFAULT_CONCURRENCY;
+
+        BatchResult[] results = new BatchResult[requests.size()];
+        Map<Integer, CompletableFuture<FullResponse>> inFlight = new HashMap<>();
+        BlockingQueue<Integer> completed = new LinkedBlockingQueue<>();
+        int next = 0;
+        int running = 0;
+
+        try {
+            while (next < results.length || running > 0) {
+                while (next < results.length && running < concurrency) {
+                    final int index = next++;
+                    SafeguardRequest request = requests.get(index);
+                    CompletableFuture<FullResponse> pending = start(connection, request);
+                    inFlight.put(index, pending);
+                    running++;
+                    pending.whenComplete((response, ex) -> {
+                        results[index] = new BatchResult(request, response, ex == null ? null : unwrap(ex));
+                        completed.add(index);
+                    });
+                }
+                inFlight.remove(completed.take());
+                running--;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            inFlight.values().forEach(pending -> pending.cancel(false));
+            throw new SafeguardForJavaException("Interrupted while waiting for batch requests", ex);
+        }
+
+        return Arrays.asList(results);
+    }
+
+    private static CompletableFuture<FullResponse> start(ISafeguardConnection connection, SafeguardRequest request) {
+        try {
+            if (request == null) {
+                throw new ArgumentException("Batch request may not be null");
+            }
+            return connection.invokeMethodFullAsync(request.getService(), request.getMethod(), request.getRelativeUrl(),
+                    request.getBody(), request.getParameters(), request.getAdditionalHeaders(), request.getTimeout());
+        } catch (ObjectDisposedException | SafeguardForJavaException | ArgumentException ex) {
+            CompletableFuture<FullResponse> failed = new CompletableFuture<>();
+            failed.completeExceptionally(ex);
+            return failed;
+        }
+    }
+
+    private static Exception unwrap(Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        if (cause instanceof Exception) {
+            return (Exception) cause;
+        }
+        return new SafeguardForJavaException("Batch request failed", cause);
+    }
+}
@@ -0,0 +1,405 @@
+package com.oneidentity.safeguard.safeguardjava;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.oneidentity.safeguard.safeguardjava.data.ExportFormat;
+import com.oneidentity.safeguard.safeguardjava.data.FullResponse;
+import com.oneidentity.safeguard.safeguardjava.data.Method;
+import com.oneidentity.safeguard.safeguardjava.data.Service;
+import com.oneidentity.safeguard.safeguardjava.exceptions.ArgumentException;
+import com.oneidentity.safeguard.safeguardjava.exceptions.ObjectDisposedException;
+import com.oneidentity.safeguard.safeguardjava.exceptions.SafeguardForJavaException;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import org.apache.hc.core5.http.HttpHeaders;
+
+/**
+ * Exports every item of a large Safeguard collection by fetching several
+ * pages at once.
+ * <p>
+ * The collection is split into pages with the {@code page} and {@code limit}
+ * query parameters. Up to {@code parallelism} pages are requested at the same
+ * time on the non-blocking client of the connection, which also bounds them
+ * by the pool settings of its {@link ConnectionOptions}. Pages are written to
+ * the sink on the calling thread as they arrive, either in page order or, when
+ * {@code ordered} is disabled, in the order they complete. The export ends
+ * with the first page that holds fewer items than the page size. At most a
+ * few pages are held in memory at any time.
+ * <p>
+ * Pages are read independently, so items that are added or removed during
+ * the export may be missed or exported twice. Sort the collection by a stable
+ * key, for example with an {@code orderby=Id} parameter, to keep the pages
+ * consistent.
+ */
+public class BulkExport {
+
+    /** Default number of items requested per page. */
+    public static final int DEFAULT_PAGE_SIZE = 1000;
+    /** Default number of pages requested at the same time. */
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    private final ISafeguardConnection connection;
+    private final Service service;
+    private final String relativeUrl;
+    private Map<String, String> parameters = null;
+    private Map<String, String> additionalHeaders = null;
+    private int pageSize = DEFAULT_PAGE_SIZE;
+    private int parallelism = DEFAULT_PARALLELISM;
+    private boolean ordered = true;
+    private Integer timeout = null;
+
+    /**
+     * Creates an export of a collection.
+     *
+     * @param connection The connection to read the collection from.
+     * @param service The Safeguard service that owns the collection.
+     * @param relativeUrl Relative URL of the collection, for example {@code AssetAccounts}.
+     * @throws ArgumentException If the connection or URL is missing.
+     */
+    public BulkExport(ISafeguardConnection connection, Service service, String relativeUrl) throws ArgumentException {
+        if (connection == null) {
+            throw new ArgumentException("Parameter connection may not be null");
+        }
+        if (Utils.isNullOrEmpty(relativeUrl)) {
+            throw new ArgumentException("Parameter relativeUrl may not be null or empty");
+        }
+        this.connection = connection;
+        this.service = service;
+        this.relativeUrl = relativeUrl;
+    }
+
+    public Map<String, String> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * Sets additional query parameters, such as a filter or sort order, that
+     * are sent with every page request.
+     *
+     * @param parameters The parameters; may be null.
+     */
+    public void setParameters(Map<String, String> parameters) {
+        this.parameters = parameters;
+    }
+
+    public Map<String, String> getAdditionalHeaders() {
+        return additionalHeaders;
+    }
+
+    public void setAdditionalHeaders(Map<String, String> additionalHeaders) {
+        this.additionalHeaders = additionalHeaders;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Sets the number of items requested per page.
+     *
+     * @param pageSize The page size; must be greater than zero.
+     * @throws ArgumentException If the value is less than or equal to zero.
+     */
+    public void setPageSize(int pageSize) throws ArgumentException {
+        if (pageSize <= 0) {
+            throw new ArgumentException("The pageSize parameter must be greater than zero");
+        }
+        this.pageSize = pageSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the number of pages requested at the same time.
+     *
+     * @param parallelism The number of concurrent requests; must be greater than zero.
+     * @throws ArgumentException If the value is less than or equal to zero.
+     */
+    public void setParallelism(int parallelism) throws ArgumentException {
+        if (parallelism <= 0) {
+            throw new ArgumentException("The parallelism parameter must be greater than zero");
+        }
+        this.parallelism = parallelism;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    /**
+     * Sets whether pages are written in page order. When disabled, each page
+     * is written as soon as it arrives, which avoids holding back completed
+     * pages behind a slow one.
+     *
+     * @param ordered {@code true} to write pages in order; the default.
+     */
+    public void setOrdered(boolean ordered) {
+        this.ordered = ordered;
+    }
+
+    public Integer getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Sets the timeout of each page request.
+     *
+     * @param timeout Per-request timeout in milliseconds (null for default)
+     */
+    public void setTimeout(Integer timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Exports the collection, passing each item to the callback as a JSON string.
+     *
+     * @param callback The callback that receives the items.
+     * @return The number of items exported.
+     * @throws SafeguardForJavaException If a page could not be read or the callback failed.
+     * @throws ArgumentException Invalid argument.
+     */
+    public long export(IExportCallback callback) throws SafeguardForJavaException, ArgumentException {
+        if (callback == null) {
+            throw new ArgumentException("Parameter callback may not be null");
+        }
+        try {
+            return run(false, page -> {
+                for (Iterator<JsonNode> items = page.items; items.hasNext();) {
+                    callback.onItem(items.next().toString());
+                }
+            });
+        } catch (IOException ex) {
+            throw new SafeguardForJavaException("Unable to export the collection", ex);
+        }
+    }
+
+    /**
+     * Exports the collection to a file, replacing the file if it exists.
+     *
+     * @param file The file to write.
+     * @param format The format of the file.
+     * @return The number of items exported.
+     * @throws SafeguardForJavaException If a page could not be read or the file could not be written.
+     * @throws ArgumentException Invalid argument.
+     */
+    public long exportToFile(Path file, ExportFormat format) throws SafeguardForJavaException, ArgumentException {
+        if (file == null) {
+            throw new ArgumentException("Parameter file may not be null");
+        }
+        boolean csv = format == ExportFormat.Csv;
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            return run(csv, new PageWriter() {
+                private boolean headerWritten = false;
+
+                @Override
+                public void write(Page page) throws IOException {
+                    if (csv) {
+                        writeCsv(writer, page);
+                    } else {
+                        for (Iterator<JsonNode> items = page.items; items.hasNext();) {
+                            writer.write(items.next().toString());
+                            writer.newLine();
+                        }
+                    }
+                }
+
+                private void writeCsv(Writer writer, Page page) throws IOException {
+                    int start = headerWritten ? page.headerLength : 0;
+                    if (start < page.body.length()) {
+                        writer.write(page.body, start, page.body.length() - start);
+                        if (!page.body.endsWith("\n")) {
+                            writer.write("\r\n");
+                        }
+                        headerWritten = true;
+                    }
+                }
+            });
+        } catch (IOException ex) {
+            throw new SafeguardForJavaException(String.format("Unable to write %s", file), ex);
+        }
+    }
+
+    private long run(boolean csv, PageWriter writer) throws SafeguardForJavaException, IOException {
+        BlockingQueue<Page> completed = new LinkedBlockingQueue<>();
+        Map<Integer, CompletableFuture<FullResponse>> inFlight = new HashMap<>();
+        TreeMap<Integer, Page> buffered = new TreeMap<>();
+        int nextPage = 0;
+        int nextToWrite = 0;
+        int lastPage = Integer.MAX_VALUE;
+        long count = 0;
+
+        try {
+            while (true) {
+                while (inFlight.size() < parallelism && nextPage <= lastPage
+                        && (!ordered || nextPage < nextToWrite + 2 * parallelism)) {
+                    final int index = nextPage++;
+                    CompletableFuture<FullResponse> request = requestPage(index, csv);
+                    inFlight.put(index, request);
+                    request.whenComplete((response, ex) -> completed.add(new Page(index, response != null ? response.getBody() : null, ex)));
+                }
+                if (inFlight.isEmpty()) {
+                    break;
+                }
+
+                Page page = completed.take();
+                if (inFlight.remove(page.index) == null || page.index > lastPage) {
+                    continue;
+                }
+                if (page.error != null) {
+                    Throwable cause = page.error instanceof CompletionException && page.error.getCause() != null
+                            ? page.error.getCause() : page.error;
+                    if (cause instanceof SafeguardForJavaException) {
+                        throw (SafeguardForJavaException) cause;
+                    }
+                    throw new SafeguardForJavaException(String.format("Unable to read page %d of %s", page.index, relativeUrl), cause);
+                }
+
+                page.parse(csv);
+                if (page.itemCount < pageSize) {
+                    lastPage = page.index;
+                    buffered.tailMap(lastPage, false).clear();
+                    for (Iterator<Map.Entry<Integer, CompletableFuture<FullResponse>>> it = inFlight.entrySet().iterator(); it.hasNext();) {
+                        Map.Entry<Integer, CompletableFuture<FullResponse>> entry = it.next();
+                        if (entry.getKey() > lastPage) {
+                            entry.getValue().cancel(false);
+                            it.remove();
+                        }
+                    }
+                }
+
+                if (!ordered) {
+                    writer.write(page);
+                    count += page.itemCount;
+                    continue;
+                }
+                buffered.put(page.index, page);
+                while (!buffered.isEmpty() && buffered.firstKey() == nextToWrite) {
+                    Page next = buffered.pollFirstEntry().getValue();
+                    writer.write(next);
+                    count += next.itemCount;
+                    nextToWrite++;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SafeguardForJavaException("Interrupted while exporting " + relativeUrl, ex);
+        } finally {
+            for (CompletableFuture<FullResponse> request : inFlight.values()) {
+                request.cancel(false);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Requests a page. The future is the one returned by the connection, so
+     * that cancelling it aborts the request.
+     */
+    private CompletableFuture<FullResponse> requestPage(int index, boolean csv) {
+        Map<String, String> pageParameters = parameters != null ? new HashMap<>(parameters) : new HashMap<>();
+        pageParameters.put("page", Integer.toString(index));
+        pageParameters.put("limit", Integer.toString(pageSize));
+        Map<String, String> headers = additionalHeaders != null ? new HashMap<>(additionalHeaders) : new HashMap<>();
+        if (csv) {
+            headers.put(HttpHeaders.ACCEPT, "text/csv");
+        }
+
+        try {
+            return connection.invokeMethodFullAsync(service, Method.Get, relativeUrl, null, pageParameters, headers, timeout);
+        } catch (ObjectDisposedException | SafeguardForJavaException | ArgumentException ex) {
+            CompletableFuture<FullResponse> failed = new CompletableFuture<>();
+            failed.completeExceptionally(ex);
+            return failed;
+        }
+    }
+
+    private interface PageWriter {
+        void write(Page page) throws IOException, SafeguardForJavaException;
+    }
+
+    private static final class Page {
+        private final int index;
+        private final String body;
+        private final Throwable error;
+        private Iterator<JsonNode> items = Collections.emptyIterator();
+        private int itemCount = 0;
+        private int headerLength = 0;
+
+        private Page(int index, String body, Throwable error) {
+            this.index = index;
+            this.body = body != null ? body : "";
+            this.error = error;
+        }
+
+        private void parse(boolean csv) throws SafeguardForJavaException {
+            if (csv) {
+                parseCsv();
+                return;
+            }
+            if (body.trim().isEmpty()) {
+                return;
+            }
+            JsonNode page;
+            try {
+                page = Utils.jsonReader(JsonNode.class).readTree(body);
+            } catch (IOException ex) {
+                throw new SafeguardForJavaException(String.format("Unable to parse page %d as JSON", index), ex);
+            }
+            if (!page.isArray()) {
+                throw new SafeguardForJavaException(String.format("Page %d is not a JSON array", index));
+            }
+            itemCount = page.size();
+            items = page.elements();
+        }
+
+        /**
+         * Counts the records of a CSV page, ignoring line breaks inside quoted
+         * fields, and finds the end of its header row.
+         */
+        private void parseCsv() {
+            int records = 0;
+            boolean quoted = false;
+            boolean content = false;
+            for (int i = 0; i < body.length(); i++) {
+                char c = body.charAt(i);
+                if (c == '"') {
+                    quoted = !quoted;
+                } else if (c == '\n' && !quoted) {
+                    if (content) {
+                        records++;
+                        if (records == 1) {
+                            headerLength = i + 1;
+                        }
+                    }
+                    content = false;
+                    continue;
+                }
+                if (c != '\r') {
+                    content = true;
+                }
+            }
+            if (content) {
+                records++;
+                if (records == 1) {
+                    headerLength = body.length();
+                }
+            }
+            itemCount = Math.max(0, records - 1);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.oneidentity.safeguard.safeguardjava;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.oneidentity.safeguard.safeguardjava.data.FullResponse;
+import com.oneidentity.safeguard.safeguardjava.restclient.RestClient;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.hc.core5.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One appliance of a cluster, as seen by a connection that spreads requests
+ * over several appliances.
+ *
+ * <p>A member is healthy once its last probe of the anonymous notification
+ * service found it online and no request sent to it has failed since, not
+ * counting requests that timed out only because their caller gave them less
+ * time than the default. Its
+ * load is its number of outstanding requests weighted by the moving average
+ * of its latency, so that a slow member is sent fewer requests.
+ */
+final class ClusterMember {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterMember.class);
+
+    /** Timeout in milliseconds of a health probe. */
+    static final int PROBE_TIMEOUT_MS = 5000;
+
+    private static final Map<String, String> PROBE_HEADERS = Collections.singletonMap("Accept", "application/json");
+
+    private final String networkAddress;
+    private final RestClient client;
+    private final RestClient notificationClient;
+    private volatile boolean online;
+    private volatile long failuresAtProbe;
+
+    /**
+     * @param networkAddress Network address of the appliance.
+     * @param client Client that requests routed to this member are sent with.
+     * @param notificationClient Client of the notification service of the
+     *        appliance, used to probe it.
+     * @param online Whether the member is taken to be online before its
+     *        first probe.
+     */
+    ClusterMember(String networkAddress, RestClient client, RestClient notificationClient, boolean online) {
+        this.networkAddress = networkAddress;
+        this.client = client;
+        this.notificationClient = notificationClient;
+        this.online = online;
+    }
+
+    /**
+     * Probes each member at once and then at the given interval, from daemon
+     * threads that end when the returned executor is shut down.
+     */
+    static ScheduledExecutorService startProbes(List<ClusterMember> members, int intervalMillis) {
+        ScheduledExecutorService executor = Executors.newScheduledThreadPool(Math.max(1, Math.min(members.size(), 4)), runnable -> {
+            Thread thread = new Thread(runnable, "safeguard-cluster-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (ClusterMember member : members) {
+            executor.scheduleWithFixedDelay(member::probe, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+        return executor;
+    }
+
+    String getNetworkAddress() {
+        return networkAddress;
+    }
+
+    RestClient getClient() {
+        return client;
+    }
+
+    boolean isHealthy() {
+        return online && client.getFailureCount() == failuresAtProbe && !client.isCircuitOpen();
+    }
+
+    double getLoad() {
+        return load(client);
+    }
+
+    /**
+     * Gets the load of a client: its outstanding requests, counting the one
+     * about to be sent, times its average latency.
+     */
+    static double load(RestClient client) {
+        return (client.getOutstandingRequests() + 1) * (double) Math.max(1, client.getLatencyNanos());
+    }
+
+    /**
+     * Checks whether the appliance is online and updates the health of the
+     * member accordingly.
+     */
+    void probe() {
+        long failures = client.getFailureCount();
+        boolean healthy;
+        try {
+            FullResponse response = notificationClient.execGETFull("Status", null, PROBE_HEADERS, PROBE_TIMEOUT_MS);
+            healthy = response != null && response.getStatusCode() == HttpStatus.SC_OK && isOnline(response.getBody());
+        } catch (RuntimeException ex) {
+            // An exception would end the scheduled probes of this member
+            logger.debug("Health probe of cluster member {} failed", networkAddress, ex);
+            healthy = false;
+        }
+        failuresAtProbe = failures;
+        if (healthy != online) {
+            logger.info("Cluster member {} is {}", networkAddress, healthy ? "healthy" : "unhealthy");
+        }
+        online = healthy;
+    }
+
+    private static boolean isOnline(String status) {
+        if (Utils.isNullOrEmpty(status)) {
+            return true;
+        }
+        try {
+            JsonNode state = Utils.jsonReader(JsonNode.class).<JsonNode>readValue(status).get("ApplianceCurrentState");
+            return state == null || "Online".equalsIgnoreCase(state.asText());
+        } catch (IOException ex) {
+            return true;
+        }
+    }
+
+    void close() {
+        client.close();
+        notificationClient.close();
+    }
+}
@@ -0,0 +1,1056 @@
+package com.oneidentity.safeguard.safeguardjava;
+
+import com.oneidentity.safeguard.safeguardjava.exceptions.ArgumentException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.hc.client5.http.DnsResolver;
+
+/**
+ * Tunable transport options for a Safeguard API connection.
+ * <p>
+ * By default every REST client owns a single connection, which serializes all
+ * traffic through that client. Enabling connection pooling replaces it with a
+ * thread-safe pool so that concurrent calls on the same connection are sent in
+ * parallel:
+ * <ul>
+ *   <li>{@code maxConnectionsTotal} bounds the number of connections held by
+ *       each REST client; defaults to 20.</li>
+ *   <li>{@code maxConnectionsPerRoute} bounds the number of connections to a
+ *       single appliance service; defaults to 10.</li>
+ *   <li>{@code idleConnectionTimeoutSeconds} closes pooled connections that have
+ *       been idle for longer than this; defaults to 30. Zero disables idle
+ *       eviction.</li>
+ *   <li>{@code evictExpiredConnections} closes pooled connections whose
+ *       keep-alive has expired; enabled by default.</li>
+ *   <li>{@code validateAfterInactivityMillis} re-validates a pooled connection
+ *       before reuse when it has been inactive for longer than this; defaults
+ *       to 2000.</li>
+ * </ul>
+ * The pool settings are ignored unless {@code connectionPooling} is enabled.
+ * <p>
+ * Clients bound to a client certificate are cached per certificate and are
+ * always pooled, since they are shared between callers;
+ * {@code certificateClientCacheSize} bounds the number of cached clients and
+ * defaults to 4.
+ * <p>
+ * The asynchronous API always uses a pooled, non-blocking client that is
+ * created on first use; it honors the pool settings above, and
+ * {@code asyncIoThreadCount} sets the number of I/O threads that service all
+ * outstanding asynchronous requests of a REST client; defaults to 2.
+ * <p>
+ * Enabling {@code http2} sends both blocking and asynchronous requests over
+ * the non-blocking client and negotiates HTTP/2 with ALPN, falling back to
+ * HTTP/1.1 when the appliance does not offer it. Concurrent requests to a
+ * service are then multiplexed over a single TLS connection. ALPN requires
+ * Java 8u252 or later.
+ * <p>
+ * With {@code contentCompression} enabled, the default, requests advertise
+ * gzip and deflate in {@code Accept-Encoding} and compressed responses are
+ * decompressed as they are read, which greatly reduces the transfer size of
+ * large JSON listings. JSON request bodies are sent uncompressed unless
+ * {@code requestCompressionThreshold} is set, in which case bodies of at least
+ * that many characters are gzip-compressed; only enable this when the
+ * appliance, or any proxy in front of it, accepts compressed request bodies.
+ * <p>
+ * {@code leakDetectionThresholdMillis} is a debugging aid: when it is greater
+ * than zero, responses that are still holding their connection after this
+ * long are logged with the stack trace of the call that obtained them;
+ * disabled by default.
+ * <p>
+ * {@code responseCacheSize} enables a per-connection cache of GET responses
+ * that holds at most that many entries, dropping the least recently used.
+ * Cached responses are revalidated with {@code If-None-Match} or
+ * {@code If-Modified-Since}, so an unchanged resource costs a 304 exchange
+ * instead of the full body, and are served without a request while a
+ * {@code Cache-Control: max-age} from the appliance is still fresh. Any
+ * successful POST, PUT or DELETE on the connection clears the cache; disabled
+ * by default.
+ * <p>
+ * {@code maxRetries} resends a request that could not reach the appliance or
+ * that was answered with 429, 502, 503 or 504, up to that many times; disabled
+ * by default. Only GET, PUT and DELETE are retried unless {@code retryPost} is
+ * enabled, since a POST that timed out may already have been applied. The
+ * delay before each retry is drawn at random between zero and an exponential
+ * backoff that starts at {@code retryBaseDelayMillis} (default 200) and is
+ * capped at {@code retryMaxDelayMillis} (default 10000), so that many clients
+ * do not retry in lockstep. A {@code Retry-After} from the appliance is
+ * honored instead; when it asks for longer than {@code retryMaxDelayMillis}
+ * the request fails without retrying. {@code retryBudgetPercent} limits
+ * retries to that percentage of the requests sent on the connection in the
+ * last ten seconds, plus a reserve of ten retries, so that an outage does not
+ * multiply the load on the appliance; defaults to 20.
+ * <p>
+ * {@code maxRequestsPerSecond} limits the rate at which requests are sent to
+ * the appliance with a token bucket that holds up to {@code rateLimitBurst}
+ * requests (by default one second's worth); disabled by default. The limit is
+ * shared by all connections and A2A contexts to the same network address in
+ * the JVM. Requests over the limit wait for their turn, or, with
+ * {@code rateLimitFailFast}, fail at once with a 429 response and a
+ * {@code Retry-After}, as if the appliance had throttled them.
+ * <p>
+ * {@code circuitBreakerFailureRateThreshold} enables a circuit breaker per
+ * service endpoint, shared by all connections and A2A contexts in the JVM;
+ * disabled by default. It opens when, over the last
+ * {@code circuitBreakerWindowSize} requests (default 20), that percentage got
+ * no response or a 502, 503 or 504, or when
+ * {@code circuitBreakerSlowCallRateThreshold} percent (default 80) took longer
+ * than {@code circuitBreakerSlowCallDurationMillis} (default 10000). While
+ * open, requests fail at once with a {@link
+ * com.oneidentity.safeguard.safeguardjava.exceptions.CircuitBreakerOpenException}
+ * instead of tying up a thread until they time out. After
+ * {@code circuitBreakerOpenDurationMillis} (default 30000) a few trial
+ * requests are sent, and the breaker closes again if they succeed.
+ * <p>
+ * {@code replicaAddresses} lists the other members of the cluster of the
+ * appliance a connection is made to, which is then treated as the primary.
+ * GET requests to the core service are spread over the primary and the
+ * healthy replicas, each going to the member with the fewest outstanding
+ * requests weighted by its recent latency; all other requests go to the
+ * primary. Replicas are probed through the anonymous notification service
+ * every {@code healthCheckIntervalMillis} (default 10000), and one that failed
+ * a request is skipped until it passes a probe again. Replicas may lag behind
+ * the primary, so a read that must see a write just made should be sent with
+ * a connection without replicas. An A2A context treats its appliance and the
+ * replicas alike: each A2A request goes to the healthy member with the lowest
+ * load, and any but a POST moves on to another member when one cannot be
+ * reached or answers 502, 503 or 504.
+ * <p>
+ * {@code hedgedRequests} makes an A2A context with replicas hedge its reads:
+ * when a GET has not been answered after {@code hedgeDelayMillis}, a second
+ * copy goes to another healthy member, the first answer is used and the other
+ * request is aborted. With a delay of zero, the default, it is the 95th
+ * percentile of the recent reads of the context. Hedges are limited to
+ * {@code hedgeBudgetPercent} (default 10) of the reads, so that a slow cluster
+ * is not sent twice the load. Disabled by default.
+ * <p>
+ * {@code warmUpOnConnect} makes a new connection or A2A context open
+ * {@code warmUpConnections} connections (default 2) per service in the
+ * background, so that the first requests do not wait for TCP and TLS
+ * handshakes; disabled by default. The same is done on demand, waiting for
+ * the connections to open, by {@code warmUp()} of the connection or context.
+ * <p>
+ * {@code dnsResolver} replaces the system resolver that looks up the address
+ * of the appliance for each new connection. {@code dnsCacheTtlMillis} caches
+ * lookups, shared by all connections and A2A contexts with the same resolver
+ * in the JVM, with failed lookups cached for
+ * {@code dnsNegativeCacheTtlMillis} (default 5000); disabled by default.
+ * {@code dnsRoundRobin} spreads new connections over all the addresses a name
+ * resolves to, such as those of the members of a cluster behind one name,
+ * instead of always trying them in the same order.
+ */
+public class ConnectionOptions {
+
+    /** Default maximum number of pooled connections per REST client. */
+    public static final int DEFAULT_MAX_CONNECTIONS_TOTAL = 20;
+
+    /** Default maximum number of pooled connections per route. */
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 10;
+
+    /** Default idle time in seconds after which pooled connections are closed. */
+    public static final int DEFAULT_IDLE_CONNECTION_TIMEOUT_SECONDS = 30;
+
+    /** Default inactivity in milliseconds after which a pooled connection is re-validated. */
+    public static final int DEFAULT_VALIDATE_AFTER_INACTIVITY_MILLIS = 2000;
+
+    /** Default maximum number of cached certificate-bound clients. */
+    public static final int DEFAULT_CERTIFICATE_CLIENT_CACHE_SIZE = 4;
+
+    /** Default number of I/O threads of the asynchronous client. */
+    public static final int DEFAULT_ASYNC_IO_THREAD_COUNT = 2;
+
+    /** Default initial backoff in milliseconds before retrying a request. */
+    public static final int DEFAULT_RETRY_BASE_DELAY_MILLIS = 200;
+
+    /** Default maximum backoff in milliseconds before retrying a request. */
+    public static final int DEFAULT_RETRY_MAX_DELAY_MILLIS = 10000;
+
+    /** Default percentage of requests that may be retried. */
+    public static final int DEFAULT_RETRY_BUDGET_PERCENT = 20;
+
+    /** Default number of recent requests the circuit breaker looks at. */
+    public static final int DEFAULT_CIRCUIT_BREAKER_WINDOW_SIZE = 20;
+
+    /** Default percentage of slow requests that opens the circuit breaker. */
+    public static final int DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_RATE_THRESHOLD = 80;
+
+    /** Default duration in milliseconds after which a request counts as slow. */
+    public static final int DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_DURATION_MILLIS = 10000;
+
+    /** Default time in milliseconds the circuit breaker stays open. */
+    public static final int DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION_MILLIS = 30000;
+
+    /** Default interval in milliseconds between health probes of cluster members. */
+    public static final int DEFAULT_HEALTH_CHECK_INTERVAL_MILLIS = 10000;
+
+    /** Default percentage of reads that may be hedged. */
+    public static final int DEFAULT_HEDGE_BUDGET_PERCENT = 10;
+
+    /** Default number of connections opened per service by a warm-up. */
+    public static final int DEFAULT_WARM_UP_CONNECTIONS = 2;
+
+    /** Default time in milliseconds that a failed host name lookup is cached. */
+    public static final int DEFAULT_DNS_NEGATIVE_CACHE_TTL_MILLIS = 5000;
+
+    private boolean connectionPooling = false;
+    private int maxConnectionsTotal = DEFAULT_MAX_CONNECTIONS_TOTAL;
+    private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+    private int idleConnectionTimeoutSeconds = DEFAULT_IDLE_CONNECTION_TIMEOUT_SECONDS;
+    private boolean evictExpiredConnections = true;
+    private int validateAfterInactivityMillis = DEFAULT_VALIDATE_AFTER_INACTIVITY_MILLIS;
+    private int certificateClientCacheSize = DEFAULT_CERTIFICATE_CLIENT_CACHE_SIZE;
+    private int asyncIoThreadCount = DEFAULT_ASYNC_IO_THREAD_COUNT;
+    private boolean http2 = false;
+    private boolean contentCompression = true;
+    private int requestCompressionThreshold = 0;
+    private long leakDetectionThresholdMillis = 0;
+    private int responseCacheSize = 0;
+    private int maxRetries = 0;
+    private boolean retryPost = false;
+    private int retryBaseDelayMillis = DEFAULT_RETRY_BASE_DELAY_MILLIS;
+    private int retryMaxDelayMillis = DEFAULT_RETRY_MAX_DELAY_MILLIS;
+    private int retryBudgetPercent = DEFAULT_RETRY_BUDGET_PERCENT;
+    private int maxRequestsPerSecond = 0;
+    private int rateLimitBurst = 0;
+    private boolean rateLimitFailFast = false;
+    private int circuitBreakerFailureRateThreshold = 0;
+    private int circuitBreakerSlowCallRateThreshold = DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_RATE_THRESHOLD;
+    private int circuitBreakerSlowCallDurationMillis = DEFAULT_CIRCUIT_BREAKER_SLOW_CALL_DURATION_MILLIS;
+    private int circuitBreakerWindowSize = DEFAULT_CIRCUIT_BREAKER_WINDOW_SIZE;
+    private int circuitBreakerOpenDurationMillis = DEFAULT_CIRCUIT_BREAKER_OPEN_DURATION_MILLIS;
+    private List<String> replicaAddresses = Collections.emptyList();
+    private int healthCheckIntervalMillis = DEFAULT_HEALTH_CHECK_INTERVAL_MILLIS;
+    private boolean hedgedRequests = false;
+    private int hedgeDelayMillis = 0;
+    private int hedgeBudgetPercent = DEFAULT_HEDGE_BUDGET_PERCENT;
+    private boolean warmUpOnConnect = false;
+    private int warmUpConnections = DEFAULT_WARM_UP_CONNECTIONS;
+    private DnsResolver dnsResolver = null;
+    private int dnsCacheTtlMillis = 0;
+    private int dnsNegativeCacheTtlMillis = DEFAULT_DNS_NEGATIVE_CACHE_TTL_MILLIS;
+    private boolean dnsRoundRobin = false;
+
+    /**
+     * Gets whether the REST clients use a pooled, thread-safe connection manager.
+     *
+     * @return {@code true} if connection pooling is enabled.
+     */
+    public boolean isConnectionPooling() {
+        return connectionPooling;
+    }
+
+    /**
+     * Sets whether the REST clients use a pooled, thread-safe connection manager.
+     *
+     * @param connectionPooling {@code true} to enable connection pooling.
+     */
+    public void setConnectionPooling(boolean connectionPooling) {
+        this.connectionPooling = connectionPooling;
+    }
+
+    /**
+     * Gets the maximum number of pooled connections per REST client.
+     *
+     * @return The maximum number of connections.
+     */
+    public int getMaxConnectionsTotal() {
+        return maxConnectionsTotal;
+    }
+
+    /**
+     * Sets the maximum number of pooled connections per REST client.
+     *
+     * @param maxConnectionsTotal The maximum number of connections; must be greater than zero.
+     * @throws ArgumentException If the value is less than or equal to zero.
+     */
+    public void setMaxConnectionsTotal(int maxConnectionsTotal) throws ArgumentException {
+        if (maxConnectionsTotal <= 0) {
+            throw new ArgumentException("The maxConnectionsTotal parameter must be greater than zero");
+        }
+        this.maxConnectionsTotal = maxConnectionsTotal;
+    }
+
+    /**
+     * Gets the maximum number of pooled connections per route.
+     *
+     * @return The maximum number of connections per route.
+     */
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    /**
+     * Sets the maximum number of pooled connections per route.
+     *
+     * @param maxConnectionsPerRoute The maximum number of connections per route; must be greater than zero.
+     * @throws ArgumentException If the value is less than or equal to zero.
+     */
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) throws ArgumentException {
+        if (maxConnectionsPerRoute <= 0) {
+            throw new ArgumentException("The maxConnectionsPerRoute parameter must be greater than zero");
+        }
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    /**
+     * Gets the idle time in seconds after which pooled connections are closed.
+     *
+     * @return The idle timeout in seconds; zero when idle eviction is disabled.
+     */
+    public int getIdleConnectionTimeoutSeconds() {
+        return idleConnectionTimeoutSeconds;
+    }
+
+    /**
+     * Sets the idle time in seconds after which pooled connections are closed.
+     *
+     * @param idleConnectionTimeoutSeconds The idle timeout in seconds; zero disables idle eviction.
+     * @throws ArgumentException If the value is negative.
+     */
+    public void setIdleConnectionTimeoutSeconds(int idleConnectionTimeoutSeconds) throws ArgumentException {
+        if (idleConnectionTimeoutSeconds < 0) {
+            throw new ArgumentException("The idleConnectionTimeoutSeconds parameter may not be negative");
+        }
+        this.idleConnectionTimeoutSeconds = idleConnectionTimeoutSeconds;
+    }
+
+    /**
+     * Gets whether pooled connections with an expired keep-alive are closed.
+     *
+     * @return {@code true} if expired connections are evicted.
+     */
+    public boolean isEvictExpiredConnections() {
+        return evictExpiredConnections;
+    }
+
+    /**
+     * Sets whether pooled connections with an expired keep-alive are closed.
+     *
+     * @param evictExpiredConnections {@code true} to evict expired connections.
+     */
+    public void setEvictExpiredConnections(boolean evictExpiredConnections) {
+        this.evictExpiredConnections = evictExpiredConnections;
+    }
+
+    /**
+     * Gets the inactivity in milliseconds after which a pooled connection is
+     * re-validated before it is reused.
+     *
+     * @return The inactivity period in milliseconds.
+     */
+    public int getValidateAfterInactivityMillis() {
+        return validateAfterInactivityMillis;
+    }
+
+    /**
+     * Sets the inactivity in milliseconds after which a pooled connection is
+     * re-validated before it is reused.
+     *
+     * @param validateAfterInactivityMillis The inactivity period in milliseconds; must not be negative.
+     * @throws ArgumentException If the value is negative.
+     */
+    public void setValidateAfterInactivityMillis(int validateAfterInactivityMillis) throws ArgumentException {
+        if (validateAfterInactivityMillis < 0) {
+            throw new ArgumentException("The validateAfterInactivityMillis parameter may not be negative");
+        }
+        this.validateAfterInactivityMillis = validateAfterInactivityMillis;
+    }
+
+    /**
+     * Gets the maximum number of certificate-bound clients cached per REST
+     * client.
+     *
+     * @return The maximum number of cached clients.
+     */
+    public int getCertificateClientCacheSize() {
+        return certificateClientCacheSize;
+    }
+
+    /**
+     * Sets the maximum number of certificate-bound clients cached per REST
+     * client. The least recently used client is closed when the cache is full.
+     *
+     * @param certificateClientCacheSize The maximum number of cached clients; must be greater than zero.
+     * @throws ArgumentException If the value is less than or equal to zero.
+     */
+    public void setCertificateClientCacheSize(int certificateClientCacheSize) throws ArgumentException {
+        if (certificateClientCacheSize <= 0) {
+            throw new ArgumentException("The certificateClientCacheSize parameter must be greater than zero");
+        }
+        this.certificateClientCacheSize = certificateClientCacheSize;
+    }
+
+    /**
+     * Gets the number of I/O threads used by the asynchronous client.
+     *
+     * @return The number of I/O threads.
+     */
+    public int getAsyncIoThreadCount() {
+        return asyncIoThreadCount;
+    }
+
+    /**
+     * Sets the number of I/O threads used by the asynchronous client.
+     *
+     * @param asyncIoThreadCount The number of I/O threads; must be greater than zero.
+     * @throws ArgumentException If the value is less than or equal to zero.
+     */
+    public void setAsyncIoThreadCount(int asyncIoThreadCount) throws ArgumentException {
+        if (asyncIoThreadCount <= 0) {
+            throw new ArgumentException("The asyncIoThreadCount parameter must be greater than zero");
+        }
+        this.asyncIoThreadCount = asyncIoThreadCount;
+    }
+
+    /**
+     * Gets whether HTTP/2 is negotiated with the appliance.
+     *
+     * @return {@code true} if HTTP/2 is enabled.
+     */
+    public boolean isHttp2() {
+        return http2;
+    }
+
+    /**
+     * Sets whether HTTP/2 is negotiated with the appliance. When the appliance
+     * does not offer HTTP/2 the connection falls back to HTTP/1.1.
+     *
+     * @param http2 {@code true} to enable HTTP/2.
+     */
+    public void setHttp2(boolean http2) {
+        this.http2 = http2;
+    }
+
+    /**
+     * Gets whether compressed responses are negotiated with the appliance.
+     *
+     * @return {@code true} if response compression is enabled.
+     */
+    public boolean isContentCompression() {
+        return contentCompression;
+    }
+
+    /**
+     * Sets whether compressed responses are negotiated with the appliance.
+     *
+     * @param contentCompression {@code true} to enable response compression.
+     */
+    public void setContentCompression(boolean contentCompression) {
+        this.contentCompression = contentCompression;
+    }
+
+    /**
+     * Gets the minimum length in characters of a JSON request body that is
+     * sent gzip-compressed.
+     *
+     * @return The threshold in characters; zero when request compression is disabled.
+     */
+    public int getRequestCompressionThreshold() {
+        return requestCompressionThreshold;
+    }
+
+    /**
+     * Sets the minimum length in characters of a JSON request body that is
+     * sent gzip-compressed.
+     *
+     * @param requestCompressionThreshold The threshold in characters; zero disables request compression.
+     * @throws ArgumentException If the value is negative.
+     */
+    public void setRequestCompressionThreshold(int requestCompressionThreshold) throws ArgumentException {
+        if (requestCompressionThreshold < 0) {
+            throw new ArgumentException("The requestCompressionThreshold parameter may not be negative");
+        }
+        this.requestCompressionThreshold = requestCompressionThreshold;
+    }
+
+    /**
+     * Gets the time in milliseconds after which a response that still holds
+     * its connection is reported as a leak.
+     *
+     * @return The threshold in milliseconds; zero when leak detection is disabled.
+     */
+    public long getLeakDetectionThresholdMillis() {
+        return leakDetectionThresholdMillis;
+    }
+
+    /**
+     * Sets the time in milliseconds after which a response that still holds
+     * its connection is reported as a leak. Every request then records a
+     * stack trace, so this is meant for debugging only.
+     *
+     * @param leakDetectionThresholdMillis The threshold in milliseconds; zero disables leak detection.
+     * @throws ArgumentException If the value is negative.
+     */
+    public void setLeakDetectionThresholdMillis(long leakDetectionThresholdMillis) throws ArgumentException {
+        if (leakDetectionThresholdMillis < 0) {
+            throw new ArgumentException("The leakDetectionThresholdMillis parameter may not be negative");
+        }
+        this.leakDetectionThresholdMillis = leakDetectionThresholdMillis;
+    }
+
+    /**
+     * Gets the maximum number of GET responses cached per connection.
+     *
+     * @return The number of cached responses; zero when the cache is disabled.
+     */
+    public int getResponseCacheSize() {
+        return responseCacheSize;
+    }
+
+    /**
+     * Sets the maximum number of GET responses cached per connection.
+     *
+     * @param responseCacheSize The number of cached responses; zero disables the cache.
+     * @throws ArgumentException If the value is negative.
+     */
+    public void setResponseCacheSize(int responseCacheSize) throws ArgumentException {
+        if (responseCacheSize < 0) {
+            throw new ArgumentException("The responseCacheSize parameter may not be negative");
+        }
+        this.responseCacheSize = responseCacheSize;
+    }
+
+    /**
+     * Gets the maximum number of times a failed request is retried.
+     *
+     * @return The number of retries; zero when retries are disabled.
+     */
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Sets the maximum number of times a request is retried after a
+     * connection failure or a 429, 502, 503 or 504 response.
+     *
+     * @param maxRetries The number of retries; zero disables retries.
+     * @throws ArgumentException If the value is negative.
+     */
+    public void setMaxRetries(int maxRetries) throws ArgumentException {
+        if (maxRetries < 0) {
+            throw new ArgumentException("The maxRetries parameter may not be negative");
+        }
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * Gets whether POST requests are retried as well as GET, PUT and DELETE.
+     *
+     * @return {@code true} if POST requests are retried.
+     */
+    public boolean isRetryPost() {
+        return retryPost;
+    }
+
+    /**
+     * Sets whether POST requests are retried. Only enable this when the POST
+     * requests sent on the connection are safe to apply twice.
+     *
+     * @param retryPost {@code true} to retry POST requests.
+     */
+    public void setRetryPost(boolean retryPost) {
+        this.retryPost = retryPost;
+    }
+
+    /**
+     * Gets the backoff in milliseconds before the first retry.
+     *
+     * @return The initial backoff in milliseconds.
+     */
+    public int getRetryBaseDelayMillis() {
+        return retryBaseDelayMillis;
+    }
+
+    /**
+     * Sets the backoff in milliseconds before the first retry. The backoff
+     * doubles with every further retry.
+     *
+     * @param retryBaseDelayMillis The initial backoff in milliseconds.
+     * @throws ArgumentException If the value is less than or equal to zero.
+     */
+    public void setRetryBaseDelayMillis(int retryBaseDelayMillis) throws ArgumentException {
+        if (retryBaseDelayMillis <= 0) {
+            throw new ArgumentException("The retryBaseDelayMillis parameter must be greater than zero");
+        }
+        this.retryBaseDelayMillis = retryBaseDelayMillis;
+    }
+
+    /**
+     * Gets the maximum delay in milliseconds before a retry.
+     *
+     * @return The maximum delay in milliseconds.
+     */
+    public int getRetryMaxDelayMillis() {
+        return retryMaxDelayMillis;
+    }
+
+    /**
+     * Sets the maximum delay in milliseconds before a retry. A request whose
+     * {@code Retry-After} asks for a longer delay is not retried.
+     *
+     * @param retryMaxDelayMillis The maximum delay in milliseconds.
+     * @throws ArgumentException If the value is less than or equal to zero.
+     */
+    public void setRetryMaxDelayMillis(int retryMaxDelayMillis) throws ArgumentException {
+        if (retryMaxDelayMillis <= 0) {
+            throw new ArgumentException("The retryMaxDelayMillis parameter must be greater than zero");
+        }
+        this.retryMaxDelayMillis = retryMaxDelayMillis;
+    }
+
+    /**
+     * Gets the percentage of requests on the connection that may be retried.
+     *
+     * @return The retry budget as a percentage of requests.
+     */
+    public int getRetryBudgetPercent() {
+        return retryBudgetPercent;
+    }
+
+    /**
+     * Sets the percentage of requests on the connection in the last ten
+     * seconds that may be retried, in addition to a reserve of ten retries
+     * that allows retries on a new or quiet connection.
+     *
+     * @param retryBudgetPercent The retry budget, from 0 to 100.
+     * @throws ArgumentException If the value is outside that range.
+     */
+    public void setRetryBudgetPercent(int retryBudgetPercent) throws ArgumentException {
+        if (retryBudgetPercent < 0 || retryBudgetPercent > 100) {
+            throw new ArgumentException("The retryBudgetPercent parameter must be between 0 and 100");
+        }
+        this.retryBudgetPercent = retryBudgetPercent;
+    }
+
+    /**
+     * Gets the maximum number of requests per second sent to the appliance.
+     *
+     * @return The request rate; zero when rate limiting is disabled.
+     */
+    public int getMaxRequestsPerSecond() {
+        return maxRequestsPerSecond;
+    }
+
+    /**
+     * Sets the maximum number of requests per second sent to the appliance
+     * by all connections in the JVM to the same network address with the
+     * same rate limit settings.
+     *
+     * @param maxRequestsPerSecond The request rate; zero disables rate limiting.
+     * @throws ArgumentException If the value is negative.
+     */
+    public void setMaxRequestsPerSecond(int maxRequestsPerSecond) throws ArgumentException {
+        if (maxRequestsPerSecond < 0) {
+            throw new ArgumentException("The maxRequestsPerSecond parameter may not be negative");
+        }
+        this.maxRequestsPerSecond = maxRequestsPerSecond;
+    }
+
+    /**
+     * Gets the number of requests that may be sent at once before the rate
+     * limit applies.
+     *
+     * @return The burst size; zero to use the request rate.
+     */
+    public int getRateLimitBurst() {
+        return rateLimitBurst;
+    }
+
+    /**
+     * Sets the number of requests that may be sent at once before the rate
+     * limit applies.
+     *
+     * @param rateLimitBurst The burst size; zero to use the request rate.
+     * @throws ArgumentException If the value is negative.
+     */
+    public void setRateLimitBurst(int rateLimitBurst) throws ArgumentException {
+        if (rateLimitBurst < 0) {
+            throw new ArgumentException("The rateLimitBurst parameter may not be negative");
+        }
+        this.rateLimitBurst = rateLimitBurst;
+    }
+
+    /**
+     * Gets whether requests over the rate limit fail instead of waiting.
+     *
+     * @return {@code true} if requests over the limit fail.
+     */
+    public boolean isRateLimitFailFast() {
+        return rateLimitFailFast;
+    }
+
+    /**
+     * Sets whether requests over the rate limit fail at once with a 429
+     * response instead of waiting for their turn.
+     *
+     * @param rateLimitFailFast {@code true} to fail requests over the limit.
+     */
+    public void setRateLimitFailFast(boolean rateLimitFailFast) {
+        this.rateLimitFailFast = rateLimitFailFast;
+    }
+
+    /**
+     * Gets the percentage of failed requests that opens the circuit breaker.
+     *
+     * @return The failure rate threshold; zero when the breaker is disabled.
+     */
+    public int getCircuitBreakerFailureRateThreshold() {
+        return circuitBreakerFailureRateThreshold;
+    }
+
+    /**
+     * Sets the percentage of failed requests among the last
+     * {@code circuitBreakerWindowSize} that opens the circuit breaker.
+     *
+     * @param circuitBreakerFailureRateThreshold The threshold, from 0 to 100;
+     *        zero disables the circuit breaker.
+     * @throws ArgumentException If the value is outside that range.
+     */
+    public void setCircuitBreakerFailureRateThreshold(int circuitBreakerFailureRateThreshold) throws ArgumentException {
+        if (circuitBreakerFailureRateThreshold < 0 || circuitBreakerFailureRateThreshold > 100) {
+            throw new ArgumentException("The circuitBreakerFailureRateThreshold parameter must be between 0 and 100");
+        }
+        this.circuitBreakerFailureRateThreshold = circuitBreakerFailureRateThreshold;
+    }
+
+    /**
+     * Gets the percentage of slow requests that opens the circuit breaker.
+     *
+     * @return The slow call rate threshold; zero when slow requests are ignored.
+     */
+    public int getCircuitBreakerSlowCallRateThreshold() {
+        return circuitBreakerSlowCallRateThreshold;
+    }
+
+    /**
+     * Sets the percentage of slow requests among the last
+     * {@code circuitBreakerWindowSize} that opens the circuit breaker.
+     *
+     * @param circuitBreakerSlowCallRateThreshold The threshold, from 0 to 100;
+     *        zero ignores slow requests.
+     * @throws ArgumentException If the value is outside that range.
+     */
+    public void setCircuitBreakerSlowCallRateThreshold(int circuitBreakerSlowCallRateThreshold) throws ArgumentException {
+        if (circuitBreakerSlowCallRateThreshold < 0 || circuitBreakerSlowCallRateThreshold > 100) {
+            throw new ArgumentException("The circuitBreakerSlowCallRateThreshold parameter must be between 0 and 100");
+        }
+        this.circuitBreakerSlowCallRateThreshold = circuitBreakerSlowCallRateThreshold;
+    }
+
+    /**
+     * Gets the duration in milliseconds after which a request counts as slow.
+     *
+     * @return The slow call duration in milliseconds.
+     */
+    public int getCircuitBreakerSlowCallDurationMillis() {
+        return circuitBreakerSlowCallDurationMillis;
+    }
+
+    /**
+     * Sets the duration in milliseconds after which a request counts as slow,
+     * measured until the response headers arrive.
+     *
+     * @param circuitBreakerSlowCallDurationMillis The duration in milliseconds;
+     *        zero ignores slow requests.
+     * @throws ArgumentException If the value is negative.
+     */
+    public void setCircuitBreakerSlowCallDurationMillis(int circuitBreakerSlowCallDurationMillis) throws ArgumentException {
+        if (circuitBreakerSlowCallDurationMillis < 0) {
+            throw new ArgumentException("The circuitBreakerSlowCallDurationMillis parameter may not be negative");
+        }
+        this.circuitBreakerSlowCallDurationMillis = circuitBreakerSlowCallDurationMillis;
+    }
+
+    /**
+     * Gets the number of recent requests the circuit breaker looks at.
+     *
+     * @return The window size.
+     */
+    public int getCircuitBreakerWindowSize() {
+        return circuitBreakerWindowSize;
+    }
+
+    /**
+     * Sets the number of recent requests the circuit breaker looks at. The
+     * breaker does not open before that many requests have been sent.
+     *
+     * @param circuitBreakerWindowSize The window size.
+     * @throws ArgumentException If the value is less than or equal to zero.
+     */
+    public void setCircuitBreakerWindowSize(int circuitBreakerWindowSize) throws ArgumentException {
+        if (circuitBreakerWindowSize <= 0) {
+            throw new ArgumentException("The circuitBreakerWindowSize parameter must be greater than zero");
+        }
+        this.circuitBreakerWindowSize = circuitBreakerWindowSize;
+    }
+
+    /**
+     * Gets the time in milliseconds the circuit breaker stays open.
+     *
+     * @return The open duration in milliseconds.
+     */
+    public int getCircuitBreakerOpenDurationMillis() {
+        return circuitBreakerOpenDurationMillis;
+    }
+
+    /**
+     * Sets the time in milliseconds the circuit breaker stays open before
+     * trial requests are sent.
+     *
+     * @param circuitBreakerOpenDurationMillis The open duration in milliseconds.
+     * @throws ArgumentException If the value is less than or equal to zero.
+     */
+    public void setCircuitBreakerOpenDurationMillis(int circuitBreakerOpenDurationMillis) throws ArgumentException {
+        if (circuitBreakerOpenDurationMillis <= 0) {
+            throw new ArgumentException("The circuitBreakerOpenDurationMillis parameter must be greater than zero");
+        }
+        this.circuitBreakerOpenDurationMillis = circuitBreakerOpenDurationMillis;
+    }
+
+    /**
+     * Gets the network addresses of the replicas in the cluster.
+     *
+     * @return The replica addresses; empty when none are set.
+     */
+    public List<String> getReplicaAddresses() {
+        return replicaAddresses;
+    }
+
+    /**
+     * Sets the network addresses of the other members of the cluster, so
+     * that read requests are spread over them.
+     *
+     * @param replicaAddresses The replica addresses; null or empty for none.
+     * @throws ArgumentException If an address is null or empty.
+     */
+    public void setReplicaAddresses(List<String> replicaAddresses) throws ArgumentException {
+        if (replicaAddresses == null) {
+            this.replicaAddresses = Collections.emptyList();
+            return;
+        }
+        for (String address : replicaAddresses) {
+            if (Utils.isNullOrEmpty(address)) {
+                throw new ArgumentException("The replicaAddresses parameter may not contain null or empty addresses");
+            }
+        }
+        this.replicaAddresses = Collections.unmodifiableList(new ArrayList<>(replicaAddresses));
+    }
+
+    /**
+     * Gets the interval in milliseconds between health probes of cluster members.
+     *
+     * @return The health check interval in milliseconds.
+     */
+    public int getHealthCheckIntervalMillis() {
+        return healthCheckIntervalMillis;
+    }
+
+    /**
+     * Sets the interval in milliseconds between health probes of cluster members.
+     *
+     * @param healthCheckIntervalMillis The health check interval in milliseconds.
+     * @throws ArgumentException If the value is less than or equal to zero.
+     */
+    public void setHealthCheckIntervalMillis(int healthCheckIntervalMillis) throws ArgumentException {
+        if (healthCheckIntervalMillis <= 0) {
+            throw new ArgumentException("The healthCheckIntervalMillis parameter must be greater than zero");
+        }
+        this.healthCheckIntervalMillis = healthCheckIntervalMillis;
+    }
+
+    /**
+     * Gets whether an A2A context hedges reads that are slow to be answered.
+     *
+     * @return True if reads are hedged.
+     */
+    public boolean isHedgedRequests() {
+        return hedgedRequests;
+    }
+
+    /**
+     * Sets whether an A2A context with replicas sends a second copy of a read
+     * to another cluster member when the first is slow to be answered.
+     *
+     * @param hedgedRequests Whether to hedge reads.
+     */
+    public void setHedgedRequests(boolean hedgedRequests) {
+        this.hedgedRequests = hedgedRequests;
+    }
+
+    /**
+     * Gets the time in milliseconds after which a read is hedged.
+     *
+     * @return The hedge delay; zero when it follows the observed latency.
+     */
+    public int getHedgeDelayMillis() {
+        return hedgeDelayMillis;
+    }
+
+    /**
+     * Sets the time in milliseconds after which a read that has not been
+     * answered is hedged.
+     *
+     * @param hedgeDelayMillis The hedge delay; zero to use the 95th percentile
+     *        of recent reads.
+     * @throws ArgumentException If the value is negative.
+     */
+    public void setHedgeDelayMillis(int hedgeDelayMillis) throws ArgumentException {
+        if (hedgeDelayMillis < 0) {
+            throw new ArgumentException("The hedgeDelayMillis parameter may not be negative");
+        }
+        this.hedgeDelayMillis = hedgeDelayMillis;
+    }
+
+    /**
+     * Gets the percentage of reads that may be hedged.
+     *
+     * @return The hedge budget as a percentage of reads.
+     */
+    public int getHedgeBudgetPercent() {
+        return hedgeBudgetPercent;
+    }
+
+    /**
+     * Sets the percentage of reads that may be hedged, in addition to a small
+     * reserve that allows hedges on a new context.
+     *
+     * @param hedgeBudgetPercent The hedge budget, from 0 to 100.
+     * @throws ArgumentException If the value is outside that range.
+     */
+    public void setHedgeBudgetPercent(int hedgeBudgetPercent) throws ArgumentException {
+        if (hedgeBudgetPercent < 0 || hedgeBudgetPercent > 100) {
+            throw new ArgumentException("The hedgeBudgetPercent parameter must be between 0 and 100");
+        }
+        this.hedgeBudgetPercent = hedgeBudgetPercent;
+    }
+
+    /**
+     * Gets whether a new connection or A2A context opens connections ahead of
+     * its first requests.
+     *
+     * @return True if connections are warmed up on connect.
+     */
+    public boolean isWarmUpOnConnect() {
+        return warmUpOnConnect;
+    }
+
+    /**
+     * Sets whether a new connection or A2A context opens connections to each
+     * of its services in the background as soon as it is created.
+     *
+     * @param warmUpOnConnect Whether to warm up connections on connect.
+     */
+    public void setWarmUpOnConnect(boolean warmUpOnConnect) {
+        this.warmUpOnConnect = warmUpOnConnect;
+    }
+
+    /**
+     * Gets the number of connections opened per service by a warm-up.
+     *
+     * @return The number of connections.
+     */
+    public int getWarmUpConnections() {
+        return warmUpConnections;
+    }
+
+    /**
+     * Sets the number of connections opened per service by a warm-up. It is
+     * limited to the pool size per route, and to one without connection
+     * pooling.
+     *
+     * @param warmUpConnections The number of connections.
+     * @throws ArgumentException If the value is less than or equal to zero.
+     */
+    public void setWarmUpConnections(int warmUpConnections) throws ArgumentException {
+        if (warmUpConnections <= 0) {
+            throw new ArgumentException("The warmUpConnections parameter must be greater than zero");
+        }
+        this.warmUpConnections = warmUpConnections;
+    }
+
+    /**
+     * Gets the resolver that looks up the addresses of the appliance.
+     *
+     * @return The resolver; null for the system resolver.
+     */
+    public DnsResolver getDnsResolver() {
+        return dnsResolver;
+    }
+
+    /**
+     * Sets the resolver that looks up the addresses of the appliance for
+     * each new connection, for instance to bypass a slow DNS server.
+     *
+     * @param dnsResolver The resolver; null for the system resolver.
+     */
+    public void setDnsResolver(DnsResolver dnsResolver) {
+        this.dnsResolver = dnsResolver;
+    }
+
+    /**
+     * Gets the time in milliseconds that host name lookups are cached.
+     *
+     * @return The cache TTL; zero when lookups are not cached.
+     */
+    public int getDnsCacheTtlMillis() {
+        return dnsCacheTtlMillis;
+    }
+
+    /**
+     * Sets the time in milliseconds that host name lookups are cached, in
+     * addition to any caching by the resolver itself.
+     *
+     * @param dnsCacheTtlMillis The cache TTL; zero disables the cache.
+     * @throws ArgumentException If the value is negative.
+     */
+    public void setDnsCacheTtlMillis(int dnsCacheTtlMillis) throws ArgumentException {
+        if (dnsCacheTtlMillis < 0) {
+            throw new ArgumentException("The dnsCacheTtlMillis parameter may not be negative");
+        }
+        this.dnsCacheTtlMillis = dnsCacheTtlMillis;
+    }
+
+    /**
+     * Gets the time in milliseconds that failed host name lookups are cached.
+     *
+     * @return The negative cache TTL; zero when failures are not cached.
+     */
+    public int getDnsNegativeCacheTtlMillis() {
+        return dnsNegativeCacheTtlMillis;
+    }
+
+    /**
+     * Sets the time in milliseconds that failed host name lookups are cached
+     * when the DNS cache is enabled.
+     *
+     * @param dnsNegativeCacheTtlMillis The negative cache TTL; zero not to
+     *        cache failures.
+     * @throws ArgumentException If the value is negative.
+     */
+    public void setDnsNegativeCacheTtlMillis(int dnsNegativeCacheTtlMillis) throws ArgumentException {
+        if (dnsNegativeCacheTtlMillis < 0) {
+            throw new ArgumentException("The dnsNegativeCacheTtlMillis parameter may not be negative");
+        }
+        this.dnsNegativeCacheTtlMillis = dnsNegativeCacheTtlMillis;
+    }
+
+    /**
+     * Gets whether new connections are spread over all the addresses a host
+     * name resolves to.
+     *
+     * @return True if the addresses are used in turn.
+     */
+    public boolean isDnsRoundRobin() {
+        return dnsRoundRobin;
+    }
+
+    /**
+     * Sets whether new connections are spread over all the addresses a host
+     * name resolves to, rather than always trying them in the same order.
+     *
+     * @param dnsRoundRobin Whether to use the addresses in turn.
+     */
+    public void setDnsRoundRobin(boolean dnsRoundRobin) {
+        this.dnsRoundRobin = dnsRoundRobin;
+    }
+}
@@ -0,0 +1,170 @@
+package com.oneidentity.safeguard.safeguardjava;
+
+import com.oneidentity.safeguard.safeguardjava.exceptions.ArgumentException;
+import com.oneidentity.safeguard.safeguardjava.exceptions.DeadlineExceededException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A point in time by which an operation must complete.
+ * <p>
+ * Request timeouts apply to each HTTP request on its own, so an operation that
+ * sends several requests, such as a password login (an rSTS token followed by
+ * the Safeguard token exchange) or listing A2A retrievable accounts (one
+ * request per registration), may take a multiple of the timeout. A deadline
+ * bounds the whole operation instead. While a deadline is entered on a thread,
+ * every request sent from that thread waits at most for the time that is left,
+ * and operations that are started or continued after it has passed fail with a
+ * {@link DeadlineExceededException}:
+ * <pre>{@code
+ * try (Deadline.Scope scope = Deadline.after(5000).enter()) {
+ *     List<IA2ARetrievableAccount> accounts = a2aContext.getRetrievableAccounts();
+ * }
+ * }</pre>
+ * Deadlines may be nested; an inner deadline never extends an outer one. The
+ * deadline applies to requests sent from the entering thread, including the
+ * start of asynchronous requests, but is not passed on to other threads;
+ * {@link #runWithin(Runnable)} enters it on another thread.
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> current = new ThreadLocal<>();
+
+    private final long timeoutMillis;
+    private final long expiresAtNanos;
+
+    private Deadline(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.expiresAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    }
+
+    /**
+     * Creates a deadline that expires after the given time.
+     *
+     * @param timeoutMillis The time in milliseconds from now; must be greater than zero.
+     * @return The deadline.
+     * @throws ArgumentException If the value is less than or equal to zero.
+     */
+    public static Deadline after(long timeoutMillis) throws ArgumentException {
+        if (timeoutMillis <= 0) {
+            throw new ArgumentException("The timeoutMillis parameter must be greater than zero");
+        }
+        return new Deadline(timeoutMillis);
+    }
+
+    /**
+     * Gets the deadline entered on the current thread.
+     *
+     * @return The deadline, or null if none has been entered.
+     */
+    public static Deadline current() {
+        return current.get();
+    }
+
+    /**
+     * Fails if the deadline entered on the current thread has passed.
+     *
+     * @throws DeadlineExceededException If the current deadline has passed.
+     */
+    public static void checkCurrent() throws DeadlineExceededException {
+        Deadline deadline = current.get();
+        if (deadline != null) {
+            deadline.check();
+        }
+    }
+
+    /**
+     * Limits a request timeout to the time left before the deadline entered on
+     * the current thread. Once the deadline has passed the result is one
+     * millisecond, so the request fails right away.
+     *
+     * @param timeoutMillis The request timeout in milliseconds.
+     * @return The timeout to use in milliseconds.
+     */
+    public static int limitTimeout(int timeoutMillis) {
+        Deadline deadline = current.get();
+        if (deadline == null) {
+            return timeoutMillis;
+        }
+        return (int) Math.max(1, Math.min(timeoutMillis, deadline.getRemainingMillis()));
+    }
+
+    /**
+     * Gets the time left before the deadline.
+     *
+     * @return The remaining time in milliseconds; zero once the deadline has passed.
+     */
+    public long getRemainingMillis() {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(expiresAtNanos - System.nanoTime()));
+    }
+
+    /**
+     * Gets whether the deadline has passed.
+     *
+     * @return {@code true} if the deadline has passed.
+     */
+    public boolean isExpired() {
+        return expiresAtNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Fails if the deadline has passed.
+     *
+     * @throws DeadlineExceededException If the deadline has passed.
+     */
+    public void check() throws DeadlineExceededException {
+        if (isExpired()) {
+            throw new DeadlineExceededException(String.format("The operation did not complete within its deadline of %d ms",
+                    timeoutMillis));
+        }
+    }
+
+    /**
+     * Enters the deadline on the current thread until the returned scope is
+     * closed. If an earlier deadline is already entered, it stays in effect.
+     *
+     * @return The scope to close when the operation is done.
+     */
+    public Scope enter() {
+        Deadline previous = current.get();
+        if (previous == null || expiresAtNanos - previous.expiresAtNanos < 0) {
+            current.set(this);
+        }
+        return new Scope(previous);
+    }
+
+    /**
+     * Runs an action with the deadline entered on the current thread, for
+     * instance to continue an operation on another thread.
+     *
+     * @param action The action to run.
+     */
+    public void runWithin(Runnable action) {
+        Scope scope = enter();
+        try {
+            action.run();
+        } finally {
+            scope.close();
+        }
+    }
+
+    /**
+     * Restores the deadline that was in effect before {@link #enter()}.
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final Deadline previous;
+
+        private Scope(Deadline previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                current.remove();
+            } else {
+                current.set(previous);
+            }
+        }
+    }
+}
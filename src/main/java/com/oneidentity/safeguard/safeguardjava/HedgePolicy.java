@@ -0,0 +1,128 @@
+package com.oneidentity.safeguard.safeguardjava;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides when a read of an A2A context that spans several cluster members
+ * is hedged with a second copy sent to another member.
+ *
+ * <p>A read is hedged once it has waited longer than the configured delay,
+ * or, by default, longer than the 95th percentile of the recent reads, so
+ * that only the slowest reads are sent twice. Hedges draw from a budget that
+ * every read refills by a fraction of a hedge, which bounds the extra load
+ * when the whole cluster is slow.
+ */
+class HedgePolicy {
+
+    /** Hedge delay in milliseconds used until enough reads have been timed. */
+    static final long INITIAL_DELAY_MILLIS = 100;
+
+    /** Number of recent reads the percentile is taken over. */
+    static final int SAMPLE_COUNT = 128;
+
+    /** Number of timed reads needed before the percentile is used. */
+    static final int MIN_SAMPLES = 20;
+
+    // Budget amounts are in thousandths of a hedge.
+    private static final long HEDGE_COST = 1000;
+    private static final long BUDGET_RESERVE = 5 * HEDGE_COST;
+
+    private static volatile ExecutorService executor;
+
+    private final long delayMillis;
+    private final long budgetDeposit;
+    private final AtomicLong budget = new AtomicLong(BUDGET_RESERVE);
+    private final long[] samples = new long[SAMPLE_COUNT];
+    private int sampleTotal;
+
+    HedgePolicy(long delayMillis, int budgetPercent) {
+        this.delayMillis = delayMillis;
+        this.budgetDeposit = budgetPercent * HEDGE_COST / 100;
+    }
+
+    /**
+     * Creates the hedge policy for an A2A context.
+     *
+     * @return The policy, or null when hedging is disabled.
+     */
+    static HedgePolicy from(ConnectionOptions options) {
+        if (options == null || !options.isHedgedRequests()) {
+            return null;
+        }
+        return new HedgePolicy(options.getHedgeDelayMillis(), options.getHedgeBudgetPercent());
+    }
+
+    /**
+     * Called when a read is sent, to refill the budget.
+     */
+    void readStarted() {
+        budget.accumulateAndGet(budgetDeposit, (balance, deposit) -> Math.min(BUDGET_RESERVE, balance + deposit));
+    }
+
+    /**
+     * Records the time it took to answer a read.
+     */
+    synchronized void recordLatency(long millis) {
+        samples[sampleTotal % SAMPLE_COUNT] = millis;
+        sampleTotal++;
+    }
+
+    /**
+     * Gets the time in milliseconds a read waits before it is hedged.
+     */
+    long getDelayMillis() {
+        if (delayMillis > 0) {
+            return delayMillis;
+        }
+        long[] recent;
+        synchronized (this) {
+            if (sampleTotal < MIN_SAMPLES) {
+                return INITIAL_DELAY_MILLIS;
+            }
+            recent = Arrays.copyOf(samples, Math.min(sampleTotal, SAMPLE_COUNT));
+        }
+        Arrays.sort(recent);
+        return recent[(int) Math.ceil(recent.length * 0.95) - 1];
+    }
+
+    /**
+     * Takes a hedge from the budget.
+     *
+     * @return Whether the budget allowed the hedge.
+     */
+    boolean tryHedge() {
+        long balance;
+        do {
+            balance = budget.get();
+            if (balance < HEDGE_COST) {
+                return false;
+            }
+        } while (!budget.compareAndSet(balance, balance - HEDGE_COST));
+        return true;
+    }
+
+    /**
+     * Gets the daemon threads that hedged reads are sent from, so that the
+     * caller is free to wait for whichever is answered first.
+     */
+    static ExecutorService executor() {
+        ExecutorService result = executor;
+        if (result == null) {
+            synchronized (HedgePolicy.class) {
+                result = executor;
+                if (result == null) {
+                    result = Executors.newCachedThreadPool(runnable -> {
+                        Thread thread = new Thread(runnable, "safeguard-hedge");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    executor = result;
+                }
+            }
+        }
+        return result;
+    }
+}
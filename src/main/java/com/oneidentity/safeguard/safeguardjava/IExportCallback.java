@@ -0,0 +1,7 @@
+package com.oneidentity.safeguard.safeguardjava;
+
+import com.oneidentity.safeguard.safeguardjava.exceptions.SafeguardForJavaException;
+
+public interface IExportCallback {
+    public void onItem(String item) throws SafeguardForJavaException;
+}
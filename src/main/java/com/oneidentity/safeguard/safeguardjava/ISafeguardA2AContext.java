@@ -165,6 +165,16 @@ public interface ISafeguardA2AContext
      */
     String brokerAccessRequest(char[] apiKey, IBrokeredAccessRequest accessRequest) throws ObjectDisposedException, SafeguardForJavaException, ArgumentException;
 
+    /**
+     *  Opens connections to the A2A service ahead of the first requests, so that these do
+     *  not wait for the TLS handshake with the client certificate. Returns once the
+     *  connections are open; a connection that cannot be opened is skipped.
+     *
+     *  @throws ObjectDisposedException Object has already been disposed.
+     *  @throws SafeguardForJavaException General Safeguard for Java exception.
+     */
+    void warmUp() throws ObjectDisposedException, SafeguardForJavaException;
+
     /**
      *  Dispose of an object
      */
@@ -1,14 +1,19 @@
 package com.oneidentity.safeguard.safeguardjava;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.oneidentity.safeguard.safeguardjava.data.BatchResult;
 import com.oneidentity.safeguard.safeguardjava.data.FullResponse;
 import com.oneidentity.safeguard.safeguardjava.data.Method;
+import com.oneidentity.safeguard.safeguardjava.data.SafeguardRequest;
 import com.oneidentity.safeguard.safeguardjava.data.Service;
 import com.oneidentity.safeguard.safeguardjava.event.ISafeguardEventListener;
 import com.oneidentity.safeguard.safeguardjava.event.SafeguardEventListener;
 import com.oneidentity.safeguard.safeguardjava.exceptions.ArgumentException;
 import com.oneidentity.safeguard.safeguardjava.exceptions.ObjectDisposedException;
 import com.oneidentity.safeguard.safeguardjava.exceptions.SafeguardForJavaException;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  *  This is the reusable connection interface that can be used to call Safeguard API after
@@ -34,6 +39,16 @@ public interface ISafeguardConnection {
      */
     void refreshAccessToken() throws ObjectDisposedException, SafeguardForJavaException;
 
+    /**
+     *  Opens connections to the core, appliance and notification services ahead of the
+     *  first requests, so that these do not wait for TCP and TLS handshakes. Returns once
+     *  the connections are open; a connection that cannot be opened is skipped.
+     *
+     *  @throws ObjectDisposedException Object has already been disposed.
+     *  @throws SafeguardForJavaException General Safeguard for Java exception.
+     */
+    void warmUp() throws ObjectDisposedException, SafeguardForJavaException;
+
     /**
      *  Call a Safeguard API method and get any response as a string. Some Safeguard API
      *  methods will return an empty body. If there is a failure a SafeguardDotNetException
@@ -56,6 +71,57 @@ public interface ISafeguardConnection {
             Map<String, String> additionalHeaders, Integer timeout)
             throws ObjectDisposedException, SafeguardForJavaException, ArgumentException;
 
+    /**
+     *  Call a Safeguard API method and deserialize the JSON response directly into an
+     *  object of the given type. The body is read from the connection by a shared,
+     *  pre-configured Jackson reader without first being copied into a string. Unknown
+     *  properties in the response are ignored. If the response body is empty null is
+     *  returned. If there is a failure a SafeguardForJavaException will be thrown.
+     *
+     *  @param <T>                  Type of the response object.
+     *  @param type                 Class to deserialize the response into.
+     *  @param service              Safeguard service to call.
+     *  @param method               Safeguard method type to use.
+     *  @param relativeUrl          Relative URL of the service to use.
+     *  @param body                 Request body to pass to the method.
+     *  @param parameters           Additional parameters to add to the URL.
+     *  @param additionalHeaders    Additional headers to add to the request.
+     *  @param timeout              Per-request timeout in milliseconds (null for default)
+     *  @return                     Response body as an object of the given type.
+     *  @throws ObjectDisposedException Object has already been disposed.
+     *  @throws SafeguardForJavaException General Safeguard for Java exception.
+     *  @throws ArgumentException Invalid argument.
+     */
+    <T> T invokeMethod(Class<T> type, Service service, Method method, String relativeUrl,
+            String body, Map<String, String> parameters,
+            Map<String, String> additionalHeaders, Integer timeout)
+            throws ObjectDisposedException, SafeguardForJavaException, ArgumentException;
+
+    /**
+     *  Call a Safeguard API method and deserialize the JSON response directly into an
+     *  object of a generic type, such as {@code new TypeReference<List<Asset>>() {}}.
+     *  If the response body is empty null is returned. If there is a failure a
+     *  SafeguardForJavaException will be thrown.
+     *
+     *  @param <T>                  Type of the response object.
+     *  @param type                 Type to deserialize the response into.
+     *  @param service              Safeguard service to call.
+     *  @param method               Safeguard method type to use.
+     *  @param relativeUrl          Relative URL of the service to use.
+     *  @param body                 Request body to pass to the method.
+     *  @param parameters           Additional parameters to add to the URL.
+     *  @param additionalHeaders    Additional headers to add to the request.
+     *  @param timeout              Per-request timeout in milliseconds (null for default)
+     *  @return                     Response body as an object of the given type.
+     *  @throws ObjectDisposedException Object has already been disposed.
+     *  @throws SafeguardForJavaException General Safeguard for Java exception.
+     *  @throws ArgumentException Invalid argument.
+     */
+    <T> T invokeMethod(TypeReference<T> type, Service service, Method method, String relativeUrl,
+            String body, Map<String, String> parameters,
+            Map<String, String> additionalHeaders, Integer timeout)
+            throws ObjectDisposedException, SafeguardForJavaException, ArgumentException;
+
     /**
      *  Call a Safeguard API method and get a detailed response with status code, headers,
      *  and body. If there is a failure a SafeguardDotNetException will be thrown.
@@ -99,6 +165,139 @@ public interface ISafeguardConnection {
         Map<String, String> additionalHeaders, Integer timeout)
         throws ObjectDisposedException, SafeguardForJavaException, ArgumentException;
 
+    /**
+     *  Call a Safeguard API method and stream the response body instead of reading it
+     *  into a string, so that large responses can be processed at constant memory. The
+     *  caller takes ownership of the StreamResponse and must dispose (or close) it when
+     *  finished, which releases the underlying connection. If there is a failure a
+     *  SafeguardForJavaException will be thrown.
+     *
+     *  @param service              Safeguard service to call.
+     *  @param method               Safeguard method type to use.
+     *  @param relativeUrl          Relative URL of the service to use.
+     *  @param body                 Request body to pass to the method.
+     *  @param parameters           Additional parameters to add to the URL.
+     *  @param additionalHeaders    Additional headers to add to the request.
+     *  @param timeout              Per-request timeout in milliseconds (null for default)
+     *  @return                     Response with status code, headers, and the body as a stream.
+     *  @throws ObjectDisposedException Object has already been disposed.
+     *  @throws SafeguardForJavaException General Safeguard for Java exception.
+     *  @throws ArgumentException Invalid argument.
+     */
+    StreamResponse invokeMethodStream(Service service, Method method, String relativeUrl,
+            String body, Map<String, String> parameters,
+            Map<String, String> additionalHeaders, Integer timeout)
+            throws ObjectDisposedException, SafeguardForJavaException, ArgumentException;
+
+    /**
+     *  Call a Safeguard GET API that returns a collection and iterate over its items one
+     *  page at a time, using the page and limit query parameters. Pages are fetched on
+     *  demand, and the next page is requested in the background while the caller
+     *  processes the current one, so the whole collection is never held in memory. The
+     *  caller should close the PagedResponse if it stops iterating early. If there is a
+     *  failure fetching the first page a SafeguardForJavaException will be thrown.
+     *
+     *  @param service              Safeguard service to call.
+     *  @param relativeUrl          Relative URL of the collection to read.
+     *  @param parameters           Additional parameters to add to the URL.
+     *  @param additionalHeaders    Additional headers to add to the request.
+     *  @param pageSize             Number of items to request per page (null for default)
+     *  @param timeout              Per-request timeout in milliseconds (null for default)
+     *  @return                     Iterator over the items of the collection as JSON strings.
+     *  @throws ObjectDisposedException Object has already been disposed.
+     *  @throws SafeguardForJavaException General Safeguard for Java exception.
+     *  @throws ArgumentException Invalid argument.
+     */
+    PagedResponse invokeMethodPaged(Service service, String relativeUrl,
+            Map<String, String> parameters, Map<String, String> additionalHeaders,
+            Integer pageSize, Integer timeout)
+            throws ObjectDisposedException, SafeguardForJavaException, ArgumentException;
+
+    /**
+     *  Call many independent Safeguard API methods concurrently and wait for all of them.
+     *  The requests are sent on a non-blocking client with at most maxConcurrency of them
+     *  in flight at the same time. A failed request does not stop the others; its error
+     *  is returned in its result instead.
+     *
+     *  @param requests             Requests to send.
+     *  @param maxConcurrency       Maximum number of requests in flight (null for default of 8)
+     *  @return                     Results in the same order as the requests.
+     *  @throws ObjectDisposedException Object has already been disposed.
+     *  @throws SafeguardForJavaException General Safeguard for Java exception.
+     *  @throws ArgumentException Invalid argument.
+     */
+    List<BatchResult> invokeBatch(List<SafeguardRequest> requests, Integer maxConcurrency)
+            throws ObjectDisposedException, SafeguardForJavaException, ArgumentException;
+
+    /**
+     *  Asynchronously call a Safeguard API method and get any response as a string. The
+     *  request is sent on a non-blocking client, so no thread is held while waiting for
+     *  the appliance. Some Safeguard API methods will return an empty body. If there is a
+     *  failure the future completes exceptionally with a SafeguardForJavaException.
+     *
+     *  @param service              Safeguard service to call.
+     *  @param method               Safeguard method type to use.
+     *  @param relativeUrl          Relative URL of the service to use.
+     *  @param body                 Request body to pass to the method.
+     *  @param parameters           Additional parameters to add to the URL.
+     *  @param additionalHeaders    Additional headers to add to the request.
+     *  @param timeout              Per-request timeout in milliseconds (null for default)
+     *  @return                     Future completed with the response body as a string.
+     *  @throws ObjectDisposedException Object has already been disposed.
+     *  @throws SafeguardForJavaException General Safeguard for Java exception.
+     *  @throws ArgumentException Invalid argument.
+     */
+    CompletableFuture<String> invokeMethodAsync(Service service, Method method, String relativeUrl,
+            String body, Map<String, String> parameters,
+            Map<String, String> additionalHeaders, Integer timeout)
+            throws ObjectDisposedException, SafeguardForJavaException, ArgumentException;
+
+    /**
+     *  Asynchronously call a Safeguard API method and get a detailed response with status
+     *  code, headers, and body. The request is sent on a non-blocking client, so no thread
+     *  is held while waiting for the appliance. If there is a failure the future completes
+     *  exceptionally with a SafeguardForJavaException.
+     *
+     *  @param service              Safeguard service to call.
+     *  @param method               Safeguard method type to use.
+     *  @param relativeUrl          Relative URL of the service to use.
+     *  @param body                 Request body to pass to the method.
+     *  @param parameters           Additional parameters to add to the URL.
+     *  @param additionalHeaders    Additional headers to add to the request.
+     *  @param timeout              Per-request timeout in milliseconds (null for default)
+     *  @return                     Future completed with the response status code, headers, and body.
+     *  @throws ObjectDisposedException Object has already been disposed.
+     *  @throws SafeguardForJavaException General Safeguard for Java exception.
+     *  @throws ArgumentException Invalid argument.
+     */
+    CompletableFuture<FullResponse> invokeMethodFullAsync(Service service, Method method, String relativeUrl,
+            String body, Map<String, String> parameters,
+            Map<String, String> additionalHeaders, Integer timeout)
+            throws ObjectDisposedException, SafeguardForJavaException, ArgumentException;
+
+    /**
+     *  Asynchronously call a Safeguard API method and get any response as a CSV string.
+     *  The request is sent on a non-blocking client, so no thread is held while waiting
+     *  for the appliance. If there is a failure the future completes exceptionally with a
+     *  SafeguardForJavaException.
+     *
+     *  @param service              Safeguard service to call.
+     *  @param method               Safeguard method type to use.
+     *  @param relativeUrl          Relative URL of the service to use.
+     *  @param body                 Request body to pass to the method.
+     *  @param parameters           Additional parameters to add to the URL.
+     *  @param additionalHeaders    Additional headers to add to the request.
+     *  @param timeout              Per-request timeout in milliseconds (null for default)
+     *  @return                     Future completed with the response body as a CSV string.
+     *  @throws ObjectDisposedException Object has already been disposed.
+     *  @throws SafeguardForJavaException General Safeguard for Java exception.
+     *  @throws ArgumentException Invalid argument.
+     */
+    CompletableFuture<String> invokeMethodCsvAsync(Service service, Method method, String relativeUrl,
+            String body, Map<String, String> parameters,
+            Map<String, String> additionalHeaders, Integer timeout)
+            throws ObjectDisposedException, SafeguardForJavaException, ArgumentException;
+
     /**
      *  Join a Safeguard for Privileged Sessions and a Safeguard appliance. The Safeguard for
      *  Privileged Sessions appliance needs to enable clustering and be a central search node.
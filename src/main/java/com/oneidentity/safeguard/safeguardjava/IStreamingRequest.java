@@ -4,6 +4,8 @@ import com.oneidentity.safeguard.safeguardjava.data.Service;
 import com.oneidentity.safeguard.safeguardjava.exceptions.ArgumentException;
 import com.oneidentity.safeguard.safeguardjava.exceptions.ObjectDisposedException;
 import com.oneidentity.safeguard.safeguardjava.exceptions.SafeguardForJavaException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
 import java.util.Map;
 
 /**
@@ -30,6 +32,47 @@ public interface IStreamingRequest {
             Map<String, String> parameters, Map<String, String> additionalHeaders)
             throws SafeguardForJavaException, ArgumentException, ObjectDisposedException;
 
+    /**
+     * Call a Safeguard POST API providing a file as request content. The file is
+     * read from disk as it is sent, so it is never held in memory as a whole. If
+     * there is a failure a SafeguardDotNetException will be thrown.
+     *
+     * @param service           Safeguard service to call.
+     * @param relativeUrl       Relative URL of the service to use.
+     * @param file              Path of the file to upload as request content.
+     * @param progressCallback  Optionally report upload progress.
+     * @param parameters        Additional parameters to add to the URL.
+     * @param additionalHeaders Additional headers to add to the request.
+     * @return                  Response body as a string.
+     * @throws ObjectDisposedException Object has already been disposed.
+     * @throws SafeguardForJavaException General Safeguard for Java exception.
+     * @throws ArgumentException Invalid argument.
+     */
+    String uploadStream(Service service, String relativeUrl, Path file, IProgressCallback progressCallback,
+            Map<String, String> parameters, Map<String, String> additionalHeaders)
+            throws SafeguardForJavaException, ArgumentException, ObjectDisposedException;
+
+    /**
+     * Call a Safeguard POST API providing the content of a file channel, from its
+     * current position to the end, as request content. The channel is read as it
+     * is sent and is left open. If there is a failure a SafeguardDotNetException
+     * will be thrown.
+     *
+     * @param service           Safeguard service to call.
+     * @param relativeUrl       Relative URL of the service to use.
+     * @param channel           File channel to upload as request content.
+     * @param progressCallback  Optionally report upload progress.
+     * @param parameters        Additional parameters to add to the URL.
+     * @param additionalHeaders Additional headers to add to the request.
+     * @return                  Response body as a string.
+     * @throws ObjectDisposedException Object has already been disposed.
+     * @throws SafeguardForJavaException General Safeguard for Java exception.
+     * @throws ArgumentException Invalid argument.
+     */
+    String uploadStream(Service service, String relativeUrl, FileChannel channel, IProgressCallback progressCallback,
+            Map<String, String> parameters, Map<String, String> additionalHeaders)
+            throws SafeguardForJavaException, ArgumentException, ObjectDisposedException;
+
     /**
      * Call a Safeguard GET API providing an output file path to which streaming download data will
      * be written. If there is a failure a SafeguardDotNetException will be thrown.
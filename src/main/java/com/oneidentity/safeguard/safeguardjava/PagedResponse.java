@@ -0,0 +1,188 @@
+package com.oneidentity.safeguard.safeguardjava;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.oneidentity.safeguard.safeguardjava.data.FullResponse;
+import com.oneidentity.safeguard.safeguardjava.data.Method;
+import com.oneidentity.safeguard.safeguardjava.data.Service;
+import com.oneidentity.safeguard.safeguardjava.exceptions.ArgumentException;
+import com.oneidentity.safeguard.safeguardjava.exceptions.ObjectDisposedException;
+import com.oneidentity.safeguard.safeguardjava.exceptions.SafeguardForJavaException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates over the items of a Safeguard collection one page at a time. Each
+ * item is returned as a JSON string. Only the current page is held in memory,
+ * and the next page is requested in the background as soon as the current one
+ * has arrived, so fetching overlaps with processing.
+ * <p>
+ * The first page is requested when the response is created, so errors such as
+ * an unknown URL or a missing permission are thrown from
+ * {@code invokeMethodPaged}. A failure while fetching a later page is thrown
+ * from {@link #hasNext()} or {@link #next()} as a {@link CompletionException}
+ * whose cause is the {@link SafeguardForJavaException}. Close the response to
+ * cancel a pending prefetch when iteration is abandoned early.
+ */
+public class PagedResponse implements Iterator<String>, Closeable {
+
+    /** Default number of items requested per page. */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    private final ISafeguardConnection connection;
+    private final Service service;
+    private final String relativeUrl;
+    private final Map<String, String> parameters;
+    private final Map<String, String> additionalHeaders;
+    private final int pageSize;
+    private final Integer timeout;
+
+    private Iterator<JsonNode> current = Collections.emptyIterator();
+    private CompletableFuture<FullResponse> pending;
+    private int nextPage = 0;
+    private boolean closed;
+
+    PagedResponse(ISafeguardConnection connection, Service service, String relativeUrl,
+            Map<String, String> parameters, Map<String, String> additionalHeaders, Integer pageSize, Integer timeout)
+            throws ObjectDisposedException, SafeguardForJavaException, ArgumentException {
+
+        if (pageSize != null && pageSize <= 0) {
+            throw new ArgumentException("Parameter pageSize must be greater than zero");
+        }
+
+        this.connection = connection;
+        this.service = service;
+        this.relativeUrl = relativeUrl;
+        this.parameters = parameters;
+        this.additionalHeaders = additionalHeaders;
+        this.pageSize = pageSize != null ? pageSize : DEFAULT_PAGE_SIZE;
+        this.timeout = timeout;
+
+        pending = requestPage();
+        advance();
+    }
+
+    private CompletableFuture<FullResponse> requestPage()
+            throws ObjectDisposedException, SafeguardForJavaException, ArgumentException {
+
+        Map<String, String> pageParameters = parameters != null ? new HashMap<>(parameters) : new HashMap<>();
+        pageParameters.put("page", Integer.toString(nextPage++));
+        pageParameters.put("limit", Integer.toString(pageSize));
+
+        return connection.invokeMethodFullAsync(service, Method.Get, relativeUrl, null, pageParameters, additionalHeaders, timeout);
+    }
+
+    private void prefetch() {
+        try {
+            pending = requestPage();
+        } catch (ObjectDisposedException | SafeguardForJavaException | ArgumentException ex) {
+            pending = new CompletableFuture<>();
+            pending.completeExceptionally(ex);
+        }
+    }
+
+    private void advance() throws SafeguardForJavaException {
+        FullResponse response;
+        try {
+            response = pending.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SafeguardForJavaException("Interrupted while waiting for the next page", ex);
+        } catch (ExecutionException | CancellationException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof SafeguardForJavaException) {
+                throw (SafeguardForJavaException) cause;
+            }
+            throw new SafeguardForJavaException("Unable to read the next page", cause != null ? cause : ex);
+        } finally {
+            pending = null;
+        }
+
+        JsonNode page;
+        try {
+            page = Utils.jsonReader(JsonNode.class).readTree(response.getBody() == null ? "" : response.getBody());
+        } catch (IOException ex) {
+            throw new SafeguardForJavaException("Unable to parse the page as JSON", ex);
+        }
+        if (page == null || page.isMissingNode() || page.isNull()) {
+            current = Collections.emptyIterator();
+            return;
+        }
+        if (!page.isArray()) {
+            throw new SafeguardForJavaException(String.format("Response from %s is not a JSON array", relativeUrl));
+        }
+
+        if (page.size() >= pageSize) {
+            prefetch();
+        }
+        current = page.elements();
+    }
+
+    /**
+     * Gets whether there are more items, waiting for the next page if needed.
+     *
+     * @return {@code true} if another item is available.
+     * @throws CompletionException If the next page could not be fetched.
+     */
+    @Override
+    public boolean hasNext() {
+        while (!closed && !current.hasNext() && pending != null) {
+            try {
+                advance();
+            } catch (SafeguardForJavaException ex) {
+                throw new CompletionException(ex);
+            }
+        }
+        return !closed && current.hasNext();
+    }
+
+    /**
+     * Gets the next item as a JSON string.
+     *
+     * @return The next item.
+     * @throws CompletionException If the next page could not be fetched.
+     */
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return current.next().toString();
+    }
+
+    /**
+     * Gets the remaining items as a sequential stream. Closing the stream
+     * closes this response.
+     *
+     * @return A stream of JSON strings.
+     */
+    public Stream<String> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::close);
+    }
+
+    /**
+     * Stops the iteration and cancels any page that is still being fetched.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        current = Collections.emptyIterator();
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+}
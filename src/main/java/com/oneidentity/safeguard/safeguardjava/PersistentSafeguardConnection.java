@@ -1,21 +1,156 @@
 package com.oneidentity.safeguard.safeguardjava;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.oneidentity.safeguard.safeguardjava.data.BatchResult;
 import com.oneidentity.safeguard.safeguardjava.data.FullResponse;
 import com.oneidentity.safeguard.safeguardjava.data.Method;
+import com.oneidentity.safeguard.safeguardjava.data.SafeguardRequest;
 import com.oneidentity.safeguard.safeguardjava.data.Service;
 import com.oneidentity.safeguard.safeguardjava.event.ISafeguardEventListener;
 import com.oneidentity.safeguard.safeguardjava.event.SafeguardEventListener;
 import com.oneidentity.safeguard.safeguardjava.exceptions.ArgumentException;
 import com.oneidentity.safeguard.safeguardjava.exceptions.ObjectDisposedException;
 import com.oneidentity.safeguard.safeguardjava.exceptions.SafeguardForJavaException;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+/**
+ * Connection that refreshes its access token when it is about to expire.
+ * <p>
+ * The token lifetime is tracked from the {@code X-TokenLifetimeRemaining}
+ * header of ordinary responses, so calls do not need an extra request to check
+ * it. The appliance is only asked for the lifetime when it is not known, for
+ * example right after a login. While the lifetime is known, a refresh is
+ * scheduled on a background thread shortly before the token expires. If that
+ * refresh fails, the token is refreshed on the calling thread once it has
+ * expired.
+ */
 class PersistentSafeguardConnection implements ISafeguardConnection {
 
+    private static final Logger logger = LoggerFactory.getLogger(PersistentSafeguardConnection.class);
+
+    /** How long before the token expires it is refreshed in the background. */
+    private static final long REFRESH_AHEAD_MILLIS = TimeUnit.MINUTES.toMillis(2);
+
+    /**
+     * The appliance reports the lifetime in whole minutes, so a scheduled
+     * refresh is only moved when the token expires at least this much earlier.
+     */
+    private static final long RESCHEDULE_TOLERANCE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static final ScheduledExecutorService refreshScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "safeguard-token-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final ISafeguardConnection _connection;
+    private final SafeguardConnection trackedConnection;
+
+    private volatile boolean refreshFailed = false;
+    private volatile boolean disposed = false;
+    private volatile ScheduledFuture<?> refreshTask = null;
+    private volatile long refreshDueNanos = 0;
 
     public PersistentSafeguardConnection(ISafeguardConnection connection) {
         _connection = connection;
+        trackedConnection = connection instanceof SafeguardConnection ? (SafeguardConnection) connection : null;
+    }
+
+    private void ensureAccessToken() throws ObjectDisposedException, SafeguardForJavaException {
+        if (trackedConnection != null) {
+            // Read before the lifetime, so that a token another thread has
+            // replaced in the meantime is not refreshed again.
+            char[] token = trackedConnection.getAccessToken();
+            long remaining = trackedConnection.getTrackedAccessTokenLifetimeMillis();
+            if (remaining > 0) {
+                scheduleRefresh(remaining);
+                return;
+            }
+            if (remaining == 0) {
+                trackedConnection.refreshStaleAccessToken(token);
+                refreshFailed = false;
+                return;
+            }
+            if (trackedConnection.getAccessTokenLifetimeRemaining() <= 0) {
+                trackedConnection.refreshStaleAccessToken(token);
+                refreshFailed = false;
+            }
+            return;
+        }
+        if (_connection.getAccessTokenLifetimeRemaining() <= 0)
+            refreshNow();
+    }
+
+    private void refreshNow() throws ObjectDisposedException, SafeguardForJavaException {
+        _connection.refreshAccessToken();
+        refreshFailed = false;
+    }
+
+    private void scheduleRefresh(long remainingMillis) {
+        if (refreshFailed || disposed) {
+            return;
+        }
+        long due = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis - REFRESH_AHEAD_MILLIS));
+        ScheduledFuture<?> pending = refreshTask;
+        if (pending != null && !pending.isDone() && due - refreshDueNanos > -RESCHEDULE_TOLERANCE_NANOS) {
+            return;
+        }
+        synchronized (this) {
+            if (disposed) {
+                return;
+            }
+            if (refreshTask != null && !refreshTask.isDone()) {
+                if (due - refreshDueNanos > -RESCHEDULE_TOLERANCE_NANOS) {
+                    return;
+                }
+                // The token expires earlier than expected, for example because its lifetime was reduced
+                refreshTask.cancel(false);
+            }
+            refreshDueNanos = due;
+            refreshTask = refreshScheduler.schedule(this::refreshInBackground, due - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void refreshInBackground() {
+        try {
+            long remaining = trackedConnection.getTrackedAccessTokenLifetimeMillis();
+            if (disposed || remaining < 0) {
+                // Refreshed or logged out in the meantime; the next call learns the new lifetime
+                return;
+            }
+            if (remaining > REFRESH_AHEAD_MILLIS) {
+                synchronized (this) {
+                    if (!disposed) {
+                        refreshDueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(remaining - REFRESH_AHEAD_MILLIS);
+                        refreshTask = refreshScheduler.schedule(this::refreshInBackground,
+                                remaining - REFRESH_AHEAD_MILLIS, TimeUnit.MILLISECONDS);
+                    }
+                }
+                return;
+            }
+            _connection.refreshAccessToken();
+            _connection.getAccessTokenLifetimeRemaining();
+            logger.trace("Refreshed access token ahead of expiry");
+        } catch (Exception ex) {
+            refreshFailed = true;
+            logger.debug("Unable to refresh access token ahead of expiry", ex);
+        }
+    }
+
+    private synchronized void cancelRefresh() {
+        disposed = true;
+        if (refreshTask != null) {
+            refreshTask.cancel(false);
+            refreshTask = null;
+        }
     }
 
     @Override
@@ -25,14 +160,14 @@ class PersistentSafeguardConnection implements ISafeguardConnection {
 
     @Override
     public void dispose() {
+        cancelRefresh();
         _connection.dispose();
     }
 
     @Override
     public FullResponse JoinSps(ISafeguardSessionsConnection spsConnection, String certificateChain, String sppAddress)
             throws ObjectDisposedException, SafeguardForJavaException, ArgumentException {
-        if (_connection.getAccessTokenLifetimeRemaining() <= 0)
-            _connection.refreshAccessToken();
+        ensureAccessToken();
         return _connection.JoinSps(spsConnection, certificateChain, sppAddress);
     }
 
@@ -41,32 +176,80 @@ class PersistentSafeguardConnection implements ISafeguardConnection {
         return _connection.getAccessTokenLifetimeRemaining();
     }
 
+    @Override
+    public void warmUp() throws ObjectDisposedException, SafeguardForJavaException {
+        _connection.warmUp();
+    }
+
     @Override
     public void refreshAccessToken() throws ObjectDisposedException, SafeguardForJavaException {
-        _connection.refreshAccessToken();
+        refreshNow();
     }
 
     @Override
     public String invokeMethod(Service service, Method method, String relativeUrl, String body, Map<String, String> parameters, Map<String, String> additionalHeaders, Integer timeout) throws ObjectDisposedException, SafeguardForJavaException, ArgumentException {
-        if(_connection.getAccessTokenLifetimeRemaining() <= 0)
-            _connection.refreshAccessToken();
+        ensureAccessToken();
         return _connection.invokeMethod(service, method, relativeUrl, body, parameters, additionalHeaders, timeout);
     }
 
+    @Override
+    public <T> T invokeMethod(Class<T> type, Service service, Method method, String relativeUrl, String body, Map<String, String> parameters, Map<String, String> additionalHeaders, Integer timeout) throws ObjectDisposedException, SafeguardForJavaException, ArgumentException {
+        ensureAccessToken();
+        return _connection.invokeMethod(type, service, method, relativeUrl, body, parameters, additionalHeaders, timeout);
+    }
+
+    @Override
+    public <T> T invokeMethod(TypeReference<T> type, Service service, Method method, String relativeUrl, String body, Map<String, String> parameters, Map<String, String> additionalHeaders, Integer timeout) throws ObjectDisposedException, SafeguardForJavaException, ArgumentException {
+        ensureAccessToken();
+        return _connection.invokeMethod(type, service, method, relativeUrl, body, parameters, additionalHeaders, timeout);
+    }
+
     @Override
     public FullResponse invokeMethodFull(Service service, Method method, String relativeUrl, String body, Map<String, String> parameters, Map<String, String> additionalHeaders, Integer timeout) throws ObjectDisposedException, SafeguardForJavaException, ArgumentException {
-        if (_connection.getAccessTokenLifetimeRemaining() <= 0)
-            _connection.refreshAccessToken();
+        ensureAccessToken();
         return _connection.invokeMethodFull(service, method, relativeUrl, body, parameters, additionalHeaders, timeout);
     }
 
     @Override
     public String invokeMethodCsv(Service service, Method method, String relativeUrl, String body, Map<String, String> parameters, Map<String, String> additionalHeaders, Integer timeout) throws ObjectDisposedException, SafeguardForJavaException, ArgumentException {
-        if (_connection.getAccessTokenLifetimeRemaining() <= 0)
-            _connection.refreshAccessToken();
+        ensureAccessToken();
         return _connection.invokeMethodCsv(service, method, relativeUrl, body, parameters, additionalHeaders, timeout);
     }
 
+    @Override
+    public StreamResponse invokeMethodStream(Service service, Method method, String relativeUrl, String body, Map<String, String> parameters, Map<String, String> additionalHeaders, Integer timeout) throws ObjectDisposedException, SafeguardForJavaException, ArgumentException {
+        ensureAccessToken();
+        return _connection.invokeMethodStream(service, method, relativeUrl, body, parameters, additionalHeaders, timeout);
+    }
+
+    @Override
+    public PagedResponse invokeMethodPaged(Service service, String relativeUrl, Map<String, String> parameters, Map<String, String> additionalHeaders, Integer pageSize, Integer timeout) throws ObjectDisposedException, SafeguardForJavaException, ArgumentException {
+        return new PagedResponse(this, service, relativeUrl, parameters, additionalHeaders, pageSize, timeout);
+    }
+
+    @Override
+    public List<BatchResult> invokeBatch(List<SafeguardRequest> requests, Integer maxConcurrency) throws ObjectDisposedException, SafeguardForJavaException, ArgumentException {
+        return BatchInvoker.invoke(this, requests, maxConcurrency);
+    }
+
+    @Override
+    public CompletableFuture<String> invokeMethodAsync(Service service, Method method, String relativeUrl, String body, Map<String, String> parameters, Map<String, String> additionalHeaders, Integer timeout) throws ObjectDisposedException, SafeguardForJavaException, ArgumentException {
+        ensureAccessToken();
+        return _connection.invokeMethodAsync(service, method, relativeUrl, body, parameters, additionalHeaders, timeout);
+    }
+
+    @Override
+    public CompletableFuture<FullResponse> invokeMethodFullAsync(Service service, Method method, String relativeUrl, String body, Map<String, String> parameters, Map<String, String> additionalHeaders, Integer timeout) throws ObjectDisposedException, SafeguardForJavaException, ArgumentException {
+        ensureAccessToken();
+        return _connection.invokeMethodFullAsync(service, method, relativeUrl, body, parameters, additionalHeaders, timeout);
+    }
+
+    @Override
+    public CompletableFuture<String> invokeMethodCsvAsync(Service service, Method method, String relativeUrl, String body, Map<String, String> parameters, Map<String, String> additionalHeaders, Integer timeout) throws ObjectDisposedException, SafeguardForJavaException, ArgumentException {
+        ensureAccessToken();
+        return _connection.invokeMethodCsvAsync(service, method, relativeUrl, body, parameters, additionalHeaders, timeout);
+    }
+
     @Override
     public SafeguardEventListener getEventListener() throws ObjectDisposedException, ArgumentException {
         return _connection.getEventListener();
@@ -0,0 +1,201 @@
+package com.oneidentity.safeguard.safeguardjava;
+
+import com.oneidentity.safeguard.safeguardjava.data.FullResponse;
+import com.oneidentity.safeguard.safeguardjava.data.Service;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+
+/**
+ * Bounded, least-recently-used cache of GET responses for a single connection.
+ *
+ * <p>Entries are keyed on the service, the relative URL, the query parameters
+ * and the caller's additional headers. The cache belongs to one connection, so
+ * it is never shared between identities. A response is cached when it carries
+ * an {@code ETag}, a {@code Last-Modified} date or a {@code max-age}, and is
+ * not marked {@code no-store}. Stale entries are revalidated with a
+ * conditional request; entries within their {@code max-age} are served without
+ * a request unless the response was marked {@code no-cache}.
+ */
+class ResponseCache {
+
+    private final int maxSize;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    ResponseCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    static String keyFor(Service service, String relativeUrl, Map<String, String> parameters, Map<String, String> additionalHeaders) {
+        StringBuilder key = new StringBuilder(service.name()).append(' ').append(relativeUrl);
+        if (parameters != null) {
+            new TreeMap<>(parameters).forEach((name, value) -> key.append('&').append(name).append('=').append(value));
+        }
+        if (additionalHeaders != null) {
+            TreeMap<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            headers.putAll(additionalHeaders);
+            headers.forEach((name, value) -> key.append('\n').append(name.toLowerCase(Locale.ROOT)).append(':').append(value));
+        }
+        return key.toString();
+    }
+
+    synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Stores a successful response if it can be cached.
+     */
+    void put(String key, FullResponse response) {
+        Entry entry = Entry.from(response);
+        synchronized (this) {
+            if (entry == null) {
+                entries.remove(key);
+                return;
+            }
+            entries.put(key, entry);
+            for (Iterator<String> it = entries.keySet().iterator(); entries.size() > maxSize && it.hasNext();) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Handles a 304 answer to a conditional request, refreshing the freshness
+     * of the entry from the new headers.
+     *
+     * @return The cached response.
+     */
+    FullResponse revalidated(String key, Entry entry, FullResponse notModified) {
+        Entry refreshed = entry.refresh(notModified);
+        synchronized (this) {
+            if (entries.get(key) == entry) {
+                entries.put(key, refreshed);
+            }
+        }
+        return refreshed.toResponse();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    static final class Entry {
+        private final int statusCode;
+        private final Header[] headers;
+        private final String body;
+        private final String etag;
+        private final String lastModified;
+        private final long expiresAtNanos;
+
+        private Entry(int statusCode, Header[] headers, String body, String etag, String lastModified, long expiresAtNanos) {
+            this.statusCode = statusCode;
+            this.headers = headers;
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        private static Entry from(FullResponse response) {
+            if (response.getStatusCode() != 200) {
+                return null;
+            }
+            String cacheControl = headerValue(response, HttpHeaders.CACHE_CONTROL);
+            if (hasDirective(cacheControl, "no-store")) {
+                return null;
+            }
+            String etag = headerValue(response, HttpHeaders.ETAG);
+            String lastModified = headerValue(response, HttpHeaders.LAST_MODIFIED);
+            long maxAge = maxAgeSeconds(cacheControl);
+            if (etag == null && lastModified == null && maxAge <= 0) {
+                return null;
+            }
+            List<Header> headers = response.getHeaders();
+            return new Entry(response.getStatusCode(), headers.toArray(new Header[0]), response.getBody(),
+                    etag, lastModified, expiresAt(maxAge));
+        }
+
+        private Entry refresh(FullResponse notModified) {
+            String etag = headerValue(notModified, HttpHeaders.ETAG);
+            return new Entry(statusCode, headers, body, etag != null ? etag : this.etag, lastModified,
+                    expiresAt(maxAgeSeconds(headerValue(notModified, HttpHeaders.CACHE_CONTROL))));
+        }
+
+        boolean isFresh() {
+            return expiresAtNanos != 0 && expiresAtNanos - System.nanoTime() > 0;
+        }
+
+        /**
+         * Adds the validators of this entry to the request headers.
+         */
+        void addValidators(Map<String, String> requestHeaders) {
+            if (etag != null) {
+                requestHeaders.put(HttpHeaders.IF_NONE_MATCH, etag);
+            } else if (lastModified != null) {
+                requestHeaders.put(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+            }
+        }
+
+        FullResponse toResponse() {
+            return new FullResponse(statusCode, headers.clone(), body);
+        }
+
+        private static long expiresAt(long maxAgeSeconds) {
+            if (maxAgeSeconds <= 0) {
+                return 0;
+            }
+            long expires = System.nanoTime() + TimeUnit.SECONDS.toNanos(maxAgeSeconds);
+            return expires == 0 ? 1 : expires;
+        }
+
+        private static String headerValue(FullResponse response, String name) {
+            Header header = response.getFirstHeader(name);
+            return header != null ? header.getValue() : null;
+        }
+
+        private static boolean hasDirective(String cacheControl, String directive) {
+            if (cacheControl == null) {
+                return false;
+            }
+            for (String part : cacheControl.split(",")) {
+                if (part.trim().toLowerCase(Locale.ROOT).startsWith(directive)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Gets the max-age of a response, treating no-cache as zero so that
+         * the response is always revalidated.
+         */
+        private static long maxAgeSeconds(String cacheControl) {
+            if (cacheControl == null || hasDirective(cacheControl, "no-cache")) {
+                return 0;
+            }
+            for (String part : cacheControl.split(",")) {
+                String directive = part.trim().toLowerCase(Locale.ROOT);
+                if (directive.startsWith("max-age=")) {
+                    try {
+                        return Long.parseLong(directive.substring("max-age=".length()).replace("\"", "").trim());
+                    } catch (NumberFormatException ex) {
+                        return 0;
+                    }
+                }
+            }
+            return 0;
+        }
+    }
+}
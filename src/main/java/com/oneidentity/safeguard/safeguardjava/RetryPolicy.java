@@ -0,0 +1,218 @@
+package com.oneidentity.safeguard.safeguardjava;
+
+import com.oneidentity.safeguard.safeguardjava.data.Method;
+import com.oneidentity.safeguard.safeguardjava.exceptions.SafeguardForJavaException;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.hc.client5.http.utils.DateUtils;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpStatus;
+
+/**
+ * Decides whether and when a failed request of a connection is sent again.
+ *
+ * <p>Connection failures and 429, 502, 503 and 504 responses are retried with
+ * exponential backoff and full jitter, or after the delay given by a
+ * {@code Retry-After} header. Retries draw from a budget that every request
+ * sent on the connection refills by a fraction of a retry, so that retries
+ * stay a bounded share of the traffic while the appliance is unavailable.
+ * Deposits and retries count against the budget for ten seconds, so the
+ * budget grows with the recent request rate, on top of a reserve of ten
+ * retries that lets a quiet connection retry at all.
+ */
+class RetryPolicy {
+
+    /** Header with the delay the appliance asks for before a retry. */
+    static final String RETRY_AFTER_HEADER = "Retry-After";
+
+    /** Status code passed for a request that got no response at all. */
+    static final int NO_RESPONSE = 0;
+
+    // Budget amounts are in thousandths of a retry.
+    private static final long RETRY_COST = 1000;
+    private static final long BUDGET_RESERVE = 10 * RETRY_COST;
+    private static final long BUDGET_WINDOW_MILLIS = 10000;
+    private static final int BUDGET_SLOTS = 10;
+
+    private static volatile ScheduledExecutorService scheduler;
+
+    private final int maxRetries;
+    private final boolean retryPost;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final long budgetDeposit;
+    private final long slotNanos;
+    // Deposits and retries per slot of the budget window, indexed by slot number modulo BUDGET_SLOTS.
+    private final long[] deposits = new long[BUDGET_SLOTS];
+    private final long[] withdrawals = new long[BUDGET_SLOTS];
+    private long currentSlot;
+
+    RetryPolicy(int maxRetries, boolean retryPost, long baseDelayMillis, long maxDelayMillis, int budgetPercent) {
+        this(maxRetries, retryPost, baseDelayMillis, maxDelayMillis, budgetPercent, BUDGET_WINDOW_MILLIS);
+    }
+
+    RetryPolicy(int maxRetries, boolean retryPost, long baseDelayMillis, long maxDelayMillis, int budgetPercent,
+            long budgetWindowMillis) {
+        this.maxRetries = maxRetries;
+        this.retryPost = retryPost;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.budgetDeposit = budgetPercent * RETRY_COST / 100;
+        this.slotNanos = Math.max(1, TimeUnit.MILLISECONDS.toNanos(budgetWindowMillis) / BUDGET_SLOTS);
+        this.currentSlot = Math.floorDiv(System.nanoTime(), slotNanos);
+    }
+
+    /**
+     * Creates the retry policy for a connection.
+     *
+     * @return The policy, or null when retries are disabled.
+     */
+    static RetryPolicy from(ConnectionOptions options) {
+        if (options == null || options.getMaxRetries() <= 0) {
+            return null;
+        }
+        return new RetryPolicy(options.getMaxRetries(), options.isRetryPost(), options.getRetryBaseDelayMillis(),
+                options.getRetryMaxDelayMillis(), options.getRetryBudgetPercent());
+    }
+
+    /**
+     * Called with the outcome of every attempt of a request.
+     *
+     * @param method The method of the request.
+     * @param attempt The number of retries already made, zero for the first attempt.
+     * @param statusCode The response status code, or {@link #NO_RESPONSE}.
+     * @param retryAfter The Retry-After header of the response, if any.
+     * @param deadline The deadline of the operation, if any.
+     * @return The delay in milliseconds before retrying, or -1 not to retry.
+     */
+    long retryDelay(Method method, int attempt, int statusCode, Header retryAfter, Deadline deadline) {
+        if (attempt == 0) {
+            deposit();
+        }
+        if (!isRetryable(statusCode) || attempt >= maxRetries || (method == Method.Post && !retryPost)) {
+            return -1;
+        }
+
+        long delay = retryAfterMillis(retryAfter);
+        if (delay < 0) {
+            long backoff = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt, 30));
+            delay = ThreadLocalRandom.current().nextLong(backoff + 1);
+        } else if (delay > maxDelayMillis) {
+            return -1;
+        }
+        if (deadline != null && deadline.getRemainingMillis() <= delay) {
+            return -1;
+        }
+
+        return withdraw() ? delay : -1;
+    }
+
+    private synchronized void deposit() {
+        deposits[advance()] += budgetDeposit;
+    }
+
+    /**
+     * Takes one retry from the budget.
+     *
+     * @return False if the budget has no retry left.
+     */
+    private synchronized boolean withdraw() {
+        int slot = advance();
+        long balance = BUDGET_RESERVE;
+        for (int i = 0; i < BUDGET_SLOTS; i++) {
+            balance += deposits[i] - withdrawals[i];
+        }
+        if (balance < RETRY_COST) {
+            return false;
+        }
+        withdrawals[slot] += RETRY_COST;
+        return true;
+    }
+
+    /**
+     * Clears the slots that have left the budget window.
+     *
+     * @return The index of the current slot.
+     */
+    private int advance() {
+        long slot = Math.floorDiv(System.nanoTime(), slotNanos);
+        for (long expired = Math.max(currentSlot + 1, slot - BUDGET_SLOTS + 1); expired <= slot; expired++) {
+            int index = (int) Math.floorMod(expired, (long) BUDGET_SLOTS);
+            deposits[index] = 0;
+            withdrawals[index] = 0;
+        }
+        currentSlot = Math.max(currentSlot, slot);
+        return (int) Math.floorMod(currentSlot, (long) BUDGET_SLOTS);
+    }
+
+    static boolean isRetryable(int statusCode) {
+        switch (statusCode) {
+            case NO_RESPONSE:
+            case HttpStatus.SC_TOO_MANY_REQUESTS:
+            case HttpStatus.SC_BAD_GATEWAY:
+            case HttpStatus.SC_SERVICE_UNAVAILABLE:
+            case HttpStatus.SC_GATEWAY_TIMEOUT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Parses a Retry-After header given either in seconds or as an HTTP date.
+     *
+     * @return The delay in milliseconds, or -1 if there is no valid header.
+     */
+    static long retryAfterMillis(Header retryAfter) {
+        if (retryAfter == null || retryAfter.getValue() == null) {
+            return -1;
+        }
+        String value = retryAfter.getValue().trim();
+        try {
+            return Math.max(0, TimeUnit.SECONDS.toMillis(Long.parseLong(value)));
+        } catch (NumberFormatException ex) {
+            Instant date = DateUtils.parseStandardDate(value);
+            if (date == null) {
+                return -1;
+            }
+            return Math.max(0, date.toEpochMilli() - System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Waits on the calling thread before a retry.
+     */
+    static void sleep(long delayMillis) throws SafeguardForJavaException {
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SafeguardForJavaException("Interrupted while waiting to retry the request", ex);
+        }
+    }
+
+    /**
+     * Runs a retry of an asynchronous request after a delay, without holding
+     * an I/O thread while waiting.
+     */
+    static void schedule(long delayMillis, Runnable retry) {
+        ScheduledExecutorService executor = scheduler;
+        if (executor == null) {
+            synchronized (RetryPolicy.class) {
+                executor = scheduler;
+                if (executor == null) {
+                    executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "safeguard-retry");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    scheduler = executor;
+                }
+            }
+        }
+        executor.schedule(retry, delayMillis, TimeUnit.MILLISECONDS);
+    }
+}
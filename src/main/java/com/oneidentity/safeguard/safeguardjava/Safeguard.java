@@ -30,8 +30,23 @@ public final class Safeguard {
     }
 
     private static SafeguardConnection getConnection(IAuthenticationMechanism authenticationMechanism) throws ObjectDisposedException, SafeguardForJavaException {
+        return getConnection(authenticationMechanism, null);
+    }
+
+    private static SafeguardConnection getConnection(IAuthenticationMechanism authenticationMechanism, ConnectionOptions options)
+            throws ObjectDisposedException, SafeguardForJavaException {
         authenticationMechanism.refreshAccessToken();
-        return new SafeguardConnection(authenticationMechanism);
+        return newConnection(authenticationMechanism, options);
+    }
+
+    private static SafeguardConnection newConnection(IAuthenticationMechanism authenticationMechanism, ConnectionOptions options) {
+        SafeguardConnection connection = options != null && !options.getReplicaAddresses().isEmpty()
+                ? new SafeguardClusterConnection(authenticationMechanism, options)
+                : new SafeguardConnection(authenticationMechanism, options);
+        if (options != null && options.isWarmUpOnConnect()) {
+            connection.startWarmUp();
+        }
+        return connection;
     }
 
     /**
@@ -834,6 +849,301 @@ public final class Safeguard {
                 version, false, validationCallback, provider));
     }
 
+    /**
+     *  Connect to Safeguard API using an API access token and the given transport options.
+     *
+     *  @param networkAddress Network address of Safeguard appliance.
+     *  @param accessToken Existing API access token.
+     *  @param apiVersion Target API version to use.
+     *  @param ignoreSsl Ignore server certificate validation.
+     *  @param options Transport options such as connection pooling.
+     *
+     *  @return Reusable Safeguard API connection.
+     *  @throws ArgumentException Invalid argument.
+     */
+    public static ISafeguardConnection connect(String networkAddress, char[] accessToken,
+            Integer apiVersion, Boolean ignoreSsl, ConnectionOptions options) throws ArgumentException {
+        int version = DEFAULTAPIVERSION;
+        if (apiVersion != null) {
+            version = apiVersion;
+        }
+
+        boolean sslIgnore = false;
+        if (ignoreSsl != null) {
+            sslIgnore = ignoreSsl;
+        }
+
+        // Don't try to refresh access token on the access token connect method because it cannot be refreshed
+        // So, don't use GetConnection() function above
+        return newConnection(new AccessTokenAuthenticator(networkAddress, accessToken, version, sslIgnore, null), options);
+    }
+
+    /**
+     *  Connect to Safeguard API using an API access token and the given transport options.
+     *
+     *  @param networkAddress Network address of Safeguard appliance.
+     *  @param accessToken Existing API access token.
+     *  @param validationCallback Callback function to be executed during SSL certificate validation.
+     *  @param apiVersion Target API version to use.
+     *  @param options Transport options such as connection pooling.
+     *
+     *  @return Reusable Safeguard API connection.
+     *  @throws ArgumentException Invalid argument.
+     */
+    public static ISafeguardConnection connect(String networkAddress, char[] accessToken,
+            HostnameVerifier validationCallback, Integer apiVersion, ConnectionOptions options) throws ArgumentException {
+        int version = DEFAULTAPIVERSION;
+        if (apiVersion != null) {
+            version = apiVersion;
+        }
+
+        // Don't try to refresh access token on the access token connect method because it cannot be refreshed
+        // So, don't use GetConnection() function above
+        return newConnection(new AccessTokenAuthenticator(networkAddress, accessToken, version, false, validationCallback), options);
+    }
+
+    /**
+     *  Connect to Safeguard API using a user name and password and the given transport options.
+     *
+     *  @param networkAddress Network address of Safeguard appliance.
+     *  @param provider Safeguard authentication provider name (e.g. local).
+     *  @param username User name to use for authentication.
+     *  @param password User password to use for authentication.
+     *  @param apiVersion Target API version to use.
+     *  @param ignoreSsl Ignore server certificate validation.
+     *  @param options Transport options such as connection pooling.
+     *  @return Reusable Safeguard API connection.
+     *  @throws ObjectDisposedException Object has already been disposed.
+     *  @throws ArgumentException Invalid argument.
+     *  @throws SafeguardForJavaException General Safeguard for Java exception.
+     */
+    public static ISafeguardConnection connect(String networkAddress, String provider, String username,
+            char[] password, Integer apiVersion, Boolean ignoreSsl, ConnectionOptions options)
+            throws ObjectDisposedException, ArgumentException, SafeguardForJavaException {
+        int version = DEFAULTAPIVERSION;
+        if (apiVersion != null) {
+            version = apiVersion;
+        }
+
+        boolean sslIgnore = false;
+        if (ignoreSsl != null) {
+            sslIgnore = ignoreSsl;
+        }
+
+        return getConnection(new PasswordAuthenticator(networkAddress, provider, username, password, version,
+                sslIgnore, null), options);
+    }
+
+    /**
+     *  Connect to Safeguard API using a user name and password and the given transport options.
+     *
+     *  @param networkAddress Network address of Safeguard appliance.
+     *  @param provider Safeguard authentication provider name (e.g. local).
+     *  @param username User name to use for authentication.
+     *  @param password User password to use for authentication.
+     *  @param validationCallback Callback function to be executed during SSL certificate validation.
+     *  @param apiVersion Target API version to use.
+     *  @param options Transport options such as connection pooling.
+     *  @return Reusable Safeguard API connection.
+     *  @throws ObjectDisposedException Object has already been disposed.
+     *  @throws ArgumentException Invalid argument.
+     *  @throws SafeguardForJavaException General Safeguard for Java exception.
+     */
+    public static ISafeguardConnection connect(String networkAddress, String provider, String username,
+            char[] password, HostnameVerifier validationCallback, Integer apiVersion, ConnectionOptions options)
+            throws ObjectDisposedException, ArgumentException, SafeguardForJavaException {
+        int version = DEFAULTAPIVERSION;
+        if (apiVersion != null) {
+            version = apiVersion;
+        }
+
+        return getConnection(new PasswordAuthenticator(networkAddress, provider, username, password, version,
+                false, validationCallback), options);
+    }
+
+    /**
+     *  Connect to Safeguard API using a certificate from the keystore and the given
+     *  transport options. The appropriate keystore must have been loaded in the java process.
+     *
+     *  @param networkAddress Network address of Safeguard appliance.
+     *  @param keystorePath Path to the keystore containing the client certificate.
+     *  @param keystorePassword Keystore password.
+     *  @param certificateAlias Alias identifying a client certificate in the keystore.
+     *  @param apiVersion Target API version to use.
+     *  @param ignoreSsl Ignore server certificate validation.
+     *  @param options Transport options such as connection pooling.
+     *
+     *  @return Reusable Safeguard API connection.
+     *  @throws ObjectDisposedException Object has already been disposed.
+     *  @throws SafeguardForJavaException General Safeguard for Java exception.
+     */
+    public static ISafeguardConnection connect(String networkAddress, String keystorePath,
+            char[] keystorePassword, String certificateAlias,
+            Integer apiVersion, Boolean ignoreSsl, ConnectionOptions options)
+            throws ObjectDisposedException, SafeguardForJavaException {
+        int version = DEFAULTAPIVERSION;
+        if (apiVersion != null) {
+            version = apiVersion;
+        }
+
+        boolean sslIgnore = false;
+        if (ignoreSsl != null) {
+            sslIgnore = ignoreSsl;
+        }
+
+        return getConnection(new CertificateAuthenticator(networkAddress, keystorePath,
+                keystorePassword, certificateAlias, version, sslIgnore, null), options);
+    }
+
+    /**
+     *  Connect to Safeguard API using a certificate from the keystore and the given
+     *  transport options. The appropriate keystore must have been loaded in the java process.
+     *
+     *  @param networkAddress Network address of Safeguard appliance.
+     *  @param keystorePath Path to the keystore containing the client certificate.
+     *  @param keystorePassword Keystore password.
+     *  @param certificateAlias Alias identifying a client certificate in the keystore.
+     *  @param validationCallback Callback function to be executed during SSL certificate validation.
+     *  @param apiVersion Target API version to use.
+     *  @param options Transport options such as connection pooling.
+     *
+     *  @return Reusable Safeguard API connection.
+     *  @throws ObjectDisposedException Object has already been disposed.
+     *  @throws SafeguardForJavaException General Safeguard for Java exception.
+     */
+    public static ISafeguardConnection connect(String networkAddress, String keystorePath,
+            char[] keystorePassword, String certificateAlias,
+            HostnameVerifier validationCallback, Integer apiVersion, ConnectionOptions options)
+            throws ObjectDisposedException, SafeguardForJavaException {
+        int version = DEFAULTAPIVERSION;
+        if (apiVersion != null) {
+            version = apiVersion;
+        }
+
+        return getConnection(new CertificateAuthenticator(networkAddress, keystorePath,
+                keystorePassword, certificateAlias, version, false, validationCallback), options);
+    }
+
+    /**
+     *  Connect to Safeguard API using a certificate stored in a file and the given transport options.
+     *
+     *  @param networkAddress Network address of Safeguard appliance.
+     *  @param certificatePath Path to PFX (or PKCS12) certificate file also
+     *  containing private key.
+     *  @param certificatePassword Password to decrypt the certificate file.
+     *  @param apiVersion Target API version to use.
+     *  @param ignoreSsl Ignore server certificate validation.
+     *  @param options Transport options such as connection pooling.
+     *
+     *  @return Reusable Safeguard API connection.
+     *  @throws ObjectDisposedException Object has already been disposed.
+     *  @throws SafeguardForJavaException General Safeguard for Java exception.
+     */
+    public static ISafeguardConnection connect(String networkAddress, String certificatePath,
+            char[] certificatePassword, Integer apiVersion, Boolean ignoreSsl, ConnectionOptions options)
+            throws ObjectDisposedException, SafeguardForJavaException {
+        int version = DEFAULTAPIVERSION;
+        if (apiVersion != null) {
+            version = apiVersion;
+        }
+
+        boolean sslIgnore = false;
+        if (ignoreSsl != null) {
+            sslIgnore = ignoreSsl;
+        }
+
+        return getConnection(new CertificateAuthenticator(networkAddress, certificatePath, certificatePassword,
+                version, sslIgnore, null), options);
+    }
+
+    /**
+     *  Connect to Safeguard API using a certificate stored in a file and the given transport options.
+     *
+     *  @param networkAddress Network address of Safeguard appliance.
+     *  @param certificatePath Path to PFX (or PKCS12) certificate file also
+     *  containing private key.
+     *  @param certificatePassword Password to decrypt the certificate file.
+     *  @param validationCallback Callback function to be executed during SSL certificate validation.
+     *  @param apiVersion Target API version to use.
+     *  @param options Transport options such as connection pooling.
+     *
+     *  @return Reusable Safeguard API connection.
+     *  @throws ObjectDisposedException Object has already been disposed.
+     *  @throws SafeguardForJavaException General Safeguard for Java exception.
+     */
+    public static ISafeguardConnection connect(String networkAddress, String certificatePath,
+            char[] certificatePassword, HostnameVerifier validationCallback, Integer apiVersion, ConnectionOptions options)
+            throws ObjectDisposedException, SafeguardForJavaException {
+        int version = DEFAULTAPIVERSION;
+        if (apiVersion != null) {
+            version = apiVersion;
+        }
+
+        return getConnection(new CertificateAuthenticator(networkAddress, certificatePath, certificatePassword,
+                version, false, validationCallback), options);
+    }
+
+    /**
+     *  Connect to Safeguard API using a certificate stored in memory and the given transport options.
+     *
+     *  @param networkAddress Network address of Safeguard appliance.
+     *  @param certificateData Bytes containing a PFX (or PKCS12) formatted certificate and private key.
+     *  @param certificatePassword Password to decrypt the certificate data.
+     *  @param certificateAlias Alias identifying a client certificate in the keystore.
+     *  @param apiVersion Target API version to use.
+     *  @param ignoreSsl Ignore server certificate validation.
+     *  @param options Transport options such as connection pooling.
+     *
+     *  @return Reusable Safeguard API connection.
+     *  @throws ObjectDisposedException Object has already been disposed.
+     *  @throws SafeguardForJavaException General Safeguard for Java exception.
+     */
+    public static ISafeguardConnection connect(String networkAddress, byte[] certificateData,
+            char[] certificatePassword, String certificateAlias, Integer apiVersion, Boolean ignoreSsl,
+            ConnectionOptions options)
+            throws ObjectDisposedException, SafeguardForJavaException {
+        int version = DEFAULTAPIVERSION;
+        if (apiVersion != null) {
+            version = apiVersion;
+        }
+
+        boolean sslIgnore = false;
+        if (ignoreSsl != null) {
+            sslIgnore = ignoreSsl;
+        }
+
+        return getConnection(new CertificateAuthenticator(networkAddress, certificateData, certificatePassword, certificateAlias,
+                version, sslIgnore, null), options);
+    }
+
+    /**
+     *  Connect to Safeguard API using a certificate stored in memory and the given transport options.
+     *
+     *  @param networkAddress Network address of Safeguard appliance.
+     *  @param certificateData Bytes containing a PFX (or PKCS12) formatted certificate and private key.
+     *  @param certificatePassword Password to decrypt the certificate data.
+     *  @param certificateAlias Alias identifying a client certificate in the keystore.
+     *  @param validationCallback Callback function to be executed during SSL certificate validation.
+     *  @param apiVersion Target API version to use.
+     *  @param options Transport options such as connection pooling.
+     *
+     *  @return Reusable Safeguard API connection.
+     *  @throws ObjectDisposedException Object has already been disposed.
+     *  @throws SafeguardForJavaException General Safeguard for Java exception.
+     */
+    public static ISafeguardConnection connect(String networkAddress, byte[] certificateData,
+            char[] certificatePassword, String certificateAlias, HostnameVerifier validationCallback,
+            Integer apiVersion, ConnectionOptions options)
+            throws ObjectDisposedException, SafeguardForJavaException {
+        int version = DEFAULTAPIVERSION;
+        if (apiVersion != null) {
+            version = apiVersion;
+        }
+
+        return getConnection(new CertificateAuthenticator(networkAddress, certificateData, certificatePassword, certificateAlias,
+                version, false, validationCallback), options);
+    }
+
     /**
      *  Connect to Safeguard API anonymously.
      *
@@ -1789,6 +2099,157 @@ public final class Safeguard {
             return new SafeguardA2AContext(networkAddress, certificateData, certificatePassword, version, false, validationCallback);
         }
 
+        /**
+         *  Establish a Safeguard A2A context using a client certificate from the keystore.
+         *
+         *  @param networkAddress Network address of Safeguard appliance.
+         *  @param keystorePath Path to the keystore containing the client certificate.
+         *  @param keystorePassword Keystore password.
+         *  @param certificateAlias Alias identifying a client certificate in the keystore.
+         *  @param apiVersion Target API version to use.
+         *  @param ignoreSsl Ignore server certificate validation.
+         *  @param options Transport options for the A2A context.
+         *
+         *  @return Reusable Safeguard A2A context.
+         */
+        public static ISafeguardA2AContext getContext(String networkAddress, String keystorePath, char[] keystorePassword, String certificateAlias,
+                Integer apiVersion, Boolean ignoreSsl, ConnectionOptions options) {
+            int version = DEFAULTAPIVERSION;
+            if (apiVersion != null) {
+                version = apiVersion;
+            }
+
+            boolean sslIgnore = false;
+            if (ignoreSsl != null) {
+                sslIgnore = ignoreSsl;
+            }
+
+            return new SafeguardA2AContext(networkAddress, certificateAlias, keystorePath, keystorePassword, version, sslIgnore, null, options);
+        }
+
+        /**
+         *  Establish a Safeguard A2A context using a client certificate from the keystore.
+         *
+         *  @param networkAddress Network address of Safeguard appliance.
+         *  @param keystorePath Path to the keystore containing the client certificate.
+         *  @param keystorePassword Keystore password.
+         *  @param certificateAlias Alias identifying a client certificate in the keystore.
+         *  @param validationCallback Callback function to be executed during SSL certificate validation.
+         *  @param apiVersion Target API version to use.
+         *  @param options Transport options for the A2A context.
+         *
+         *  @return Reusable Safeguard A2A context.
+         */
+        public static ISafeguardA2AContext getContext(String networkAddress, String keystorePath, char[] keystorePassword, String certificateAlias,
+                HostnameVerifier validationCallback, Integer apiVersion, ConnectionOptions options) {
+            int version = DEFAULTAPIVERSION;
+            if (apiVersion != null) {
+                version = apiVersion;
+            }
+
+            return new SafeguardA2AContext(networkAddress, certificateAlias, keystorePath, keystorePassword, version, false, validationCallback, options);
+        }
+
+        /**
+         *  Establish a Safeguard A2A context using a client certificate stored in a file.
+         *
+         *  @param networkAddress Network address of Safeguard appliance.
+         *  @param certificatePath Path to PFX (or PKCS12) certificate file also
+         *  containing private key.
+         *  @param certificatePassword Password to decrypt the certificate file.
+         *  @param apiVersion Target API version to use.
+         *  @param ignoreSsl Ignore server certificate validation.
+         *  @param options Transport options for the A2A context.
+         *
+         *  @return Reusable Safeguard A2A context.
+         */
+        public static ISafeguardA2AContext getContext(String networkAddress, String certificatePath,
+                char[] certificatePassword, Integer apiVersion, Boolean ignoreSsl, ConnectionOptions options) {
+            int version = DEFAULTAPIVERSION;
+            if (apiVersion != null) {
+                version = apiVersion;
+            }
+
+            boolean sslIgnore = false;
+            if (ignoreSsl != null) {
+                sslIgnore = ignoreSsl;
+            }
+
+            return new SafeguardA2AContext(networkAddress, certificatePath, certificatePassword, version, sslIgnore, null, options);
+        }
+
+        /**
+         *  Establish a Safeguard A2A context using a client certificate stored in a file.
+         *
+         *  @param networkAddress Network address of Safeguard appliance.
+         *  @param certificatePath Path to PFX (or PKCS12) certificate file also
+         *  containing private key.
+         *  @param certificatePassword Password to decrypt the certificate file.
+         *  @param validationCallback Callback function to be executed during SSL certificate validation.
+         *  @param apiVersion Target API version to use.
+         *  @param options Transport options for the A2A context.
+         *
+         *  @return Reusable Safeguard A2A context.
+         */
+        public static ISafeguardA2AContext getContext(String networkAddress, String certificatePath,
+                char[] certificatePassword, HostnameVerifier validationCallback, Integer apiVersion, ConnectionOptions options) {
+            int version = DEFAULTAPIVERSION;
+            if (apiVersion != null) {
+                version = apiVersion;
+            }
+
+            return new SafeguardA2AContext(networkAddress, certificatePath, certificatePassword, version, false, validationCallback, options);
+        }
+
+        /**
+         *  Establish a Safeguard A2A context using a client certificate stored in memory.
+         *
+         *  @param networkAddress Network address of Safeguard appliance.
+         *  @param certificateData Bytes containing a PFX (or PKCS12) formatted certificate and private key.
+         *  @param certificatePassword Password to decrypt the certificate file.
+         *  @param apiVersion Target API version to use.
+         *  @param ignoreSsl Ignore server certificate validation.
+         *  @param options Transport options for the A2A context.
+         *
+         *  @return Reusable Safeguard A2A context.
+         */
+        public static ISafeguardA2AContext getContext(String networkAddress, byte[] certificateData,
+                char[] certificatePassword, Integer apiVersion, Boolean ignoreSsl, ConnectionOptions options) {
+            int version = DEFAULTAPIVERSION;
+            if (apiVersion != null) {
+                version = apiVersion;
+            }
+
+            boolean sslIgnore = false;
+            if (ignoreSsl != null) {
+                sslIgnore = ignoreSsl;
+            }
+
+            return new SafeguardA2AContext(networkAddress, certificateData, certificatePassword, version, sslIgnore, null, options);
+        }
+
+        /**
+         *  Establish a Safeguard A2A context using a client certificate stored in memory.
+         *
+         *  @param networkAddress Network address of Safeguard appliance.
+         *  @param certificateData Bytes containing a PFX (or PKCS12) formatted certificate and private key.
+         *  @param certificatePassword Password to decrypt the certificate file.
+         *  @param validationCallback Callback function to be executed during SSL certificate validation.
+         *  @param apiVersion Target API version to use.
+         *  @param options Transport options for the A2A context.
+         *
+         *  @return Reusable Safeguard A2A context.
+         */
+        public static ISafeguardA2AContext getContext(String networkAddress, byte[] certificateData,
+                char[] certificatePassword, HostnameVerifier validationCallback, Integer apiVersion, ConnectionOptions options) {
+            int version = DEFAULTAPIVERSION;
+            if (apiVersion != null) {
+                version = apiVersion;
+            }
+
+            return new SafeguardA2AContext(networkAddress, certificateData, certificatePassword, version, false, validationCallback, options);
+        }
+
         /**
          * This static class provides access to Safeguard A2A Event
          * functionality with persistent event listeners. Persistent event
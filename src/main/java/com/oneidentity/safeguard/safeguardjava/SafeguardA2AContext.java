@@ -1,6 +1,5 @@
 package com.oneidentity.safeguard.safeguardjava;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.oneidentity.safeguard.safeguardjava.data.A2ARegistration;
 import com.oneidentity.safeguard.safeguardjava.data.A2ARetrievableAccount;
 import com.oneidentity.safeguard.safeguardjava.data.A2ARetrievableAccountInternal;
@@ -8,8 +7,11 @@ import com.oneidentity.safeguard.safeguardjava.data.ApiKeySecret;
 import com.oneidentity.safeguard.safeguardjava.data.ApiKeySecretInternal;
 import com.oneidentity.safeguard.safeguardjava.data.BrokeredAccessRequest;
 import com.oneidentity.safeguard.safeguardjava.data.CertificateContext;
+import com.oneidentity.safeguard.safeguardjava.data.FullResponse;
+import com.oneidentity.safeguard.safeguardjava.data.JsonObject;
 import com.oneidentity.safeguard.safeguardjava.data.JsonBody;
 import com.oneidentity.safeguard.safeguardjava.data.KeyFormat;
+import com.oneidentity.safeguard.safeguardjava.data.Method;
 import com.oneidentity.safeguard.safeguardjava.data.SshKey;
 import com.oneidentity.safeguard.safeguardjava.event.ISafeguardEventListener;
 import com.oneidentity.safeguard.safeguardjava.event.SafeguardEventListener;
@@ -18,8 +20,18 @@ import com.oneidentity.safeguard.safeguardjava.exceptions.ObjectDisposedExceptio
 import com.oneidentity.safeguard.safeguardjava.exceptions.SafeguardForJavaException;
 import com.oneidentity.safeguard.safeguardjava.restclient.RestClient;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.oneidentity.safeguard.safeguardjava.event.ISafeguardEventHandler;
@@ -29,7 +41,7 @@ import java.util.ArrayList;
 import java.util.List;
 import javax.net.ssl.HostnameVerifier;
 import org.apache.hc.core5.http.HttpHeaders;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
 
 public class SafeguardA2AContext implements ISafeguardA2AContext {
 
@@ -42,23 +54,61 @@ public class SafeguardA2AContext implements ISafeguardA2AContext {
     private final int apiVersion;
     private final CertificateContext clientCertificate;
     private final HostnameVerifier validationCallback;
+    private final ConnectionOptions options;
 
     private final RestClient a2AClient;
     private final RestClient coreClient;
+    private final List<ClusterMember> members;
+    private final ScheduledExecutorService healthChecks;
+    private final HedgePolicy hedging;
 
 
     public SafeguardA2AContext(String networkAddress, CertificateContext clientCertificate, int apiVersion, boolean ignoreSsl, HostnameVerifier validationCallback) {
+        this(networkAddress, clientCertificate, apiVersion, ignoreSsl, validationCallback, null);
+    }
+
+    public SafeguardA2AContext(String networkAddress, CertificateContext clientCertificate, int apiVersion, boolean ignoreSsl,
+            HostnameVerifier validationCallback, ConnectionOptions options) {
         this.networkAddress = networkAddress;
 
         String safeguardA2AUrl = String.format("https://%s/service/a2a/v%d", this.networkAddress, apiVersion);
-        this.a2AClient = new RestClient(safeguardA2AUrl, ignoreSsl, validationCallback);
+        this.a2AClient = new RestClient(safeguardA2AUrl, ignoreSsl, validationCallback, options);
         String safeguardCoreUrl = String.format("https://%s/service/core/v%d", this.networkAddress, apiVersion);
-        this.coreClient = new RestClient(safeguardCoreUrl, ignoreSsl, validationCallback);
+        this.coreClient = new RestClient(safeguardCoreUrl, ignoreSsl, validationCallback, options);
 
         this.clientCertificate = clientCertificate.cloneObject();
         this.ignoreSsl = ignoreSsl;
         this.apiVersion = apiVersion;
         this.validationCallback = validationCallback;
+        this.options = options;
+
+        if (options != null && !options.getReplicaAddresses().isEmpty()) {
+            List<ClusterMember> cluster = new ArrayList<>();
+            cluster.add(new ClusterMember(networkAddress, a2AClient,
+                    createNotificationClient(networkAddress, apiVersion, ignoreSsl, validationCallback, options), true));
+            for (String address : options.getReplicaAddresses()) {
+                cluster.add(new ClusterMember(address,
+                        new RestClient(String.format("https://%s/service/a2a/v%d", address, apiVersion), ignoreSsl, validationCallback, options),
+                        createNotificationClient(address, apiVersion, ignoreSsl, validationCallback, options), false));
+            }
+            this.members = Collections.unmodifiableList(cluster);
+            this.healthChecks = ClusterMember.startProbes(members, options.getHealthCheckIntervalMillis());
+            this.hedging = HedgePolicy.from(options);
+        } else {
+            this.members = Collections.emptyList();
+            this.healthChecks = null;
+            this.hedging = null;
+        }
+
+        if (options != null && options.isWarmUpOnConnect()) {
+            startWarmUp();
+        }
+    }
+
+    private static RestClient createNotificationClient(String networkAddress, int apiVersion, boolean ignoreSsl,
+            HostnameVerifier validationCallback, ConnectionOptions options) {
+        return new RestClient(String.format("https://%s/service/notification/v%d", networkAddress, apiVersion),
+                ignoreSsl, validationCallback, options);
     }
 
     public SafeguardA2AContext(String networkAddress, String certificateAlias, String certificatePath,
@@ -66,6 +116,11 @@ public class SafeguardA2AContext implements ISafeguardA2AContext {
         this(networkAddress, new CertificateContext(certificateAlias, certificatePath, null, certificatePassword), apiVersion, ignoreSsl, validationCallback);
     }
 
+    public SafeguardA2AContext(String networkAddress, String certificateAlias, String certificatePath,
+            char[] certificatePassword, int apiVersion, boolean ignoreSsl, HostnameVerifier validationCallback, ConnectionOptions options) {
+        this(networkAddress, new CertificateContext(certificateAlias, certificatePath, null, certificatePassword), apiVersion, ignoreSsl, validationCallback, options);
+    }
+
     public SafeguardA2AContext(String networkAddress, String certificateAlias, int apiVersion, boolean ignoreSsl, HostnameVerifier validationCallback) {
         this(networkAddress, new CertificateContext(certificateAlias, null, null, null), apiVersion, ignoreSsl, validationCallback);
     }
@@ -79,11 +134,21 @@ public class SafeguardA2AContext implements ISafeguardA2AContext {
         this(networkAddress, new CertificateContext(null, certificatePath, null, certificatePassword), apiVersion, ignoreSsl, validationCallback);
     }
 
+    public SafeguardA2AContext(String networkAddress, String certificatePath, char[] certificatePassword,
+            int apiVersion, boolean ignoreSsl, HostnameVerifier validationCallback, ConnectionOptions options) {
+        this(networkAddress, new CertificateContext(null, certificatePath, null, certificatePassword), apiVersion, ignoreSsl, validationCallback, options);
+    }
+
     public SafeguardA2AContext(String networkAddress, byte[] certificateData, char[] certificatePassword,
             int apiVersion, boolean ignoreSsl, HostnameVerifier validationCallback) {
         this(networkAddress, new CertificateContext(null, null, certificateData, certificatePassword), apiVersion, ignoreSsl, validationCallback);
     }
 
+    public SafeguardA2AContext(String networkAddress, byte[] certificateData, char[] certificatePassword,
+            int apiVersion, boolean ignoreSsl, HostnameVerifier validationCallback, ConnectionOptions options) {
+        this(networkAddress, new CertificateContext(null, null, certificateData, certificatePassword), apiVersion, ignoreSsl, validationCallback, options);
+    }
+
     @Override
     public List<IA2ARetrievableAccount> getRetrievableAccounts()  throws ObjectDisposedException, SafeguardForJavaException {
         return getRetrievableAccounts(null);
@@ -103,15 +168,17 @@ public class SafeguardA2AContext implements ISafeguardA2AContext {
 
         Map<String, String> parameters = new HashMap<>();
 
-        CloseableHttpResponse response = coreClient.execGET("A2ARegistrations", parameters, headers, null, clientCertificate);
+        FullResponse response = coreClient.execGETFull("A2ARegistrations", parameters, headers, null, clientCertificate);
 
         if (response == null) {
+            Deadline.checkCurrent();
+            coreClient.checkCircuit();
             throw new SafeguardForJavaException(String.format("Unable to connect to web service %s", a2AClient.getBaseURL()));
         }
 
-        String reply = Utils.getResponse(response);
-        if (!Utils.isSuccessful(response.getCode()))
-            throw new SafeguardForJavaException(String.format("Error returned from Safeguard API, Error: %s %s", response.getCode(), reply));
+        String reply = response.getBody();
+        if (!Utils.isSuccessful(response.getStatusCode()))
+            throw new SafeguardForJavaException(String.format("Error returned from Safeguard API, Error: %s %s", response.getStatusCode(), reply));
 
 
         List<A2ARegistration> registrations = parseA2ARegistationResponse(reply);
@@ -125,16 +192,18 @@ public class SafeguardA2AContext implements ISafeguardA2AContext {
                 accountParameters.put("filter", filter);
             }
 
-            response = coreClient.execGET(String.format("A2ARegistrations/%d/RetrievableAccounts", registrationId),
+            response = coreClient.execGETFull(String.format("A2ARegistrations/%d/RetrievableAccounts", registrationId),
                     accountParameters, headers, null, clientCertificate);
 
             if (response == null) {
+                Deadline.checkCurrent();
+                coreClient.checkCircuit();
                 throw new SafeguardForJavaException(String.format("Unable to connect to web service %s", a2AClient.getBaseURL()));
             }
 
-            reply = Utils.getResponse(response);
-            if (!Utils.isSuccessful(response.getCode()))
-                throw new SafeguardForJavaException(String.format("Error returned from Safeguard API, Error: %s %s", response.getCode(), reply));
+            reply = response.getBody();
+            if (!Utils.isSuccessful(response.getStatusCode()))
+                throw new SafeguardForJavaException(String.format("Error returned from Safeguard API, Error: %s %s", response.getStatusCode(), reply));
 
             List<A2ARetrievableAccountInternal> retrievals = parseA2ARetrievableAccountResponse(reply);
 
@@ -179,16 +248,12 @@ public class SafeguardA2AContext implements ISafeguardA2AContext {
         Map<String, String> parameters = new HashMap<>();
         parameters.put("type", "Password");
 
-        CloseableHttpResponse response = a2AClient.execGET("Credentials", parameters, headers, null, clientCertificate);
+        FullResponse response = invokeA2A(Method.Get, "Credentials", parameters, headers, null);
 
-        if (response == null) {
-            throw new SafeguardForJavaException(String.format("Unable to connect to web service %s", a2AClient.getBaseURL()));
-        }
-
-        String reply = Utils.getResponse(response);
-        if (!Utils.isSuccessful(response.getCode())) {
+        String reply = response.getBody();
+        if (!Utils.isSuccessful(response.getStatusCode())) {
             throw new SafeguardForJavaException("Error returned from Safeguard API, Error: "
-                    + String.format("%s %s", response.getCode(), reply));
+                    + String.format("%s %s", response.getStatusCode(), reply));
         }
 
         char[] password = parseJsonString(reply).toCharArray();
@@ -216,17 +281,13 @@ public class SafeguardA2AContext implements ISafeguardA2AContext {
 
         Map<String, String> parameters = new HashMap<>();
 
-        CloseableHttpResponse response = a2AClient.execPUT("Credentials/Password", parameters, headers, null,
-                new JsonBody("\""+new String(password)+"\""), clientCertificate);
+        FullResponse response = invokeA2A(Method.Put, "Credentials/Password", parameters, headers,
+                new JsonBody("\""+new String(password)+"\""));
 
-        if (response == null) {
-            throw new SafeguardForJavaException(String.format("Unable to connect to web service %s", a2AClient.getBaseURL()));
-        }
-
-        String reply = Utils.getResponse(response);
-        if (!Utils.isSuccessful(response.getCode())) {
+        String reply = response.getBody();
+        if (!Utils.isSuccessful(response.getStatusCode())) {
             throw new SafeguardForJavaException("Error returned from Safeguard API, Error: "
-                    + String.format("%s %s", response.getCode(), reply));
+                    + String.format("%s %s", response.getStatusCode(), reply));
         }
 
         logger.info("Successfully set A2A password.");
@@ -251,16 +312,12 @@ public class SafeguardA2AContext implements ISafeguardA2AContext {
         parameters.put("type", "PrivateKey");
         parameters.put("keyFormat", keyFormat.name());
 
-        CloseableHttpResponse response = a2AClient.execGET("Credentials", parameters, headers, null, clientCertificate);
+        FullResponse response = invokeA2A(Method.Get, "Credentials", parameters, headers, null);
 
-        if (response == null) {
-            throw new SafeguardForJavaException(String.format("Unable to connect to web service %s", a2AClient.getBaseURL()));
-        }
-
-        String reply = Utils.getResponse(response);
-        if (!Utils.isSuccessful(response.getCode())) {
+        String reply = response.getBody();
+        if (!Utils.isSuccessful(response.getStatusCode())) {
             throw new SafeguardForJavaException("Error returned from Safeguard API, Error: "
-                    + String.format("%s %s", response.getCode(), reply));
+                    + String.format("%s %s", response.getStatusCode(), reply));
         }
 
         char[] privateKey = parseJsonString(reply).toCharArray();
@@ -301,16 +358,12 @@ public class SafeguardA2AContext implements ISafeguardA2AContext {
         Map<String, String> parameters = new HashMap<>();
         parameters.put("keyFormat", keyFormat.name());
 
-        CloseableHttpResponse response = a2AClient.execPUT("Credentials/SshKey", parameters, headers, null, new JsonBody(body), clientCertificate);
-
-        if (response == null) {
-            throw new SafeguardForJavaException(String.format("Unable to connect to web service %s", a2AClient.getBaseURL()));
-        }
+        FullResponse response = invokeA2A(Method.Put, "Credentials/SshKey", parameters, headers, new JsonBody(body));
 
-        String reply = Utils.getResponse(response);
-        if (!Utils.isSuccessful(response.getCode())) {
+        String reply = response.getBody();
+        if (!Utils.isSuccessful(response.getStatusCode())) {
             throw new SafeguardForJavaException("Error returned from Safeguard API, Error: "
-                    + String.format("%s %s", response.getCode(), reply));
+                    + String.format("%s %s", response.getStatusCode(), reply));
         }
 
         logger.info("Successfully set A2A private key.");
@@ -334,16 +387,12 @@ public class SafeguardA2AContext implements ISafeguardA2AContext {
         Map<String, String> parameters = new HashMap<>();
         parameters.put("type", "ApiKey");
 
-        CloseableHttpResponse response = a2AClient.execGET("Credentials", parameters, headers, null, clientCertificate);
+        FullResponse response = invokeA2A(Method.Get, "Credentials", parameters, headers, null);
 
-        if (response == null) {
-            throw new SafeguardForJavaException(String.format("Unable to connect to web service %s", a2AClient.getBaseURL()));
-        }
-
-        String reply = Utils.getResponse(response);
-        if (!Utils.isSuccessful(response.getCode())) {
+        String reply = response.getBody();
+        if (!Utils.isSuccessful(response.getStatusCode())) {
             throw new SafeguardForJavaException("Error returned from Safeguard API, Error: "
-                    + String.format("%s %s", response.getCode(), reply));
+                    + String.format("%s %s", response.getStatusCode(), reply));
         }
 
         List<ApiKeySecretInternal> apiKeySecretsInternal = parseApiKeySecretResponse(reply);
@@ -458,25 +507,218 @@ public class SafeguardA2AContext implements ISafeguardA2AContext {
 
         Map<String, String> parameters = new HashMap<>();
 
-        CloseableHttpResponse response = a2AClient.execPOST("AccessRequests", parameters, headers, null, brokeredAccessRequest, clientCertificate);
-
-        if (response == null) {
-            throw new SafeguardForJavaException(String.format("Unable to connect to web service %s", a2AClient.getBaseURL()));
-        }
+        FullResponse response = invokeA2A(Method.Post, "AccessRequests", parameters, headers, brokeredAccessRequest);
 
-        String reply = Utils.getResponse(response);
-        if (!Utils.isSuccessful(response.getCode())) {
+        String reply = response.getBody();
+        if (!Utils.isSuccessful(response.getStatusCode())) {
             throw new SafeguardForJavaException("Error returned from Safeguard API, Error: "
-                    + String.format("%s %s", response.getCode(), reply));
+                    + String.format("%s %s", response.getStatusCode(), reply));
         }
 
         logger.info("Successfully created A2A access request.");
         return reply;
     }
 
+    /**
+     * Sends a request to the A2A service. When the context spans several
+     * cluster members the request goes to the healthy member with the lowest
+     * load and, unless it is a POST that may already have been applied, moves
+     * on to another member if a member cannot be reached or is unavailable.
+     * With hedging enabled, a GET that is slow to be answered is also sent to
+     * a second member.
+     */
+    private FullResponse invokeA2A(Method method, String relativeUrl, Map<String, String> parameters,
+            Map<String, String> headers, JsonObject body) throws SafeguardForJavaException {
+
+        RestClient client = a2AClient;
+        FullResponse response;
+        if (members.isEmpty()) {
+            response = execA2A(client, method, relativeUrl, parameters, headers, body);
+        } else {
+            Set<ClusterMember> tried = new HashSet<>();
+            while (true) {
+                ClusterMember member = chooseMember(tried);
+                client = member.getClient();
+                if (hedging != null && method == Method.Get) {
+                    response = execHedged(member, tried, relativeUrl, parameters, headers);
+                } else {
+                    response = execA2A(client, method, relativeUrl, parameters, headers, body);
+                }
+                tried.add(member);
+                if (!isMemberFailure(response) || method == Method.Post || tried.size() == members.size()) {
+                    break;
+                }
+                Deadline.checkCurrent();
+                logger.warn("A2A request to cluster member {} failed, trying another member", member.getNetworkAddress());
+            }
+        }
+
+        if (response == null) {
+            Deadline.checkCurrent();
+            client.checkCircuit();
+            throw new SafeguardForJavaException(String.format("Unable to connect to web service %s", client.getBaseURL()));
+        }
+        return response;
+    }
+
+    private FullResponse execA2A(RestClient client, Method method, String relativeUrl, Map<String, String> parameters,
+            Map<String, String> headers, JsonObject body) throws SafeguardForJavaException {
+        switch (method) {
+            case Get:
+                return client.execGETFull(relativeUrl, parameters, headers, null, clientCertificate);
+            case Put:
+                return client.execPUTFull(relativeUrl, parameters, headers, null, body, clientCertificate);
+            case Post:
+                return client.execPOSTFull(relativeUrl, parameters, headers, null, body, clientCertificate);
+            default:
+                throw new SafeguardForJavaException("Unknown or unsupported method specified");
+        }
+    }
+
+    /**
+     * Sends a GET to a member and, if it has not been answered when the hedge
+     * delay has passed, the same GET to the healthy member with the lowest
+     * load among those not tried yet. Whichever answers first without a
+     * member failure wins and the other request is aborted; aborted requests
+     * do not count against the health of their member.
+     */
+    private FullResponse execHedged(ClusterMember member, Set<ClusterMember> tried, String relativeUrl,
+            Map<String, String> parameters, Map<String, String> headers) throws SafeguardForJavaException {
+
+        hedging.readStarted();
+        long started = System.nanoTime();
+        CompletableFuture<FullResponse> first = member.getClient().execGETFull(relativeUrl, parameters, headers, null,
+                clientCertificate, HedgePolicy.executor());
+        CompletableFuture<FullResponse> second = null;
+        try {
+            FullResponse response;
+            try {
+                response = first.get(hedging.getDelayMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException ex) {
+                tried.add(member);
+                ClusterMember other = chooseMember(tried);
+                if (other == null || !other.isHealthy() || !hedging.tryHedge()) {
+                    response = first.get();
+                } else {
+                    logger.debug("Hedging slow A2A request to cluster member {} with {}", member.getNetworkAddress(),
+                            other.getNetworkAddress());
+                    tried.add(other);
+                    second = other.getClient().execGETFull(relativeUrl, parameters, headers, null,
+                            clientCertificate, HedgePolicy.executor());
+                    response = firstAnswer(first, second).get();
+                }
+            }
+            if (!isMemberFailure(response)) {
+                hedging.recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            }
+            return response;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SafeguardForJavaException("Interrupted while waiting for the A2A request", ex);
+        } catch (ExecutionException ex) {
+            throw new SafeguardForJavaException("A2A request failed", ex.getCause());
+        } finally {
+            first.cancel(true);
+            if (second != null) {
+                second.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Completes with the first response that is not a member failure, or with
+     * the last response if both are.
+     */
+    private static CompletableFuture<FullResponse> firstAnswer(CompletableFuture<FullResponse> first,
+            CompletableFuture<FullResponse> second) {
+        CompletableFuture<FullResponse> answer = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(2);
+        BiConsumer<FullResponse, Throwable> onDone = (response, ex) -> {
+            if (ex == null && !isMemberFailure(response)) {
+                answer.complete(response);
+            } else if (pending.decrementAndGet() == 0) {
+                if (ex != null) {
+                    answer.completeExceptionally(ex);
+                } else {
+                    answer.complete(response);
+                }
+            }
+        };
+        first.whenComplete(onDone);
+        second.whenComplete(onDone);
+        return answer;
+    }
+
+    /**
+     * Chooses the healthy member with the lowest load that has not been tried
+     * yet, or else the first member not tried yet.
+     */
+    private ClusterMember chooseMember(Set<ClusterMember> tried) {
+        ClusterMember chosen = null;
+        double lowest = Double.MAX_VALUE;
+        for (ClusterMember member : members) {
+            if (!tried.contains(member) && member.isHealthy()) {
+                double load = member.getLoad();
+                if (load < lowest) {
+                    lowest = load;
+                    chosen = member;
+                }
+            }
+        }
+        if (chosen == null) {
+            for (ClusterMember member : members) {
+                if (!tried.contains(member)) {
+                    return member;
+                }
+            }
+        }
+        return chosen;
+    }
+
+    private static boolean isMemberFailure(FullResponse response) {
+        return response == null || response.getStatusCode() == HttpStatus.SC_BAD_GATEWAY
+                || response.getStatusCode() == HttpStatus.SC_SERVICE_UNAVAILABLE
+                || response.getStatusCode() == HttpStatus.SC_GATEWAY_TIMEOUT;
+    }
+
+    @Override
+    public void warmUp() throws ObjectDisposedException, SafeguardForJavaException {
+        if (disposed) {
+            throw new ObjectDisposedException("SafeguardA2AContext");
+        }
+        try {
+            startWarmUp().get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SafeguardForJavaException("Interrupted while warming up connections", ex);
+        } catch (ExecutionException ex) {
+            throw new SafeguardForJavaException("Unable to warm up connections", ex.getCause());
+        }
+    }
+
+    /**
+     * Starts opening connections with the client certificate to the A2A
+     * service of each cluster member, without waiting for them.
+     */
+    private CompletableFuture<Void> startWarmUp() {
+        int connections = options != null ? options.getWarmUpConnections() : ConnectionOptions.DEFAULT_WARM_UP_CONNECTIONS;
+        if (members.isEmpty()) {
+            return a2AClient.warmUp(connections, clientCertificate).thenApply(opened -> null);
+        }
+        return CompletableFuture.allOf(members.stream()
+                .map(member -> member.getClient().warmUp(connections, clientCertificate))
+                .toArray(CompletableFuture[]::new));
+    }
+
     @Override
     public void dispose() {
         clientCertificate.dispose();
+        if (healthChecks != null) {
+            healthChecks.shutdownNow();
+        }
+        members.forEach(ClusterMember::close);
+        a2AClient.close();
+        coreClient.close();
         disposed = true;
     }
 
@@ -484,6 +726,12 @@ public class SafeguardA2AContext implements ISafeguardA2AContext {
     protected void finalize() throws Throwable {
         try {
             clientCertificate.dispose();
+            if (healthChecks != null) {
+                healthChecks.shutdownNow();
+            }
+            members.forEach(ClusterMember::close);
+            a2AClient.close();
+            coreClient.close();
         } finally {
             disposed = true;
             super.finalize();
@@ -492,15 +740,13 @@ public class SafeguardA2AContext implements ISafeguardA2AContext {
 
     public Object cloneObject()
     {
-        return new SafeguardA2AContext(networkAddress, clientCertificate, apiVersion, ignoreSsl, validationCallback);
+        return new SafeguardA2AContext(networkAddress, clientCertificate, apiVersion, ignoreSsl, validationCallback, options);
     }
 
     private List<A2ARegistration> parseA2ARegistationResponse(String response) {
 
-        ObjectMapper mapper = new ObjectMapper();
-
         try {
-            A2ARegistration[] registrations = mapper.readValue(response, A2ARegistration[].class);
+            A2ARegistration[] registrations = Utils.jsonReader(A2ARegistration[].class).readValue(response);
             return Arrays.asList(registrations);
         } catch (IOException ex) {
             logger.error("Exception occurred", ex);
@@ -511,10 +757,8 @@ public class SafeguardA2AContext implements ISafeguardA2AContext {
 
     private List<A2ARetrievableAccountInternal> parseA2ARetrievableAccountResponse(String response) {
 
-        ObjectMapper mapper = new ObjectMapper();
-
         try {
-            A2ARetrievableAccountInternal[] accounts = mapper.readValue(response, A2ARetrievableAccountInternal[].class);
+            A2ARetrievableAccountInternal[] accounts = Utils.jsonReader(A2ARetrievableAccountInternal[].class).readValue(response);
             return Arrays.asList(accounts);
         } catch (IOException ex) {
             logger.error("Exception occurred", ex);
@@ -525,10 +769,8 @@ public class SafeguardA2AContext implements ISafeguardA2AContext {
 
     private List<ApiKeySecretInternal> parseApiKeySecretResponse(String response) {
 
-        ObjectMapper mapper = new ObjectMapper();
-
         try {
-            ApiKeySecretInternal[] apiKeySecrets = mapper.readValue(response, ApiKeySecretInternal[].class);
+            ApiKeySecretInternal[] apiKeySecrets = Utils.jsonReader(ApiKeySecretInternal[].class).readValue(response);
             return Arrays.asList(apiKeySecrets);
         } catch (IOException ex) {
             logger.error("Exception occurred", ex);
@@ -539,7 +781,7 @@ public class SafeguardA2AContext implements ISafeguardA2AContext {
 
     private String parseJsonString(String json) throws SafeguardForJavaException {
         try {
-            return new ObjectMapper().readValue(json, String.class);
+            return Utils.jsonReader(String.class).readValue(json);
         } catch (IOException e) {
             throw new SafeguardForJavaException("Error parsing JSON response", e);
         }
@@ -547,7 +789,7 @@ public class SafeguardA2AContext implements ISafeguardA2AContext {
 
     private String serializeToJson(Object obj) throws SafeguardForJavaException {
         try {
-            return new ObjectMapper().writeValueAsString(obj);
+            return Utils.jsonWriter().writeValueAsString(obj);
         } catch (IOException e) {
             throw new SafeguardForJavaException("Error serializing object to JSON", e);
         }
@@ -0,0 +1,97 @@
+package com.oneidentity.safeguard.safeguardjava;
+
+import com.oneidentity.safeguard.safeguardjava.authentication.IAuthenticationMechanism;
+import com.oneidentity.safeguard.safeguardjava.data.Method;
+import com.oneidentity.safeguard.safeguardjava.data.Service;
+import com.oneidentity.safeguard.safeguardjava.exceptions.SafeguardForJavaException;
+import com.oneidentity.safeguard.safeguardjava.restclient.RestClient;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Connection to a Safeguard cluster that spreads reads over its replicas.
+ *
+ * <p>The appliance the connection is authenticated against is the primary.
+ * GET requests to the core service go to whichever of the primary and the
+ * healthy replicas has the lowest load, and everything else, including
+ * requests to the appliance and notification services, which describe a
+ * single appliance, goes to the primary. The access token of the primary is
+ * valid throughout the cluster.
+ */
+class SafeguardClusterConnection extends SafeguardConnection {
+
+    private final List<ClusterMember> replicas;
+    private final ScheduledExecutorService healthChecks;
+
+    public SafeguardClusterConnection(IAuthenticationMechanism authenticationMechanism, ConnectionOptions options) {
+        super(authenticationMechanism, options);
+
+        List<ClusterMember> members = new ArrayList<>();
+        for (String address : options.getReplicaAddresses()) {
+            members.add(new ClusterMember(address,
+                    createClient(authenticationMechanism, address, "core", options),
+                    createClient(authenticationMechanism, address, "notification", options), false));
+        }
+        replicas = Collections.unmodifiableList(members);
+
+        healthChecks = ClusterMember.startProbes(replicas, options.getHealthCheckIntervalMillis());
+    }
+
+    private static RestClient createClient(IAuthenticationMechanism authenticationMechanism, String networkAddress,
+            String service, ConnectionOptions options) {
+        String url = String.format("https://%s/service/%s/v%d", networkAddress, service, authenticationMechanism.getApiVersion());
+        return new RestClient(url, authenticationMechanism.isIgnoreSsl(), authenticationMechanism.getValidationCallback(), options);
+    }
+
+    List<ClusterMember> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    protected RestClient getClientForRequest(Service service, Method method) throws SafeguardForJavaException {
+
+        RestClient primary = getClientForService(service);
+        if (service != Service.Core || method != Method.Get) {
+            return primary;
+        }
+
+        RestClient chosen = primary;
+        double lowest = primary.isCircuitOpen() ? Double.MAX_VALUE : ClusterMember.load(primary);
+        for (ClusterMember replica : replicas) {
+            if (replica.isHealthy()) {
+                double load = replica.getLoad();
+                if (load < lowest) {
+                    lowest = load;
+                    chosen = replica.getClient();
+                }
+            }
+        }
+        return chosen;
+    }
+
+    @Override
+    protected List<RestClient> getClients() {
+        List<RestClient> clients = new ArrayList<>(super.getClients());
+        replicas.forEach(replica -> clients.add(replica.getClient()));
+        return clients;
+    }
+
+    @Override
+    public void dispose() {
+        healthChecks.shutdownNow();
+        replicas.forEach(ClusterMember::close);
+        super.dispose();
+    }
+
+    @Override
+    protected void finalize() throws Throwable {
+        try {
+            healthChecks.shutdownNow();
+            replicas.forEach(ClusterMember::close);
+        } finally {
+            super.finalize();
+        }
+    }
+}
@@ -1,33 +1,53 @@
 package com.oneidentity.safeguard.safeguardjava;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.oneidentity.safeguard.safeguardjava.data.JoinRequest;
 import com.oneidentity.safeguard.safeguardjava.authentication.AnonymousAuthenticator;
 import com.oneidentity.safeguard.safeguardjava.authentication.CertificateAuthenticator;
 import com.oneidentity.safeguard.safeguardjava.authentication.IAuthenticationMechanism;
 import com.oneidentity.safeguard.safeguardjava.authentication.PasswordAuthenticator;
+import com.oneidentity.safeguard.safeguardjava.data.BatchResult;
 import com.oneidentity.safeguard.safeguardjava.data.FullResponse;
 import com.oneidentity.safeguard.safeguardjava.data.JsonBody;
 import com.oneidentity.safeguard.safeguardjava.data.Method;
+import com.oneidentity.safeguard.safeguardjava.data.SafeguardRequest;
 import com.oneidentity.safeguard.safeguardjava.data.Service;
 import com.oneidentity.safeguard.safeguardjava.event.ISafeguardEventListener;
 import com.oneidentity.safeguard.safeguardjava.event.PersistentSafeguardEventListener;
 import com.oneidentity.safeguard.safeguardjava.event.SafeguardEventListener;
 import com.oneidentity.safeguard.safeguardjava.exceptions.ArgumentException;
+import com.oneidentity.safeguard.safeguardjava.exceptions.CircuitBreakerOpenException;
+import com.oneidentity.safeguard.safeguardjava.exceptions.DeadlineExceededException;
 import com.oneidentity.safeguard.safeguardjava.exceptions.ObjectDisposedException;
 import com.oneidentity.safeguard.safeguardjava.exceptions.SafeguardForJavaException;
 import com.oneidentity.safeguard.safeguardjava.restclient.RestClient;
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.util.stream.Collectors;
+import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
 
 class SafeguardConnection implements ISafeguardConnection {
 
     private static final Logger logger = LoggerFactory.getLogger(SafeguardConnection.class);
 
+    private static final String TOKEN_LIFETIME_HEADER = "X-TokenLifetimeRemaining";
+
     private boolean disposed;
 
     private final IAuthenticationMechanism authenticationMechanism;
@@ -36,23 +56,40 @@ class SafeguardConnection implements ISafeguardConnection {
     private final RestClient applianceClient;
     private final RestClient notificationClient;
     private final IStreamingRequest streamingRequest;
+    private final ConnectionOptions options;
+    private final ResponseCache responseCache;
+    private final RetryPolicy retryPolicy;
+
+    /**
+     * Time at which the access token expires, in {@link System#nanoTime()}
+     * units, as last reported by the appliance; zero when it is not known.
+     */
+    private volatile long accessTokenExpiresAtNanos = 0;
 
     public SafeguardConnection(IAuthenticationMechanism authenticationMechanism) {
+        this(authenticationMechanism, null);
+    }
+
+    public SafeguardConnection(IAuthenticationMechanism authenticationMechanism, ConnectionOptions options) {
         this.authenticationMechanism = authenticationMechanism;
+        this.options = options;
 
         String safeguardCoreUrl = String.format("https://%s/service/core/v%d",
                 this.authenticationMechanism.getNetworkAddress(), this.authenticationMechanism.getApiVersion());
-        coreClient = new RestClient(safeguardCoreUrl, authenticationMechanism.isIgnoreSsl(), authenticationMechanism.getValidationCallback());
+        coreClient = new RestClient(safeguardCoreUrl, authenticationMechanism.isIgnoreSsl(), authenticationMechanism.getValidationCallback(), options);
 
         String safeguardApplianceUrl = String.format("https://%s/service/appliance/v%d",
                 this.authenticationMechanism.getNetworkAddress(), this.authenticationMechanism.getApiVersion());
-        applianceClient = new RestClient(safeguardApplianceUrl, authenticationMechanism.isIgnoreSsl(), authenticationMechanism.getValidationCallback());
+        applianceClient = new RestClient(safeguardApplianceUrl, authenticationMechanism.isIgnoreSsl(), authenticationMechanism.getValidationCallback(), options);
 
         String safeguardNotificationUrl = String.format("https://%s/service/notification/v%d",
                 this.authenticationMechanism.getNetworkAddress(), this.authenticationMechanism.getApiVersion());
-        notificationClient = new RestClient(safeguardNotificationUrl, authenticationMechanism.isIgnoreSsl(), authenticationMechanism.getValidationCallback());
+        notificationClient = new RestClient(safeguardNotificationUrl, authenticationMechanism.isIgnoreSsl(), authenticationMechanism.getValidationCallback(), options);
 
         streamingRequest = new StreamingRequest(this);
+        responseCache = options != null && options.getResponseCacheSize() > 0
+                ? new ResponseCache(options.getResponseCacheSize()) : null;
+        retryPolicy = RetryPolicy.from(options);
     }
 
     @Override
@@ -66,6 +103,7 @@ class SafeguardConnection implements ISafeguardConnection {
             logger.trace(msg);
         } else
             logger.trace("Access token invalid or server unavailable");
+        trackAccessTokenLifetime(lifetime);
         return lifetime;
     }
 
@@ -75,9 +113,24 @@ class SafeguardConnection implements ISafeguardConnection {
             throw new ObjectDisposedException("SafeguardConnection");
         }
         authenticationMechanism.refreshAccessToken();
+        accessTokenExpiresAtNanos = 0;
         logger.trace("Successfully obtained a new access token");
     }
 
+    /**
+     * Obtains a new access token unless the stale token, which the caller
+     * found to be expired, has already been replaced by another caller.
+     */
+    void refreshStaleAccessToken(char[] staleToken) throws ObjectDisposedException, SafeguardForJavaException {
+        if (disposed) {
+            throw new ObjectDisposedException("SafeguardConnection");
+        }
+        if (authenticationMechanism.refreshAccessToken(staleToken)) {
+            accessTokenExpiresAtNanos = 0;
+            logger.trace("Successfully obtained a new access token");
+        }
+    }
+
     @Override
     public String invokeMethod(Service service, Method method, String relativeUrl, String body,
             Map<String, String> parameters, Map<String, String> additionalHeaders, Integer timeout)
@@ -88,6 +141,62 @@ class SafeguardConnection implements ISafeguardConnection {
         return invokeMethodFull(service, method, relativeUrl, body, parameters, additionalHeaders, timeout).getBody();
     }
 
+    @Override
+    public <T> T invokeMethod(Class<T> type, Service service, Method method, String relativeUrl, String body,
+            Map<String, String> parameters, Map<String, String> additionalHeaders, Integer timeout)
+            throws ObjectDisposedException, SafeguardForJavaException, ArgumentException {
+        if (type == null) {
+            throw new ArgumentException("Parameter type may not be null");
+        }
+        return invokeMethodJson(Utils.jsonReader(type), service, method, relativeUrl, body, parameters, additionalHeaders, timeout);
+    }
+
+    @Override
+    public <T> T invokeMethod(TypeReference<T> type, Service service, Method method, String relativeUrl, String body,
+            Map<String, String> parameters, Map<String, String> additionalHeaders, Integer timeout)
+            throws ObjectDisposedException, SafeguardForJavaException, ArgumentException {
+        if (type == null) {
+            throw new ArgumentException("Parameter type may not be null");
+        }
+        return invokeMethodJson(Utils.jsonReader(type), service, method, relativeUrl, body, parameters, additionalHeaders, timeout);
+    }
+
+    private <T> T invokeMethodJson(ObjectReader reader, Service service, Method method, String relativeUrl, String body,
+            Map<String, String> parameters, Map<String, String> additionalHeaders, Integer timeout)
+            throws ObjectDisposedException, SafeguardForJavaException, ArgumentException {
+
+        if (disposed) {
+            throw new ObjectDisposedException("SafeguardConnection");
+        }
+
+        // Cached responses are held as strings, so the cache path parses the body.
+        if (responseCache != null) {
+            String reply = invokeMethodFull(service, method, relativeUrl, body, parameters, additionalHeaders, timeout).getBody();
+            if (Utils.isNullOrEmpty(reply)) {
+                return null;
+            }
+            try {
+                return reader.readValue(reply);
+            } catch (IOException ex) {
+                throw new SafeguardForJavaException("Unable to parse the response as JSON", ex);
+            }
+        }
+
+        try (StreamResponse response = invokeMethodStream(service, method, relativeUrl, body, parameters, additionalHeaders, timeout)) {
+            if (response.getStatusCode() == HttpStatus.SC_NO_CONTENT) {
+                return null;
+            }
+            try (JsonParser parser = reader.createParser(response.getStream())) {
+                if (parser.nextToken() == null) {
+                    return null;
+                }
+                return reader.readValue(parser);
+            } catch (IOException ex) {
+                throw new SafeguardForJavaException("Unable to parse the response as JSON", ex);
+            }
+        }
+    }
+
     @Override
     public FullResponse invokeMethodFull(Service service, Method method, String relativeUrl,
             String body, Map<String, String> parameters, Map<String, String> additionalHeaders, Integer timeout)
@@ -99,47 +208,92 @@ class SafeguardConnection implements ISafeguardConnection {
         if (Utils.isNullOrEmpty(relativeUrl))
             throw new ArgumentException("Parameter relativeUrl may not be null or empty");
 
-        RestClient client = getClientForService(service);
+        RestClient client = getClientForRequest(service, method);
         if (!authenticationMechanism.isAnonymous() && !authenticationMechanism.hasAccessToken()) {
             throw new SafeguardForJavaException("Access token is missing due to log out, you must refresh the access token to invoke a method");
         }
 
         Map<String,String> headers = prepareHeaders(additionalHeaders, service);
-        CloseableHttpResponse response = null;
 
         logRequestDetails(method, client.getBaseURL() + "/" + relativeUrl, parameters, additionalHeaders);
 
-        switch (method) {
-            case Get:
-                response = client.execGET(relativeUrl, parameters, headers, timeout);
-                break;
-            case Post:
-                response = client.execPOST(relativeUrl, parameters, headers, timeout, new JsonBody(body));
-                break;
-            case Put:
-                response = client.execPUT(relativeUrl, parameters, headers, timeout, new JsonBody(body));
-                break;
-            case Delete:
-                response = client.execDELETE(relativeUrl, parameters, headers, timeout);
-                break;
+        if (method == Method.Get && responseCache != null) {
+            return getCached(client, service, relativeUrl, parameters, headers, additionalHeaders, timeout);
         }
 
+        FullResponse response = sendFullRequest(client, method, relativeUrl, body, parameters, headers, timeout);
+
         if (response == null) {
+            Deadline.checkCurrent();
+            client.checkCircuit();
             throw new SafeguardForJavaException(String.format("Unable to connect to web service %s", client.getBaseURL()));
         }
 
-        String reply = Utils.getResponse(response);
+        trackAccessTokenLifetime(response.getStatusCode(), response.getFirstHeader(TOKEN_LIFETIME_HEADER));
 
-        if (!Utils.isSuccessful(response.getCode())) {
+        if (!Utils.isSuccessful(response.getStatusCode())) {
             throw new SafeguardForJavaException("Error returned from Safeguard API, Error: "
-                    + String.format("%d %s", response.getCode(), reply));
+                    + String.format("%d %s", response.getStatusCode(), response.getBody()));
         }
 
-        FullResponse fullResponse = new FullResponse(response.getCode(), response.getHeaders(), reply);
+        writeSucceeded(method);
 
-        logResponseDetails(fullResponse);
+        logResponseDetails(response);
 
-        return fullResponse;
+        return response;
+    }
+
+    /**
+     * Drops the cached responses after a successful write, which may have
+     * changed any of them. Every path that sends a write calls this before
+     * the caller can see the result, so that a read that follows never
+     * returns a stale response.
+     */
+    void writeSucceeded(Method method) {
+        if (responseCache != null && method != Method.Get) {
+            responseCache.clear();
+        }
+    }
+
+    private FullResponse getCached(RestClient client, Service service, String relativeUrl, Map<String, String> parameters,
+            Map<String, String> headers, Map<String, String> additionalHeaders, Integer timeout)
+            throws SafeguardForJavaException {
+
+        String key = ResponseCache.keyFor(service, relativeUrl, parameters, additionalHeaders);
+        ResponseCache.Entry cached = responseCache.get(key);
+        if (cached != null && cached.isFresh()) {
+            logger.trace("Returning cached response");
+            FullResponse response = cached.toResponse();
+            logResponseDetails(response);
+            return response;
+        }
+        if (cached != null) {
+            cached.addValidators(headers);
+        }
+
+        FullResponse response = sendFullRequest(client, Method.Get, relativeUrl, null, parameters, headers, timeout);
+
+        if (response == null) {
+            Deadline.checkCurrent();
+            client.checkCircuit();
+            throw new SafeguardForJavaException(String.format("Unable to connect to web service %s", client.getBaseURL()));
+        }
+
+        trackAccessTokenLifetime(response.getStatusCode(), response.getFirstHeader(TOKEN_LIFETIME_HEADER));
+
+        if (cached != null && response.getStatusCode() == 304) {
+            logger.trace("Cached response is still valid");
+            response = responseCache.revalidated(key, cached, response);
+        } else if (!Utils.isSuccessful(response.getStatusCode())) {
+            throw new SafeguardForJavaException("Error returned from Safeguard API, Error: "
+                    + String.format("%d %s", response.getStatusCode(), response.getBody()));
+        } else {
+            responseCache.put(key, response);
+        }
+
+        logResponseDetails(response);
+
+        return response;
     }
 
     @Override
@@ -158,6 +312,313 @@ class SafeguardConnection implements ISafeguardConnection {
         return invokeMethodFull(service, method, relativeUrl, body, parameters, additionalHeaders, timeout).getBody();
     }
 
+    @Override
+    public StreamResponse invokeMethodStream(Service service, Method method, String relativeUrl,
+            String body, Map<String, String> parameters, Map<String, String> additionalHeaders, Integer timeout)
+            throws ObjectDisposedException, SafeguardForJavaException, ArgumentException {
+
+        if (disposed) {
+            throw new ObjectDisposedException("SafeguardConnection");
+        }
+        if (Utils.isNullOrEmpty(relativeUrl))
+            throw new ArgumentException("Parameter relativeUrl may not be null or empty");
+
+        RestClient client = getClientForRequest(service, method);
+        if (!authenticationMechanism.isAnonymous() && !authenticationMechanism.hasAccessToken()) {
+            throw new SafeguardForJavaException("Access token is missing due to log out, you must refresh the access token to invoke a method");
+        }
+
+        Map<String,String> headers = prepareHeaders(additionalHeaders, service);
+
+        logRequestDetails(method, client.getBaseURL() + "/" + relativeUrl, parameters, additionalHeaders);
+
+        CloseableHttpResponse response = sendRequest(client, method, relativeUrl, body, parameters, headers, timeout);
+
+        if (response == null) {
+            Deadline.checkCurrent();
+            client.checkCircuit();
+            throw new SafeguardForJavaException(String.format("Unable to connect to web service %s", client.getBaseURL()));
+        }
+
+        trackAccessTokenLifetime(response.getCode(), response.getFirstHeader(TOKEN_LIFETIME_HEADER));
+
+        if (!Utils.isSuccessful(response.getCode())) {
+            String reply = Utils.getResponse(response);
+            try {
+                response.close();
+            } catch (IOException ex) {
+                logger.debug("Error closing response", ex);
+            }
+            throw new SafeguardForJavaException("Error returned from Safeguard API, Error: "
+                    + String.format("%d %s", response.getCode(), reply));
+        }
+
+        writeSucceeded(method);
+
+        logResponseDetails(new FullResponse(response.getCode(), response.getHeaders(), null));
+
+        return new StreamResponse(response);
+    }
+
+    private FullResponse sendFullRequest(RestClient client, Method method, String relativeUrl, String body,
+            Map<String, String> parameters, Map<String, String> headers, Integer timeout) throws SafeguardForJavaException {
+
+        for (int attempt = 0; ; attempt++) {
+            FullResponse response = null;
+            switch (method) {
+                case Get:
+                    response = client.execGETFull(relativeUrl, parameters, headers, timeout);
+                    break;
+                case Post:
+                    response = client.execPOSTFull(relativeUrl, parameters, headers, timeout, new JsonBody(body));
+                    break;
+                case Put:
+                    response = client.execPUTFull(relativeUrl, parameters, headers, timeout, new JsonBody(body));
+                    break;
+                case Delete:
+                    response = client.execDELETEFull(relativeUrl, parameters, headers, timeout);
+                    break;
+            }
+            if (retryPolicy == null || (response == null && client.isCircuitOpen())) {
+                return response;
+            }
+            long delay = retryPolicy.retryDelay(method, attempt,
+                    response != null ? response.getStatusCode() : RetryPolicy.NO_RESPONSE,
+                    response != null ? response.getFirstHeader(RetryPolicy.RETRY_AFTER_HEADER) : null, Deadline.current());
+            if (delay < 0) {
+                return response;
+            }
+            logRetry(method, client, relativeUrl, response != null ? response.getStatusCode() : RetryPolicy.NO_RESPONSE, delay, attempt);
+            RetryPolicy.sleep(delay);
+        }
+    }
+
+    private CloseableHttpResponse sendRequest(RestClient client, Method method, String relativeUrl, String body,
+            Map<String, String> parameters, Map<String, String> headers, Integer timeout) throws SafeguardForJavaException {
+
+        for (int attempt = 0; ; attempt++) {
+            CloseableHttpResponse response = sendRequestOnce(client, method, relativeUrl, body, parameters, headers, timeout);
+            if (retryPolicy == null || (response == null && client.isCircuitOpen())) {
+                return response;
+            }
+            long delay = retryPolicy.retryDelay(method, attempt,
+                    response != null ? response.getCode() : RetryPolicy.NO_RESPONSE,
+                    response != null ? response.getFirstHeader(RetryPolicy.RETRY_AFTER_HEADER) : null, Deadline.current());
+            if (delay < 0) {
+                return response;
+            }
+            logRetry(method, client, relativeUrl, response != null ? response.getCode() : RetryPolicy.NO_RESPONSE, delay, attempt);
+            if (response != null) {
+                try {
+                    response.close();
+                } catch (IOException ex) {
+                    logger.debug("Error closing response", ex);
+                }
+            }
+            RetryPolicy.sleep(delay);
+        }
+    }
+
+    private void logRetry(Method method, RestClient client, String relativeUrl, int statusCode, long delay, int attempt) {
+        logger.debug("Retrying {} {}/{} after {} in {} ms, retry {} of at most {}", method, client.getBaseURL(), relativeUrl,
+                statusCode == RetryPolicy.NO_RESPONSE ? "connection failure" : "status " + statusCode, delay, attempt + 1,
+                options.getMaxRetries());
+    }
+
+    private CloseableHttpResponse sendRequestOnce(RestClient client, Method method, String relativeUrl, String body,
+            Map<String, String> parameters, Map<String, String> headers, Integer timeout) {
+
+        switch (method) {
+            case Get:
+                return client.execGET(relativeUrl, parameters, headers, timeout);
+            case Post:
+                return client.execPOST(relativeUrl, parameters, headers, timeout, new JsonBody(body));
+            case Put:
+                return client.execPUT(relativeUrl, parameters, headers, timeout, new JsonBody(body));
+            case Delete:
+                return client.execDELETE(relativeUrl, parameters, headers, timeout);
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public PagedResponse invokeMethodPaged(Service service, String relativeUrl,
+            Map<String, String> parameters, Map<String, String> additionalHeaders, Integer pageSize, Integer timeout)
+            throws ObjectDisposedException, SafeguardForJavaException, ArgumentException {
+
+        if (disposed) {
+            throw new ObjectDisposedException("SafeguardConnection");
+        }
+
+        return new PagedResponse(this, service, relativeUrl, parameters, additionalHeaders, pageSize, timeout);
+    }
+
+    @Override
+    public List<BatchResult> invokeBatch(List<SafeguardRequest> requests, Integer maxConcurrency)
+            throws ObjectDisposedException, SafeguardForJavaException, ArgumentException {
+
+        if (disposed) {
+            throw new ObjectDisposedException("SafeguardConnection");
+        }
+
+        return BatchInvoker.invoke(this, requests, maxConcurrency);
+    }
+
+    @Override
+    public CompletableFuture<String> invokeMethodAsync(Service service, Method method, String relativeUrl, String body,
+            Map<String, String> parameters, Map<String, String> additionalHeaders, Integer timeout)
+            throws ObjectDisposedException, SafeguardForJavaException, ArgumentException {
+        if (disposed) {
+            throw new ObjectDisposedException("SafeguardConnection");
+        }
+        return invokeMethodFullAsync(service, method, relativeUrl, body, parameters, additionalHeaders, timeout)
+                .thenApply(FullResponse::getBody);
+    }
+
+    @Override
+    public CompletableFuture<FullResponse> invokeMethodFullAsync(Service service, Method method, String relativeUrl,
+            String body, Map<String, String> parameters, Map<String, String> additionalHeaders, Integer timeout)
+            throws ObjectDisposedException, SafeguardForJavaException, ArgumentException {
+
+        if (disposed) {
+            throw new ObjectDisposedException("SafeguardConnection");
+        }
+        if (Utils.isNullOrEmpty(relativeUrl))
+            throw new ArgumentException("Parameter relativeUrl may not be null or empty");
+
+        RestClient client = getClientForRequest(service, method);
+        if (!authenticationMechanism.isAnonymous() && !authenticationMechanism.hasAccessToken()) {
+            throw new SafeguardForJavaException("Access token is missing due to log out, you must refresh the access token to invoke a method");
+        }
+
+        Deadline.checkCurrent();
+        Deadline deadline = Deadline.current();
+
+        Map<String,String> headers = prepareHeaders(additionalHeaders, service);
+
+        logRequestDetails(method, client.getBaseURL() + "/" + relativeUrl, parameters, additionalHeaders);
+
+        CompletableFuture<FullResponse> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<SimpleHttpResponse>> exchange = new AtomicReference<>();
+        sendAsync(result, exchange, client, method, relativeUrl, body, parameters, headers, timeout, deadline, 0);
+        result.whenComplete((response, ex) -> {
+            if (result.isCancelled()) {
+                exchange.get().cancel(false);
+            }
+        });
+        return result;
+    }
+
+    private void sendAsync(CompletableFuture<FullResponse> result, AtomicReference<CompletableFuture<SimpleHttpResponse>> current,
+            RestClient client, Method method, String relativeUrl, String body, Map<String, String> parameters,
+            Map<String, String> headers, Integer timeout, Deadline deadline, int attempt) throws SafeguardForJavaException {
+
+        CompletableFuture<SimpleHttpResponse> exchange;
+
+        switch (method) {
+            case Get:
+                exchange = client.execGETAsync(relativeUrl, parameters, headers, timeout);
+                break;
+            case Post:
+                exchange = client.execPOSTAsync(relativeUrl, parameters, headers, timeout, new JsonBody(body));
+                break;
+            case Put:
+                exchange = client.execPUTAsync(relativeUrl, parameters, headers, timeout, new JsonBody(body));
+                break;
+            case Delete:
+                exchange = client.execDELETEAsync(relativeUrl, parameters, headers, timeout);
+                break;
+            default:
+                throw new SafeguardForJavaException("Unknown or unsupported method specified");
+        }
+
+        current.set(exchange);
+        if (result.isCancelled()) {
+            exchange.cancel(false);
+            return;
+        }
+
+        exchange.whenComplete((response, ex) -> {
+            if (ex instanceof CancellationException) {
+                result.cancel(false);
+                return;
+            }
+
+            if (ex instanceof CircuitBreakerOpenException) {
+                result.completeExceptionally(ex);
+                return;
+            }
+
+            if (retryPolicy != null && !result.isDone()) {
+                int statusCode = ex != null ? RetryPolicy.NO_RESPONSE : response.getCode();
+                long delay = retryPolicy.retryDelay(method, attempt, statusCode,
+                        ex != null ? null : response.getFirstHeader(RetryPolicy.RETRY_AFTER_HEADER), deadline);
+                if (delay >= 0) {
+                    if (ex == null) {
+                        trackAccessTokenLifetime(response.getCode(), response.getFirstHeader(TOKEN_LIFETIME_HEADER));
+                    }
+                    logRetry(method, client, relativeUrl, statusCode, delay, attempt);
+                    Runnable retry = () -> {
+                        try {
+                            sendAsync(result, current, client, method, relativeUrl, body, parameters, headers, timeout, deadline, attempt + 1);
+                        } catch (SafeguardForJavaException | RuntimeException retryEx) {
+                            result.completeExceptionally(retryEx);
+                        }
+                    };
+                    RetryPolicy.schedule(delay, deadline != null ? () -> deadline.runWithin(retry) : retry);
+                    return;
+                }
+            }
+
+            if (ex != null) {
+                if (deadline != null && deadline.isExpired()) {
+                    result.completeExceptionally(new DeadlineExceededException(
+                            String.format("Request to web service %s did not complete within its deadline", client.getBaseURL()), ex));
+                } else {
+                    result.completeExceptionally(new SafeguardForJavaException(
+                            String.format("Unable to connect to web service %s", client.getBaseURL()), ex));
+                }
+                return;
+            }
+
+            trackAccessTokenLifetime(response.getCode(), response.getFirstHeader(TOKEN_LIFETIME_HEADER));
+
+            String reply = Utils.getResponse(response);
+
+            if (!Utils.isSuccessful(response.getCode())) {
+                result.completeExceptionally(new SafeguardForJavaException("Error returned from Safeguard API, Error: "
+                        + String.format("%d %s", response.getCode(), reply)));
+                return;
+            }
+
+            FullResponse fullResponse = new FullResponse(response.getCode(), response.getHeaders(), reply);
+
+            writeSucceeded(method);
+
+            logResponseDetails(fullResponse);
+
+            result.complete(fullResponse);
+        });
+    }
+
+    @Override
+    public CompletableFuture<String> invokeMethodCsvAsync(Service service, Method method, String relativeUrl,
+            String body, Map<String, String> parameters, Map<String, String> additionalHeaders, Integer timeout)
+            throws ObjectDisposedException, SafeguardForJavaException, ArgumentException {
+
+        if (disposed) {
+            throw new ObjectDisposedException("SafeguardConnection");
+        }
+        if (additionalHeaders == null) {
+            additionalHeaders = new HashMap<>();
+        }
+        additionalHeaders.put(HttpHeaders.ACCEPT, "text/csv");
+
+        return invokeMethodFullAsync(service, method, relativeUrl, body, parameters, additionalHeaders, timeout)
+                .thenApply(FullResponse::getBody);
+    }
+
     @Override
     public FullResponse JoinSps(ISafeguardSessionsConnection spsConnection, String certificateChain, String sppAddress)
             throws ObjectDisposedException, SafeguardForJavaException, ArgumentException {
@@ -204,7 +665,44 @@ class SafeguardConnection implements ISafeguardConnection {
 
     @Override
     public ISafeguardConnection GetManagementServiceConnection(String networkAddress) {
-        return new SafeguardManagementServiceConnection(authenticationMechanism, networkAddress);
+        SafeguardManagementServiceConnection connection = new SafeguardManagementServiceConnection(authenticationMechanism, networkAddress, options);
+        if (options != null && options.isWarmUpOnConnect()) {
+            connection.startWarmUp();
+        }
+        return connection;
+    }
+
+    @Override
+    public void warmUp() throws ObjectDisposedException, SafeguardForJavaException {
+        if (disposed) {
+            throw new ObjectDisposedException("SafeguardConnection");
+        }
+        try {
+            startWarmUp().get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SafeguardForJavaException("Interrupted while warming up connections", ex);
+        } catch (ExecutionException ex) {
+            throw new SafeguardForJavaException("Unable to warm up connections", ex.getCause());
+        }
+    }
+
+    /**
+     * Starts opening connections for each client of the connection, without
+     * waiting for them.
+     */
+    CompletableFuture<Void> startWarmUp() {
+        int connections = options != null ? options.getWarmUpConnections() : ConnectionOptions.DEFAULT_WARM_UP_CONNECTIONS;
+        return CompletableFuture.allOf(getClients().stream()
+                .map(client -> client.warmUp(connections, null))
+                .toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Gets the clients that a warm-up opens connections for.
+     */
+    protected List<RestClient> getClients() {
+        return Arrays.asList(coreClient, applianceClient, notificationClient);
     }
 
     @Override
@@ -223,6 +721,10 @@ class SafeguardConnection implements ISafeguardConnection {
             logger.trace("Exception occurred during logout", ex);
         }
         authenticationMechanism.clearAccessToken();
+        accessTokenExpiresAtNanos = 0;
+        if (responseCache != null) {
+            responseCache.clear();
+        }
         logger.trace("Cleared access token");
     }
 
@@ -261,12 +763,26 @@ class SafeguardConnection implements ISafeguardConnection {
         }
     }
 
+    /**
+     * Gets the client that a request is sent with. Connections that spread
+     * requests over several appliances choose the appliance here.
+     */
+    protected RestClient getClientForRequest(Service service, Method method) throws SafeguardForJavaException {
+        return getClientForService(service);
+    }
+
     Map<String,String> prepareHeaders(Map<String,String> additionalHeaders, Service service)
-            throws ObjectDisposedException {
+            throws ObjectDisposedException, SafeguardForJavaException {
 
         Map<String,String> headers = new HashMap<>();
         if (!(authenticationMechanism instanceof AnonymousAuthenticator)) {
-            headers.put(HttpHeaders.AUTHORIZATION, String.format("Bearer %s", new String(authenticationMechanism.getAccessToken())));
+            // Read once, since a concurrent log out may clear the token after the caller checked for it
+            char[] accessToken = authenticationMechanism.getAccessToken();
+            if (accessToken == null) {
+                throw new SafeguardForJavaException("Access token is missing due to log out, you must refresh the access token to invoke a method");
+            }
+            headers.put(HttpHeaders.AUTHORIZATION, String.format("Bearer %s", new String(accessToken)));
+            headers.put(TOKEN_LIFETIME_HEADER, "");
         }
 
         if (additionalHeaders != null) {
@@ -281,23 +797,74 @@ class SafeguardConnection implements ISafeguardConnection {
         return disposed;
     }
 
+    /**
+     * Gets the lifetime of the access token as last reported by the appliance,
+     * either by {@link #getAccessTokenLifetimeRemaining()} or in the
+     * {@code X-TokenLifetimeRemaining} header of an ordinary response, without
+     * contacting the appliance.
+     *
+     * @return The remaining lifetime in milliseconds, zero if the token has
+     *         expired or was rejected, or -1 if it is not known.
+     */
+    long getTrackedAccessTokenLifetimeMillis() {
+        long expiresAt = accessTokenExpiresAtNanos;
+        if (expiresAt == 0) {
+            return -1;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(expiresAt - System.nanoTime()));
+    }
+
+    private void trackAccessTokenLifetime(int minutes) {
+        long expiresAt = System.nanoTime() + TimeUnit.MINUTES.toNanos(Math.max(0, minutes));
+        accessTokenExpiresAtNanos = expiresAt == 0 ? 1 : expiresAt;
+    }
+
+    private void trackAccessTokenLifetime(int statusCode, Header lifetime) {
+        if (authenticationMechanism.isAnonymous()) {
+            return;
+        }
+        if (statusCode == 401) {
+            trackAccessTokenLifetime(0);
+        } else if (lifetime != null && !Utils.isNullOrEmpty(lifetime.getValue())) {
+            try {
+                trackAccessTokenLifetime(Integer.parseInt(lifetime.getValue().trim()));
+            } catch (NumberFormatException ex) {
+                logger.trace("Ignoring invalid token lifetime {}", lifetime.getValue());
+            }
+        }
+    }
+
     IAuthenticationMechanism getAuthenticationMechanism() {
         return authenticationMechanism;
     }
 
+    ConnectionOptions getOptions() {
+        return options;
+    }
+
     @Override
     public void dispose()
     {
         if (authenticationMechanism != null)
             authenticationMechanism.dispose();
+        if (responseCache != null)
+            responseCache.clear();
+        closeClients();
         disposed = true;
     }
 
+    private void closeClients() {
+        coreClient.close();
+        applianceClient.close();
+        notificationClient.close();
+    }
+
     @Override
     protected void finalize() throws Throwable {
         try {
             if (authenticationMechanism != null)
                 authenticationMechanism.dispose();
+            closeClients();
         } finally {
             disposed = true;
             super.finalize();
@@ -306,7 +873,7 @@ class SafeguardConnection implements ISafeguardConnection {
 
     public Object cloneObject() throws SafeguardForJavaException
     {
-        return new SafeguardConnection((IAuthenticationMechanism)authenticationMechanism.cloneObject());
+        return new SafeguardConnection((IAuthenticationMechanism)authenticationMechanism.cloneObject(), options);
     }
 
     @Override
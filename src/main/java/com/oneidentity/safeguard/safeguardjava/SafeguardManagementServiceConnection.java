@@ -7,6 +7,8 @@ import com.oneidentity.safeguard.safeguardjava.data.Service;
 import com.oneidentity.safeguard.safeguardjava.event.ISafeguardEventListener;
 import com.oneidentity.safeguard.safeguardjava.exceptions.SafeguardForJavaException;
 import com.oneidentity.safeguard.safeguardjava.restclient.RestClient;
+import java.util.Collections;
+import java.util.List;
 
 class SafeguardManagementServiceConnection extends SafeguardConnection {
 
@@ -14,14 +16,15 @@ class SafeguardManagementServiceConnection extends SafeguardConnection {
 
     private final RestClient managementClient;
 
-    public SafeguardManagementServiceConnection(IAuthenticationMechanism parentAuthenticationMechanism, String networkAddress) {
+    public SafeguardManagementServiceConnection(IAuthenticationMechanism parentAuthenticationMechanism, String networkAddress,
+            ConnectionOptions options) {
 
-        super(parentAuthenticationMechanism);
+        super(parentAuthenticationMechanism, options);
         authenticationMechanism = new ManagementServiceAuthenticator(parentAuthenticationMechanism, networkAddress);
 
         String safeguardManagementUrl = String.format("https://%s/service/management/v%d",
                 this.authenticationMechanism.getNetworkAddress(), this.authenticationMechanism.getApiVersion());
-        managementClient = new RestClient(safeguardManagementUrl, authenticationMechanism.isIgnoreSsl(), authenticationMechanism.getValidationCallback());
+        managementClient = new RestClient(safeguardManagementUrl, authenticationMechanism.isIgnoreSsl(), authenticationMechanism.getValidationCallback(), options);
     }
 
     public FullResponse JoinSps(ISafeguardSessionsConnection spsConnection, String certificateChain, String sppAddress)
@@ -37,6 +40,17 @@ class SafeguardManagementServiceConnection extends SafeguardConnection {
         throw new SafeguardForJavaException("Management connection does not support event listeners.");
     }
 
+    @Override
+    public void dispose() {
+        managementClient.close();
+        super.dispose();
+    }
+
+    @Override
+    protected List<RestClient> getClients() {
+        return Collections.singletonList(managementClient);
+    }
+
     @Override
     protected RestClient getClientForService(Service service) throws SafeguardForJavaException {
 
@@ -14,7 +14,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import javax.net.ssl.HostnameVerifier;
 import org.apache.hc.core5.http.Header;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
 
 /**
  * This is the reusable connection interface that can be used to call SPS API.
@@ -37,17 +36,18 @@ class SafeguardSessionsConnection implements ISafeguardSessionsConnection {
         logger.trace("Starting authentication.");
         logRequestDetails(Method.Get, client.getBaseURL() + "/" + "authentication", null, null);
 
-        CloseableHttpResponse response = client.execGET("authentication", null, null, null);
+        FullResponse response = client.execGETFull("authentication", null, null, null);
 
         if (response == null) {
+            Deadline.checkCurrent();
             throw new SafeguardForJavaException(String.format("Unable to authenticate to SPS %s", networkAddress));
         }
 
-        String reply = Utils.getResponse(response);
+        String reply = response.getBody();
 
-        if (!Utils.isSuccessful(response.getCode())) {
+        if (!Utils.isSuccessful(response.getStatusCode())) {
             throw new SafeguardForJavaException("Error returned from Safeguard API, Error: "
-                    + String.format("%d %s", response.getCode(), reply));
+                    + String.format("%d %s", response.getStatusCode(), reply));
         }
 
         Header authCookie = response.getFirstHeader("Set-Cookie");
@@ -92,43 +92,42 @@ class SafeguardSessionsConnection implements ISafeguardSessionsConnection {
 
         logger.trace(String.format("Invoking method on sps: $s", relativeUrl));
 
-        CloseableHttpResponse response = null;
+        FullResponse response = null;
 
         logRequestDetails(method, client.getBaseURL() + "/" + relativeUrl, null, null);
 
         switch (method) {
             case Get:
-                response = client.execGET(relativeUrl, null, null, null);
+                response = client.execGETFull(relativeUrl, null, null, null);
                 break;
             case Post:
-                response = client.execPOST(relativeUrl, null, null, null, new JsonBody(body));
+                response = client.execPOSTFull(relativeUrl, null, null, null, new JsonBody(body));
                 break;
             case Put:
-                response = client.execPUT(relativeUrl, null, null, null, new JsonBody(body));
+                response = client.execPUTFull(relativeUrl, null, null, null, new JsonBody(body));
                 break;
             case Delete:
-                response = client.execDELETE(relativeUrl, null, null, null);
+                response = client.execDELETEFull(relativeUrl, null, null, null);
                 break;
         }
 
         if (response == null) {
+            Deadline.checkCurrent();
             throw new SafeguardForJavaException(String.format("Unable to connect to web service %s", client.getBaseURL()));
         }
 
-        String reply = Utils.getResponse(response);
+        String reply = response.getBody();
 
-        if (!Utils.isSuccessful(response.getCode())) {
+        if (!Utils.isSuccessful(response.getStatusCode())) {
             throw new SafeguardForJavaException("Error returned from Safeguard API, Error: "
-                    + String.format("%d %s", response.getCode(), reply));
+                    + String.format("%d %s", response.getStatusCode(), reply));
         }
 
         logger.trace(String.format("Invoking method finished: $s", reply));
 
-        FullResponse fullResponse = new FullResponse(response.getCode(), response.getHeaders(), reply);
+        logResponseDetails(response);
 
-        logResponseDetails(fullResponse);
-
-        return fullResponse;
+        return response;
     }
 
     @Override
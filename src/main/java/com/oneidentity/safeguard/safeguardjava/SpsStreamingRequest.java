@@ -10,6 +10,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
 import org.slf4j.Logger;
@@ -29,6 +32,40 @@ class SpsStreamingRequest implements ISpsStreamingRequest {
     public String uploadStream(String relativeUrl, byte[] stream, IProgressCallback progressCallback,
             Map<String, String> parameters, Map<String, String> additionalHeaders)
             throws SafeguardForJavaException, ArgumentException {
+        return upload(relativeUrl, stream, null, progressCallback, parameters, additionalHeaders);
+    }
+
+    @Override
+    public String uploadStream(String relativeUrl, Path file, IProgressCallback progressCallback,
+            Map<String, String> parameters, Map<String, String> additionalHeaders)
+            throws SafeguardForJavaException, ArgumentException {
+
+        if (file == null) {
+            throw new ArgumentException("Parameter file cannot be null");
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return upload(relativeUrl, null, channel, progressCallback, parameters, additionalHeaders);
+        } catch (IOException ex) {
+            throw new SafeguardForJavaException(String.format("Unable to read %s", file), ex);
+        }
+    }
+
+    @Override
+    public String uploadStream(String relativeUrl, FileChannel channel, IProgressCallback progressCallback,
+            Map<String, String> parameters, Map<String, String> additionalHeaders)
+            throws SafeguardForJavaException, ArgumentException {
+
+        if (channel == null) {
+            throw new ArgumentException("Parameter channel cannot be null");
+        }
+
+        return upload(relativeUrl, null, channel, progressCallback, parameters, additionalHeaders);
+    }
+
+    private String upload(String relativeUrl, byte[] stream, FileChannel channel, IProgressCallback progressCallback,
+            Map<String, String> parameters, Map<String, String> additionalHeaders)
+            throws SafeguardForJavaException, ArgumentException {
 
         if (Utils.isNullOrEmpty(relativeUrl)) {
             throw new ArgumentException("Parameter relativeUrl cannot be null or empty");
@@ -41,9 +78,12 @@ class SpsStreamingRequest implements ISpsStreamingRequest {
 
         SafeguardConnection.logRequestDetails(Method.Post, client.getBaseURL() + "/" + relativeUrl, parameters, additionalHeaders);
 
-        response = client.execPOSTBytes(relativeUrl, parameters, additionalHeaders, null, stream, progressCallback);
+        response = channel != null
+                ? client.execPOSTChannel(relativeUrl, parameters, additionalHeaders, null, channel, progressCallback)
+                : client.execPOSTBytes(relativeUrl, parameters, additionalHeaders, null, stream, progressCallback);
 
         if (response == null) {
+            Deadline.checkCurrent();
             throw new SafeguardForJavaException(String.format("Unable to connect to SPS service %s", client.getBaseURL()));
         }
 
@@ -80,6 +120,7 @@ class SpsStreamingRequest implements ISpsStreamingRequest {
         response = client.execPOSTFile(relativeUrl, parameters, additionalHeaders, null, fileName);
 
         if (response == null) {
+            Deadline.checkCurrent();
             throw new SafeguardForJavaException(String.format("Unable to connect to SPS service %s", client.getBaseURL()));
         }
 
@@ -116,6 +157,7 @@ class SpsStreamingRequest implements ISpsStreamingRequest {
         response = client.execGETBytes(relativeUrl, parameters, additionalHeaders, null, null);
 
         if (response == null) {
+            Deadline.checkCurrent();
             throw new SafeguardForJavaException(String.format("Unable to connect to SPS service %s", client.getBaseURL()));
         }
 
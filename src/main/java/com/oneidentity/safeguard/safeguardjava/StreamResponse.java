@@ -1,14 +1,29 @@
 package com.oneidentity.safeguard.safeguardjava;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
 import com.oneidentity.safeguard.safeguardjava.exceptions.SafeguardForJavaException;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
 
 /**
- * Represents a streamed response
+ * Represents a streamed response. The body is read directly from the
+ * connection; disposing (or closing) the response releases the connection.
  */
-public class StreamResponse {
+public class StreamResponse implements Closeable {
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
     private boolean disposed;
 
     public StreamResponse(CloseableHttpResponse resp) {
@@ -37,6 +52,58 @@ public class StreamResponse {
         return stream;
     }
 
+    /**
+     *  Get the response body as a character stream, decoded with the charset
+     *  of the response content type (UTF-8 if none is given).
+     *
+     *  @return The HTTP response body content as a Reader
+     *  @throws SafeguardForJavaException General Safeguard for Java exception.
+     */
+    public Reader getReader() throws SafeguardForJavaException
+    {
+        Charset charset = null;
+        String contentType = response.getEntity() != null ? response.getEntity().getContentType() : null;
+        if (contentType != null) {
+            charset = ContentType.parseLenient(contentType).getCharset();
+        }
+        return new InputStreamReader(getStream(), charset != null ? charset : StandardCharsets.UTF_8);
+    }
+
+    /**
+     *  Get a Jackson streaming parser over the response body, so that large
+     *  JSON documents can be processed token by token without reading the
+     *  whole body into memory.
+     *
+     *  @return A JsonParser reading the HTTP response body
+     *  @throws SafeguardForJavaException General Safeguard for Java exception.
+     */
+    public JsonParser getJsonParser() throws SafeguardForJavaException
+    {
+        try {
+            return jsonFactory.createParser(getStream());
+        } catch (IOException ex) {
+            throw new SafeguardForJavaException("Unable to parse the download stream", ex);
+        }
+    }
+
+    /**
+     * Get the response status code
+     *
+     * @return The HTTP response status code
+     */
+    public int getStatusCode() {
+        return response.getCode();
+    }
+
+    /**
+     * Get the response headers
+     *
+     * @return The HTTP response headers
+     */
+    public List<Header> getHeaders() {
+        return Arrays.asList(response.getHeaders());
+    }
+
     /**
      * Get the response content length
      *
@@ -57,6 +124,14 @@ public class StreamResponse {
                     stream.close();
                 } catch (IOException logOrIgnore) {}
             }
+            try {
+                response.close();
+            } catch (IOException logOrIgnore) {}
         }
     }
+
+    @Override
+    public void close() {
+        dispose();
+    }
 }
@@ -13,6 +13,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.util.Map;
@@ -34,6 +37,35 @@ class StreamingRequest implements IStreamingRequest {
     @Override
     public String uploadStream(Service service, String relativeUrl, byte[] stream, IProgressCallback progressCallback, Map<String, String> parameters, Map<String, String> additionalHeaders)
             throws SafeguardForJavaException, ArgumentException, ObjectDisposedException {
+        return upload(service, relativeUrl, stream, null, progressCallback, parameters, additionalHeaders);
+    }
+
+    @Override
+    public String uploadStream(Service service, String relativeUrl, Path file, IProgressCallback progressCallback, Map<String, String> parameters, Map<String, String> additionalHeaders)
+            throws SafeguardForJavaException, ArgumentException, ObjectDisposedException {
+
+        if (file == null)
+            throw new ArgumentException("Parameter file may not be null");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return upload(service, relativeUrl, null, channel, progressCallback, parameters, additionalHeaders);
+        } catch (IOException ex) {
+            throw new SafeguardForJavaException(String.format("Unable to read %s", file), ex);
+        }
+    }
+
+    @Override
+    public String uploadStream(Service service, String relativeUrl, FileChannel channel, IProgressCallback progressCallback, Map<String, String> parameters, Map<String, String> additionalHeaders)
+            throws SafeguardForJavaException, ArgumentException, ObjectDisposedException {
+
+        if (channel == null)
+            throw new ArgumentException("Parameter channel may not be null");
+
+        return upload(service, relativeUrl, null, channel, progressCallback, parameters, additionalHeaders);
+    }
+
+    private String upload(Service service, String relativeUrl, byte[] stream, FileChannel channel, IProgressCallback progressCallback, Map<String, String> parameters, Map<String, String> additionalHeaders)
+            throws SafeguardForJavaException, ArgumentException, ObjectDisposedException {
 
         if (safeguardConnection.isDisposed())
             throw new ObjectDisposedException("SafeguardConnection");
@@ -50,9 +82,13 @@ class StreamingRequest implements IStreamingRequest {
 
         SafeguardConnection.logRequestDetails(Method.Post, client.getBaseURL() + "/" + relativeUrl, parameters, additionalHeaders);
 
-        response = client.execPOSTBytes(relativeUrl, parameters, headers, null, stream, progressCallback);
+        response = channel != null
+                ? client.execPOSTChannel(relativeUrl, parameters, headers, null, channel, progressCallback)
+                : client.execPOSTBytes(relativeUrl, parameters, headers, null, stream, progressCallback);
 
         if (response == null) {
+            Deadline.checkCurrent();
+            client.checkCircuit();
             throw new SafeguardForJavaException(String.format("Unable to connect to web service %s", client.getBaseURL()));
         }
 
@@ -63,6 +99,8 @@ class StreamingRequest implements IStreamingRequest {
                     + String.format("%d %s", response.getCode(), reply));
         }
 
+        safeguardConnection.writeSucceeded(Method.Post);
+
         FullResponse fullResponse = new FullResponse(response.getCode(), response.getHeaders(), reply);
 
         SafeguardConnection.logResponseDetails(fullResponse);
@@ -91,6 +129,8 @@ class StreamingRequest implements IStreamingRequest {
         CloseableHttpResponse response = client.execGETBytes(relativeUrl, parameters, headers, null, progressCallback);
 
         if (response == null) {
+            Deadline.checkCurrent();
+            client.checkCircuit();
             throw new SafeguardForJavaException(String.format("Unable to connect to web service %s", client.getBaseURL()));
         }
 
@@ -116,6 +156,7 @@ class StreamingRequest implements IStreamingRequest {
         } finally {
             if (output != null) try { output.close(); } catch (IOException ex) { logger.debug("Error closing output stream", ex); }
             if (input != null) try { input.close(); } catch (IOException ex) { logger.debug("Error closing input stream", ex); }
+            try { response.close(); } catch (IOException ex) { logger.debug("Error closing response", ex); }
         }
 
         FullResponse fullResponse = new FullResponse(response.getCode(), response.getHeaders(), null);
@@ -1,14 +1,22 @@
 package com.oneidentity.safeguard.safeguardjava;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.security.Provider;
 import java.security.Security;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.core5.http.ContentType;
 import org.apache.hc.core5.http.HttpEntity;
 import org.apache.hc.core5.http.ParseException;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
@@ -20,6 +28,15 @@ public class Utils {
 
     private static String OS = null;
 
+    // A configured ObjectMapper is thread-safe and expensive to create, and the
+    // readers and writers derived from it are immutable, so they are shared by
+    // every parse in the library.
+    private static final ObjectMapper jsonMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final ObjectWriter jsonWriter = jsonMapper.writer();
+    private static final Map<Class<?>, ObjectReader> jsonReaders = new ConcurrentHashMap<>();
+    private static final ObjectReader stringMapReader = jsonReader(new TypeReference<Map<String, String>>() {});
+
     private Utils() {
     }
 
@@ -36,11 +53,9 @@ public class Utils {
 
     public static Map<String, String> parseResponse(String response) {
 
-        ObjectMapper mapper = new ObjectMapper();
         Map<String, String> map = new HashMap<>();
         try {
-            map = mapper.readValue(response, new TypeReference<Map<String, String>>() {
-            });
+            map = stringMapReader.readValue(response);
         } catch (IOException ex) {
             logger.error("Exception occurred", ex);
         }
@@ -48,6 +63,39 @@ public class Utils {
         return map;
     }
 
+    /**
+     * Gets the shared JSON reader for a type. Unknown properties are ignored,
+     * so that new fields added to the Safeguard API do not break callers.
+     *
+     * @param type The type to read.
+     * @return A reader that deserializes JSON into the given type.
+     */
+    public static ObjectReader jsonReader(Class<?> type) {
+        return jsonReaders.computeIfAbsent(type, t -> jsonMapper.readerFor(type));
+    }
+
+    /**
+     * Gets a JSON reader for a generic type such as a list of objects. These
+     * readers are not cached, since callers commonly create a new type
+     * reference for every call; they are cheap to derive from the shared
+     * mapper, which caches the deserializers they use.
+     *
+     * @param type The type to read.
+     * @return A reader that deserializes JSON into the given type.
+     */
+    public static ObjectReader jsonReader(TypeReference<?> type) {
+        return jsonMapper.readerFor(type);
+    }
+
+    /**
+     * Gets the shared JSON writer.
+     *
+     * @return A writer that serializes objects to JSON.
+     */
+    public static ObjectWriter jsonWriter() {
+        return jsonWriter;
+    }
+
     public static String getResponse(CloseableHttpResponse response) {
         HttpEntity entity = response.getEntity();
         if (entity != null) {
@@ -59,6 +107,16 @@ public class Utils {
         return "";
     }
 
+    public static String getResponse(SimpleHttpResponse response) {
+        byte[] body = response.getBodyBytes();
+        if (body != null) {
+            ContentType contentType = response.getContentType();
+            Charset charset = contentType != null ? contentType.getCharset() : null;
+            return new String(body, charset != null ? charset : StandardCharsets.UTF_8);
+        }
+        return "";
+    }
+
     public static boolean isSuccessful(int status) {
         switch (status) {
             case 200:
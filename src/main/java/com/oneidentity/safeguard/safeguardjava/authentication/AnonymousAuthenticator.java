@@ -1,13 +1,14 @@
 package com.oneidentity.safeguard.safeguardjava.authentication;
 
+import com.oneidentity.safeguard.safeguardjava.Deadline;
 import com.oneidentity.safeguard.safeguardjava.Utils;
+import com.oneidentity.safeguard.safeguardjava.data.FullResponse;
 import com.oneidentity.safeguard.safeguardjava.exceptions.SafeguardForJavaException;
 import com.oneidentity.safeguard.safeguardjava.restclient.RestClient;
 import java.util.HashMap;
 import java.util.Map;
 import javax.net.ssl.HostnameVerifier;
 import org.apache.hc.core5.http.HttpHeaders;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
 
 public class AnonymousAuthenticator extends AuthenticatorBase {
 
@@ -20,17 +21,18 @@ public class AnonymousAuthenticator extends AuthenticatorBase {
         Map<String,String> headers = new HashMap<>();
         headers.put(HttpHeaders.ACCEPT, "application/json");
         headers.put(HttpHeaders.CONTENT_TYPE, "application/json");
-        CloseableHttpResponse response = notificationClient.execGET("Status", null, headers, null);
+        FullResponse response = notificationClient.execGETFull("Status", null, headers, null);
 
         if (response == null) {
+            Deadline.checkCurrent();
             throw new SafeguardForJavaException(String.format("Unable to anonymously connect to web service %s", notificationClient.getBaseURL()));
         }
 
-        String reply = Utils.getResponse(response);
+        String reply = response.getBody();
 
-        if (!Utils.isSuccessful(response.getCode())) {
+        if (!Utils.isSuccessful(response.getStatusCode())) {
             throw new SafeguardForJavaException("Unable to anonymously connect to {networkAddress}, Error: "
-                    + String.format("%d %s", response.getCode(), reply));
+                    + String.format("%d %s", response.getStatusCode(), reply));
         }
     }
 
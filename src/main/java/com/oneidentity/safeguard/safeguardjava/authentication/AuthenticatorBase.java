@@ -1,9 +1,10 @@
 package com.oneidentity.safeguard.safeguardjava.authentication;
 
+import com.oneidentity.safeguard.safeguardjava.Deadline;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.oneidentity.safeguard.safeguardjava.Utils;
 import com.oneidentity.safeguard.safeguardjava.data.AccessTokenBody;
+import com.oneidentity.safeguard.safeguardjava.data.FullResponse;
 import com.oneidentity.safeguard.safeguardjava.exceptions.ObjectDisposedException;
 import com.oneidentity.safeguard.safeguardjava.exceptions.SafeguardForJavaException;
 import com.oneidentity.safeguard.safeguardjava.restclient.RestClient;
@@ -14,11 +15,13 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import javax.net.ssl.HostnameVerifier;
+import org.apache.hc.core5.http.Header;
 import org.apache.hc.core5.http.HttpHeaders;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
 
 abstract class AuthenticatorBase implements IAuthenticationMechanism {
 
@@ -31,7 +34,15 @@ abstract class AuthenticatorBase implements IAuthenticationMechanism {
     private final boolean ignoreSsl;
     private final HostnameVerifier validationCallback;
 
-    protected char[] accessToken;
+    /**
+     * The current access token. A refresh replaces the array rather than
+     * changing it, so a request that is reading the previous token while a
+     * refresh completes still sends a complete token.
+     */
+    protected volatile char[] accessToken;
+
+    private final Object refreshLock = new Object();
+    private CompletableFuture<Void> refreshInProgress = null;
 
     protected final String safeguardRstsUrl;
     protected final String safeguardCoreUrl;
@@ -85,10 +96,21 @@ abstract class AuthenticatorBase implements IAuthenticationMechanism {
 
     @Override
     public void clearAccessToken() {
-        if (accessToken != null) {
-            Arrays.fill(accessToken, '0');
-        }
+        char[] previous = accessToken;
         accessToken = null;
+        if (previous != null) {
+            Arrays.fill(previous, '0');
+        }
+    }
+
+    /**
+     * Copies the current access token for a clone of this authenticator.
+     *
+     * @return The copy, or null if there is no token.
+     */
+    protected char[] copyAccessToken() {
+        char[] token = accessToken;
+        return token == null ? null : token.clone();
     }
 
     @Override
@@ -104,26 +126,30 @@ abstract class AuthenticatorBase implements IAuthenticationMechanism {
         if (disposed) {
             throw new ObjectDisposedException("AuthenticatorBase");
         }
-        if (!hasAccessToken()) {
+        // Read once, since a concurrent log out may clear the token
+        char[] token = accessToken;
+        if (token == null) {
             return 0;
         }
 
         Map<String, String> headers = new HashMap<>();
-        headers.put(HttpHeaders.AUTHORIZATION, String.format("Bearer %s", new String(accessToken)));
+        headers.put(HttpHeaders.AUTHORIZATION, String.format("Bearer %s", new String(token)));
         headers.put("X-TokenLifetimeRemaining", "");
 
-        CloseableHttpResponse response = coreClient.execGET("LoginMessage", null, headers, null);
+        FullResponse response = coreClient.execGETFull("LoginMessage", null, headers, null);
 
         if (response == null) {
+            Deadline.checkCurrent();
             throw new SafeguardForJavaException(String.format("Unable to connect to web service %s", coreClient.getBaseURL()));
         }
-        if (!Utils.isSuccessful(response.getCode())) {
+        if (!Utils.isSuccessful(response.getStatusCode())) {
             return 0;
         }
 
         String remainingStr = null;
-        if (response.containsHeader("X-TokenLifetimeRemaining")) {
-            remainingStr = response.getFirstHeader("X-TokenLifetimeRemaining").getValue();
+        Header remainingHeader = response.getFirstHeader("X-TokenLifetimeRemaining");
+        if (remainingHeader != null) {
+            remainingStr = remainingHeader.getValue();
         }
 
         int remaining = 10; // Random magic value... the access token was good, but for some reason it didn't return the remaining lifetime
@@ -137,25 +163,97 @@ abstract class AuthenticatorBase implements IAuthenticationMechanism {
         return remaining;
     }
 
+    /**
+     * Obtains a new access token. Only one refresh runs at a time: a caller
+     * that arrives while a refresh is in progress waits for it and shares its
+     * result instead of logging in again.
+     */
     @Override
     public void refreshAccessToken() throws ObjectDisposedException, SafeguardForJavaException {
+        refresh(null, false);
+    }
+
+    /**
+     * Obtains a new access token like {@link #refreshAccessToken()}, but a
+     * caller that arrives after another refresh has replaced the stale token
+     * does not log in again.
+     */
+    @Override
+    public boolean refreshAccessToken(char[] staleToken) throws ObjectDisposedException, SafeguardForJavaException {
+        return refresh(staleToken, true);
+    }
+
+    private boolean refresh(char[] staleToken, boolean onlyIfStale) throws ObjectDisposedException, SafeguardForJavaException {
 
         if (disposed) {
             throw new ObjectDisposedException("AuthenticatorBase");
         }
 
+        CompletableFuture<Void> refresh;
+        boolean owner = false;
+        synchronized (refreshLock) {
+            if (refreshInProgress == null) {
+                if (onlyIfStale && accessToken != staleToken) {
+                    return false;
+                }
+                refreshInProgress = new CompletableFuture<>();
+                owner = true;
+            }
+            refresh = refreshInProgress;
+        }
+
+        if (!owner) {
+            awaitRefresh(refresh);
+            return true;
+        }
+
+        try {
+            refreshAccessTokenInternal();
+            refresh.complete(null);
+            return true;
+        } catch (ObjectDisposedException | SafeguardForJavaException | RuntimeException ex) {
+            refresh.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            synchronized (refreshLock) {
+                refreshInProgress = null;
+            }
+        }
+    }
+
+    private void awaitRefresh(CompletableFuture<Void> refresh) throws ObjectDisposedException, SafeguardForJavaException {
+        try {
+            refresh.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SafeguardForJavaException("Interrupted while waiting for the access token to be refreshed", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof ObjectDisposedException) {
+                throw (ObjectDisposedException) cause;
+            }
+            if (cause instanceof SafeguardForJavaException) {
+                throw (SafeguardForJavaException) cause;
+            }
+            throw new SafeguardForJavaException("Unable to refresh the access token", cause);
+        }
+    }
+
+    private void refreshAccessTokenInternal() throws ObjectDisposedException, SafeguardForJavaException {
+
         char[] rStsToken = getRstsTokenInternal();
         AccessTokenBody body = new AccessTokenBody(rStsToken);
-        CloseableHttpResponse response = coreClient.execPOST("Token/LoginResponse", null, null, null, body);
+        FullResponse response = coreClient.execPOSTFull("Token/LoginResponse", null, null, null, body);
 
         if (response == null) {
+            Deadline.checkCurrent();
             throw new SafeguardForJavaException(String.format("Unable to connect to web service %s", coreClient.getBaseURL()));
         }
 
-        String reply = Utils.getResponse(response);
-        if (!Utils.isSuccessful(response.getCode())) {
+        String reply = response.getBody();
+        if (!Utils.isSuccessful(response.getStatusCode())) {
             throw new SafeguardForJavaException("Error exchanging RSTS token from " + this.getId() + "authenticator for Safeguard API access token, Error: "
-                    + String.format("%d %s", response.getCode(), reply));
+                    + String.format("%d %s", response.getStatusCode(), reply));
         }
 
         Map<String, String> map = Utils.parseResponse(reply);
@@ -168,21 +266,23 @@ abstract class AuthenticatorBase implements IAuthenticationMechanism {
     {
         try
         {
-            CloseableHttpResponse response;
+            FullResponse response;
             Map<String,String> headers = new HashMap<>();
 
             headers.clear();
             headers.put(HttpHeaders.ACCEPT, "application/json");
 
-            response = coreClient.execGET("AuthenticationProviders", null, headers, null);
+            response = coreClient.execGETFull("AuthenticationProviders", null, headers, null);
 
-            if (response == null)
+            if (response == null) {
+                Deadline.checkCurrent();
                 throw new SafeguardForJavaException("Unable to connect to RSTS to find identity provider scopes");
+            }
 
-            String reply = Utils.getResponse(response);
-            if (!Utils.isSuccessful(response.getCode()))
+            String reply = response.getBody();
+            if (!Utils.isSuccessful(response.getStatusCode()))
                 throw new SafeguardForJavaException("Error requesting identity provider scopes from RSTS, Error: " +
-                        String.format("%d %s", response.getCode(), reply));
+                        String.format("%d %s", response.getStatusCode(), reply));
 
             List<Provider> knownScopes = parseLoginResponse(reply);
 
@@ -233,8 +333,9 @@ abstract class AuthenticatorBase implements IAuthenticationMechanism {
     protected void finalize() throws Throwable {
         try {
 
-            if (accessToken != null) {
-                Arrays.fill(accessToken, '0');
+            char[] token = accessToken;
+            if (token != null) {
+                Arrays.fill(token, '0');
             }
         } finally {
             disposed = true;
@@ -257,10 +358,8 @@ abstract class AuthenticatorBase implements IAuthenticationMechanism {
     private List<Provider> parseLoginResponse(String response) {
 
         List<Provider> providers = new ArrayList<>();
-        ObjectMapper mapper = new ObjectMapper();
-
         try {
-            JsonNode jsonNodeProviders = mapper.readTree(response);
+            JsonNode jsonNodeProviders = Utils.jsonReader(JsonNode.class).readTree(response);
             Iterator<JsonNode> iter = jsonNodeProviders.elements();
 
             while(iter.hasNext()){
@@ -1,13 +1,14 @@
 package com.oneidentity.safeguard.safeguardjava.authentication;
 
+import com.oneidentity.safeguard.safeguardjava.Deadline;
 import com.oneidentity.safeguard.safeguardjava.Utils;
 import com.oneidentity.safeguard.safeguardjava.data.CertificateContext;
+import com.oneidentity.safeguard.safeguardjava.data.FullResponse;
 import com.oneidentity.safeguard.safeguardjava.data.OauthBody;
 import com.oneidentity.safeguard.safeguardjava.exceptions.ObjectDisposedException;
 import com.oneidentity.safeguard.safeguardjava.exceptions.SafeguardForJavaException;
 import java.util.Map;
 import javax.net.ssl.HostnameVerifier;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
 
 public class CertificateAuthenticator extends AuthenticatorBase
 {
@@ -108,18 +109,20 @@ public class CertificateAuthenticator extends AuthenticatorBase
         if (!Utils.isNullOrEmpty(provider))
             providerScope = resolveProviderToScope(provider);
 
-        CloseableHttpResponse response = null;
+        FullResponse response = null;
         OauthBody body = new OauthBody("client_credentials", providerScope);
 
-        response = rstsClient.execPOST("oauth2/token", null, null, null, body, clientCertificate);
+        response = rstsClient.execPOSTFull("oauth2/token", null, null, null, body, clientCertificate);
 
-        if (response == null)
+        if (response == null) {
+            Deadline.checkCurrent();
             throw new SafeguardForJavaException(String.format("Unable to connect to RSTS service %s", rstsClient.getBaseURL()));
+        }
 
-        String content = Utils.getResponse(response);
-        if (!Utils.isSuccessful(response.getCode())) {
+        String content = response.getBody();
+        if (!Utils.isSuccessful(response.getStatusCode())) {
             throw new SafeguardForJavaException("Error using client_credentials grant_type with " + clientCertificate.toString() +
-                    String.format(", Error: %d %s", response.getCode(), content));
+                    String.format(", Error: %d %s", response.getStatusCode(), content));
         }
 
         Map<String,String> map = Utils.parseResponse(content);
@@ -135,9 +138,7 @@ public class CertificateAuthenticator extends AuthenticatorBase
     public Object cloneObject() throws SafeguardForJavaException {
         CertificateAuthenticator auth = new CertificateAuthenticator(this.getNetworkAddress(), clientCertificate,
                 this.getApiVersion(), this.isIgnoreSsl(), this.getValidationCallback());
-        if (this.accessToken != null) {
-            auth.accessToken = this.accessToken.clone();
-        }
+        auth.accessToken = copyAccessToken();
         return auth;
     }
 
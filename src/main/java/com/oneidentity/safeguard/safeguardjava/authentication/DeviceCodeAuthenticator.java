@@ -1,10 +1,11 @@
 package com.oneidentity.safeguard.safeguardjava.authentication;
 
+import com.oneidentity.safeguard.safeguardjava.Deadline;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.oneidentity.safeguard.safeguardjava.IDeviceCodeDisplayCallback;
 import com.oneidentity.safeguard.safeguardjava.Utils;
 import com.oneidentity.safeguard.safeguardjava.data.DeviceCodeInfo;
+import com.oneidentity.safeguard.safeguardjava.data.FullResponse;
 import com.oneidentity.safeguard.safeguardjava.data.JsonObject;
 import com.oneidentity.safeguard.safeguardjava.exceptions.ArgumentException;
 import com.oneidentity.safeguard.safeguardjava.exceptions.ObjectDisposedException;
@@ -13,7 +14,6 @@ import java.util.Locale;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import javax.net.ssl.HostnameVerifier;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
 
 /**
  * Authenticator that implements the OAuth 2.0 Device Authorization Grant
@@ -196,12 +196,13 @@ public class DeviceCodeAuthenticator extends AuthenticatorBase {
                 .append(Utils.toJsonString("scope", scope, true))
                 .append("}").toString();
 
-        CloseableHttpResponse response = rstsClient.execPOST(DEVICE_LOGIN_PATH, null, null, null, jsonBody(body));
+        FullResponse response = rstsClient.execPOSTFull(DEVICE_LOGIN_PATH, null, null, null, jsonBody(body));
         if (response == null) {
+            Deadline.checkCurrent();
             throw new SafeguardForJavaException(
                     String.format("Unable to connect to RSTS service %s", rstsClient.getBaseURL()));
         }
-        return new RstsResponse(response.getCode(), Utils.getResponse(response));
+        return new RstsResponse(response.getStatusCode(), response.getBody());
     }
 
     /**
@@ -219,12 +220,13 @@ public class DeviceCodeAuthenticator extends AuthenticatorBase {
                 .append(Utils.toJsonString("client_id", clientId, true))
                 .append("}").toString();
 
-        CloseableHttpResponse response = rstsClient.execPOST(TOKEN_PATH, null, null, null, jsonBody(body));
+        FullResponse response = rstsClient.execPOSTFull(TOKEN_PATH, null, null, null, jsonBody(body));
         if (response == null) {
+            Deadline.checkCurrent();
             throw new SafeguardForJavaException(
                     String.format("Unable to connect to RSTS service %s", rstsClient.getBaseURL()));
         }
-        return new RstsResponse(response.getCode(), Utils.getResponse(response));
+        return new RstsResponse(response.getStatusCode(), response.getBody());
     }
 
     /**
@@ -282,7 +284,7 @@ public class DeviceCodeAuthenticator extends AuthenticatorBase {
 
     private JsonNode parseJson(String body) throws SafeguardForJavaException {
         try {
-            JsonNode node = new ObjectMapper().readTree(body == null ? "" : body);
+            JsonNode node = Utils.jsonReader(JsonNode.class).readTree(body == null ? "" : body);
             if (node == null || node.isNull()) {
                 throw new SafeguardForJavaException("Empty or invalid JSON response from RSTS");
             }
@@ -296,7 +298,7 @@ public class DeviceCodeAuthenticator extends AuthenticatorBase {
 
     private static String extractError(String body) {
         try {
-            JsonNode node = new ObjectMapper().readTree(body == null ? "" : body);
+            JsonNode node = Utils.jsonReader(JsonNode.class).readTree(body == null ? "" : body);
             if (node != null && node.has("error")) {
                 return node.get("error").asText();
             }
@@ -345,7 +347,7 @@ public class DeviceCodeAuthenticator extends AuthenticatorBase {
         try {
             DeviceCodeAuthenticator auth = new DeviceCodeAuthenticator(getNetworkAddress(), displayCallback,
                     parameters, getApiVersion(), isIgnoreSsl(), getValidationCallback());
-            auth.accessToken = this.accessToken == null ? null : this.accessToken.clone();
+            auth.accessToken = copyAccessToken();
             return auth;
         } catch (ArgumentException ex) {
             logger.error("Exception occurred", ex);
@@ -18,6 +18,24 @@ public interface IAuthenticationMechanism
     int getAccessTokenLifetimeRemaining() throws ObjectDisposedException, SafeguardForJavaException;
     HostnameVerifier getValidationCallback();
     void refreshAccessToken() throws ObjectDisposedException, SafeguardForJavaException;
+
+    /**
+     * Obtains a new access token unless the token has already been replaced
+     * since the caller read it, for instance by another thread that found the
+     * same token expired.
+     *
+     * @param staleToken The token, as returned by {@link #getAccessToken()},
+     *        that the caller found to be expired.
+     * @return {@code true} if a new token was obtained by this call or one
+     *         running at the same time; {@code false} if the token had already
+     *         been replaced.
+     * @throws ObjectDisposedException Object has already been disposed.
+     * @throws SafeguardForJavaException General Safeguard for Java exception.
+     */
+    default boolean refreshAccessToken(char[] staleToken) throws ObjectDisposedException, SafeguardForJavaException {
+        refreshAccessToken();
+        return true;
+    }
     String resolveProviderToScope(String provider) throws SafeguardForJavaException;
     Object cloneObject() throws SafeguardForJavaException;
     void dispose();
@@ -1,6 +1,8 @@
 package com.oneidentity.safeguard.safeguardjava.authentication;
 
+import com.oneidentity.safeguard.safeguardjava.Deadline;
 import com.oneidentity.safeguard.safeguardjava.Utils;
+import com.oneidentity.safeguard.safeguardjava.data.FullResponse;
 import com.oneidentity.safeguard.safeguardjava.data.OauthBody;
 import com.oneidentity.safeguard.safeguardjava.exceptions.ArgumentException;
 import com.oneidentity.safeguard.safeguardjava.exceptions.ObjectDisposedException;
@@ -10,7 +12,6 @@ import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import javax.net.ssl.HostnameVerifier;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
 
 public class PasswordAuthenticator extends AuthenticatorBase
 {
@@ -53,15 +54,17 @@ public class PasswordAuthenticator extends AuthenticatorBase
             providerScope = resolveProviderToScope(provider);
 
         OauthBody body = new OauthBody("password", username, password, providerScope);
-        CloseableHttpResponse response = rstsClient.execPOST("oauth2/token", null, null, null, body);
+        FullResponse response = rstsClient.execPOSTFull("oauth2/token", null, null, null, body);
 
-        if (response == null)
+        if (response == null) {
+            Deadline.checkCurrent();
             throw new SafeguardForJavaException(String.format("Unable to connect to RSTS service %s", rstsClient.getBaseURL()));
+        }
 
-        String reply = Utils.getResponse(response);
-        if (!Utils.isSuccessful(response.getCode()))
+        String reply = response.getBody();
+        if (!Utils.isSuccessful(response.getStatusCode()))
             throw new SafeguardForJavaException(String.format("Error using password grant_type with scope %s, Error: ", providerScope) +
-                    String.format("%s %s", response.getCode(), reply));
+                    String.format("%s %s", response.getStatusCode(), reply));
 
         Map<String,String> map = Utils.parseResponse(reply);
 
@@ -77,7 +80,7 @@ public class PasswordAuthenticator extends AuthenticatorBase
         try {
             PasswordAuthenticator auth = new PasswordAuthenticator(getNetworkAddress(), provider, username, password,
                     getApiVersion(), isIgnoreSsl(), getValidationCallback());
-            auth.accessToken = this.accessToken == null ? null : this.accessToken.clone();
+            auth.accessToken = copyAccessToken();
             return auth;
         } catch (ArgumentException ex) {
             logger.error("Exception occurred", ex);
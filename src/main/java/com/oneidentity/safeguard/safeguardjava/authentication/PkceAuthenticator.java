@@ -1,9 +1,10 @@
 package com.oneidentity.safeguard.safeguardjava.authentication;
 
+import com.oneidentity.safeguard.safeguardjava.Deadline;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.oneidentity.safeguard.safeguardjava.AgentBasedLoginUtils;
 import com.oneidentity.safeguard.safeguardjava.Utils;
+import com.oneidentity.safeguard.safeguardjava.data.FullResponse;
 import com.oneidentity.safeguard.safeguardjava.exceptions.ArgumentException;
 import com.oneidentity.safeguard.safeguardjava.exceptions.ObjectDisposedException;
 import com.oneidentity.safeguard.safeguardjava.exceptions.SafeguardForJavaException;
@@ -181,10 +182,9 @@ public class PkceAuthenticator extends AuthenticatorBase {
 
     private void handleSecondaryAuthentication(CloseableHttpClient httpClient, String pkceUrl,
             String primaryFormData, String primaryAuthBody) throws SafeguardForJavaException {
-        ObjectMapper mapper = new ObjectMapper();
         JsonNode primaryResponse;
         try {
-            primaryResponse = mapper.readTree(primaryAuthBody);
+            primaryResponse = Utils.jsonReader(JsonNode.class).readTree(primaryAuthBody);
         } catch (Exception e) {
             return; // Non-JSON response means no secondary auth info
         }
@@ -216,7 +216,7 @@ public class PkceAuthenticator extends AuthenticatorBase {
             // Parse MFA state from secondary init response
             String mfaState = "";
             try {
-                JsonNode initResponse = mapper.readTree(initBody);
+                JsonNode initResponse = Utils.jsonReader(JsonNode.class).readTree(initBody);
                 if (initResponse != null && initResponse.has("State")) {
                     mfaState = initResponse.get("State").asText("");
                 }
@@ -241,9 +241,8 @@ public class PkceAuthenticator extends AuthenticatorBase {
     }
 
     private String extractAuthorizationCode(String response) throws SafeguardForJavaException {
-        ObjectMapper mapper = new ObjectMapper();
         try {
-            JsonNode jsonObject = mapper.readTree(response);
+            JsonNode jsonObject = Utils.jsonReader(JsonNode.class).readTree(response);
             JsonNode relyingPartyUrlNode = jsonObject.get("RelyingPartyUrl");
 
             if (relyingPartyUrlNode == null || relyingPartyUrlNode.isNull()
@@ -293,21 +292,21 @@ public class PkceAuthenticator extends AuthenticatorBase {
             java.util.Map<String, String> headers = new java.util.HashMap<>();
             headers.put(HttpHeaders.ACCEPT, "application/json");
 
-            CloseableHttpResponse response = client.execGET("AuthenticationProviders", null, headers, null);
+            FullResponse response = client.execGETFull("AuthenticationProviders", null, headers, null);
 
             if (response == null) {
+                Deadline.checkCurrent();
                 throw new SafeguardForJavaException("Unable to connect to Safeguard to resolve identity provider");
             }
 
-            String reply = Utils.getResponse(response);
-            if (!Utils.isSuccessful(response.getCode())) {
+            String reply = response.getBody();
+            if (!Utils.isSuccessful(response.getStatusCode())) {
                 throw new SafeguardForJavaException(
                         "Error requesting authentication providers, Error: "
-                        + String.format("%d %s", response.getCode(), reply));
+                        + String.format("%d %s", response.getStatusCode(), reply));
             }
 
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode providers = mapper.readTree(reply);
+            JsonNode providers = Utils.jsonReader(JsonNode.class).readTree(reply);
 
             if (providers != null && providers.isArray()) {
                 for (JsonNode p : providers) {
@@ -418,7 +417,7 @@ public class PkceAuthenticator extends AuthenticatorBase {
         try {
             PkceAuthenticator auth = new PkceAuthenticator(getNetworkAddress(), provider, username,
                     password, secondaryPassword, getApiVersion(), isIgnoreSsl(), getValidationCallback());
-            auth.accessToken = this.accessToken == null ? null : this.accessToken.clone();
+            auth.accessToken = copyAccessToken();
             return auth;
         } catch (ArgumentException ex) {
             logger.error("Exception occurred", ex);
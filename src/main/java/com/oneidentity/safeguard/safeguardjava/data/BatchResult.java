@@ -0,0 +1,45 @@
+package com.oneidentity.safeguard.safeguardjava.data;
+
+/**
+ * The outcome of one request of a batch: either the response or the error
+ * that prevented it from completing successfully.
+ */
+public class BatchResult {
+
+    private final SafeguardRequest request;
+    private final FullResponse response;
+    private final Exception error;
+
+    public BatchResult(SafeguardRequest request, FullResponse response, Exception error) {
+        this.request = request;
+        this.response = response;
+        this.error = error;
+    }
+
+    public SafeguardRequest getRequest() {
+        return request;
+    }
+
+    /**
+     * Gets the response of a successful request.
+     *
+     * @return The response, or null if the request failed.
+     */
+    public FullResponse getResponse() {
+        return response;
+    }
+
+    /**
+     * Gets the reason the request failed, such as an error status returned by
+     * the appliance or a connection failure.
+     *
+     * @return The error, or null if the request succeeded.
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    public boolean isSuccessful() {
+        return error == null;
+    }
+}
@@ -0,0 +1,16 @@
+package com.oneidentity.safeguard.safeguardjava.data;
+
+/**
+ *  File formats written by a bulk export.
+ */
+public enum ExportFormat
+{
+    /**
+     *  Newline delimited JSON, one item per line
+     */
+    NdJson,
+    /**
+     *  Comma separated values as returned by Safeguard, with a single header row
+     */
+    Csv
+}
@@ -32,6 +32,23 @@ public class FullResponse {
         return Arrays.asList(headers);
     }
 
+    /**
+     * Gets the first header with the given name, ignoring case.
+     *
+     * @param name The header name.
+     * @return The header, or null if the response does not have it.
+     */
+    public Header getFirstHeader(String name) {
+        if (headers != null) {
+            for (Header header : headers) {
+                if (header.getName().equalsIgnoreCase(name)) {
+                    return header;
+                }
+            }
+        }
+        return null;
+    }
+
     public void setHeaders(Header[] headers) {
         this.headers = headers;
     }
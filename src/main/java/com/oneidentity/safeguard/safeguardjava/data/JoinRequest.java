@@ -1,8 +1,8 @@
 package com.oneidentity.safeguard.safeguardjava.data;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
+import com.oneidentity.safeguard.safeguardjava.Utils;
 import com.oneidentity.safeguard.safeguardjava.exceptions.SafeguardForJavaException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,7 +44,7 @@ public class JoinRequest implements JsonObject {
 
     @Override
     public String toJson() throws SafeguardForJavaException {
-        ObjectWriter ow = new ObjectMapper().writer().withDefaultPrettyPrinter();
+        ObjectWriter ow = Utils.jsonWriter().withDefaultPrettyPrinter();
         try {
             return ow.writeValueAsString(this);
         } catch (JsonProcessingException ex) {
@@ -0,0 +1,60 @@
+package com.oneidentity.safeguard.safeguardjava.data;
+
+import java.util.Map;
+
+/**
+ * A single Safeguard API call to be sent as part of a batch.
+ */
+public class SafeguardRequest {
+
+    private final Service service;
+    private final Method method;
+    private final String relativeUrl;
+    private final String body;
+    private final Map<String, String> parameters;
+    private final Map<String, String> additionalHeaders;
+    private final Integer timeout;
+
+    public SafeguardRequest(Service service, Method method, String relativeUrl, String body) {
+        this(service, method, relativeUrl, body, null, null, null);
+    }
+
+    public SafeguardRequest(Service service, Method method, String relativeUrl, String body,
+            Map<String, String> parameters, Map<String, String> additionalHeaders, Integer timeout) {
+        this.service = service;
+        this.method = method;
+        this.relativeUrl = relativeUrl;
+        this.body = body;
+        this.parameters = parameters;
+        this.additionalHeaders = additionalHeaders;
+        this.timeout = timeout;
+    }
+
+    public Service getService() {
+        return service;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public String getRelativeUrl() {
+        return relativeUrl;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public Map<String, String> getParameters() {
+        return parameters;
+    }
+
+    public Map<String, String> getAdditionalHeaders() {
+        return additionalHeaders;
+    }
+
+    public Integer getTimeout() {
+        return timeout;
+    }
+}
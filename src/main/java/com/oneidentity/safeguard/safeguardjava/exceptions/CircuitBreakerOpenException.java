@@ -0,0 +1,18 @@
+package com.oneidentity.safeguard.safeguardjava.exceptions;
+
+/**
+ * Thrown when a request is not sent because the circuit breaker of its
+ * service is open after too many recent failures.
+ */
+public class CircuitBreakerOpenException extends SafeguardForJavaException {
+
+    public CircuitBreakerOpenException(String msg) {
+        super(msg);
+    }
+
+    public CircuitBreakerOpenException(String msg, Throwable cause) {
+        super(msg, cause);
+    }
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,17 @@
+package com.oneidentity.safeguard.safeguardjava.exceptions;
+
+/**
+ * Thrown when an operation runs past the deadline entered on its thread.
+ */
+public class DeadlineExceededException extends SafeguardForJavaException {
+
+    public DeadlineExceededException(String msg) {
+        super(msg);
+    }
+
+    public DeadlineExceededException(String msg, Throwable cause) {
+        super(msg, cause);
+    }
+
+    private static final long serialVersionUID = 1L;
+}
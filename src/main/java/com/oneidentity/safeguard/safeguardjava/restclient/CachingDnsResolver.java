@@ -0,0 +1,145 @@
+package com.oneidentity.safeguard.safeguardjava.restclient;
+
+import com.oneidentity.safeguard.safeguardjava.ConnectionOptions;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the host name lookups of another resolver and optionally rotates
+ * the addresses of a name that resolves to several.
+ *
+ * <p>One cache is kept per underlying resolver and settings for the whole
+ * JVM, so every connection and A2A context with the same settings resolves an
+ * appliance name once per TTL, while a connection created with different
+ * settings gets a cache of its own and leaves the others as they are. Failed lookups
+ * are cached for a separate, usually shorter, TTL so that a name that does
+ * not resolve is not looked up again by every new connection. With round
+ * robin, each lookup of a name returns its addresses starting one further
+ * along, so that new connections are spread over all of them while the
+ * others remain as fallbacks.
+ */
+final class CachingDnsResolver implements DnsResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachingDnsResolver.class);
+
+    private static final ConcurrentMap<List<Object>, CachingDnsResolver> resolvers = new ConcurrentHashMap<>();
+
+    private final DnsResolver delegate;
+    private final ConcurrentMap<String, Entry> cache = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> rotations = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final boolean roundRobin;
+
+    /**
+     * The outcome of a lookup: either its addresses or the reason it failed.
+     */
+    private static final class Entry {
+
+        final InetAddress[] addresses;
+        final String failure;
+        final long expiresAtNanos;
+
+        Entry(InetAddress[] addresses, String failure, long expiresAtNanos) {
+            this.addresses = addresses;
+            this.failure = failure;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    CachingDnsResolver(DnsResolver delegate, long ttlMillis, long negativeTtlMillis, boolean roundRobin) {
+        this.delegate = delegate;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(negativeTtlMillis);
+        this.roundRobin = roundRobin;
+    }
+
+    /**
+     * Gets the resolver for the clients of a connection.
+     *
+     * @return The resolver, or null to use the default resolver of the HTTP client.
+     */
+    static DnsResolver forClient(ConnectionOptions options) {
+        if (options == null) {
+            return null;
+        }
+        DnsResolver delegate = options.getDnsResolver();
+        if (options.getDnsCacheTtlMillis() <= 0 && !options.isDnsRoundRobin()) {
+            return delegate;
+        }
+        DnsResolver resolver = delegate != null ? delegate : SystemDefaultDnsResolver.INSTANCE;
+        long ttlMillis = options.getDnsCacheTtlMillis();
+        long negativeTtlMillis = options.getDnsNegativeCacheTtlMillis();
+        boolean roundRobin = options.isDnsRoundRobin();
+        return resolvers.computeIfAbsent(Arrays.asList(resolver, ttlMillis, negativeTtlMillis, roundRobin),
+                key -> new CachingDnsResolver(resolver, ttlMillis, negativeTtlMillis, roundRobin));
+    }
+
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        InetAddress[] addresses = lookup(host);
+        if (!roundRobin || addresses.length < 2) {
+            return addresses.clone();
+        }
+        int count = addresses.length;
+        int first = Math.floorMod(rotations.computeIfAbsent(host.toLowerCase(Locale.ROOT), key -> new AtomicInteger())
+                .getAndIncrement(), count);
+        InetAddress[] rotated = new InetAddress[count];
+        for (int i = 0; i < count; i++) {
+            rotated[i] = addresses[(first + i) % count];
+        }
+        return rotated;
+    }
+
+    @Override
+    public String resolveCanonicalHostname(String host) throws UnknownHostException {
+        return delegate.resolveCanonicalHostname(host);
+    }
+
+    private InetAddress[] lookup(String host) throws UnknownHostException {
+        if (ttlNanos <= 0) {
+            return resolveWithDelegate(host);
+        }
+
+        String key = host.toLowerCase(Locale.ROOT);
+        Entry entry = cache.get(key);
+        long now = System.nanoTime();
+        if (entry == null || now - entry.expiresAtNanos >= 0) {
+            try {
+                InetAddress[] addresses = resolveWithDelegate(host);
+                entry = new Entry(addresses, null, now + ttlNanos);
+            } catch (UnknownHostException ex) {
+                if (negativeTtlNanos <= 0) {
+                    cache.remove(key);
+                    throw ex;
+                }
+                logger.debug("Caching failed lookup of {} for {} ms", host, TimeUnit.NANOSECONDS.toMillis(negativeTtlNanos));
+                entry = new Entry(null, ex.getMessage(), now + negativeTtlNanos);
+            }
+            cache.put(key, entry);
+        }
+        if (entry.addresses == null) {
+            throw new UnknownHostException(entry.failure);
+        }
+        return entry.addresses;
+    }
+
+    private InetAddress[] resolveWithDelegate(String host) throws UnknownHostException {
+        InetAddress[] addresses = delegate.resolve(host);
+        if (addresses == null || addresses.length == 0) {
+            throw new UnknownHostException(host);
+        }
+        return addresses;
+    }
+}
@@ -0,0 +1,324 @@
+package com.oneidentity.safeguard.safeguardjava.restclient;
+
+import com.oneidentity.safeguard.safeguardjava.data.CertificateContext;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded, least-recently-used cache of HTTP clients bound to a client
+ * certificate.
+ *
+ * <p>Building a certificate-bound client means parsing the keystore, creating
+ * a key manager and an SSL context, and every new client starts with a cold
+ * connection and a full TLS handshake with client authentication. Caching the
+ * client per certificate lets repeated calls (e.g. A2A credential retrieval)
+ * reuse warm pooled connections instead. Entries are keyed on the certificate
+ * path, the alias, the thumbprint and HMACs of the certificate data and
+ * password. The HMAC key is drawn at random once per process, so the keys
+ * cannot be used to test guesses of a password.
+ *
+ * <p>A client is built without holding the lock of the cache, so a slow or
+ * failing keystore does not hold up callers with other certificates. Callers
+ * that ask for the same certificate while its client is being built wait for
+ * that client instead of building their own.
+ *
+ * <p>Callers hold a {@link Lease} on a client for as long as they use it.
+ * A client evicted from the cache is only closed once all its leases have
+ * been closed and it has no connections leased from its pool anymore, which
+ * a streamed response keeps until it has been read or closed; until then it
+ * is set aside and checked again whenever a lease is acquired or closed.
+ * {@link #close()} closes all clients at once.
+ */
+class CertificateClientCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(CertificateClientCache.class);
+
+    private static final String KEY_ALGORITHM = "HmacSHA256";
+
+    /** Holds the HMAC key of the process, drawn on first use. */
+    private static final class KeyHolder {
+
+        static final SecretKeySpec KEY;
+
+        static {
+            byte[] key = new byte[32];
+            new SecureRandom().nextBytes(key);
+            KEY = new SecretKeySpec(key, KEY_ALGORITHM);
+            Arrays.fill(key, (byte) 0);
+        }
+    }
+
+    private final int maxSize;
+    private final Predicate<CloseableHttpClient> hasLeasedConnections;
+    private final LinkedHashMap<String, Entry> clients = new LinkedHashMap<>(16, 0.75f, true);
+    private final List<Entry> evicted = new ArrayList<>();
+    private final Map<String, CompletableFuture<CloseableHttpClient>> creating = new HashMap<>();
+
+    private static final class Entry {
+
+        final CloseableHttpClient client;
+        int leases;
+
+        Entry(CloseableHttpClient client) {
+            this.client = client;
+        }
+    }
+
+    /**
+     * The use of a cached client by one caller. Closing the lease does not
+     * close the client.
+     */
+    final class Lease implements AutoCloseable {
+
+        private final Entry entry;
+        private boolean closed;
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        CloseableHttpClient getClient() {
+            return entry.client;
+        }
+
+        @Override
+        public void close() {
+            release(this);
+        }
+    }
+
+    CertificateClientCache(int maxSize) {
+        this(maxSize, client -> false);
+    }
+
+    /**
+     * @param maxSize The number of clients to keep.
+     * @param hasLeasedConnections Tells whether a client still has connections
+     *        leased from its pool, which keeps it from being closed once evicted.
+     */
+    CertificateClientCache(int maxSize, Predicate<CloseableHttpClient> hasLeasedConnections) {
+        this.maxSize = maxSize;
+        this.hasLeasedConnections = hasLeasedConnections;
+    }
+
+    /**
+     * Leases the cached client for a certificate, creating it on first use.
+     *
+     * @param certificateContext The client certificate.
+     * @param factory Creates the client when it is not cached yet; may return null.
+     * @return The lease on the certificate-bound client, or null if the client
+     *         could not be created.
+     */
+    Lease acquire(CertificateContext certificateContext, Supplier<CloseableHttpClient> factory) {
+
+        String key = keyFor(certificateContext);
+        while (true) {
+            CompletableFuture<CloseableHttpClient> creation;
+            boolean creator = false;
+            Lease lease = null;
+            List<CloseableHttpClient> idle = null;
+            synchronized (this) {
+                Entry entry = clients.get(key);
+                if (entry != null) {
+                    lease = lease(entry);
+                    idle = removeIdleEvicted();
+                }
+                creation = creating.get(key);
+                if (lease == null && creation == null) {
+                    creation = new CompletableFuture<>();
+                    creating.put(key, creation);
+                    creator = true;
+                }
+            }
+            if (lease != null) {
+                idle.forEach(CertificateClientCache::closeQuietly);
+                return lease;
+            }
+            if (creator) {
+                return create(key, creation, factory);
+            }
+            try {
+                if (creation.get() == null) {
+                    return null;
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException ex) {
+                return null;
+            }
+            // Created by another caller; lease it unless it has been evicted already
+        }
+    }
+
+    /**
+     * Builds the client for a key outside the lock and publishes it to the
+     * cache and to the callers waiting for it.
+     */
+    private Lease create(String key, CompletableFuture<CloseableHttpClient> creation, Supplier<CloseableHttpClient> factory) {
+
+        CloseableHttpClient client = null;
+        Lease lease = null;
+        List<CloseableHttpClient> idle = new ArrayList<>();
+        try {
+            client = factory.get();
+        } finally {
+            synchronized (this) {
+                creating.remove(key);
+                if (client != null) {
+                    Entry entry = new Entry(client);
+                    clients.put(key, entry);
+                    evictEldest();
+                    lease = lease(entry);
+                    idle = removeIdleEvicted();
+                }
+            }
+            creation.complete(client);
+        }
+        idle.forEach(CertificateClientCache::closeQuietly);
+        return lease;
+    }
+
+    private Lease lease(Entry entry) {
+        entry.leases++;
+        return new Lease(entry);
+    }
+
+    synchronized int size() {
+        return clients.size();
+    }
+
+    /**
+     * Gets the number of evicted clients that have not been closed yet.
+     */
+    synchronized int getEvictedInUse() {
+        return evicted.size();
+    }
+
+    /**
+     * Closes and removes all cached clients, including evicted clients that
+     * are still in use.
+     */
+    void close() {
+        List<CloseableHttpClient> released = new ArrayList<>();
+        synchronized (this) {
+            clients.values().forEach(entry -> released.add(entry.client));
+            evicted.forEach(entry -> released.add(entry.client));
+            clients.clear();
+            evicted.clear();
+        }
+        released.forEach(CertificateClientCache::closeQuietly);
+    }
+
+    private void release(Lease lease) {
+        List<CloseableHttpClient> idle;
+        synchronized (this) {
+            if (lease.closed) {
+                return;
+            }
+            lease.closed = true;
+            lease.entry.leases--;
+            idle = removeIdleEvicted();
+        }
+        idle.forEach(CertificateClientCache::closeQuietly);
+    }
+
+    private void evictEldest() {
+        Iterator<Map.Entry<String, Entry>> iter = clients.entrySet().iterator();
+        while (clients.size() > maxSize && iter.hasNext()) {
+            evicted.add(iter.next().getValue());
+            iter.remove();
+        }
+    }
+
+    /**
+     * Removes the evicted clients that are no longer in use, to be closed
+     * once the lock has been released.
+     */
+    private List<CloseableHttpClient> removeIdleEvicted() {
+        List<CloseableHttpClient> idle = new ArrayList<>();
+        Iterator<Entry> iter = evicted.iterator();
+        while (iter.hasNext()) {
+            Entry entry = iter.next();
+            if (entry.leases == 0 && !hasLeasedConnections.test(entry.client)) {
+                idle.add(entry.client);
+                iter.remove();
+            }
+        }
+        return idle;
+    }
+
+    static String keyFor(CertificateContext certificateContext) {
+        char[] password = certificateContext.getCertificatePassword();
+        return String.format("path=%s;data=%s;alias=%s;thumbprint=%s;password=%s",
+                certificateContext.getCertificatePath(),
+                digest(certificateContext.getCertificateData()),
+                certificateContext.getCertificateAlias(),
+                certificateContext.getCertificateThumbprint(),
+                digest(password));
+    }
+
+    private static String digest(char[] password) {
+        if (password == null) {
+            return null;
+        }
+        ByteBuffer encoded = StandardCharsets.UTF_8.encode(CharBuffer.wrap(password));
+        byte[] bytes = new byte[encoded.remaining()];
+        encoded.get(bytes);
+        try {
+            return digest(bytes);
+        } finally {
+            Arrays.fill(bytes, (byte) 0);
+            if (encoded.hasArray()) {
+                Arrays.fill(encoded.array(), (byte) 0);
+            }
+        }
+    }
+
+    private static String digest(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            Mac mac = Mac.getInstance(KEY_ALGORITHM);
+            mac.init(KeyHolder.KEY);
+            byte[] hash = mac.doFinal(data);
+            StringBuilder sb = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException | InvalidKeyException ex) {
+            throw new RuntimeException(KEY_ALGORITHM + " algorithm not available", ex);
+        }
+    }
+
+    private static void closeQuietly(CloseableHttpClient client) {
+        try {
+            client.close();
+        } catch (IOException ex) {
+            logger.debug("Error closing certificate client", ex);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.oneidentity.safeguard.safeguardjava.restclient;
+
+import com.oneidentity.safeguard.safeguardjava.ConnectionOptions;
+import com.oneidentity.safeguard.safeguardjava.exceptions.CircuitBreakerOpenException;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import org.apache.hc.client5.http.async.AsyncExecChainHandler;
+import org.apache.hc.client5.http.classic.ExecChainHandler;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Circuit breaker for one Safeguard service endpoint.
+ *
+ * <p>One breaker is kept per base URL and settings for the whole JVM, so a
+ * connection created with different settings gets a breaker of its own and
+ * leaves the others as they are. While closed it records the outcome of the
+ * last {@code windowSize} requests; a request fails when no response is
+ * received or the response is 502, 503 or 504, and is slow when the response
+ * takes longer than the slow-call duration. Requests that the caller
+ * cancelled or that timed out within the shorter time the caller gave them
+ * are not recorded. Once
+ * the window is full and the share of failed or slow requests reaches its
+ * threshold the breaker opens, and requests fail at once without being sent.
+ * After the open duration a few trial requests are let through; if they all
+ * succeed the breaker closes, otherwise it opens again.
+ */
+final class CircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private static final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    /** Number of trial requests let through when the open duration has passed. */
+    static final int HALF_OPEN_CALLS = 3;
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String baseUrl;
+    private final int failureRateThreshold;
+    private final int slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final byte[] outcomes;
+
+    private State state = State.CLOSED;
+    private int next;
+    private int count;
+    private int failures;
+    private int slowCalls;
+    private long stateSinceNanos;
+    private int trialsStarted;
+    private int trialsSucceeded;
+
+    private CircuitBreaker(String baseUrl, int failureRateThreshold, int slowCallRateThreshold, long slowCallDurationMillis,
+            int windowSize, long openDurationMillis) {
+        this.baseUrl = baseUrl;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallDurationMillis);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMillis);
+        this.outcomes = new byte[windowSize];
+    }
+
+    /**
+     * Gets the breaker for the base URL of a REST client.
+     *
+     * @return The shared breaker, or null when circuit breaking is disabled.
+     */
+    static CircuitBreaker forClient(String connectionAddr, ConnectionOptions options) {
+        if (options == null || options.getCircuitBreakerFailureRateThreshold() <= 0) {
+            return null;
+        }
+        String baseUrl = connectionAddr.toLowerCase(Locale.ROOT);
+        int failureRate = options.getCircuitBreakerFailureRateThreshold();
+        int slowCallRate = options.getCircuitBreakerSlowCallRateThreshold();
+        long slowCallMillis = options.getCircuitBreakerSlowCallDurationMillis();
+        int windowSize = options.getCircuitBreakerWindowSize();
+        long openMillis = options.getCircuitBreakerOpenDurationMillis();
+        String key = String.format("%s;failureRate=%d;slowCallRate=%d;slowCall=%d;window=%d;open=%d",
+                baseUrl, failureRate, slowCallRate, slowCallMillis, windowSize, openMillis);
+        return breakers.computeIfAbsent(key,
+                k -> new CircuitBreaker(baseUrl, failureRate, slowCallRate, slowCallMillis, windowSize, openMillis));
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Asks to send a request.
+     *
+     * @return {@code true} if the request may be sent.
+     */
+    synchronized boolean tryAcquire() {
+        long now = System.nanoTime();
+        if (state == State.OPEN) {
+            if (now - stateSinceNanos < openNanos) {
+                return false;
+            }
+            halfOpen(now);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialsStarted >= HALF_OPEN_CALLS) {
+                if (now - stateSinceNanos < openNanos) {
+                    return false;
+                }
+                // The trial requests never reported back, so allow new ones.
+                halfOpen(now);
+            }
+            trialsStarted++;
+        }
+        return true;
+    }
+
+    /**
+     * Records the outcome of a request that was let through.
+     */
+    synchronized void record(boolean failed, long durationNanos) {
+        boolean slow = slowCallNanos > 0 && durationNanos > slowCallNanos;
+        switch (state) {
+            case HALF_OPEN:
+                if (failed || slow) {
+                    open();
+                } else if (++trialsSucceeded >= HALF_OPEN_CALLS) {
+                    close();
+                }
+                return;
+            case OPEN:
+                // A late result of a request sent before the breaker opened.
+                return;
+            default:
+                break;
+        }
+
+        if (count == outcomes.length) {
+            byte oldest = outcomes[next];
+            failures -= oldest & FAILED;
+            slowCalls -= (oldest & SLOW) >> 1;
+        } else {
+            count++;
+        }
+        outcomes[next] = (byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0));
+        failures += failed ? 1 : 0;
+        slowCalls += slow ? 1 : 0;
+        next = (next + 1) % outcomes.length;
+
+        if (count == outcomes.length && (failures * 100 >= failureRateThreshold * count
+                || (slowCallRateThreshold > 0 && slowCalls * 100 >= slowCallRateThreshold * count))) {
+            open();
+        }
+    }
+
+    /**
+     * Gets whether requests are currently being rejected.
+     */
+    synchronized boolean isOpen() {
+        boolean waiting = System.nanoTime() - stateSinceNanos < openNanos;
+        return (state == State.OPEN && waiting) || (state == State.HALF_OPEN && trialsStarted >= HALF_OPEN_CALLS && waiting);
+    }
+
+    /**
+     * Fails if requests are currently being rejected.
+     *
+     * @throws CircuitBreakerOpenException If the breaker is open.
+     */
+    void check() throws CircuitBreakerOpenException {
+        if (isOpen()) {
+            throw openException();
+        }
+    }
+
+    CircuitBreakerOpenException openException() {
+        long remaining;
+        synchronized (this) {
+            remaining = Math.max(0, TimeUnit.NANOSECONDS.toMillis(openNanos - (System.nanoTime() - stateSinceNanos)));
+        }
+        return new CircuitBreakerOpenException(String.format(
+                "Requests to web service %s are failing, the circuit breaker is open for another %d ms", baseUrl, remaining));
+    }
+
+    private void open() {
+        if (state != State.OPEN) {
+            logger.warn("Circuit breaker for {} opened", baseUrl);
+        }
+        state = State.OPEN;
+        stateSinceNanos = System.nanoTime();
+    }
+
+    private void halfOpen(long now) {
+        state = State.HALF_OPEN;
+        stateSinceNanos = now;
+        trialsStarted = 0;
+        trialsSucceeded = 0;
+    }
+
+    private void close() {
+        logger.info("Circuit breaker for {} closed", baseUrl);
+        state = State.CLOSED;
+        next = 0;
+        count = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+
+    static boolean isFailure(int statusCode) {
+        return statusCode == HttpStatus.SC_BAD_GATEWAY || statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE
+                || statusCode == HttpStatus.SC_GATEWAY_TIMEOUT;
+    }
+
+    /**
+     * Creates the interceptor for blocking clients that rejects requests
+     * while the breaker is open. It runs ahead of the rate limit, so that a
+     * rejected request neither takes nor waits for a permit. A rejected
+     * request fails with an I/O error, which the REST client reports as a
+     * failure to connect; callers then use {@link #check()} to tell the two
+     * apart.
+     */
+    ExecChainHandler classicGate() {
+        return (request, scope, chain) -> {
+            if (isOpen()) {
+                throw new IOException(openException().getMessage());
+            }
+            return chain.proceed(request, scope);
+        };
+    }
+
+    /**
+     * Creates the interceptor for non-blocking clients that rejects requests
+     * with a {@link CircuitBreakerOpenException} while the breaker is open,
+     * ahead of the rate limit.
+     */
+    AsyncExecChainHandler asyncGate() {
+        return (request, entityProducer, scope, chain, callback) -> {
+            if (isOpen()) {
+                if (entityProducer != null) {
+                    entityProducer.releaseResources();
+                }
+                callback.failed(openException());
+                return;
+            }
+            chain.proceed(request, entityProducer, scope, callback);
+        };
+    }
+
+    /**
+     * Creates the interceptor for blocking clients that lets trial requests
+     * through and records the outcome of requests. It runs inside the rate
+     * limit, so the time a request waits for a permit does not make it slow.
+     * A rejected request fails like one rejected by {@link #classicGate()}.
+     */
+    ExecChainHandler classicHandler() {
+        return (request, scope, chain) -> {
+            if (!tryAcquire()) {
+                throw new IOException(openException().getMessage());
+            }
+            long started = System.nanoTime();
+            ClassicHttpResponse response;
+            try {
+                response = chain.proceed(request, scope);
+            } catch (IOException | HttpException | RuntimeException ex) {
+                if (!RequestStats.isCallerFailure(scope, ex)) {
+                    record(true, System.nanoTime() - started);
+                }
+                throw ex;
+            }
+            record(isFailure(response.getCode()), System.nanoTime() - started);
+            return response;
+        };
+    }
+
+    /**
+     * Creates the interceptor for non-blocking clients that lets trial
+     * requests through and records the outcome of requests, inside the rate
+     * limit. A rejected request fails with a {@link CircuitBreakerOpenException}.
+     */
+    AsyncExecChainHandler asyncHandler() {
+        return (request, entityProducer, scope, chain, callback) -> {
+            if (!tryAcquire()) {
+                if (entityProducer != null) {
+                    entityProducer.releaseResources();
+                }
+                callback.failed(openException());
+                return;
+            }
+            OutcomeCallback outcome = new OutcomeCallback(callback, (response, failure, durationNanos) -> {
+                if (response != null || !RequestStats.isCallerFailure(scope, failure)) {
+                    record(response == null || isFailure(response.getCode()), durationNanos);
+                }
+            });
+            try {
+                chain.proceed(request, entityProducer, scope, outcome);
+            } catch (IOException | HttpException | RuntimeException ex) {
+                outcome.failedToStart(ex);
+                throw ex;
+            }
+        };
+    }
+}
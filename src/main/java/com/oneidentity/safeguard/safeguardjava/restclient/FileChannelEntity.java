@@ -0,0 +1,122 @@
+package com.oneidentity.safeguard.safeguardjava.restclient;
+
+import com.oneidentity.safeguard.safeguardjava.IProgressCallback;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import org.apache.hc.core5.function.Supplier;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+
+/**
+ * Request entity that streams the content of a file channel, from its
+ * current position to the end, reporting upload progress. The content is
+ * read in fixed-size chunks with positional reads, so memory use does not
+ * depend on the file size and the entity can be sent again on retry. The
+ * channel is not closed by the entity; it is owned by the caller.
+ */
+public class FileChannelEntity implements HttpEntity {
+
+    private static final int BUFFER_SIZE = 81920;
+
+    private OutputStreamProgress outstream;
+    private final FileChannel channel;
+    private final IProgressCallback progressCallback;
+    private final long startPosition;
+    private final long totalBytes;
+
+    public FileChannelEntity(FileChannel channel, IProgressCallback progressCallback) throws IOException {
+        this.channel = channel;
+        this.progressCallback = progressCallback;
+        this.startPosition = channel.position();
+        this.totalBytes = Math.max(0, channel.size() - startPosition);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return totalBytes;
+    }
+
+    @Override
+    public String getContentType() {
+        return null;
+    }
+
+    @Override
+    public String getContentEncoding() {
+        return null;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        return Channels.newInputStream(channel.position(startPosition));
+    }
+
+    @Override
+    public void writeTo(OutputStream outstream) throws IOException {
+        this.outstream = new OutputStreamProgress(outstream, this.progressCallback, totalBytes);
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, Math.max(totalBytes, 1)));
+        long position = startPosition;
+        long end = startPosition + totalBytes;
+        while (position < end) {
+            buffer.clear();
+            if (end - position < buffer.capacity()) {
+                buffer.limit((int) (end - position));
+            }
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("File ended before its expected length of " + totalBytes + " bytes");
+            }
+            this.outstream.write(buffer.array(), 0, read);
+            position += read;
+        }
+        this.outstream.flush();
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    @Override
+    public boolean isChunked() {
+        return false;
+    }
+
+    @Override
+    public Set<String> getTrailerNames() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public Supplier<List<? extends Header>> getTrailers() {
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+    }
+
+    public int getProgress() {
+        if (outstream == null) {
+            return 0;
+        }
+        long contentLength = getContentLength();
+        if (contentLength <= 0) {
+            return 0;
+        }
+        long writtenLength = outstream.getWrittenLength();
+        return (int) (100*writtenLength/contentLength);
+    }
+}
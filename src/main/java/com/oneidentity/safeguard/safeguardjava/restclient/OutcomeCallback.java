@@ -0,0 +1,76 @@
+package com.oneidentity.safeguard.safeguardjava.restclient;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.hc.client5.http.async.AsyncExecCallback;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.nio.AsyncDataConsumer;
+
+/**
+ * Passes the events of an asynchronous exchange on to the original callback
+ * and reports, exactly once, either the response head or the failure along
+ * with the time it took.
+ */
+final class OutcomeCallback implements AsyncExecCallback {
+
+    /**
+     * Receives the outcome of an exchange.
+     */
+    interface Listener {
+
+        /**
+         * @param response The response head, or null if the exchange failed.
+         * @param failure Why the exchange failed, or null.
+         * @param durationNanos Time from sending the request until the
+         *        response head arrived or the exchange failed.
+         */
+        void outcome(HttpResponse response, Exception failure, long durationNanos);
+    }
+
+    private final AsyncExecCallback callback;
+    private final Listener listener;
+    private final long startedNanos = System.nanoTime();
+    private final AtomicBoolean reported = new AtomicBoolean();
+
+    OutcomeCallback(AsyncExecCallback callback, Listener listener) {
+        this.callback = callback;
+        this.listener = listener;
+    }
+
+    /**
+     * Reports a failure that happened before the exchange was handed over.
+     */
+    void failedToStart(Exception failure) {
+        report(null, failure);
+    }
+
+    private void report(HttpResponse response, Exception failure) {
+        if (reported.compareAndSet(false, true)) {
+            listener.outcome(response, failure, System.nanoTime() - startedNanos);
+        }
+    }
+
+    @Override
+    public AsyncDataConsumer handleResponse(HttpResponse response, EntityDetails entityDetails) throws HttpException, IOException {
+        report(response, null);
+        return callback.handleResponse(response, entityDetails);
+    }
+
+    @Override
+    public void handleInformationResponse(HttpResponse response) throws HttpException, IOException {
+        callback.handleInformationResponse(response);
+    }
+
+    @Override
+    public void completed() {
+        callback.completed();
+    }
+
+    @Override
+    public void failed(Exception cause) {
+        report(null, cause);
+        callback.failed(cause);
+    }
+}
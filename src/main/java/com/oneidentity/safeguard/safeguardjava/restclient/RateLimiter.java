@@ -0,0 +1,283 @@
+package com.oneidentity.safeguard.safeguardjava.restclient;
+
+import com.oneidentity.safeguard.safeguardjava.ConnectionOptions;
+import com.oneidentity.safeguard.safeguardjava.Deadline;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.hc.client5.http.async.AsyncExecCallback;
+import org.apache.hc.client5.http.async.AsyncExecChainHandler;
+import org.apache.hc.client5.http.classic.ExecChainHandler;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.impl.BasicEntityDetails;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.apache.hc.core5.http.message.BasicHttpResponse;
+import org.apache.hc.core5.http.nio.AsyncDataConsumer;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Token-bucket limit on the rate of requests sent to one appliance.
+ *
+ * <p>One limiter is kept per network address and settings for the whole JVM,
+ * so every connection and A2A context to the same appliance with the same
+ * settings draws from the same bucket, while a connection created with
+ * different settings gets a bucket of its own and leaves the others as they
+ * are. The
+ * bucket holds up to {@code burst} permits and refills at
+ * {@code permitsPerSecond}. In blocking mode a request waits for its permit,
+ * asynchronous requests without holding a thread, but never longer than its
+ * timeout, the time left before its {@link Deadline} or the default request
+ * timeout. In fail-fast mode, and in blocking mode when the wait would be
+ * longer, a request without a permit is answered locally with 429 Too Many
+ * Requests and a {@code Retry-After}, just as if the appliance had throttled
+ * it.
+ */
+final class RateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
+
+    private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(RestClient.DEFAULT_TIMEOUT_MS);
+
+    private static final ConcurrentMap<String, RateLimiter> limiters = new ConcurrentHashMap<>();
+
+    private static volatile ScheduledExecutorService scheduler;
+
+    private final String address;
+    private final double permitsPerSecond;
+    private final double burst;
+    private final boolean failFast;
+    private double permits;
+    private long refilledAtNanos;
+
+    private RateLimiter(String address, double permitsPerSecond, double burst, boolean failFast) {
+        this.address = address;
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.failFast = failFast;
+        this.permits = burst;
+        this.refilledAtNanos = System.nanoTime();
+    }
+
+    /**
+     * Gets the limiter for the appliance of a REST client.
+     *
+     * @return The shared limiter, or null when rate limiting is disabled.
+     */
+    static RateLimiter forClient(String connectionAddr, ConnectionOptions options) {
+        if (options == null || options.getMaxRequestsPerSecond() <= 0) {
+            return null;
+        }
+        String address = getAddress(connectionAddr);
+        int rate = options.getMaxRequestsPerSecond();
+        int burst = options.getRateLimitBurst() > 0 ? options.getRateLimitBurst() : rate;
+        boolean failFast = options.isRateLimitFailFast();
+        String key = String.format("%s;rate=%d;burst=%d;failFast=%b", address, rate, burst, failFast);
+        return limiters.computeIfAbsent(key, k -> new RateLimiter(address, rate, burst, failFast));
+    }
+
+    private static String getAddress(String connectionAddr) {
+        try {
+            URI uri = URI.create(connectionAddr);
+            return uri.getAuthority() != null ? uri.getAuthority().toLowerCase(Locale.ROOT) : connectionAddr;
+        } catch (IllegalArgumentException ex) {
+            return connectionAddr;
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        permits = Math.min(burst, permits + (now - refilledAtNanos) * permitsPerSecond / TimeUnit.SECONDS.toNanos(1));
+        refilledAtNanos = now;
+    }
+
+    /**
+     * Takes a permit, borrowing from the future if none is available, so that
+     * waiting callers are spaced out at the configured rate. No permit is
+     * taken if the wait would be longer than the given limit or the default
+     * request timeout, which also bounds the permits borrowed.
+     *
+     * @param maxWaitNanos The longest time the caller is willing to wait.
+     * @return The time in nanoseconds to wait before sending the request, or,
+     *         if no permit was taken, the negated time until one is available.
+     */
+    synchronized long reserve(long maxWaitNanos) {
+        refill();
+        long wait = permits >= 1 ? 0 : (long) ((1 - permits) * TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        if (wait > Math.min(maxWaitNanos, MAX_WAIT_NANOS)) {
+            return -wait;
+        }
+        permits -= 1;
+        return wait;
+    }
+
+    /**
+     * Returns a permit taken by a request that was not sent.
+     */
+    synchronized void release() {
+        refill();
+        permits = Math.min(burst, permits + 1);
+    }
+
+    /**
+     * Takes a permit only if one is available now.
+     *
+     * @return Zero if a permit was taken; otherwise the time in nanoseconds
+     *         until one becomes available.
+     */
+    synchronized long tryAcquire() {
+        refill();
+        if (permits >= 1) {
+            permits -= 1;
+            return 0;
+        }
+        return (long) ((1 - permits) * TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+    }
+
+    private String rejection() {
+        return String.format("{\"Message\":\"Client-side rate limit for %s exceeded\"}", address);
+    }
+
+    /**
+     * Gets how long a request may wait for its permit: its response timeout,
+     * limited to the time left before the deadline of the calling thread.
+     */
+    private static long maxWaitNanos(HttpClientContext context) {
+        Timeout timeout = context.getRequestConfig() != null ? context.getRequestConfig().getResponseTimeout() : null;
+        int timeoutMillis = timeout != null && timeout.isEnabled() ? timeout.toMillisecondsIntBound() : RestClient.DEFAULT_TIMEOUT_MS;
+        return TimeUnit.MILLISECONDS.toNanos(Deadline.limitTimeout(timeoutMillis));
+    }
+
+    private ClassicHttpResponse reject(long waitNanos) {
+        logger.debug("Request to {} rejected by the client-side rate limit", address);
+        ClassicHttpResponse response = new BasicClassicHttpResponse(HttpStatus.SC_TOO_MANY_REQUESTS);
+        response.addHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds(waitNanos));
+        response.setEntity(new StringEntity(rejection(), ContentType.APPLICATION_JSON));
+        return response;
+    }
+
+    private void reject(long waitNanos, AsyncEntityProducer entityProducer, AsyncExecCallback callback)
+            throws HttpException, IOException {
+        logger.debug("Request to {} rejected by the client-side rate limit", address);
+        if (entityProducer != null) {
+            entityProducer.releaseResources();
+        }
+        byte[] body = rejection().getBytes(StandardCharsets.UTF_8);
+        BasicHttpResponse response = new BasicHttpResponse(HttpStatus.SC_TOO_MANY_REQUESTS);
+        response.addHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds(waitNanos));
+        AsyncDataConsumer consumer = callback.handleResponse(response,
+                new BasicEntityDetails(body.length, ContentType.APPLICATION_JSON));
+        if (consumer != null) {
+            consumer.consume(ByteBuffer.wrap(body));
+            consumer.streamEnd(null);
+        }
+        callback.completed();
+    }
+
+    private static String retryAfterSeconds(long waitNanos) {
+        return Long.toString(Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    /**
+     * Creates the interceptor for blocking clients. It runs once per request,
+     * ahead of the redirects and automatic retries of the HTTP client, so a
+     * request rejected by the rate limit is not retried by the client. A
+     * caller interrupted while waiting gives its permit back.
+     */
+    ExecChainHandler classicHandler() {
+        return (request, scope, chain) -> {
+            long wait = failFast ? tryAcquire() : reserve(maxWaitNanos(scope.clientContext));
+            if (failFast ? wait > 0 : wait < 0) {
+                return reject(Math.abs(wait));
+            }
+            if (wait > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                } catch (InterruptedException ex) {
+                    release();
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the client-side rate limit");
+                }
+            }
+            return chain.proceed(request, scope);
+        };
+    }
+
+    /**
+     * Creates the interceptor for non-blocking clients. Requests that have to
+     * wait for a permit are sent later from a timer thread, unless they are
+     * cancelled in the meantime, which gives the permit back.
+     */
+    AsyncExecChainHandler asyncHandler() {
+        return (request, entityProducer, scope, chain, callback) -> {
+            long wait = failFast ? tryAcquire() : reserve(maxWaitNanos(scope.clientContext));
+            if (failFast ? wait > 0 : wait < 0) {
+                reject(Math.abs(wait), entityProducer, callback);
+                return;
+            }
+            if (wait == 0) {
+                chain.proceed(request, entityProducer, scope, callback);
+                return;
+            }
+            AtomicBoolean started = new AtomicBoolean();
+            ScheduledFuture<?> scheduled = getScheduler().schedule(() -> {
+                if (!started.compareAndSet(false, true)) {
+                    return;
+                }
+                if (scope.cancellableDependency.isCancelled()) {
+                    release();
+                    return;
+                }
+                try {
+                    chain.proceed(request, entityProducer, scope, callback);
+                } catch (HttpException | IOException | RuntimeException ex) {
+                    callback.failed(ex);
+                }
+            }, wait, TimeUnit.NANOSECONDS);
+            scope.cancellableDependency.setDependency(() -> {
+                if (!started.compareAndSet(false, true)) {
+                    return false;
+                }
+                scheduled.cancel(false);
+                release();
+                return true;
+            });
+        };
+    }
+
+    private static ScheduledExecutorService getScheduler() {
+        ScheduledExecutorService executor = scheduler;
+        if (executor == null) {
+            synchronized (RateLimiter.class) {
+                executor = scheduler;
+                if (executor == null) {
+                    executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "safeguard-rate-limit");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    scheduler = executor;
+                }
+            }
+        }
+        return executor;
+    }
+}
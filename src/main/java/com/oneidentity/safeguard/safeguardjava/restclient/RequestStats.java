@@ -0,0 +1,144 @@
+package com.oneidentity.safeguard.safeguardjava.restclient;
+
+import com.oneidentity.safeguard.safeguardjava.Deadline;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.hc.client5.http.async.AsyncExecChain;
+import org.apache.hc.client5.http.async.AsyncExecChainHandler;
+import org.apache.hc.client5.http.classic.ExecChain;
+import org.apache.hc.client5.http.classic.ExecChainHandler;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.concurrent.CancellableDependency;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpException;
+
+/**
+ * Load and latency figures of one REST client, used to choose between the
+ * members of a cluster.
+ *
+ * <p>Tracks the requests waiting for a response, an exponentially weighted
+ * moving average of the time until the response head arrives, and the number
+ * of requests that failed to get a response or got a 502, 503 or 504. Requests
+ * that the caller cancelled or that timed out within the shorter time the
+ * caller gave them are not counted as failures.
+ */
+final class RequestStats {
+
+    /** Weight of the newest sample in the moving average. */
+    static final double ALPHA = 0.2;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicLong failures = new AtomicLong();
+    private double latencyNanos;
+
+    int getOutstanding() {
+        return outstanding.get();
+    }
+
+    long getFailures() {
+        return failures.get();
+    }
+
+    synchronized long getLatencyNanos() {
+        return (long) latencyNanos;
+    }
+
+    void record(boolean failed, long durationNanos) {
+        if (failed) {
+            failures.incrementAndGet();
+            return;
+        }
+        synchronized (this) {
+            latencyNanos = latencyNanos == 0 ? durationNanos : latencyNanos + ALPHA * (durationNanos - latencyNanos);
+        }
+    }
+
+    /**
+     * Gets whether the caller aborted a request, in which case its failure
+     * says nothing about the server.
+     */
+    static boolean isCancelled(ExecChain.Scope scope) {
+        return scope.originalRequest instanceof CancellableDependency
+                && ((CancellableDependency) scope.originalRequest).isCancelled();
+    }
+
+    /**
+     * Gets whether a request timed out because the caller gave it less time
+     * than the default request timeout, through its own timeout or a
+     * {@link Deadline}, in which case its failure says nothing about the
+     * server either.
+     */
+    static boolean isCallerTimeout(HttpClientContext context, Throwable failure) {
+        boolean timedOut = false;
+        for (Throwable cause = failure; cause != null && !timedOut; cause = cause.getCause()) {
+            timedOut = cause instanceof InterruptedIOException || cause instanceof TimeoutException;
+        }
+        if (!timedOut) {
+            return false;
+        }
+        Deadline deadline = Deadline.current();
+        if (deadline != null && deadline.isExpired()) {
+            return true;
+        }
+        RequestConfig config = context != null ? context.getRequestConfig() : null;
+        return config != null && config.getResponseTimeout() != null && config.getResponseTimeout().isEnabled()
+                && config.getResponseTimeout().toMilliseconds() < RestClient.DEFAULT_TIMEOUT_MS;
+    }
+
+    /**
+     * Gets whether a failure says nothing about the server, because the
+     * caller cancelled the request or gave it too little time.
+     */
+    static boolean isCallerFailure(ExecChain.Scope scope, Throwable failure) {
+        return isCancelled(scope) || isCallerTimeout(scope.clientContext, failure);
+    }
+
+    /**
+     * Gets whether the failure of an asynchronous request says nothing about
+     * the server.
+     */
+    static boolean isCallerFailure(AsyncExecChain.Scope scope, Throwable failure) {
+        return scope.cancellableDependency.isCancelled() || isCallerTimeout(scope.clientContext, failure);
+    }
+
+    ExecChainHandler classicHandler() {
+        return (request, scope, chain) -> {
+            long started = System.nanoTime();
+            outstanding.incrementAndGet();
+            try {
+                ClassicHttpResponse response = chain.proceed(request, scope);
+                record(CircuitBreaker.isFailure(response.getCode()), System.nanoTime() - started);
+                return response;
+            } catch (IOException | HttpException | RuntimeException ex) {
+                if (!isCallerFailure(scope, ex)) {
+                    record(true, System.nanoTime() - started);
+                }
+                throw ex;
+            } finally {
+                outstanding.decrementAndGet();
+            }
+        };
+    }
+
+    AsyncExecChainHandler asyncHandler() {
+        return (request, entityProducer, scope, chain, callback) -> {
+            outstanding.incrementAndGet();
+            OutcomeCallback outcome = new OutcomeCallback(callback, (response, failure, durationNanos) -> {
+                outstanding.decrementAndGet();
+                if (response != null || !isCallerFailure(scope, failure)) {
+                    record(response == null || CircuitBreaker.isFailure(response.getCode()), durationNanos);
+                }
+            });
+            try {
+                chain.proceed(request, entityProducer, scope, outcome);
+            } catch (IOException | HttpException | RuntimeException ex) {
+                outcome.failedToStart(ex);
+                throw ex;
+            }
+        };
+    }
+}
@@ -0,0 +1,181 @@
+package com.oneidentity.safeguard.safeguardjava.restclient;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.entity.HttpEntityWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Debugging aid that reports HTTP responses which hold on to their
+ * connection for longer than a threshold.
+ *
+ * <p>A response returned by the raw {@code exec*} methods of
+ * {@link RestClient} keeps its connection leased until the body has been
+ * read to the end or the response has been closed. Responses that are
+ * neither pin the connection; with a single connection the next request
+ * fails, and with a pool the pool slowly runs dry until requests stall
+ * waiting for a lease. The detector records where each such response was
+ * obtained and logs a warning with that stack trace once it has been held
+ * longer than the threshold. Capturing a stack trace per request is not
+ * free, so the detector is meant for diagnosing leaks, not for production.
+ */
+class ResponseLeakDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseLeakDetector.class);
+
+    private final long thresholdNanos;
+    private final Set<Lease> leases = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scanner;
+
+    ResponseLeakDetector(long thresholdMillis) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.scanner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "safeguard-response-leak-detector");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(thresholdMillis / 2, 100);
+        scanner.scheduleWithFixedDelay(this::scan, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts tracking a response. Tracking ends when its body has been read
+     * to the end or when the body or the response is closed.
+     *
+     * @param response The response handed to the caller.
+     * @param request Describes the request, for the warning.
+     * @return The same response.
+     */
+    CloseableHttpResponse track(CloseableHttpResponse response, String request) {
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            // Nothing to read, the connection has already been released
+            return response;
+        }
+        Lease lease = new Lease(request);
+        leases.add(lease);
+        response.setEntity(new TrackedEntity(entity, lease));
+        return response;
+    }
+
+    /**
+     * Gets the number of responses that have not been released yet.
+     */
+    int getOutstanding() {
+        return leases.size();
+    }
+
+    void close() {
+        scanner.shutdownNow();
+        leases.clear();
+    }
+
+    private void scan() {
+        long now = System.nanoTime();
+        for (Lease lease : leases) {
+            if (!lease.reported && now - lease.acquired > thresholdNanos) {
+                lease.reported = true;
+                logger.warn(String.format("Response to %s has been held for %d ms without being read to the end or closed; "
+                        + "its connection cannot be reused until it is", lease.request,
+                        TimeUnit.NANOSECONDS.toMillis(now - lease.acquired)), lease.site);
+            }
+        }
+    }
+
+    private final class Lease {
+
+        private final String request;
+        private final long acquired = System.nanoTime();
+        private final Throwable site = new Throwable("Response obtained here");
+        private volatile boolean reported;
+
+        Lease(String request) {
+            this.request = request;
+        }
+
+        void release() {
+            if (leases.remove(this) && reported) {
+                logger.info(String.format("Response to %s released after %d ms", request,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - acquired)));
+            }
+        }
+    }
+
+    private static final class TrackedEntity extends HttpEntityWrapper {
+
+        private final Lease lease;
+
+        TrackedEntity(HttpEntity entity, Lease lease) {
+            super(entity);
+            this.lease = lease;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            InputStream content = super.getContent();
+            return content != null ? new TrackedStream(content, lease) : null;
+        }
+
+        @Override
+        public void writeTo(OutputStream outStream) throws IOException {
+            super.writeTo(outStream);
+            lease.release();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                lease.release();
+            }
+        }
+    }
+
+    private static final class TrackedStream extends FilterInputStream {
+
+        private final Lease lease;
+
+        TrackedStream(InputStream in, Lease lease) {
+            super(in);
+            this.lease = lease;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                lease.release();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n < 0) {
+                lease.release();
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                lease.release();
+            }
+        }
+    }
+}
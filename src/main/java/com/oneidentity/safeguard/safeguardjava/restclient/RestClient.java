@@ -1,11 +1,16 @@
 package com.oneidentity.safeguard.safeguardjava.restclient;
 
 import static com.oneidentity.safeguard.safeguardjava.CertificateUtilities.WINDOWSKEYSTORE;
+import com.oneidentity.safeguard.safeguardjava.ConnectionOptions;
+import com.oneidentity.safeguard.safeguardjava.Deadline;
 import com.oneidentity.safeguard.safeguardjava.IProgressCallback;
 import com.oneidentity.safeguard.safeguardjava.data.CertificateContext;
+import com.oneidentity.safeguard.safeguardjava.data.FullResponse;
 import com.oneidentity.safeguard.safeguardjava.data.JsonObject;
+import com.oneidentity.safeguard.safeguardjava.exceptions.CircuitBreakerOpenException;
 import com.oneidentity.safeguard.safeguardjava.exceptions.SafeguardForJavaException;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -16,6 +21,8 @@ import java.net.Socket;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
@@ -31,6 +38,15 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.GZIPOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import javax.net.ssl.HostnameVerifier;
@@ -42,23 +58,54 @@ import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509ExtendedKeyManager;
 import javax.net.ssl.X509KeyManager;
 import javax.net.ssl.X509TrustManager;
+import org.apache.hc.core5.http.ClassicHttpRequest;
 import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpException;
 import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
+import org.apache.hc.client5.http.async.methods.SimpleResponseConsumer;
 import org.apache.hc.client5.http.auth.AuthScope;
 import org.apache.hc.client5.http.auth.UsernamePasswordCredentials;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
 import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClientBuilder;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.classic.methods.HttpHead;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.DefaultSchemePortResolver;
+import org.apache.hc.client5.http.impl.routing.DefaultRoutePlanner;
+import org.apache.hc.client5.http.io.ConnectionEndpoint;
+import org.apache.hc.core5.http.HttpHost;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.io.support.ClassicRequestBuilder;
+import org.apache.hc.core5.http.support.AbstractRequestBuilder;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.reactor.IOReactorConfig;
 import org.apache.hc.core5.http.config.Registry;
 import org.apache.hc.core5.http.config.RegistryBuilder;
 import org.apache.hc.client5.http.socket.ConnectionSocketFactory;
 import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
 import org.apache.hc.client5.http.ssl.SSLConnectionSocketFactory;
 import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.client5.http.entity.GzipCompressingEntity;
 import org.apache.hc.client5.http.entity.mime.HttpMultipartMode;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.compat.ClassicToAsyncAdaptor;
 import org.apache.hc.client5.http.impl.io.BasicHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
 import org.apache.hc.core5.http.io.entity.StringEntity;
 import org.apache.hc.client5.http.entity.mime.MultipartEntityBuilder;
 import org.apache.hc.client5.http.cookie.BasicCookieStore;
@@ -66,6 +113,9 @@ import org.apache.hc.client5.http.impl.auth.BasicCredentialsProvider;
 import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
 import org.apache.hc.client5.http.impl.cookie.BasicClientCookie;
 import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.util.TimeValue;
 import org.apache.hc.core5.util.Timeout;
 
 public class RestClient {
@@ -84,19 +134,95 @@ public class RestClient {
      */
     static final String TLS_PROTOCOL = "TLSv1.2";
 
+    /**
+     * Bound on the hand-off between a blocking caller and the I/O threads in
+     * HTTP/2 mode. Request timeouts are enforced by the request configuration,
+     * so this only has to outlast the longest permitted request.
+     */
+    private static final Timeout BLOCKING_ADAPTOR_TIMEOUT = Timeout.ofMilliseconds(Integer.MAX_VALUE);
+
+    /**
+     * How often the I/O threads of the non-blocking client check for timed
+     * out requests. The default of one second would let short timeouts and
+     * deadlines overrun by up to a second.
+     */
+    private static final TimeValue ASYNC_SELECT_INTERVAL = TimeValue.ofMilliseconds(100);
+
+    /**
+     * Reads the whole response into a {@link FullResponse}. Used with the
+     * response-handler execution path, which consumes whatever is left of
+     * the entity and releases the connection once the handler returns, even
+     * when it fails.
+     */
+    private static final HttpClientResponseHandler<FullResponse> BUFFERED_RESPONSE = response -> {
+        HttpEntity entity = response.getEntity();
+        return new FullResponse(response.getCode(), response.getHeaders(), entity != null ? EntityUtils.toString(entity) : "");
+    };
+
     private CloseableHttpClient client = null;
+    private HttpClientConnectionManager connectionManager = null;
+    private final Map<CloseableHttpClient, HttpClientConnectionManager> certificateConnectionManagers =
+            Collections.synchronizedMap(new WeakHashMap<>());
     private BasicCookieStore cookieStore = new BasicCookieStore();
 
     private String serverUrl = null;
     private String hostDomain = null;
     private boolean ignoreSsl = false;
     private HostnameVerifier validationCallback = null;
+    private ConnectionOptions options = null;
+    private CertificateClientCache certificateClients = null;
+    private CloseableHttpAsyncClient asyncClient = null;
+    private ResponseLeakDetector leakDetector = null;
+    private RateLimiter rateLimiter = null;
+    private CircuitBreaker circuitBreaker = null;
+    private DnsResolver dnsResolver = null;
+    private final RequestStats stats = new RequestStats();
 
     private static final Logger logger = LoggerFactory.getLogger(RestClient.class);
 
+    /** Determines routes the same way as the clients, to lease pooled connections for them. */
+    private static final DefaultRoutePlanner ROUTE_PLANNER = new DefaultRoutePlanner(DefaultSchemePortResolver.INSTANCE);
+
+    private static volatile ExecutorService warmUpExecutor;
+
     public RestClient(String connectionAddr, boolean ignoreSsl, HostnameVerifier validationCallback) {
+        this(connectionAddr, ignoreSsl, validationCallback, null);
+    }
 
-        client = createClientBuilder(connectionAddr, ignoreSsl, validationCallback).build();
+    /**
+     * Creates a REST client with the given transport options.
+     *
+     * <p>When {@code options} enables connection pooling the client is backed
+     * by a thread-safe connection pool and may be shared by concurrent
+     * callers; otherwise it holds a single connection, which serializes all
+     * traffic. A pooled client owns background eviction resources and should
+     * be released with {@link #close()} when no longer needed.
+     *
+     * @param connectionAddr base URL of the Safeguard appliance
+     * @param ignoreSsl when {@code true}, disables certificate chain and
+     *                  hostname validation; <b>development only</b>
+     * @param validationCallback optional custom hostname verifier; only
+     *                           consulted when {@code ignoreSsl=false}
+     * @param options optional transport options; may be null
+     */
+    public RestClient(String connectionAddr, boolean ignoreSsl, HostnameVerifier validationCallback, ConnectionOptions options) {
+
+        this.options = options;
+        this.rateLimiter = RateLimiter.forClient(connectionAddr, options);
+        this.circuitBreaker = CircuitBreaker.forClient(connectionAddr, options);
+        this.dnsResolver = CachingDnsResolver.forClient(options);
+        this.certificateClients = new CertificateClientCache(options != null
+                ? options.getCertificateClientCacheSize() : ConnectionOptions.DEFAULT_CERTIFICATE_CLIENT_CACHE_SIZE,
+                this::hasLeasedConnections);
+        if (options != null && options.getLeakDetectionThresholdMillis() > 0) {
+            this.leakDetector = new ResponseLeakDetector(options.getLeakDetectionThresholdMillis());
+        }
+        if (isHttp2()) {
+            configure(connectionAddr, ignoreSsl, validationCallback);
+            client = new ClassicToAsyncAdaptor(getAsyncClient(), BLOCKING_ADAPTOR_TIMEOUT);
+        } else {
+            client = createClientBuilder(connectionAddr, ignoreSsl, validationCallback).build();
+        }
     }
 
     /**
@@ -128,6 +254,8 @@ public class RestClient {
      */
     public RestClient(String connectionAddr, String userName, char[] password, boolean ignoreSsl, HostnameVerifier validationCallback) {
 
+        this.certificateClients = new CertificateClientCache(ConnectionOptions.DEFAULT_CERTIFICATE_CLIENT_CACHE_SIZE,
+                this::hasLeasedConnections);
 
         HttpClientBuilder builder = createClientBuilder(connectionAddr, ignoreSsl, validationCallback);
         BasicCredentialsProvider provider = new BasicCredentialsProvider();
@@ -138,12 +266,7 @@ public class RestClient {
                 .build();
     }
 
-    private HttpClientBuilder createClientBuilder(String connectionAddr, boolean ignoreSsl, HostnameVerifier validationCallback) {
-
-        // Used to produce debug output - enable SLF4J debug level instead
-        if (false) {
-            // Debug logging is now controlled via SLF4J configuration
-        }
+    private void configure(String connectionAddr, boolean ignoreSsl, HostnameVerifier validationCallback) {
 
         this.ignoreSsl = ignoreSsl;
         this.serverUrl = connectionAddr;
@@ -155,20 +278,354 @@ public class RestClient {
             logger.error("Invalid URL", ex);
         }
 
+        this.validationCallback = ignoreSsl ? null : validationCallback;
+    }
+
+    private HttpClientBuilder createClientBuilder(String connectionAddr, boolean ignoreSsl, HostnameVerifier validationCallback) {
+
+        // Used to produce debug output - enable SLF4J debug level instead
+        if (false) {
+            // Debug logging is now controlled via SLF4J configuration
+        }
+
+        configure(connectionAddr, ignoreSsl, validationCallback);
+
         SSLConnectionSocketFactory sslsf = null;
         if (ignoreSsl) {
-            this.validationCallback = null;
             sslsf = new SSLConnectionSocketFactory(getSSLContext(null, null, null, null), NoopHostnameVerifier.INSTANCE);
         } else if (validationCallback != null) {
-            this.validationCallback = validationCallback;
             sslsf = new SSLConnectionSocketFactory(getSSLContext(null, null, null, null), validationCallback);
         } else {
             sslsf = new SSLConnectionSocketFactory(getSSLContext(null, null, null, null));
         }
+        connectionManager = createConnectionManager(sslsf, isPooled());
+        return createClientBuilder(connectionManager, isPooled());
+    }
+
+    private HttpClientBuilder createClientBuilder(HttpClientConnectionManager connectionManager, boolean pooled) {
+
+        HttpClientBuilder builder = HttpClients.custom().setConnectionManager(connectionManager);
+        if (!isContentCompression()) {
+            builder.disableContentCompression();
+        }
+        if (isConnectionRetries()) {
+            builder.disableAutomaticRetries();
+        }
+        // Each interceptor added first runs outside the ones added before it.
+        // Statistics and circuit breaker outcomes are recorded inside the rate
+        // limit, so that they do not count the time a request waits for its
+        // turn, while an open circuit breaker rejects a request outside it,
+        // before the request takes or waits for a permit.
+        builder.addExecInterceptorFirst("safeguard-request-stats", stats.classicHandler());
+        if (circuitBreaker != null) {
+            builder.addExecInterceptorFirst("safeguard-circuit-breaker", circuitBreaker.classicHandler());
+        }
+        if (rateLimiter != null) {
+            builder.addExecInterceptorFirst("safeguard-rate-limit", rateLimiter.classicHandler());
+        }
+        if (circuitBreaker != null) {
+            builder.addExecInterceptorFirst("safeguard-circuit-breaker-gate", circuitBreaker.classicGate());
+        }
+        if (pooled) {
+            ConnectionOptions poolOptions = getPoolOptions();
+            if (poolOptions.isEvictExpiredConnections()) {
+                builder.evictExpiredConnections();
+            }
+            if (poolOptions.getIdleConnectionTimeoutSeconds() > 0) {
+                builder.evictIdleConnections(TimeValue.ofSeconds(poolOptions.getIdleConnectionTimeoutSeconds()));
+            }
+        }
+        return builder;
+    }
+
+    private boolean isPooled() {
+        return options != null && options.isConnectionPooling();
+    }
+
+    private boolean isHttp2() {
+        return options != null && options.isHttp2();
+    }
+
+    private boolean isContentCompression() {
+        return options == null || options.isContentCompression();
+    }
+
+    // The connection retries failed requests itself when retries are enabled;
+    // the retries built into the HTTP client would multiply its attempts.
+    private boolean isConnectionRetries() {
+        return options != null && options.getMaxRetries() > 0;
+    }
+
+    private ConnectionOptions getPoolOptions() {
+        return options != null ? options : new ConnectionOptions();
+    }
+
+    private HttpClientConnectionManager createConnectionManager(SSLConnectionSocketFactory sslsf, boolean pooled) {
+
         Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory> create().register("https", sslsf).build();
-        BasicHttpClientConnectionManager connectionManager = new BasicHttpClientConnectionManager(socketFactoryRegistry);
+        if (!pooled) {
+            return new BasicHttpClientConnectionManager(socketFactoryRegistry, null, null, dnsResolver);
+        }
+
+        ConnectionOptions poolOptions = getPoolOptions();
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(socketFactoryRegistry,
+                PoolConcurrencyPolicy.STRICT, PoolReusePolicy.LIFO, TimeValue.NEG_ONE_MILLISECOND, null, dnsResolver, null);
+        connectionManager.setMaxTotal(poolOptions.getMaxConnectionsTotal());
+        connectionManager.setDefaultMaxPerRoute(Math.min(poolOptions.getMaxConnectionsPerRoute(), poolOptions.getMaxConnectionsTotal()));
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setValidateAfterInactivity(TimeValue.ofMilliseconds(poolOptions.getValidateAfterInactivityMillis()))
+                .build());
+        return connectionManager;
+    }
+
+    /**
+     * Releases the connections and background resources held by this client,
+     * including any cached certificate-bound clients. The client may not be
+     * used after it has been closed.
+     */
+    public void close() {
+        if (leakDetector != null) {
+            leakDetector.close();
+        }
+        certificateClients.close();
+        try {
+            client.close();
+        } catch (IOException ex) {
+            logger.debug("Error closing HTTP client", ex);
+        }
+        CloseableHttpAsyncClient async;
+        synchronized (this) {
+            async = asyncClient;
+            asyncClient = null;
+        }
+        if (async != null) {
+            try {
+                async.close();
+            } catch (IOException ex) {
+                logger.debug("Error closing asynchronous HTTP client", ex);
+            }
+        }
+    }
+
+    /**
+     * Gets the non-blocking client used by the asynchronous methods, creating
+     * and starting it on first use. In HTTP/2 mode it also carries the
+     * blocking methods.
+     */
+    private synchronized CloseableHttpAsyncClient getAsyncClient() {
+
+        if (asyncClient == null) {
+            asyncClient = createAsyncClient(getSSLContext(null, null, null, null));
+        }
+        return asyncClient;
+    }
+
+    /**
+     * Creates and starts a non-blocking client. It multiplexes all outstanding
+     * requests over a small, fixed number of I/O threads and a connection pool
+     * sized by the pool settings of the transport options. In HTTP/2 mode the
+     * protocol is negotiated with ALPN, falling back to HTTP/1.1, and once
+     * an HTTP/2 connection is established concurrent requests share it
+     * instead of leasing a connection each.
+     */
+    private CloseableHttpAsyncClient createAsyncClient(SSLContext sslContext) {
+
+        ConnectionOptions poolOptions = getPoolOptions();
+
+        ClientTlsStrategyBuilder tlsStrategy = ClientTlsStrategyBuilder.create().setSslContext(sslContext);
+        if (ignoreSsl) {
+            tlsStrategy.setHostnameVerifier(NoopHostnameVerifier.INSTANCE);
+        } else if (validationCallback != null) {
+            tlsStrategy.setHostnameVerifier(validationCallback);
+        }
+
+        HttpAsyncClientBuilder builder = HttpAsyncClients.custom()
+                .setConnectionManager(PoolingAsyncClientConnectionManagerBuilder.create()
+                        .setTlsStrategy(tlsStrategy.buildAsync())
+                        .setDefaultTlsConfig(TlsConfig.custom()
+                                .setVersionPolicy(isHttp2() ? HttpVersionPolicy.NEGOTIATE : HttpVersionPolicy.FORCE_HTTP_1)
+                                .build())
+                        .setMessageMultiplexing(isHttp2())
+                        .setDnsResolver(dnsResolver)
+                        .setMaxConnTotal(poolOptions.getMaxConnectionsTotal())
+                        .setMaxConnPerRoute(Math.min(poolOptions.getMaxConnectionsPerRoute(), poolOptions.getMaxConnectionsTotal()))
+                        .setDefaultConnectionConfig(ConnectionConfig.custom()
+                                .setValidateAfterInactivity(TimeValue.ofMilliseconds(poolOptions.getValidateAfterInactivityMillis()))
+                                .build())
+                        .build())
+                .setIOReactorConfig(IOReactorConfig.custom()
+                        .setIoThreadCount(poolOptions.getAsyncIoThreadCount())
+                        .setSelectInterval(ASYNC_SELECT_INTERVAL)
+                        .build())
+                .setDefaultCookieStore(cookieStore)
+                .disableConnectionState();
+        if (!isContentCompression()) {
+            builder.disableContentCompression();
+        }
+        if (isConnectionRetries()) {
+            builder.disableAutomaticRetries();
+        }
+        // Ordered as for the blocking client
+        builder.addExecInterceptorFirst("safeguard-request-stats", stats.asyncHandler());
+        if (circuitBreaker != null) {
+            builder.addExecInterceptorFirst("safeguard-circuit-breaker", circuitBreaker.asyncHandler());
+        }
+        if (rateLimiter != null) {
+            builder.addExecInterceptorFirst("safeguard-rate-limit", rateLimiter.asyncHandler());
+        }
+        if (circuitBreaker != null) {
+            builder.addExecInterceptorFirst("safeguard-circuit-breaker-gate", circuitBreaker.asyncGate());
+        }
+        if (poolOptions.isEvictExpiredConnections()) {
+            builder.evictExpiredConnections();
+        }
+        if (poolOptions.getIdleConnectionTimeoutSeconds() > 0) {
+            builder.evictIdleConnections(TimeValue.ofSeconds(poolOptions.getIdleConnectionTimeoutSeconds()));
+        }
+        CloseableHttpAsyncClient created = builder.build();
+        created.start();
+        return created;
+    }
+
+    /**
+     * Opens connections to the service ahead of the first requests, so that
+     * these find connections whose TCP and TLS handshakes are already done.
+     * The connections are opened in parallel and left idle in the pool, which
+     * evicts them like any other once they exceed the idle timeout. Without
+     * connection pooling a single connection is opened, and in HTTP/2 mode a
+     * single request is sent, since concurrent requests share its connection.
+     *
+     * @param connections The number of connections to open, limited to the
+     *        pool size per route.
+     * @param certificateContext The client certificate the connections
+     *        authenticate with, or null for connections without one.
+     * @return The number of open connections; failures are logged.
+     */
+    public CompletableFuture<Integer> warmUp(int connections, CertificateContext certificateContext) {
+
+        if (connections <= 0) {
+            return CompletableFuture.completedFuture(0);
+        }
+        if (certificateContext == null) {
+            return warmUp(client, connectionManager, connections);
+        }
+        CertificateClientCache.Lease lease = leaseClientWithCertificate(certificateContext);
+        if (lease == null) {
+            return CompletableFuture.completedFuture(0);
+        }
+        CompletableFuture<Integer> opened = warmUp(lease.getClient(), certificateConnectionManagers.get(lease.getClient()), connections);
+        opened.whenComplete((count, ex) -> lease.close());
+        return opened;
+    }
+
+    private CompletableFuture<Integer> warmUp(CloseableHttpClient target, HttpClientConnectionManager manager, int connections) {
+
+        Timeout timeout = Timeout.ofMilliseconds(Deadline.limitTimeout(DEFAULT_TIMEOUT_MS));
+        if (manager == null) {
+            return CompletableFuture.supplyAsync(() -> warmUpWithRequest(target, timeout), getWarmUpExecutor());
+        }
+
+        HttpRoute route;
+        try {
+            HttpHead request = new HttpHead(getBaseURI(""));
+            route = ROUTE_PLANNER.determineRoute(HttpHost.create(request.getUri()), request, HttpClientContext.create());
+        } catch (URISyntaxException | HttpException ex) {
+            logger.error("Invalid URI", ex);
+            return CompletableFuture.completedFuture(0);
+        }
+        int count = manager instanceof PoolingHttpClientConnectionManager
+                ? Math.min(connections, ((PoolingHttpClientConnectionManager) manager).getDefaultMaxPerRoute()) : 1;
+        return CompletableFuture.supplyAsync(() -> warmUp(manager, route, count, timeout), getWarmUpExecutor());
+    }
+
+    /**
+     * Leases the connections all at once, so that the pool cannot hand out
+     * the same one twice, connects those that are not open yet in parallel
+     * and returns them to the pool.
+     */
+    private int warmUp(HttpClientConnectionManager manager, HttpRoute route, int count, Timeout timeout) {
+
+        List<ConnectionEndpoint> endpoints = new ArrayList<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                endpoints.add(manager.lease("warm-up-" + i, route, timeout, null).get(timeout));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException ex) {
+            logger.debug("Could not lease a connection to warm up for {}", serverUrl, ex);
+        }
+
+        List<CompletableFuture<Boolean>> connects = new ArrayList<>();
+        for (ConnectionEndpoint endpoint : endpoints) {
+            connects.add(CompletableFuture.supplyAsync(() -> connect(manager, endpoint, timeout), getWarmUpExecutor()));
+        }
+        int opened = 0;
+        for (CompletableFuture<Boolean> connect : connects) {
+            if (connect.join()) {
+                opened++;
+            }
+        }
+        logger.debug("Warmed up {} connections to {}", opened, serverUrl);
+        return opened;
+    }
+
+    private boolean connect(HttpClientConnectionManager manager, ConnectionEndpoint endpoint, Timeout timeout) {
+        boolean connected = false;
+        try {
+            if (!endpoint.isConnected()) {
+                manager.connect(endpoint, timeout, HttpClientContext.create());
+            }
+            connected = true;
+            return true;
+        } catch (IOException ex) {
+            logger.debug("Could not open a connection to {}", serverUrl, ex);
+            return false;
+        } finally {
+            // Releasing without a keep-alive closes the connection, which is
+            // only wanted for one that failed to open
+            manager.release(endpoint, null, connected ? getWarmUpKeepAlive() : null);
+        }
+    }
+
+    /**
+     * Gets how long a warmed-up connection stays in the pool: until the idle
+     * connection eviction closes it, or indefinitely without one.
+     */
+    private TimeValue getWarmUpKeepAlive() {
+        int idleTimeout = getPoolOptions().getIdleConnectionTimeoutSeconds();
+        return idleTimeout > 0 ? TimeValue.ofSeconds(idleTimeout) : TimeValue.NEG_ONE_MILLISECOND;
+    }
 
-        return HttpClients.custom().setConnectionManager(connectionManager);
+    private int warmUpWithRequest(CloseableHttpClient target, Timeout timeout) {
+        try {
+            target.execute(new HttpHead(getBaseURI("")), createContext((int) timeout.toMilliseconds()), response -> null);
+            return 1;
+        } catch (IOException ex) {
+            logger.debug("Could not open a connection to {}", serverUrl, ex);
+            return 0;
+        }
+    }
+
+    /**
+     * Gets the daemon threads that connections are opened from ahead of use.
+     */
+    private static ExecutorService getWarmUpExecutor() {
+        ExecutorService executor = warmUpExecutor;
+        if (executor == null) {
+            synchronized (RestClient.class) {
+                executor = warmUpExecutor;
+                if (executor == null) {
+                    executor = Executors.newCachedThreadPool(runnable -> {
+                        Thread thread = new Thread(runnable, "safeguard-warm-up");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    warmUpExecutor = executor;
+                }
+            }
+        }
+        return executor;
     }
 
     private URI getBaseURI(String segments) {
@@ -193,6 +650,60 @@ public class RestClient {
         return serverUrl;
     }
 
+    /**
+     * Gets the number of requests sent by this client that are still waiting
+     * for a response.
+     *
+     * @return The number of outstanding requests.
+     */
+    public int getOutstandingRequests() {
+        return stats.getOutstanding();
+    }
+
+    /**
+     * Gets the moving average of the time this client waits for a response.
+     *
+     * @return The average latency in nanoseconds; zero before the first response.
+     */
+    public long getLatencyNanos() {
+        return stats.getLatencyNanos();
+    }
+
+    /**
+     * Gets the number of requests sent by this client that got no response or
+     * a 502, 503 or 504, leaving out requests that the caller cancelled or
+     * that timed out within a timeout or deadline shorter than the default.
+     * The count only grows, so callers compare it with an earlier value to
+     * tell whether a request failed since.
+     *
+     * @return The number of failed requests.
+     */
+    public long getFailureCount() {
+        return stats.getFailures();
+    }
+
+    /**
+     * Gets whether the circuit breaker of this service is open, so that
+     * requests fail without being sent.
+     *
+     * @return {@code true} if requests are currently rejected.
+     */
+    public boolean isCircuitOpen() {
+        return circuitBreaker != null && circuitBreaker.isOpen();
+    }
+
+    /**
+     * Fails if the circuit breaker of this service is open. Callers use it to
+     * report a request that returned no response because it was rejected.
+     *
+     * @throws CircuitBreakerOpenException If requests are currently rejected.
+     */
+    public void checkCircuit() throws CircuitBreakerOpenException {
+        if (circuitBreaker != null) {
+            circuitBreaker.check();
+        }
+    }
+
     private Map<String,String> parseKeyValue(String value) {
 
         HashMap<String,String> keyValues = new HashMap<>();
@@ -257,8 +768,7 @@ public class RestClient {
         ClassicRequestBuilder rb = prepareRequest(ClassicRequestBuilder.get(getBaseURI(path)), queryParams, headers);
 
         try {
-            CloseableHttpResponse r = client.execute(rb.build(), createContext(timeout));
-            return r;
+            return track(client.execute(rb.build(), createContext(timeout)), rb);
         } catch (Exception ex) {
             return null;
         }
@@ -266,19 +776,18 @@ public class RestClient {
 
     public CloseableHttpResponse execGET(String path, Map<String, String> queryParams, Map<String, String> headers, Integer timeout, CertificateContext certificateContext) {
 
-        CloseableHttpClient certClient = getClientWithCertificate(certificateContext);
-
-        if (certClient != null) {
+        try (CertificateClientCache.Lease lease = leaseClientWithCertificate(certificateContext)) {
+            if (lease == null) {
+                return null;
+            }
             ClassicRequestBuilder rb = prepareRequest(ClassicRequestBuilder.get(getBaseURI(path)), queryParams, headers);
 
             try {
-                CloseableHttpResponse r = certClient.execute(rb.build(), createContext(timeout));
-                return r;
+                return track(lease.getClient().execute(rb.build(), createContext(timeout)), rb);
             } catch (Exception ex) {
                 return null;
             }
         }
-        return null;
     }
 
     public CloseableHttpResponse execGETBytes(String path, Map<String, String> queryParams, Map<String, String> headers,
@@ -291,8 +800,7 @@ public class RestClient {
         ClassicRequestBuilder rb = prepareRequest(ClassicRequestBuilder.get(getBaseURI(path)), queryParams, headers);
 
         try {
-            CloseableHttpResponse r = client.execute(rb.build(), createContext(timeout));
-            return r;
+            return track(client.execute(rb.build(), createContext(timeout)), rb);
         } catch (IOException ex) {
             return null;
         }
@@ -301,9 +809,10 @@ public class RestClient {
     public CloseableHttpResponse execGETBytes(String path, Map<String, String> queryParams, Map<String, String> headers,
             Integer timeout, CertificateContext certificateContext, IProgressCallback progressCallback) {
 
-        CloseableHttpClient certClient = getClientWithCertificate(certificateContext);
-
-        if (certClient != null) {
+        try (CertificateClientCache.Lease lease = leaseClientWithCertificate(certificateContext)) {
+            if (lease == null) {
+                return null;
+            }
             if (headers == null || !headers.containsKey(HttpHeaders.ACCEPT)) {
                 headers = headers == null ? new HashMap<>() : headers;
                 headers.put(HttpHeaders.ACCEPT, "application/octet-stream");
@@ -311,13 +820,11 @@ public class RestClient {
             ClassicRequestBuilder rb = prepareRequest(ClassicRequestBuilder.get(getBaseURI(path)), queryParams, headers);
 
             try {
-                CloseableHttpResponse r = client.execute(rb.build(), createContext(timeout));
-                return r;
+                return track(lease.getClient().execute(rb.build(), createContext(timeout)), rb);
             } catch (IOException ex) {
                 return null;
             }
         }
-        return null;
     }
 
     public CloseableHttpResponse execPUT(String path, Map<String, String> queryParams, Map<String, String> headers, Integer timeout, JsonObject requestEntity) {
@@ -326,9 +833,8 @@ public class RestClient {
 
         try {
             String body = requestEntity.toJson();
-            rb.setEntity(new StringEntity(body == null ? "{}" : body));
-            CloseableHttpResponse r = client.execute(rb.build(), createContext(timeout));
-            return r;
+            rb.setEntity(createJsonEntity(body == null ? "{}" : body));
+            return track(client.execute(rb.build(), createContext(timeout)), rb);
         } catch (Exception ex) {
             return null;
         }
@@ -336,21 +842,20 @@ public class RestClient {
 
     public CloseableHttpResponse execPUT(String path, Map<String, String> queryParams, Map<String, String> headers, Integer timeout,
             JsonObject requestEntity, CertificateContext certificateContext) {
-        CloseableHttpClient certClient = getClientWithCertificate(certificateContext);
-
-        if (certClient != null) {
+        try (CertificateClientCache.Lease lease = leaseClientWithCertificate(certificateContext)) {
+            if (lease == null) {
+                return null;
+            }
             ClassicRequestBuilder rb = prepareRequest(ClassicRequestBuilder.put(getBaseURI(path)), queryParams, headers);
 
             try {
                 String body = requestEntity.toJson();
-                rb.setEntity(new StringEntity(body == null ? "{}" : body));
-                CloseableHttpResponse r = certClient.execute(rb.build(), createContext(timeout));
-                return r;
+                rb.setEntity(createJsonEntity(body == null ? "{}" : body));
+                return track(lease.getClient().execute(rb.build(), createContext(timeout)), rb);
             } catch (Exception ex) {
                 return null;
             }
         }
-        return null;
     }
 
     public CloseableHttpResponse execPOST(String path, Map<String, String> queryParams, Map<String, String> headers, Integer timeout, JsonObject requestEntity) {
@@ -359,9 +864,8 @@ public class RestClient {
 
         try {
             String body = requestEntity.toJson();
-            rb.setEntity(new StringEntity(body == null ? "{}" : body));
-            CloseableHttpResponse r = client.execute(rb.build(), createContext(timeout));
-            return r;
+            rb.setEntity(createJsonEntity(body == null ? "{}" : body));
+            return track(client.execute(rb.build(), createContext(timeout)), rb);
         } catch (Exception ex) {
             return null;
         }
@@ -370,22 +874,20 @@ public class RestClient {
     public CloseableHttpResponse execPOST(String path, Map<String, String> queryParams, Map<String, String> headers, Integer timeout,
             JsonObject requestEntity, CertificateContext certificateContext) throws SafeguardForJavaException {
 
-        CloseableHttpClient certClient = getClientWithCertificate(certificateContext);
-
-        if (certClient != null) {
+        try (CertificateClientCache.Lease lease = leaseClientWithCertificate(certificateContext)) {
+            if (lease == null) {
+                return null;
+            }
             ClassicRequestBuilder rb = prepareRequest(ClassicRequestBuilder.post(getBaseURI(path)), queryParams, headers);
 
             try {
                 String body = requestEntity.toJson();
-                rb.setEntity(new StringEntity(body == null ? "{}" : body));
-                CloseableHttpResponse r = certClient.execute(rb.build(), createContext(timeout));
-                return r;
+                rb.setEntity(createJsonEntity(body == null ? "{}" : body));
+                return track(lease.getClient().execute(rb.build(), createContext(timeout)), rb);
             } catch (IOException ex) {
                 return null;
             }
         }
-
-        return null;
     }
 
     public CloseableHttpResponse execPOSTBytes(String path, Map<String, String> queryParams, Map<String, String> headers, Integer timeout,
@@ -399,8 +901,7 @@ public class RestClient {
 
         try {
             rb.setEntity(new ByteArrayEntity(requestEntity, progressCallback));
-            CloseableHttpResponse r = client.execute(rb.build(), createContext(timeout));
-            return r;
+            return track(client.execute(rb.build(), createContext(timeout)), rb);
         } catch (IOException ex) {
             return null;
         }
@@ -409,9 +910,10 @@ public class RestClient {
     public CloseableHttpResponse execPOSTBytes(String path, Map<String, String> queryParams, Map<String, String> headers, Integer timeout,
             byte[] requestEntity, CertificateContext certificateContext, IProgressCallback progressCallback) {
 
-        CloseableHttpClient certClient = getClientWithCertificate(certificateContext);
-
-        if (certClient != null) {
+        try (CertificateClientCache.Lease lease = leaseClientWithCertificate(certificateContext)) {
+            if (lease == null) {
+                return null;
+            }
             if (headers == null || !headers.containsKey(HttpHeaders.CONTENT_TYPE)) {
                 headers = headers == null ? new HashMap<>() : headers;
                 headers.put(HttpHeaders.CONTENT_TYPE, "application/octet-stream");
@@ -420,13 +922,28 @@ public class RestClient {
 
             try {
                 rb.setEntity(new ByteArrayEntity(requestEntity, progressCallback));
-                CloseableHttpResponse r = client.execute(rb.build(), createContext(timeout));
-                return r;
+                return track(lease.getClient().execute(rb.build(), createContext(timeout)), rb);
             } catch (IOException ex) {
                 return null;
             }
         }
-        return null;
+    }
+
+    public CloseableHttpResponse execPOSTChannel(String path, Map<String, String> queryParams, Map<String, String> headers, Integer timeout,
+            FileChannel requestEntity, IProgressCallback progressCallback) {
+
+        if (headers == null || !headers.containsKey(HttpHeaders.CONTENT_TYPE)) {
+            headers = headers == null ? new HashMap<>() : headers;
+            headers.put(HttpHeaders.CONTENT_TYPE, "application/octet-stream");
+        }
+        ClassicRequestBuilder rb = prepareRequest(ClassicRequestBuilder.post(getBaseURI(path)), queryParams, headers);
+
+        try {
+            rb.setEntity(new FileChannelEntity(requestEntity, progressCallback));
+            return track(client.execute(rb.build(), createContext(timeout)), rb);
+        } catch (IOException ex) {
+            return null;
+        }
     }
 
     public CloseableHttpResponse execPOSTFile(String path, Map<String, String> queryParams, Map<String,
@@ -444,8 +961,7 @@ public class RestClient {
 
         try {
             rb.setEntity(data);
-            CloseableHttpResponse r = client.execute(rb.build(), createContext(timeout));
-            return r;
+            return track(client.execute(rb.build(), createContext(timeout)), rb);
         } catch (IOException ex) {
             return null;
         }
@@ -454,9 +970,10 @@ public class RestClient {
     public CloseableHttpResponse execPOSTFile(String path, Map<String, String> queryParams, Map<String, String> headers, Integer timeout,
             String fileName, CertificateContext certificateContext) {
 
-        CloseableHttpClient certClient = getClientWithCertificate(certificateContext);
-
-        if (certClient != null) {
+        try (CertificateClientCache.Lease lease = leaseClientWithCertificate(certificateContext)) {
+            if (lease == null) {
+                return null;
+            }
             File file = new File(fileName);
             HttpEntity data = MultipartEntityBuilder.create().setMode(HttpMultipartMode.LEGACY)
                     .addBinaryBody("firmware", file, ContentType.MULTIPART_FORM_DATA, file.getName()).build();
@@ -468,13 +985,11 @@ public class RestClient {
 
             try {
                 rb.setEntity(data);
-                CloseableHttpResponse r = client.execute(rb.build(), createContext(timeout));
-                return r;
+                return track(lease.getClient().execute(rb.build(), createContext(timeout)), rb);
             } catch (IOException ex) {
                 return null;
             }
         }
-        return null;
     }
 
     public CloseableHttpResponse execDELETE(String path, Map<String, String> queryParams, Map<String, String> headers, Integer timeout) {
@@ -482,66 +997,350 @@ public class RestClient {
         ClassicRequestBuilder rb = prepareRequest(ClassicRequestBuilder.delete(getBaseURI(path)), queryParams, headers);
 
         try {
-            CloseableHttpResponse r = client.execute(rb.build(), createContext(timeout));
-            return r;
+            return track(client.execute(rb.build(), createContext(timeout)), rb);
         } catch (Exception ex) {
             return null;
         }
     }
 
-    private CloseableHttpClient getClientWithCertificate(CertificateContext certificateContext) {
+    /**
+     * Sends a GET request and reads the whole response. Unlike
+     * {@link #execGET(String, Map, Map, Integer)} the connection is always
+     * released before this method returns, so nothing has to be closed.
+     *
+     * @return The response, or null if the request could not be sent.
+     */
+    public FullResponse execGETFull(String path, Map<String, String> queryParams, Map<String, String> headers, Integer timeout) {
+
+        ClassicRequestBuilder rb = prepareRequest(ClassicRequestBuilder.get(getBaseURI(path)), queryParams, headers);
+        return execute(client, rb, timeout, BUFFERED_RESPONSE);
+    }
+
+    public FullResponse execGETFull(String path, Map<String, String> queryParams, Map<String, String> headers, Integer timeout,
+            CertificateContext certificateContext) {
+
+        try (CertificateClientCache.Lease lease = leaseClientWithCertificate(certificateContext)) {
+            if (lease == null) {
+                return null;
+            }
+            ClassicRequestBuilder rb = prepareRequest(ClassicRequestBuilder.get(getBaseURI(path)), queryParams, headers);
+            return execute(lease.getClient(), rb, timeout, BUFFERED_RESPONSE);
+        }
+    }
 
-        CloseableHttpClient certClient = null;
-        if (certificateContext.getCertificatePath() != null
-                || certificateContext.getCertificateData() != null
-                || certificateContext.getCertificateThumbprint() != null) {
+    /**
+     * Sends a GET request with a client certificate from a thread of the
+     * given executor, so that the caller can wait for it with a time limit.
+     * Cancelling the returned future aborts the request.
+     *
+     * @return The response, or null if the request could not be sent.
+     */
+    public CompletableFuture<FullResponse> execGETFull(String path, Map<String, String> queryParams, Map<String, String> headers,
+            Integer timeout, CertificateContext certificateContext, Executor executor) {
+
+        CompletableFuture<FullResponse> result = new CompletableFuture<>();
+        CertificateClientCache.Lease lease = leaseClientWithCertificate(certificateContext);
+        if (lease == null) {
+            result.complete(null);
+            return result;
+        }
+        result.whenComplete((response, ex) -> lease.close());
+        ClassicRequestBuilder rb = prepareRequest(ClassicRequestBuilder.get(getBaseURI(path)), queryParams, headers);
+        HttpUriRequestBase request;
+        try {
+            ClassicHttpRequest built = rb.build();
+            request = new HttpUriRequestBase(built.getMethod(), built.getUri());
+            request.setHeaders(built.getHeaders());
+        } catch (URISyntaxException ex) {
+            logger.error("Invalid URI", ex);
+            result.complete(null);
+            return result;
+        }
 
-            KeyStore clientKs = null;
-            List<String> aliases = null;
-            char[] keyPass = certificateContext.getCertificatePassword();
-            String certificateAlias = certificateContext.getCertificateAlias();
+        Deadline deadline = Deadline.current();
+        result.whenComplete((response, ex) -> {
+            if (result.isCancelled()) {
+                request.cancel();
+            }
+        });
+        Runnable send = () -> {
+            if (result.isDone()) {
+                return;
+            }
             try {
-                if (certificateContext.isWindowsKeyStore()) {
-                    clientKs = KeyStore.getInstance(WINDOWSKEYSTORE);
-                    clientKs.load(null, null);
-                    aliases = new ArrayList<>();
-                    aliases = Collections.list(clientKs.aliases());
-                } else {
-                    try (InputStream in2 = certificateContext.getCertificatePath() != null ? new FileInputStream(certificateContext.getCertificatePath())
-                            : new ByteArrayInputStream(certificateContext.getCertificateData())) {
-                        try {
-                            clientKs = KeyStore.getInstance("JKS");
-                        } catch (KeyStoreException ex) {
-                            logger.error("Could not get instance of JDK, trying PKCS12", ex);
-                            clientKs = KeyStore.getInstance("PKCS12");
-                        }
-                        clientKs.load(in2, keyPass);
-                        aliases = Collections.list(clientKs.aliases());
-                    }
+                result.complete(lease.getClient().execute(request, createContext(timeout), BUFFERED_RESPONSE));
+            } catch (IOException ex) {
+                if (!request.isCancelled()) {
+                    logger.debug("Request failed: {} {}", rb.getMethod(), rb.getUri(), ex);
                 }
-            } catch (FileNotFoundException ex) {
-                logger.error("Exception occurred", ex);
-            } catch (KeyStoreException | NoSuchAlgorithmException | CertificateException | IOException ex) {
-                logger.error("Exception occurred", ex);
+                result.complete(null);
+            } catch (RuntimeException ex) {
+                result.completeExceptionally(ex);
+            }
+        };
+        executor.execute(deadline != null ? () -> deadline.runWithin(send) : send);
+        return result;
+    }
+
+    public FullResponse execPUTFull(String path, Map<String, String> queryParams, Map<String, String> headers, Integer timeout,
+            JsonObject requestEntity) {
+
+        ClassicRequestBuilder rb = prepareRequest(ClassicRequestBuilder.put(getBaseURI(path)), queryParams, headers);
+        return setJsonEntity(rb, requestEntity) ? execute(client, rb, timeout, BUFFERED_RESPONSE) : null;
+    }
+
+    public FullResponse execPUTFull(String path, Map<String, String> queryParams, Map<String, String> headers, Integer timeout,
+            JsonObject requestEntity, CertificateContext certificateContext) {
+
+        try (CertificateClientCache.Lease lease = leaseClientWithCertificate(certificateContext)) {
+            if (lease == null) {
+                return null;
             }
+            ClassicRequestBuilder rb = prepareRequest(ClassicRequestBuilder.put(getBaseURI(path)), queryParams, headers);
+            return setJsonEntity(rb, requestEntity) ? execute(lease.getClient(), rb, timeout, BUFFERED_RESPONSE) : null;
+        }
+    }
+
+    public FullResponse execPOSTFull(String path, Map<String, String> queryParams, Map<String, String> headers, Integer timeout,
+            JsonObject requestEntity) {
+
+        ClassicRequestBuilder rb = prepareRequest(ClassicRequestBuilder.post(getBaseURI(path)), queryParams, headers);
+        return setJsonEntity(rb, requestEntity) ? execute(client, rb, timeout, BUFFERED_RESPONSE) : null;
+    }
+
+    public FullResponse execPOSTFull(String path, Map<String, String> queryParams, Map<String, String> headers, Integer timeout,
+            JsonObject requestEntity, CertificateContext certificateContext) {
 
-            SSLConnectionSocketFactory sslsf = null;
-            if (ignoreSsl) {
-                sslsf = new SSLConnectionSocketFactory(getSSLContext(clientKs, keyPass, certificateAlias == null ? aliases.get(0) : certificateAlias, certificateContext), NoopHostnameVerifier.INSTANCE);
-            } else if (validationCallback != null) {
-                sslsf = new SSLConnectionSocketFactory(getSSLContext(clientKs, keyPass, certificateAlias == null ? aliases.get(0) : certificateAlias, certificateContext), validationCallback);
+        try (CertificateClientCache.Lease lease = leaseClientWithCertificate(certificateContext)) {
+            if (lease == null) {
+                return null;
+            }
+            ClassicRequestBuilder rb = prepareRequest(ClassicRequestBuilder.post(getBaseURI(path)), queryParams, headers);
+            return setJsonEntity(rb, requestEntity) ? execute(lease.getClient(), rb, timeout, BUFFERED_RESPONSE) : null;
+        }
+    }
+
+    public FullResponse execDELETEFull(String path, Map<String, String> queryParams, Map<String, String> headers, Integer timeout) {
+
+        ClassicRequestBuilder rb = prepareRequest(ClassicRequestBuilder.delete(getBaseURI(path)), queryParams, headers);
+        return execute(client, rb, timeout, BUFFERED_RESPONSE);
+    }
+
+    /**
+     * Sends a request and passes the response to a handler. The client
+     * consumes whatever the handler leaves of the entity and releases the
+     * connection once it returns or throws.
+     *
+     * @return The handler result, or null if the request failed.
+     */
+    private <T> T execute(CloseableHttpClient httpClient, ClassicRequestBuilder rb, Integer timeout,
+            HttpClientResponseHandler<? extends T> handler) {
+        try {
+            return httpClient.execute(rb.build(), createContext(timeout), handler);
+        } catch (IOException ex) {
+            logger.debug("Request failed: {} {}", rb.getMethod(), rb.getUri(), ex);
+            return null;
+        }
+    }
+
+    /**
+     * Creates the entity for a JSON request body. Bodies at least as long as
+     * the request compression threshold are gzip-compressed while they are
+     * written to the connection.
+     */
+    private HttpEntity createJsonEntity(String body) {
+        StringEntity entity = new StringEntity(body);
+        return shouldCompress(body) ? new GzipCompressingEntity(entity) : entity;
+    }
+
+    private void setJsonBody(SimpleRequestBuilder rb, String body) throws IOException {
+        if (!shouldCompress(body)) {
+            rb.setBody(body, ContentType.APPLICATION_JSON);
+            return;
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        rb.setBody(compressed.toByteArray(), ContentType.APPLICATION_JSON);
+        rb.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+
+    private boolean shouldCompress(String body) {
+        int threshold = options != null ? options.getRequestCompressionThreshold() : 0;
+        return threshold > 0 && body.length() >= threshold;
+    }
+
+    private boolean setJsonEntity(ClassicRequestBuilder rb, JsonObject requestEntity) {
+        try {
+            String body = requestEntity.toJson();
+            rb.setEntity(createJsonEntity(body == null ? "{}" : body));
+            return true;
+        } catch (SafeguardForJavaException ex) {
+            logger.debug("Unable to serialize the request body", ex);
+            return false;
+        }
+    }
+
+    /**
+     * Registers a response that the caller is responsible for closing with
+     * the leak detector, if leak detection is enabled.
+     */
+    private CloseableHttpResponse track(CloseableHttpResponse response, ClassicRequestBuilder rb) {
+        if (leakDetector == null) {
+            return response;
+        }
+        return leakDetector.track(response, rb.getMethod() + " " + rb.getUri());
+    }
+
+    public CompletableFuture<SimpleHttpResponse> execGETAsync(String path, Map<String, String> queryParams, Map<String, String> headers, Integer timeout) {
+
+        SimpleRequestBuilder rb = prepareRequest(SimpleRequestBuilder.get(getBaseURI(path)), queryParams, headers);
+        return executeAsync(rb, null, timeout);
+    }
+
+    public CompletableFuture<SimpleHttpResponse> execPOSTAsync(String path, Map<String, String> queryParams, Map<String, String> headers, Integer timeout, JsonObject requestEntity) {
+
+        SimpleRequestBuilder rb = prepareRequest(SimpleRequestBuilder.post(getBaseURI(path)), queryParams, headers);
+        return executeAsync(rb, requestEntity, timeout);
+    }
+
+    public CompletableFuture<SimpleHttpResponse> execPUTAsync(String path, Map<String, String> queryParams, Map<String, String> headers, Integer timeout, JsonObject requestEntity) {
+
+        SimpleRequestBuilder rb = prepareRequest(SimpleRequestBuilder.put(getBaseURI(path)), queryParams, headers);
+        return executeAsync(rb, requestEntity, timeout);
+    }
+
+    public CompletableFuture<SimpleHttpResponse> execDELETEAsync(String path, Map<String, String> queryParams, Map<String, String> headers, Integer timeout) {
+
+        SimpleRequestBuilder rb = prepareRequest(SimpleRequestBuilder.delete(getBaseURI(path)), queryParams, headers);
+        return executeAsync(rb, null, timeout);
+    }
+
+    private CompletableFuture<SimpleHttpResponse> executeAsync(SimpleRequestBuilder rb, JsonObject requestEntity, Integer timeout) {
+
+        CompletableFuture<SimpleHttpResponse> result = new CompletableFuture<>();
+        try {
+            if (requestEntity != null) {
+                String body = requestEntity.toJson();
+                setJsonBody(rb, body == null ? "{}" : body);
+            }
+            Future<SimpleHttpResponse> pending = getAsyncClient().execute(SimpleRequestProducer.create(rb.build()),
+                    SimpleResponseConsumer.create(), createContext(timeout), new FutureCallback<SimpleHttpResponse>() {
+                @Override
+                public void completed(SimpleHttpResponse response) {
+                    result.complete(response);
+                }
+
+                @Override
+                public void failed(Exception ex) {
+                    result.completeExceptionally(ex);
+                }
+
+                @Override
+                public void cancelled() {
+                    result.cancel(false);
+                }
+            });
+            // Abort the exchange if the caller gives up on the result
+            result.whenComplete((response, ex) -> {
+                if (result.isCancelled()) {
+                    pending.cancel(true);
+                }
+            });
+        } catch (Exception ex) {
+            result.completeExceptionally(ex);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the cached client for a client certificate. The client is not
+     * closed, even when it is evicted from the cache, until the lease has
+     * been closed and the client has no connections leased anymore.
+     *
+     * @return The lease, or null if there is no certificate or no client for it.
+     */
+    private CertificateClientCache.Lease leaseClientWithCertificate(CertificateContext certificateContext) {
+
+        if (certificateContext.getCertificatePath() == null
+                && certificateContext.getCertificateData() == null
+                && certificateContext.getCertificateThumbprint() == null) {
+            return null;
+        }
+        return certificateClients.acquire(certificateContext, () -> createClientWithCertificate(certificateContext));
+    }
+
+    private boolean hasLeasedConnections(CloseableHttpClient certClient) {
+        HttpClientConnectionManager manager = certificateConnectionManagers.get(certClient);
+        return manager instanceof PoolingHttpClientConnectionManager
+                && ((PoolingHttpClientConnectionManager) manager).getTotalStats().getLeased() > 0;
+    }
+
+    /**
+     * Creates a pooled client that authenticates with a client certificate.
+     *
+     * @return The client, or null if the key store could not be loaded or
+     *         holds no certificate.
+     */
+    private CloseableHttpClient createClientWithCertificate(CertificateContext certificateContext) {
+
+        KeyStore clientKs = null;
+        List<String> aliases = null;
+        char[] keyPass = certificateContext.getCertificatePassword();
+        String certificateAlias = certificateContext.getCertificateAlias();
+        try {
+            if (certificateContext.isWindowsKeyStore()) {
+                clientKs = KeyStore.getInstance(WINDOWSKEYSTORE);
+                clientKs.load(null, null);
+                aliases = new ArrayList<>();
+                aliases = Collections.list(clientKs.aliases());
             } else {
-                sslsf = new SSLConnectionSocketFactory(getSSLContext(clientKs, keyPass, certificateAlias == null ? aliases.get(0) : certificateAlias, certificateContext));
+                try (InputStream in2 = certificateContext.getCertificatePath() != null ? new FileInputStream(certificateContext.getCertificatePath())
+                        : new ByteArrayInputStream(certificateContext.getCertificateData())) {
+                    try {
+                        clientKs = KeyStore.getInstance("JKS");
+                    } catch (KeyStoreException ex) {
+                        logger.error("Could not get instance of JDK, trying PKCS12", ex);
+                        clientKs = KeyStore.getInstance("PKCS12");
+                    }
+                    clientKs.load(in2, keyPass);
+                    aliases = Collections.list(clientKs.aliases());
+                }
             }
-            Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder.<ConnectionSocketFactory> create().register("https", sslsf).build();
-            BasicHttpClientConnectionManager connectionManager = new BasicHttpClientConnectionManager(socketFactoryRegistry);
-            certClient = HttpClients.custom().setConnectionManager(connectionManager).build();
+        } catch (FileNotFoundException ex) {
+            logger.error("Exception occurred", ex);
+        } catch (KeyStoreException | NoSuchAlgorithmException | CertificateException | IOException ex) {
+            logger.error("Exception occurred", ex);
+        }
+        if (clientKs == null || aliases == null || aliases.isEmpty()) {
+            logger.error("No client certificate could be loaded from the key store");
+            return null;
+        }
+
+        SSLContext sslContext = getSSLContext(clientKs, keyPass, certificateAlias == null ? aliases.get(0) : certificateAlias, certificateContext);
+        if (isHttp2()) {
+            return new ClassicToAsyncAdaptor(createAsyncClient(sslContext), BLOCKING_ADAPTOR_TIMEOUT);
         }
 
-        return certClient;
+        SSLConnectionSocketFactory sslsf = null;
+        if (ignoreSsl) {
+            sslsf = new SSLConnectionSocketFactory(sslContext, NoopHostnameVerifier.INSTANCE);
+        } else if (validationCallback != null) {
+            sslsf = new SSLConnectionSocketFactory(sslContext, validationCallback);
+        } else {
+            sslsf = new SSLConnectionSocketFactory(sslContext);
+        }
+        // The certificate-bound client is cached and shared between callers, so it is always pooled.
+        // It only ever authenticates with one certificate, so its connections need no user token
+        // to keep them apart, and without one they are reused by every request.
+        HttpClientConnectionManager connectionManager = createConnectionManager(sslsf, true);
+        CloseableHttpClient created = createClientBuilder(connectionManager, true).disableConnectionState().build();
+        certificateConnectionManagers.put(created, connectionManager);
+        return created;
     }
 
-    private ClassicRequestBuilder prepareRequest(ClassicRequestBuilder rb, Map<String, String> queryParams, Map<String, String> headers) {
+    private <B extends AbstractRequestBuilder<?>> B prepareRequest(B rb, Map<String, String> queryParams, Map<String, String> headers) {
 
         if (headers == null || !headers.containsKey(HttpHeaders.ACCEPT))
             rb.addHeader(HttpHeaders.ACCEPT, "application/json");
@@ -561,9 +1360,13 @@ public class RestClient {
         return rb;
     }
 
+    /**
+     * Creates the context of a request. The timeout is limited to the time
+     * left before the {@link Deadline} entered on the calling thread, if any.
+     */
     private HttpClientContext createContext(Integer timeout) {
         HttpClientContext context = HttpClientContext.create();
-        int effectiveTimeout = (timeout != null) ? timeout : DEFAULT_TIMEOUT_MS;
+        int effectiveTimeout = Deadline.limitTimeout((timeout != null) ? timeout : DEFAULT_TIMEOUT_MS);
         RequestConfig rconfig = RequestConfig.custom()
             .setConnectTimeout(Timeout.ofMilliseconds(effectiveTimeout))
             .setConnectionRequestTimeout(Timeout.ofMilliseconds(effectiveTimeout))
@@ -574,6 +1377,18 @@ public class RestClient {
 
     private SSLContext getSSLContext(KeyStore keyStorePath, char[] keyStorePassword, String alias, CertificateContext certificateContext) {
 
+        // Contexts without a client key are shared process-wide so that clients with the same settings resume
+        // each other's TLS sessions. Contexts holding a client key are never registered: they would keep the key
+        // in memory after the certificate context is disposed. They live only as long as the client using them.
+        if (keyStorePath != null) {
+            return createSSLContext(keyStorePath, keyStorePassword, alias, certificateContext);
+        }
+        return SSLContextRegistry.get(ignoreSsl, validationCallback,
+                () -> createSSLContext(null, keyStorePassword, alias, certificateContext));
+    }
+
+    private SSLContext createSSLContext(KeyStore keyStorePath, char[] keyStorePassword, String alias, CertificateContext certificateContext) {
+
         TrustManager[] customTrustManager = null;
         KeyManager[] customKeyManager = null;
 
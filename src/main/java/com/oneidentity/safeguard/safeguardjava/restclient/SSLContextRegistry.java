@@ -0,0 +1,94 @@
+package com.oneidentity.safeguard.safeguardjava.restclient;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+
+/**
+ * Process-wide registry of SSL contexts shared by all REST clients.
+ *
+ * <p>JSSE keeps its TLS session cache on the {@link SSLContext}, so clients
+ * that each build their own context can never resume each other's sessions
+ * and every new connection pays for a full handshake. A single connection
+ * alone creates several REST clients (rSTS, core, appliance, notification),
+ * all with the same trust settings. Sharing one context per combination of
+ * {@code ignoreSsl} and validation callback lets those clients resume
+ * sessions with the appliance. Contexts holding a client key are never
+ * registered, so that disposing of a certificate context does not leave its
+ * key in memory. The registry is bounded; the least recently used context is
+ * dropped when it is full, which only costs its cached sessions.
+ */
+final class SSLContextRegistry {
+
+    private static final int MAX_SIZE = 64;
+
+    private static final LinkedHashMap<Key, SSLContext> contexts = new LinkedHashMap<>(16, 0.75f, true);
+
+    private SSLContextRegistry() {
+    }
+
+    /**
+     * Gets the shared SSL context for the given settings, creating it on
+     * first use.
+     *
+     * @param ignoreSsl Whether server certificate validation is disabled.
+     * @param validationCallback The hostname verifier; may be null.
+     * @param factory Creates the context when it is not registered yet; may return null.
+     * @return The shared SSL context, or null if it could not be created.
+     */
+    static synchronized SSLContext get(boolean ignoreSsl, HostnameVerifier validationCallback,
+            Supplier<SSLContext> factory) {
+
+        Key key = new Key(ignoreSsl, validationCallback);
+        SSLContext ctx = contexts.get(key);
+        if (ctx == null) {
+            ctx = factory.get();
+            if (ctx != null) {
+                contexts.put(key, ctx);
+                Iterator<Map.Entry<Key, SSLContext>> iter = contexts.entrySet().iterator();
+                while (contexts.size() > MAX_SIZE && iter.hasNext()) {
+                    iter.next();
+                    iter.remove();
+                }
+            }
+        }
+        return ctx;
+    }
+
+    static synchronized int size() {
+        return contexts.size();
+    }
+
+    private static final class Key {
+
+        private final boolean ignoreSsl;
+        private final HostnameVerifier validationCallback;
+
+        Key(boolean ignoreSsl, HostnameVerifier validationCallback) {
+            this.ignoreSsl = ignoreSsl;
+            this.validationCallback = validationCallback;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return ignoreSsl == other.ignoreSsl
+                    && validationCallback == other.validationCallback;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(ignoreSsl, System.identityHashCode(validationCallback));
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.oneidentity.safeguard.safeguardjava;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.oneidentity.safeguard.safeguardjava.data.BatchResult;
+import com.oneidentity.safeguard.safeguardjava.data.FullResponse;
+import com.oneidentity.safeguard.safeguardjava.data.Method;
+import com.oneidentity.safeguard.safeguardjava.data.SafeguardRequest;
+import com.oneidentity.safeguard.safeguardjava.data.Service;
+import com.oneidentity.safeguard.safeguardjava.exceptions.ArgumentException;
+import com.oneidentity.safeguard.safeguardjava.exceptions.SafeguardForJavaException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+/**
+ * Verifies that {@link BatchInvoker} returns results in submission order,
+ * collects per-request failures, bounds the requests in flight and cancels
+ * them when interrupted.
+ */
+public class BatchInvokerTest {
+
+    /**
+     * Answers each request with a future that the test completes, keyed on
+     * the relative URL.
+     */
+    private static final class Requests {
+
+        final Map<String, CompletableFuture<FullResponse>> responses = new ConcurrentHashMap<>();
+
+        final ISafeguardConnection connection = StubConnection.create((method, relativeUrl, body, parameters) -> get(relativeUrl));
+
+        CompletableFuture<FullResponse> get(String relativeUrl) {
+            return responses.computeIfAbsent(relativeUrl, url -> new CompletableFuture<>());
+        }
+
+        void awaitStarted(int count) throws InterruptedException {
+            long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (responses.size() < count) {
+                if (System.nanoTime() > until) {
+                    fail("Expected " + count + " requests, got " + responses.keySet());
+                }
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    private static List<SafeguardRequest> requests(String... relativeUrls) {
+        List<SafeguardRequest> requests = new ArrayList<>();
+        for (String relativeUrl : relativeUrls) {
+            requests.add(new SafeguardRequest(Service.Core, Method.Put, relativeUrl, "{}"));
+        }
+        return requests;
+    }
+
+    @Test
+    public void resultsFollowSubmissionOrder() throws Exception {
+        Requests requests = new Requests();
+        CompletableFuture<List<BatchResult>> results = CompletableFuture.supplyAsync(() -> {
+            try {
+                return BatchInvoker.invoke(requests.connection, requests("A", "B", "C"), 3);
+            } catch (SafeguardForJavaException | ArgumentException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        requests.awaitStarted(3);
+
+        requests.get("C").complete(StubConnection.ok("c"));
+        requests.get("A").complete(StubConnection.ok("a"));
+        requests.get("B").complete(StubConnection.ok("b"));
+
+        List<BatchResult> batch = results.get(10, TimeUnit.SECONDS);
+        assertEquals(3, batch.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Arrays.asList("A", "B", "C").get(i), batch.get(i).getRequest().getRelativeUrl());
+            assertEquals(Arrays.asList("a", "b", "c").get(i), batch.get(i).getResponse().getBody());
+        }
+    }
+
+    @Test
+    public void failuresAreCollectedPerRequest() throws Exception {
+        Requests requests = new Requests();
+        SafeguardForJavaException failure = new SafeguardForJavaException("Error returned from Safeguard API");
+        requests.get("Failing").completeExceptionally(failure);
+        requests.get("First").complete(StubConnection.ok("first"));
+        requests.get("Last").complete(StubConnection.ok("last"));
+        List<SafeguardRequest> batch = requests("First", "Failing", "Last");
+        batch.add(1, null);
+
+        List<BatchResult> results = BatchInvoker.invoke(requests.connection, batch, 1);
+
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).isSuccessful());
+        assertFalse(results.get(1).isSuccessful());
+        assertNull(results.get(1).getRequest());
+        assertTrue(results.get(1).getError() instanceof ArgumentException);
+        assertSame(failure, results.get(2).getError());
+        assertNull(results.get(2).getResponse());
+        assertEquals("last", results.get(3).getResponse().getBody());
+    }
+
+    @Test
+    public void boundsRequestsInFlight() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        ISafeguardConnection connection = StubConnection.create((method, relativeUrl, body, parameters) -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                inFlight.decrementAndGet();
+                return StubConnection.ok(relativeUrl);
+            });
+        });
+        List<SafeguardRequest> batch = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            batch.add(new SafeguardRequest(Service.Core, Method.Get, "Assets/" + i, null));
+        }
+
+        List<BatchResult> results = BatchInvoker.invoke(connection, batch, 3);
+
+        assertEquals(20, results.size());
+        assertEquals("Assets/19", results.get(19).getResponse().getBody());
+        assertTrue("At most 3 requests may be in flight, saw " + maxInFlight.get(), maxInFlight.get() <= 3);
+        assertEquals(3, maxInFlight.get());
+    }
+
+    @Test
+    public void interruptionCancelsRequestsInFlight() throws Exception {
+        Requests requests = new Requests();
+        requests.get("Done").complete(StubConnection.ok("done"));
+        AtomicReference<Exception> thrown = new AtomicReference<>();
+        Thread caller = new Thread(() -> {
+            try {
+                BatchInvoker.invoke(requests.connection, requests("Done", "Slow", "Slower", "Queued"), 3);
+            } catch (SafeguardForJavaException | ArgumentException ex) {
+                thrown.set(ex);
+            }
+        });
+        caller.start();
+        requests.awaitStarted(4);
+
+        caller.interrupt();
+        caller.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertFalse(caller.isAlive());
+        assertTrue(thrown.get() instanceof SafeguardForJavaException);
+        assertTrue(requests.get("Slow").isCancelled());
+        assertTrue(requests.get("Slower").isCancelled());
+        assertTrue(requests.get("Queued").isCancelled());
+    }
+}
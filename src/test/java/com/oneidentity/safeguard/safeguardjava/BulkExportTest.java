@@ -0,0 +1,185 @@
+package com.oneidentity.safeguard.safeguardjava;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.oneidentity.safeguard.safeguardjava.data.ExportFormat;
+import com.oneidentity.safeguard.safeguardjava.data.FullResponse;
+import com.oneidentity.safeguard.safeguardjava.data.Service;
+import com.oneidentity.safeguard.safeguardjava.exceptions.SafeguardForJavaException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+/**
+ * Verifies the order in which {@link BulkExport} writes pages, where it
+ * stops, how many pages it requests at once and how it reports a failed page.
+ */
+public class BulkExportTest {
+
+    /**
+     * Serves pages that a test completes, recording the pages requested.
+     */
+    private static final class Pages {
+
+        final Map<Integer, CompletableFuture<FullResponse>> pages = new ConcurrentHashMap<>();
+        final List<Integer> requested = Collections.synchronizedList(new ArrayList<>());
+
+        final ISafeguardConnection connection = StubConnection.create((method, relativeUrl, body, parameters) -> {
+            int page = StubConnection.page(parameters);
+            requested.add(page);
+            return get(page);
+        });
+
+        CompletableFuture<FullResponse> get(int page) {
+            return pages.computeIfAbsent(page, p -> new CompletableFuture<>());
+        }
+
+        void complete(int page, String body) {
+            get(page).complete(StubConnection.ok(body));
+        }
+
+        void awaitRequested(int count) throws InterruptedException {
+            long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (requested.size() < count) {
+                if (System.nanoTime() > until) {
+                    fail("Expected " + count + " page requests, got " + requested);
+                }
+                Thread.sleep(1);
+            }
+        }
+
+        BulkExport export(int pageSize, int parallelism, boolean ordered) throws Exception {
+            BulkExport export = new BulkExport(connection, Service.Core, "AssetAccounts");
+            export.setPageSize(pageSize);
+            export.setParallelism(parallelism);
+            export.setOrdered(ordered);
+            return export;
+        }
+    }
+
+    private static CompletableFuture<List<String>> start(BulkExport export) {
+        List<String> items = Collections.synchronizedList(new ArrayList<>());
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                export.export(items::add);
+                return items;
+            } catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+    }
+
+    /**
+     * Completes pages 3 (short), 2, 1 and 0 in that order.
+     */
+    private static List<String> exportInReverse(boolean ordered) throws Exception {
+        Pages pages = new Pages();
+        CompletableFuture<List<String>> items = start(pages.export(2, 4, ordered));
+        pages.awaitRequested(4);
+
+        pages.complete(3, "[7]");
+        pages.complete(2, "[5,6]");
+        pages.complete(1, "[3,4]");
+        pages.complete(0, "[1,2]");
+        List<String> result = items.get(10, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList(0, 1, 2, 3), pages.requested);
+        return result;
+    }
+
+    @Test
+    public void orderedExportWritesPagesInPageOrder() throws Exception {
+        assertEquals(Arrays.asList("1", "2", "3", "4", "5", "6", "7"), exportInReverse(true));
+    }
+
+    @Test
+    public void unorderedExportWritesPagesAsTheyComplete() throws Exception {
+        assertEquals(Arrays.asList("7", "5", "6", "3", "4", "1", "2"), exportInReverse(false));
+    }
+
+    @Test
+    public void stopsAtFirstShortPage() throws Exception {
+        Pages pages = new Pages();
+        CompletableFuture<List<String>> items = start(pages.export(2, 4, true));
+        pages.awaitRequested(4);
+
+        pages.complete(1, "[3]");
+        pages.complete(0, "[1,2]");
+        assertEquals(Arrays.asList("1", "2", "3"), items.get(10, TimeUnit.SECONDS));
+        assertTrue(pages.get(2).isCancelled());
+        assertTrue(pages.get(3).isCancelled());
+        assertEquals(4, pages.requested.size());
+    }
+
+    @Test
+    public void boundsPagesInFlight() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        ISafeguardConnection connection = StubConnection.create((method, relativeUrl, body, parameters) -> {
+            int page = StubConnection.page(parameters);
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                inFlight.decrementAndGet();
+                return StubConnection.ok(page < 9 ? "[1,2]" : page == 9 ? "[1]" : "[]");
+            });
+        });
+        BulkExport export = new BulkExport(connection, Service.Core, "AssetAccounts");
+        export.setPageSize(2);
+        export.setParallelism(3);
+
+        assertEquals(19, export.export(item -> { }));
+        assertTrue("At most 3 pages may be requested at once, saw " + maxInFlight.get(), maxInFlight.get() <= 3);
+        assertEquals(3, maxInFlight.get());
+    }
+
+    @Test
+    public void failedPageCancelsRemainingRequests() throws Exception {
+        Pages pages = new Pages();
+        CompletableFuture<List<String>> items = start(pages.export(2, 3, true));
+        pages.awaitRequested(3);
+
+        SafeguardForJavaException failure = new SafeguardForJavaException("Error returned from Safeguard API");
+        pages.get(1).completeExceptionally(failure);
+        try {
+            items.get(10, TimeUnit.SECONDS);
+            fail("A failed page must fail the export");
+        } catch (ExecutionException ex) {
+            assertSame(failure, ex.getCause().getCause());
+        }
+        assertTrue(pages.get(0).isCancelled());
+        assertTrue(pages.get(2).isCancelled());
+        assertEquals(3, pages.requested.size());
+    }
+
+    @Test
+    public void csvExportKeepsSingleHeader() throws Exception {
+        Pages pages = new Pages();
+        pages.complete(0, "Id,Name\r\n1,a\r\n2,b\r\n");
+        pages.complete(1, "Id,Name\r\n3,\"c\nd\"\r\n");
+        Path file = Files.createTempFile("export", ".csv");
+        try {
+            assertEquals(3, pages.export(2, 2, true).exportToFile(file, ExportFormat.Csv));
+            assertEquals("Id,Name\r\n1,a\r\n2,b\r\n3,\"c\nd\"\r\n", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.oneidentity.safeguard.safeguardjava;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.oneidentity.safeguard.safeguardjava.exceptions.DeadlineExceededException;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+
+/**
+ * Verifies how a {@link Deadline} entered on a thread limits request
+ * timeouts and how nested deadlines combine.
+ */
+public class DeadlineTest {
+
+    @Test
+    public void timeoutIsUnchangedWithoutDeadline() {
+        assertNull(Deadline.current());
+        assertEquals(100_000, Deadline.limitTimeout(100_000));
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void timeoutIsLimitedToRemainingTime() throws Exception {
+        try (Deadline.Scope scope = Deadline.after(5_000).enter()) {
+            int timeout = Deadline.limitTimeout(100_000);
+            assertTrue("Timeout must not exceed the deadline: " + timeout, timeout <= 5_000 && timeout > 0);
+            assertEquals(50, Deadline.limitTimeout(50));
+        }
+        assertNull(Deadline.current());
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void innerDeadlineNeverExtendsOuterDeadline() throws Exception {
+        Deadline outer = Deadline.after(1_000);
+        try (Deadline.Scope outerScope = outer.enter()) {
+            try (Deadline.Scope innerScope = Deadline.after(60_000).enter()) {
+                assertSame(outer, Deadline.current());
+            }
+            Deadline shorter = Deadline.after(10);
+            try (Deadline.Scope innerScope = shorter.enter()) {
+                assertSame(shorter, Deadline.current());
+            }
+            assertSame(outer, Deadline.current());
+        }
+        assertNull(Deadline.current());
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void expiredDeadlineFailsFast() throws Exception {
+        try (Deadline.Scope scope = Deadline.after(1).enter()) {
+            Thread.sleep(20);
+            assertEquals(1, Deadline.limitTimeout(100_000));
+            try {
+                Deadline.checkCurrent();
+                fail("Expected the deadline to be exceeded");
+            } catch (DeadlineExceededException expected) {
+            }
+        }
+        Deadline.checkCurrent();
+    }
+
+    @Test
+    public void runWithinEntersDeadlineOnAnotherThread() throws Exception {
+        Deadline deadline = Deadline.after(5_000);
+        AtomicReference<Deadline> seen = new AtomicReference<>();
+        AtomicReference<Deadline> after = new AtomicReference<>(deadline);
+        Thread thread = new Thread(() -> {
+            deadline.runWithin(() -> seen.set(Deadline.current()));
+            after.set(Deadline.current());
+        });
+        thread.start();
+        thread.join();
+
+        assertSame(deadline, seen.get());
+        assertNull(after.get());
+    }
+}
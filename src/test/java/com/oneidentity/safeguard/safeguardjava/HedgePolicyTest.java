@@ -0,0 +1,58 @@
+package com.oneidentity.safeguard.safeguardjava;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Verifies the hedge delay {@link HedgePolicy} derives from recent reads and
+ * how its hedge budget limits hedges.
+ */
+public class HedgePolicyTest {
+
+    @Test
+    public void delayFollowsNinetyFifthPercentile() {
+        HedgePolicy policy = new HedgePolicy(0, 10);
+        assertEquals(HedgePolicy.INITIAL_DELAY_MILLIS, policy.getDelayMillis());
+
+        for (int millis = 1; millis <= 100; millis++) {
+            policy.recordLatency(millis);
+        }
+        assertEquals(95, policy.getDelayMillis());
+
+        for (int i = 0; i < HedgePolicy.SAMPLE_COUNT; i++) {
+            policy.recordLatency(7);
+        }
+        assertEquals(7, policy.getDelayMillis());
+    }
+
+    @Test
+    public void fixedDelayIgnoresLatency() {
+        HedgePolicy policy = new HedgePolicy(250, 10);
+        for (int i = 0; i < 50; i++) {
+            policy.recordLatency(5);
+        }
+        assertEquals(250, policy.getDelayMillis());
+    }
+
+    @Test
+    public void budgetBoundsHedges() {
+        HedgePolicy policy = new HedgePolicy(0, 10);
+
+        int hedges = 0;
+        while (policy.tryHedge()) {
+            hedges++;
+        }
+        assertEquals(5, hedges);
+
+        for (int i = 0; i < 9; i++) {
+            policy.readStarted();
+        }
+        assertFalse(policy.tryHedge());
+        policy.readStarted();
+        assertTrue(policy.tryHedge());
+        assertFalse(policy.tryHedge());
+    }
+}
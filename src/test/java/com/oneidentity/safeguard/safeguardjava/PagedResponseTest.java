@@ -0,0 +1,146 @@
+package com.oneidentity.safeguard.safeguardjava;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.oneidentity.safeguard.safeguardjava.data.FullResponse;
+import com.oneidentity.safeguard.safeguardjava.data.Service;
+import com.oneidentity.safeguard.safeguardjava.exceptions.SafeguardForJavaException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+/**
+ * Verifies how {@link PagedResponse} prefetches pages, where it stops and
+ * how it reports failures.
+ */
+public class PagedResponseTest {
+
+    /**
+     * Serves pages that a test completes, recording the pages requested.
+     */
+    private static final class Pages {
+
+        final Map<Integer, CompletableFuture<FullResponse>> pages = new ConcurrentHashMap<>();
+        final List<Integer> requested = new ArrayList<>();
+
+        final ISafeguardConnection connection = StubConnection.create((method, relativeUrl, body, parameters) -> {
+            int page = StubConnection.page(parameters);
+            synchronized (requested) {
+                requested.add(page);
+            }
+            return get(page);
+        });
+
+        CompletableFuture<FullResponse> get(int page) {
+            return pages.computeIfAbsent(page, p -> new CompletableFuture<>());
+        }
+
+        Pages complete(int page, String body) {
+            get(page).complete(StubConnection.ok(body));
+            return this;
+        }
+
+        List<Integer> requested() {
+            synchronized (requested) {
+                return new ArrayList<>(requested);
+            }
+        }
+
+        PagedResponse open(int pageSize) throws Exception {
+            return new PagedResponse(connection, Service.Core, "AssetAccounts", null, null, pageSize, null);
+        }
+    }
+
+    private static List<String> readAll(PagedResponse response) {
+        return response.stream().collect(Collectors.toList());
+    }
+
+    @Test
+    public void prefetchesNextPageOfFullPage() throws Exception {
+        Pages pages = new Pages().complete(0, "[1,2]");
+
+        PagedResponse response = pages.open(2);
+        assertEquals(Arrays.asList(0, 1), pages.requested());
+        assertEquals("1", response.next());
+
+        pages.complete(1, "[3,4]").complete(2, "[]");
+        assertEquals(Arrays.asList("2", "3", "4"), readAll(response));
+        assertEquals(Arrays.asList(0, 1, 2), pages.requested());
+    }
+
+    @Test
+    public void stopsAtShortPage() throws Exception {
+        Pages pages = new Pages().complete(0, "[1,2]").complete(1, "[3]");
+
+        assertEquals(Arrays.asList("1", "2", "3"), readAll(pages.open(2)));
+        assertEquals(Arrays.asList(0, 1), pages.requested());
+    }
+
+    @Test
+    public void nullOrEmptyBodyEndsIteration() throws Exception {
+        Pages pages = new Pages().complete(0, null);
+        assertFalse(pages.open(2).hasNext());
+
+        pages = new Pages().complete(0, "[1,2]").complete(1, "");
+        assertEquals(Arrays.asList("1", "2"), readAll(pages.open(2)));
+    }
+
+    @Test
+    public void nonArrayBodyFails() throws Exception {
+        try {
+            new Pages().complete(0, "{\"Id\":1}").open(2);
+            fail("A first page that is not an array must fail");
+        } catch (SafeguardForJavaException ex) {
+            assertTrue(ex.getMessage().contains("AssetAccounts"));
+        }
+
+        PagedResponse response = new Pages().complete(0, "[1,2]").complete(1, "{}").open(2);
+        response.next();
+        response.next();
+        try {
+            response.hasNext();
+            fail("A later page that is not an array must fail");
+        } catch (CompletionException ex) {
+            assertTrue(ex.getCause() instanceof SafeguardForJavaException);
+        }
+    }
+
+    @Test
+    public void failedPageIsWrappedInCompletionException() throws Exception {
+        Pages pages = new Pages().complete(0, "[1,2]");
+        SafeguardForJavaException failure = new SafeguardForJavaException("Error returned from Safeguard API");
+        pages.get(1).completeExceptionally(failure);
+
+        PagedResponse response = pages.open(2);
+        response.next();
+        response.next();
+        try {
+            response.next();
+            fail("A failed page must be reported");
+        } catch (CompletionException ex) {
+            assertSame(failure, ex.getCause());
+        }
+    }
+
+    @Test
+    public void closeCancelsPendingPage() throws Exception {
+        Pages pages = new Pages().complete(0, "[1,2]");
+
+        PagedResponse response = pages.open(2);
+        assertEquals("1", response.next());
+        response.close();
+
+        assertTrue(pages.get(1).isCancelled());
+        assertFalse(response.hasNext());
+    }
+}
@@ -0,0 +1,165 @@
+package com.oneidentity.safeguard.safeguardjava;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.oneidentity.safeguard.safeguardjava.data.BatchResult;
+import com.oneidentity.safeguard.safeguardjava.data.FullResponse;
+import com.oneidentity.safeguard.safeguardjava.data.Method;
+import com.oneidentity.safeguard.safeguardjava.data.SafeguardRequest;
+import com.oneidentity.safeguard.safeguardjava.data.Service;
+import com.sun.net.httpserver.HttpsServer;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.junit.Test;
+
+/**
+ * Verifies which responses {@link ResponseCache} stores, how it builds
+ * conditional requests and how it evicts entries, and that writes sent by
+ * any method of the connection drop the cached responses.
+ */
+public class ResponseCacheTest {
+
+    private static FullResponse response(int statusCode, String body, Header... headers) {
+        return new FullResponse(statusCode, headers, body);
+    }
+
+    @Test
+    public void keyIgnoresParameterOrderButNotValues() {
+        Map<String, String> first = new LinkedHashMap<>();
+        first.put("filter", "Name eq 'x'");
+        first.put("fields", "Id");
+        Map<String, String> second = new LinkedHashMap<>();
+        second.put("fields", "Id");
+        second.put("filter", "Name eq 'x'");
+
+        assertEquals(ResponseCache.keyFor(Service.Core, "Platforms", first, null),
+                ResponseCache.keyFor(Service.Core, "Platforms", second, null));
+        assertNotEquals(ResponseCache.keyFor(Service.Core, "Platforms", first, null),
+                ResponseCache.keyFor(Service.Appliance, "Platforms", first, null));
+        second.put("fields", "Name");
+        assertNotEquals(ResponseCache.keyFor(Service.Core, "Platforms", first, null),
+                ResponseCache.keyFor(Service.Core, "Platforms", second, null));
+    }
+
+    @Test
+    public void onlyStoresResponsesWithValidatorsOrMaxAge() {
+        ResponseCache cache = new ResponseCache(10);
+        cache.put("plain", response(200, "[]"));
+        cache.put("etag", response(200, "[1]", new BasicHeader(HttpHeaders.ETAG, "\"1\"")));
+        cache.put("noStore", response(200, "[2]", new BasicHeader(HttpHeaders.ETAG, "\"2\""),
+                new BasicHeader(HttpHeaders.CACHE_CONTROL, "no-store")));
+        cache.put("maxAge", response(200, "[3]", new BasicHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=60")));
+
+        assertNull(cache.get("plain"));
+        assertNull(cache.get("noStore"));
+        assertFalse(cache.get("etag").isFresh());
+        assertTrue(cache.get("maxAge").isFresh());
+        assertEquals("[3]", cache.get("maxAge").toResponse().getBody());
+    }
+
+    @Test
+    public void revalidationUsesEtagAndKeepsBody() {
+        ResponseCache cache = new ResponseCache(10);
+        cache.put("key", response(200, "[1]", new BasicHeader(HttpHeaders.ETAG, "\"1\"")));
+        ResponseCache.Entry entry = cache.get("key");
+
+        Map<String, String> headers = new HashMap<>();
+        entry.addValidators(headers);
+        assertEquals("\"1\"", headers.get(HttpHeaders.IF_NONE_MATCH));
+
+        FullResponse revalidated = cache.revalidated("key", entry,
+                response(304, "", new BasicHeader(HttpHeaders.CACHE_CONTROL, "max-age=60")));
+        assertEquals(200, revalidated.getStatusCode());
+        assertEquals("[1]", revalidated.getBody());
+        assertTrue(cache.get("key").isFresh());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedEntry() {
+        ResponseCache cache = new ResponseCache(2);
+        cache.put("a", response(200, "a", new BasicHeader(HttpHeaders.ETAG, "\"a\"")));
+        cache.put("b", response(200, "b", new BasicHeader(HttpHeaders.ETAG, "\"b\"")));
+        assertNotNull(cache.get("a"));
+        cache.put("c", response(200, "c", new BasicHeader(HttpHeaders.ETAG, "\"c\"")));
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+
+    /**
+     * Serves a collection whose body is the number of writes so far, with a
+     * max-age that lets the connection answer reads from its cache.
+     */
+    private static HttpsServer startServer(AtomicInteger reads, AtomicInteger writes) throws Exception {
+        return TestHttpsServer.start(exchange -> {
+            try (InputStream in = exchange.getRequestBody()) {
+                while (in.read() >= 0) {
+                    // Discard the request body
+                }
+            }
+            if ("GET".equals(exchange.getRequestMethod())) {
+                reads.incrementAndGet();
+                exchange.getResponseHeaders().add(HttpHeaders.CACHE_CONTROL, "max-age=60");
+            } else {
+                writes.incrementAndGet();
+            }
+            byte[] body = ("[" + writes.get() + "]").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add(HttpHeaders.CONTENT_TYPE, "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        }, null);
+    }
+
+    @Test
+    public void writesThroughAnyMethodClearCache() throws Exception {
+        AtomicInteger reads = new AtomicInteger();
+        AtomicInteger writes = new AtomicInteger();
+        HttpsServer server = startServer(reads, writes);
+        ConnectionOptions options = new ConnectionOptions();
+        options.setResponseCacheSize(10);
+        ISafeguardConnection connection = Safeguard.connect("127.0.0.1:" + server.getAddress().getPort(),
+                "token".toCharArray(), null, true, options);
+        try {
+            assertEquals("[0]", connection.invokeMethod(Service.Core, Method.Get, "AssetAccounts", null, null, null, null));
+            assertEquals("[0]", connection.invokeMethod(Service.Core, Method.Get, "AssetAccounts", null, null, null, null));
+            assertEquals(1, reads.get());
+
+            connection.invokeMethodFullAsync(Service.Core, Method.Put, "AssetAccounts/1", "{}", null, null, null)
+                    .get(30, TimeUnit.SECONDS);
+            assertEquals("[1]", connection.invokeMethod(Service.Core, Method.Get, "AssetAccounts", null, null, null, null));
+            assertEquals(2, reads.get());
+
+            List<BatchResult> results = connection.invokeBatch(Arrays.asList(
+                    new SafeguardRequest(Service.Core, Method.Put, "AssetAccounts/1", "{}"),
+                    new SafeguardRequest(Service.Core, Method.Put, "AssetAccounts/2", "{}")), 2);
+            assertTrue(results.get(0).isSuccessful() && results.get(1).isSuccessful());
+            assertEquals("[3]", connection.invokeMethod(Service.Core, Method.Get, "AssetAccounts", null, null, null, null));
+            assertEquals(3, reads.get());
+
+            connection.invokeMethodStream(Service.Core, Method.Delete, "AssetAccounts/1", null, null, null, null).close();
+            assertEquals("[4]", connection.invokeMethod(Service.Core, Method.Get, "AssetAccounts", null, null, null, null));
+            assertEquals(4, reads.get());
+        } finally {
+            connection.dispose();
+            server.stop(0);
+        }
+    }
+}
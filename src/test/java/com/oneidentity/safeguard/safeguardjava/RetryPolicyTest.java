@@ -0,0 +1,100 @@
+package com.oneidentity.safeguard.safeguardjava;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.oneidentity.safeguard.safeguardjava.data.Method;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.junit.Test;
+
+/**
+ * Verifies which failures {@link RetryPolicy} retries, the delays it chooses
+ * and how its retry budget limits retries.
+ */
+public class RetryPolicyTest {
+
+    private static final BasicHeader NO_HEADER = null;
+
+    @Test
+    public void retriesOnlyTransientFailuresOfIdempotentMethods() {
+        RetryPolicy policy = new RetryPolicy(3, false, 100, 1000, 100);
+
+        assertTrue(policy.retryDelay(Method.Get, 0, 503, NO_HEADER, null) >= 0);
+        assertTrue(policy.retryDelay(Method.Put, 0, 429, NO_HEADER, null) >= 0);
+        assertTrue(policy.retryDelay(Method.Delete, 0, RetryPolicy.NO_RESPONSE, NO_HEADER, null) >= 0);
+        assertEquals(-1, policy.retryDelay(Method.Get, 0, 200, NO_HEADER, null));
+        assertEquals(-1, policy.retryDelay(Method.Get, 0, 500, NO_HEADER, null));
+        assertEquals(-1, policy.retryDelay(Method.Post, 0, 503, NO_HEADER, null));
+        assertEquals(-1, policy.retryDelay(Method.Get, 3, 503, NO_HEADER, null));
+
+        RetryPolicy postPolicy = new RetryPolicy(3, true, 100, 1000, 100);
+        assertTrue(postPolicy.retryDelay(Method.Post, 0, 503, NO_HEADER, null) >= 0);
+    }
+
+    @Test
+    public void backoffIsJitteredAndCapped() {
+        RetryPolicy policy = new RetryPolicy(20, false, 100, 1000, 100);
+
+        for (int attempt = 0; attempt < 10; attempt++) {
+            long delay = policy.retryDelay(Method.Get, attempt, 503, NO_HEADER, null);
+            assertTrue(delay >= 0 && delay <= Math.min(1000, 100L << attempt));
+        }
+    }
+
+    @Test
+    public void honorsRetryAfterUpToMaxDelay() {
+        RetryPolicy policy = new RetryPolicy(3, false, 100, 5000, 100);
+
+        assertEquals(2000, policy.retryDelay(Method.Get, 0, 503, new BasicHeader("Retry-After", "2"), null));
+        assertEquals(-1, policy.retryDelay(Method.Get, 0, 503, new BasicHeader("Retry-After", "60"), null));
+        assertEquals(-1, RetryPolicy.retryAfterMillis(new BasicHeader("Retry-After", "soon")));
+        assertEquals(0, RetryPolicy.retryAfterMillis(new BasicHeader("Retry-After", "Wed, 21 Oct 2015 07:28:00 GMT")));
+    }
+
+    @Test
+    public void budgetLimitsRetries() {
+        RetryPolicy policy = new RetryPolicy(1, false, 1, 1, 0);
+
+        int retries = 0;
+        for (int i = 0; i < 100; i++) {
+            if (policy.retryDelay(Method.Get, 0, 503, NO_HEADER, null) >= 0) {
+                retries++;
+            }
+        }
+        assertEquals(10, retries);
+    }
+
+    @Test
+    public void budgetGrowsWithTraffic() {
+        RetryPolicy policy = new RetryPolicy(2, false, 1, 1, 20);
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(-1, policy.retryDelay(Method.Get, 0, 200, NO_HEADER, null));
+        }
+        int retries = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (policy.retryDelay(Method.Get, 1, 503, NO_HEADER, null) >= 0) {
+                retries++;
+            }
+        }
+        // 20% of the 1000 requests, plus the reserve
+        assertEquals(210, retries);
+    }
+
+    @Test
+    public void budgetDepositsExpire() throws Exception {
+        RetryPolicy policy = new RetryPolicy(2, false, 1, 1, 100, 100);
+
+        for (int i = 0; i < 100; i++) {
+            policy.retryDelay(Method.Get, 0, 200, NO_HEADER, null);
+        }
+        Thread.sleep(200);
+        int retries = 0;
+        for (int i = 0; i < 100; i++) {
+            if (policy.retryDelay(Method.Get, 1, 503, NO_HEADER, null) >= 0) {
+                retries++;
+            }
+        }
+        assertEquals(10, retries);
+    }
+}
@@ -0,0 +1,64 @@
+package com.oneidentity.safeguard.safeguardjava;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import com.oneidentity.safeguard.safeguardjava.authentication.AccessTokenAuthenticator;
+import com.oneidentity.safeguard.safeguardjava.data.Method;
+import com.oneidentity.safeguard.safeguardjava.data.Service;
+import java.util.Arrays;
+import org.junit.Test;
+
+/**
+ * Verifies which requests {@link SafeguardClusterConnection} keeps on the
+ * primary. The addresses used here do not accept connections, so the
+ * replicas never become healthy.
+ */
+public class SafeguardClusterConnectionTest {
+
+    private static SafeguardClusterConnection connect() throws Exception {
+        ConnectionOptions options = new ConnectionOptions();
+        options.setReplicaAddresses(Arrays.asList("127.0.0.1:2", "127.0.0.1:3"));
+        return (SafeguardClusterConnection) Safeguard.connect("127.0.0.1:1", "token".toCharArray(), null, true, options);
+    }
+
+    @Test
+    public void writesAndApplianceRequestsGoToPrimary() throws Exception {
+        SafeguardClusterConnection connection = connect();
+        try {
+            assertEquals(2, connection.getReplicas().size());
+            assertEquals("https://127.0.0.1:1/service/core/v4",
+                    connection.getClientForRequest(Service.Core, Method.Post).getBaseURL());
+            assertEquals("https://127.0.0.1:1/service/core/v4",
+                    connection.getClientForRequest(Service.Core, Method.Delete).getBaseURL());
+            assertEquals("https://127.0.0.1:1/service/appliance/v4",
+                    connection.getClientForRequest(Service.Appliance, Method.Get).getBaseURL());
+        } finally {
+            connection.dispose();
+        }
+    }
+
+    @Test
+    public void readsSkipUnhealthyReplicas() throws Exception {
+        SafeguardClusterConnection connection = connect();
+        try {
+            for (ClusterMember replica : connection.getReplicas()) {
+                assertFalse(replica.isHealthy());
+            }
+            assertEquals("https://127.0.0.1:1/service/core/v4",
+                    connection.getClientForRequest(Service.Core, Method.Get).getBaseURL());
+        } finally {
+            connection.dispose();
+        }
+    }
+
+    @Test
+    public void plainConnectionWithoutReplicas() throws Exception {
+        ISafeguardConnection connection = Safeguard.connect("127.0.0.1:1", "token".toCharArray(), null, true, new ConnectionOptions());
+        try {
+            assertFalse(connection instanceof SafeguardClusterConnection);
+        } finally {
+            connection.dispose();
+        }
+    }
+}
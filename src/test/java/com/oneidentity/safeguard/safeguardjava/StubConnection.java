@@ -0,0 +1,52 @@
+package com.oneidentity.safeguard.safeguardjava;
+
+import com.oneidentity.safeguard.safeguardjava.data.FullResponse;
+import com.oneidentity.safeguard.safeguardjava.data.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.apache.hc.core5.http.Header;
+
+/**
+ * Creates connections whose asynchronous requests are answered by a test
+ * instead of an appliance. Any other method of the connection fails.
+ */
+final class StubConnection {
+
+    /**
+     * Answers a request sent with {@code invokeMethodFullAsync}.
+     */
+    interface Handler {
+        CompletableFuture<FullResponse> handle(Method method, String relativeUrl, String body, Map<String, String> parameters);
+    }
+
+    private StubConnection() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static ISafeguardConnection create(Handler handler) {
+        return (ISafeguardConnection) Proxy.newProxyInstance(ISafeguardConnection.class.getClassLoader(),
+                new Class<?>[] {ISafeguardConnection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "invokeMethodFullAsync":
+                            return handler.handle((Method) args[1], (String) args[2], (String) args[3], (Map<String, String>) args[4]);
+                        case "toString":
+                            return "StubConnection";
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    static FullResponse ok(String body) {
+        return new FullResponse(200, new Header[0], body);
+    }
+
+    static int page(Map<String, String> parameters) {
+        return Integer.parseInt(parameters.get("page"));
+    }
+}
@@ -0,0 +1,50 @@
+package com.oneidentity.safeguard.safeguardjava;
+
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.security.KeyStore;
+import java.util.concurrent.Executor;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+
+/**
+ * Starts HTTPS servers on the loopback address that answer requests with a
+ * handler supplied by a test instead of an appliance.
+ */
+public final class TestHttpsServer {
+
+    /** Test certificate of the repository, used as the server certificate. */
+    private static final String SERVER_CERTIFICATE = "TestFramework/TestData/CERTS/UserCert.pfx";
+
+    private TestHttpsServer() {
+    }
+
+    /**
+     * Starts a server on an ephemeral port.
+     *
+     * @param handler Answers every request.
+     * @param executor Runs the handler; null to run it on the dispatcher thread.
+     * @return The started server.
+     */
+    public static HttpsServer start(HttpHandler handler, Executor executor) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = new FileInputStream(SERVER_CERTIFICATE)) {
+            keyStore.load(in, "a".toCharArray());
+        }
+        KeyManagerFactory keyManagers = KeyManagerFactory.getInstance("SunX509");
+        keyManagers.init(keyStore, "a".toCharArray());
+        SSLContext sslContext = SSLContext.getInstance("TLSv1.2");
+        sslContext.init(keyManagers.getKeyManagers(), null, null);
+
+        HttpsServer server = HttpsServer.create(new InetSocketAddress("127.0.0.1", 0), 10);
+        server.setHttpsConfigurator(new HttpsConfigurator(sslContext));
+        server.setExecutor(executor);
+        server.createContext("/", handler);
+        server.start();
+        return server;
+    }
+}
@@ -0,0 +1,43 @@
+package com.oneidentity.safeguard.safeguardjava;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+/**
+ * Verifies the JSON readers returned by {@link Utils#jsonReader}.
+ */
+public class UtilsTest {
+
+    public static class Asset {
+        public int Id;
+        public String Name;
+    }
+
+    @Test
+    public void readersAreSharedPerClass() {
+        assertSame(Utils.jsonReader(Asset.class), Utils.jsonReader(Asset.class));
+    }
+
+    @Test
+    public void readerIgnoresUnknownProperties() throws Exception {
+        List<Asset> assets = Utils.jsonReader(new TypeReference<List<Asset>>() {})
+                .readValue("[{\"Id\":1,\"Name\":\"one\",\"Platform\":{\"Id\":5}}]");
+
+        assertEquals(1, assets.size());
+        assertEquals(1, assets.get(0).Id);
+        assertEquals("one", assets.get(0).Name);
+    }
+
+    @Test
+    public void parseResponseReadsStringMap() {
+        Map<String, String> map = Utils.parseResponse("{\"access_token\":\"abc\",\"token_type\":\"Bearer\"}");
+
+        assertEquals("abc", map.get("access_token"));
+        assertEquals("Bearer", map.get("token_type"));
+    }
+}
@@ -0,0 +1,172 @@
+package com.oneidentity.safeguard.safeguardjava.authentication;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.oneidentity.safeguard.safeguardjava.data.FullResponse;
+import com.oneidentity.safeguard.safeguardjava.data.JsonObject;
+import com.oneidentity.safeguard.safeguardjava.exceptions.SafeguardForJavaException;
+import com.oneidentity.safeguard.safeguardjava.restclient.RestClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.hc.core5.http.Header;
+import org.junit.Test;
+
+/**
+ * Verifies that concurrent calls to {@link AuthenticatorBase#refreshAccessToken()}
+ * share a single login instead of each contacting the rSTS, and that callers
+ * that found the same token expired log in only once even when their calls
+ * do not overlap.
+ */
+public class AuthenticatorBaseRefreshTest {
+
+    private static final int CALLERS = 8;
+
+    private static List<Throwable> refreshConcurrently(SlowAuthenticator auth) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Throwable>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        auth.refreshAccessToken();
+                        return null;
+                    } catch (Exception ex) {
+                        return ex;
+                    }
+                }));
+            }
+            start.countDown();
+            List<Throwable> errors = new ArrayList<>();
+            for (Future<Throwable> result : results) {
+                Throwable error = result.get();
+                if (error != null) {
+                    errors.add(error);
+                }
+            }
+            return errors;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void concurrentCallersShareOneRefresh() throws Exception {
+        SlowAuthenticator auth = new SlowAuthenticator();
+
+        List<Throwable> errors = refreshConcurrently(auth);
+
+        assertTrue("Unexpected failures: " + errors, errors.isEmpty());
+        assertEquals(1, auth.rstsCalls.get());
+        assertEquals("TOKEN-1", new String(auth.getAccessToken()));
+    }
+
+    @Test
+    public void waitingCallersReceiveTheRefreshFailure() throws Exception {
+        SlowAuthenticator auth = new SlowAuthenticator();
+        auth.fail = true;
+
+        List<Throwable> errors = refreshConcurrently(auth);
+
+        assertEquals(1, auth.rstsCalls.get());
+        assertEquals(CALLERS, errors.size());
+        for (Throwable error : errors) {
+            assertTrue(error instanceof SafeguardForJavaException);
+        }
+    }
+
+    @Test
+    public void laterRefreshLogsInAgain() throws Exception {
+        SlowAuthenticator auth = new SlowAuthenticator();
+
+        auth.refreshAccessToken();
+        auth.refreshAccessToken();
+
+        assertEquals(2, auth.rstsCalls.get());
+        assertEquals("TOKEN-2", new String(auth.getAccessToken()));
+    }
+
+    @Test
+    public void staleTokenIsRefreshedOnce() throws Exception {
+        SlowAuthenticator auth = new SlowAuthenticator();
+        auth.refreshAccessToken();
+        char[] expired = auth.getAccessToken();
+
+        assertTrue(auth.refreshAccessToken(expired));
+        assertFalse(auth.refreshAccessToken(expired));
+        assertFalse(auth.refreshAccessToken(expired));
+
+        assertEquals(2, auth.rstsCalls.get());
+        assertEquals("TOKEN-2", new String(auth.getAccessToken()));
+        assertTrue(auth.refreshAccessToken(auth.getAccessToken()));
+        assertEquals(3, auth.rstsCalls.get());
+    }
+
+    @Test
+    public void clearedTokenIsRefreshed() throws Exception {
+        SlowAuthenticator auth = new SlowAuthenticator();
+
+        assertTrue(auth.refreshAccessToken(auth.getAccessToken()));
+        assertEquals(1, auth.rstsCalls.get());
+    }
+
+    private static final class SlowAuthenticator extends AuthenticatorBase {
+
+        final AtomicInteger rstsCalls = new AtomicInteger();
+        volatile boolean fail;
+
+        SlowAuthenticator() {
+            super("localhost", 4, true, null);
+            coreClient = new LoginResponseClient(rstsCalls);
+        }
+
+        @Override
+        public String getId() {
+            return "Slow";
+        }
+
+        @Override
+        protected char[] getRstsTokenInternal() throws SafeguardForJavaException {
+            rstsCalls.incrementAndGet();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            if (fail) {
+                throw new SafeguardForJavaException("rSTS unavailable");
+            }
+            return "RSTS".toCharArray();
+        }
+
+        @Override
+        public Object cloneObject() {
+            return null;
+        }
+    }
+
+    private static final class LoginResponseClient extends RestClient {
+
+        private final AtomicInteger rstsCalls;
+
+        LoginResponseClient(AtomicInteger rstsCalls) {
+            super("https://localhost/service/core/v4", true, null);
+            this.rstsCalls = rstsCalls;
+        }
+
+        @Override
+        public FullResponse execPOSTFull(String path, Map<String, String> queryParams,
+                Map<String, String> headers, Integer timeout, JsonObject requestEntity) {
+            return new FullResponse(200, new Header[0], "{\"UserToken\":\"TOKEN-" + rstsCalls.get() + "\"}");
+        }
+    }
+}
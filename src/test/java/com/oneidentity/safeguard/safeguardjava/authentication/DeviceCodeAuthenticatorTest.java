@@ -3,6 +3,7 @@ package com.oneidentity.safeguard.safeguardjava.authentication;
 import com.oneidentity.safeguard.safeguardjava.IDeviceCodeDisplayCallback;
 import com.oneidentity.safeguard.safeguardjava.Safeguard;
 import com.oneidentity.safeguard.safeguardjava.data.DeviceCodeInfo;
+import com.oneidentity.safeguard.safeguardjava.data.FullResponse;
 import com.oneidentity.safeguard.safeguardjava.data.JsonObject;
 import com.oneidentity.safeguard.safeguardjava.exceptions.ArgumentException;
 import com.oneidentity.safeguard.safeguardjava.exceptions.SafeguardForJavaException;
@@ -14,10 +15,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.net.ssl.HostnameVerifier;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
-import org.apache.hc.core5.http.ContentType;
-import org.apache.hc.core5.http.io.entity.StringEntity;
-import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.apache.hc.core5.http.Header;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -323,10 +321,8 @@ public class DeviceCodeAuthenticatorTest {
         return new DeviceCodeAuthenticator.RstsResponse(code, body);
     }
 
-    private static CloseableHttpResponse httpResponse(int code, String body) {
-        BasicClassicHttpResponse r = new BasicClassicHttpResponse(code);
-        r.setEntity(new StringEntity(body, ContentType.APPLICATION_JSON));
-        return CloseableHttpResponse.adapt(r);
+    private static FullResponse httpResponse(int code, String body) {
+        return new FullResponse(code, new Header[0], body);
     }
 
     /**
@@ -387,7 +383,7 @@ public class DeviceCodeAuthenticatorTest {
      */
     private static final class CapturingRestClient extends RestClient {
 
-        CloseableHttpResponse responseToReturn;
+        FullResponse responseToReturn;
         String lastPath;
         String lastBody;
 
@@ -396,7 +392,7 @@ public class DeviceCodeAuthenticatorTest {
         }
 
         @Override
-        public CloseableHttpResponse execPOST(String path, Map<String, String> queryParams,
+        public FullResponse execPOSTFull(String path, Map<String, String> queryParams,
                 Map<String, String> headers, Integer timeout, JsonObject requestEntity) {
             this.lastPath = path;
             try {
@@ -0,0 +1,156 @@
+package com.oneidentity.safeguard.safeguardjava.restclient;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.oneidentity.safeguard.safeguardjava.ConnectionOptions;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.hc.client5.http.DnsResolver;
+import org.junit.Test;
+
+/**
+ * Verifies the positive and negative caching of {@link CachingDnsResolver}
+ * and how it rotates the addresses of a name.
+ */
+public class CachingDnsResolverTest {
+
+    private static final InetAddress[] CLUSTER = new InetAddress[3];
+
+    static {
+        try {
+            CLUSTER[0] = InetAddress.getByAddress("cluster", new byte[] {10, 0, 0, 1});
+            CLUSTER[1] = InetAddress.getByAddress("cluster", new byte[] {10, 0, 0, 2});
+            CLUSTER[2] = InetAddress.getByAddress("cluster", new byte[] {10, 0, 0, 3});
+        } catch (UnknownHostException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    /**
+     * Resolves "cluster" to three addresses and fails for any other name,
+     * counting the lookups.
+     */
+    private static final class CountingResolver implements DnsResolver {
+
+        final AtomicInteger lookups = new AtomicInteger();
+
+        @Override
+        public InetAddress[] resolve(String host) throws UnknownHostException {
+            lookups.incrementAndGet();
+            if (!"cluster".equals(host)) {
+                throw new UnknownHostException(host);
+            }
+            return CLUSTER.clone();
+        }
+
+        @Override
+        public String resolveCanonicalHostname(String host) {
+            return host;
+        }
+    }
+
+    @Test
+    public void cachesLookups() throws Exception {
+        CountingResolver delegate = new CountingResolver();
+        CachingDnsResolver resolver = new CachingDnsResolver(delegate, 60000, 60000, false);
+
+        assertArrayEquals(CLUSTER, resolver.resolve("cluster"));
+        assertArrayEquals(CLUSTER, resolver.resolve("CLUSTER"));
+        assertEquals(1, delegate.lookups.get());
+    }
+
+    @Test
+    public void looksUpAgainOnceExpired() throws Exception {
+        CountingResolver delegate = new CountingResolver();
+        CachingDnsResolver resolver = new CachingDnsResolver(delegate, 1, 60000, false);
+
+        resolver.resolve("cluster");
+        Thread.sleep(5);
+        resolver.resolve("cluster");
+        assertEquals(2, delegate.lookups.get());
+    }
+
+    @Test
+    public void cachesFailedLookups() throws Exception {
+        CountingResolver delegate = new CountingResolver();
+        CachingDnsResolver resolver = new CachingDnsResolver(delegate, 60000, 60000, false);
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                resolver.resolve("missing");
+                fail("Lookup of an unknown name succeeded");
+            } catch (UnknownHostException ex) {
+                assertEquals("missing", ex.getMessage());
+            }
+        }
+        assertEquals(1, delegate.lookups.get());
+    }
+
+    @Test
+    public void failuresAreNotCachedWithoutNegativeTtl() throws Exception {
+        CountingResolver delegate = new CountingResolver();
+        CachingDnsResolver resolver = new CachingDnsResolver(delegate, 60000, 0, false);
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                resolver.resolve("missing");
+                fail("Lookup of an unknown name succeeded");
+            } catch (UnknownHostException ex) {
+                assertEquals("missing", ex.getMessage());
+            }
+        }
+        assertEquals(3, delegate.lookups.get());
+    }
+
+    @Test
+    public void roundRobinRotatesAddresses() throws Exception {
+        CachingDnsResolver resolver = new CachingDnsResolver(new CountingResolver(), 60000, 60000, true);
+
+        assertSame(CLUSTER[0], resolver.resolve("cluster")[0]);
+        InetAddress[] second = resolver.resolve("cluster");
+        assertArrayEquals(new InetAddress[] {CLUSTER[1], CLUSTER[2], CLUSTER[0]}, second);
+        assertSame(CLUSTER[2], resolver.resolve("cluster")[0]);
+        assertSame(CLUSTER[0], resolver.resolve("cluster")[0]);
+    }
+
+    @Test
+    public void defaultOptionsKeepTheClientResolver() throws Exception {
+        assertNull(CachingDnsResolver.forClient(null));
+        assertNull(CachingDnsResolver.forClient(new ConnectionOptions()));
+
+        ConnectionOptions options = new ConnectionOptions();
+        CountingResolver delegate = new CountingResolver();
+        options.setDnsResolver(delegate);
+        assertSame(delegate, CachingDnsResolver.forClient(options));
+
+        options.setDnsCacheTtlMillis(1000);
+        DnsResolver cached = CachingDnsResolver.forClient(options);
+        assertSame(cached, CachingDnsResolver.forClient(options));
+        cached.resolve("cluster");
+        cached.resolve("cluster");
+        assertEquals(1, delegate.lookups.get());
+    }
+
+    @Test
+    public void otherSettingsGetOwnResolver() throws Exception {
+        CountingResolver delegate = new CountingResolver();
+        ConnectionOptions cached = new ConnectionOptions();
+        cached.setDnsResolver(delegate);
+        cached.setDnsCacheTtlMillis(60000);
+        ConnectionOptions rotated = new ConnectionOptions();
+        rotated.setDnsResolver(delegate);
+        rotated.setDnsCacheTtlMillis(60000);
+        rotated.setDnsRoundRobin(true);
+
+        DnsResolver resolver = CachingDnsResolver.forClient(cached);
+        assertTrue(resolver != CachingDnsResolver.forClient(rotated));
+        assertSame(CLUSTER[0], resolver.resolve("cluster")[0]);
+        assertSame(CLUSTER[0], resolver.resolve("cluster")[0]);
+    }
+}
@@ -0,0 +1,208 @@
+package com.oneidentity.safeguard.safeguardjava.restclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.oneidentity.safeguard.safeguardjava.data.CertificateContext;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.net.ssl.HostnameVerifier;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.junit.Test;
+
+/**
+ * Verifies that {@link CertificateClientCache} does not close an evicted
+ * client while it is still in use, that a certificate that cannot be loaded
+ * leaves no client behind, and that clients are built without holding up
+ * callers with other certificates.
+ */
+public class CertificateClientCacheTest {
+
+    /**
+     * Records whether it has been closed; never sends a request.
+     */
+    private static final class StubClient extends CloseableHttpClient {
+
+        boolean closed;
+
+        @Override
+        protected CloseableHttpResponse doExecute(HttpHost target, ClassicHttpRequest request, HttpContext context) throws IOException {
+            throw new IOException("Not connected");
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public void close(CloseMode closeMode) {
+            closed = true;
+        }
+    }
+
+    private static CertificateContext certificate(String path) {
+        return new CertificateContext(null, path, null, "a".toCharArray());
+    }
+
+    @Test
+    public void cachedClientIsShared() {
+        CertificateClientCache cache = new CertificateClientCache(2);
+        StubClient client = new StubClient();
+        try (CertificateClientCache.Lease first = cache.acquire(certificate("one.pfx"), () -> client);
+                CertificateClientCache.Lease second = cache.acquire(certificate("one.pfx"), StubClient::new)) {
+            assertSame(client, first.getClient());
+            assertSame(client, second.getClient());
+        }
+        assertEquals(1, cache.size());
+        assertFalse(client.closed);
+    }
+
+    @Test
+    public void evictedClientIsClosedOnceReleased() {
+        CertificateClientCache cache = new CertificateClientCache(1);
+        StubClient evicted = new StubClient();
+        CertificateClientCache.Lease lease = cache.acquire(certificate("one.pfx"), () -> evicted);
+
+        cache.acquire(certificate("two.pfx"), StubClient::new).close();
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getEvictedInUse());
+        assertFalse(evicted.closed);
+
+        lease.close();
+        lease.close();
+        assertTrue(evicted.closed);
+        assertEquals(0, cache.getEvictedInUse());
+    }
+
+    @Test
+    public void evictedClientWithLeasedConnectionsStaysOpen() {
+        AtomicBoolean streaming = new AtomicBoolean(true);
+        CertificateClientCache cache = new CertificateClientCache(1, client -> streaming.get());
+        StubClient evicted = new StubClient();
+        cache.acquire(certificate("one.pfx"), () -> evicted).close();
+
+        cache.acquire(certificate("two.pfx"), StubClient::new).close();
+        assertFalse(evicted.closed);
+
+        streaming.set(false);
+        cache.acquire(certificate("two.pfx"), StubClient::new).close();
+        assertTrue(evicted.closed);
+    }
+
+    @Test
+    public void closeClosesClientsInUse() {
+        CertificateClientCache cache = new CertificateClientCache(1);
+        StubClient evicted = new StubClient();
+        StubClient cached = new StubClient();
+        cache.acquire(certificate("one.pfx"), () -> evicted);
+        cache.acquire(certificate("two.pfx"), () -> cached);
+
+        cache.close();
+        assertTrue(evicted.closed);
+        assertTrue(cached.closed);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void unreadableKeyStoreCreatesNoClient() throws Exception {
+        RestClient client = new RestClient("https://127.0.0.1:1/service/a2a/v4", true, (HostnameVerifier) null);
+        Field field = RestClient.class.getDeclaredField("certificateClients");
+        field.setAccessible(true);
+        CertificateClientCache cache = (CertificateClientCache) field.get(client);
+        try {
+            CertificateContext missing = certificate("TestFramework/TestData/CERTS/missing.pfx");
+            CertificateContext corrupt = new CertificateContext(null, null,
+                    "not a key store".getBytes(StandardCharsets.UTF_8), "a".toCharArray());
+
+            assertNull(client.execGET("Credentials", null, null, null, missing));
+            assertNull(client.execGETFull("Credentials", null, null, null, corrupt));
+            assertEquals(0, (int) client.warmUp(1, missing).get(30, TimeUnit.SECONDS));
+            assertEquals(0, cache.size());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void slowClientDoesNotHoldUpOtherCertificates() throws Exception {
+        CertificateClientCache cache = new CertificateClientCache(2);
+        CountDownLatch building = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<CertificateClientCache.Lease> slow = CompletableFuture.supplyAsync(() ->
+                cache.acquire(certificate("slow.pfx"), () -> {
+                    building.countDown();
+                    try {
+                        finish.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return new StubClient();
+                }));
+        assertTrue(building.await(10, TimeUnit.SECONDS));
+
+        CompletableFuture<CertificateClientCache.Lease> fast = CompletableFuture.supplyAsync(() ->
+                cache.acquire(certificate("fast.pfx"), StubClient::new));
+        fast.get(10, TimeUnit.SECONDS).close();
+        assertFalse(slow.isDone());
+
+        finish.countDown();
+        slow.get(10, TimeUnit.SECONDS).close();
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void concurrentCallersShareOneClient() throws Exception {
+        CertificateClientCache cache = new CertificateClientCache(2);
+        AtomicInteger built = new AtomicInteger();
+        CountDownLatch finish = new CountDownLatch(1);
+        List<CompletableFuture<CertificateClientCache.Lease>> leases = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            leases.add(CompletableFuture.supplyAsync(() -> cache.acquire(certificate("one.pfx"), () -> {
+                built.incrementAndGet();
+                try {
+                    finish.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return new StubClient();
+            })));
+        }
+        Thread.sleep(50);
+        finish.countDown();
+
+        CloseableHttpClient shared = leases.get(0).get(10, TimeUnit.SECONDS).getClient();
+        for (CompletableFuture<CertificateClientCache.Lease> lease : leases) {
+            assertSame(shared, lease.get(10, TimeUnit.SECONDS).getClient());
+            lease.get().close();
+        }
+        assertEquals(1, built.get());
+    }
+
+    @Test
+    public void failedClientIsNotCached() {
+        CertificateClientCache cache = new CertificateClientCache(2);
+
+        assertNull(cache.acquire(certificate("one.pfx"), () -> null));
+        StubClient client = new StubClient();
+        try (CertificateClientCache.Lease lease = cache.acquire(certificate("one.pfx"), () -> client)) {
+            assertSame(client, lease.getClient());
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.oneidentity.safeguard.safeguardjava.restclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.oneidentity.safeguard.safeguardjava.ConnectionOptions;
+import com.oneidentity.safeguard.safeguardjava.exceptions.CircuitBreakerOpenException;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.HostnameVerifier;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.util.Timeout;
+import org.junit.Test;
+
+/**
+ * Verifies when {@link CircuitBreaker} opens, how it recovers through trial
+ * requests, that breakers are shared per base URL, that an open breaker
+ * rejects requests before they take a rate limit permit and that requests
+ * timed out by their caller do not count as failures.
+ */
+public class CircuitBreakerTest {
+
+    private static CircuitBreaker breaker(String baseUrl, int failureRate, int windowSize, int openMillis) throws Exception {
+        ConnectionOptions options = new ConnectionOptions();
+        options.setCircuitBreakerFailureRateThreshold(failureRate);
+        options.setCircuitBreakerWindowSize(windowSize);
+        options.setCircuitBreakerOpenDurationMillis(openMillis);
+        return CircuitBreaker.forClient(baseUrl, options);
+    }
+
+    @Test
+    public void disabledWithoutThreshold() throws Exception {
+        assertNull(CircuitBreaker.forClient("https://disabled.example/service/core/v4", null));
+        assertNull(CircuitBreaker.forClient("https://disabled.example/service/core/v4", new ConnectionOptions()));
+    }
+
+    @Test
+    public void sharedPerBaseUrl() throws Exception {
+        CircuitBreaker core = breaker("https://shared.example/service/core/v4", 50, 10, 1000);
+
+        assertSame(core, breaker("https://SHARED.example/service/core/v4", 50, 10, 1000));
+        assertTrue(core != breaker("https://shared.example/service/a2a/v4", 50, 10, 1000));
+    }
+
+    @Test
+    public void otherSettingsGetOwnBreaker() throws Exception {
+        CircuitBreaker lenient = breaker("https://settings.example/service/core/v4", 100, 2, 60000);
+        CircuitBreaker strict = breaker("https://settings.example/service/core/v4", 50, 1, 60000);
+
+        assertTrue(lenient != strict);
+        lenient.record(true, 0);
+        assertEquals(CircuitBreaker.State.CLOSED, lenient.getState());
+        strict.record(true, 0);
+        assertEquals(CircuitBreaker.State.OPEN, strict.getState());
+        assertEquals(CircuitBreaker.State.CLOSED, lenient.getState());
+    }
+
+    @Test
+    public void opensWhenFailureRateReached() throws Exception {
+        CircuitBreaker breaker = breaker("https://failing.example/service/core/v4", 50, 4, 60000);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.record(i != 1, 0);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        assertTrue(breaker.tryAcquire());
+        breaker.record(false, 0);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertTrue(breaker.isOpen());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    public void opensWhenCallsAreSlow() throws Exception {
+        ConnectionOptions options = new ConnectionOptions();
+        options.setCircuitBreakerFailureRateThreshold(100);
+        options.setCircuitBreakerSlowCallDurationMillis(100);
+        options.setCircuitBreakerSlowCallRateThreshold(50);
+        options.setCircuitBreakerWindowSize(2);
+        CircuitBreaker breaker = CircuitBreaker.forClient("https://slow.example/service/core/v4", options);
+
+        breaker.record(false, TimeUnit.MILLISECONDS.toNanos(10));
+        breaker.record(false, TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void trialRequestsCloseOrReopen() throws Exception {
+        CircuitBreaker breaker = breaker("https://recovering.example/service/core/v4", 100, 1, 50);
+
+        breaker.record(true, 0);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Thread.sleep(60);
+
+        for (int i = 0; i < CircuitBreaker.HALF_OPEN_CALLS; i++) {
+            assertTrue(breaker.tryAcquire());
+        }
+        assertFalse(breaker.tryAcquire());
+        breaker.record(true, 0);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        Thread.sleep(60);
+
+        for (int i = 0; i < CircuitBreaker.HALF_OPEN_CALLS; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.record(false, 0);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertFalse(breaker.isOpen());
+    }
+
+    @Test
+    public void openBreakerTakesNoRateLimitPermits() throws Exception {
+        String baseUrl = "https://127.0.0.1:9/service/core/v4";
+        ConnectionOptions options = new ConnectionOptions();
+        options.setCircuitBreakerFailureRateThreshold(50);
+        options.setCircuitBreakerWindowSize(1);
+        options.setCircuitBreakerOpenDurationMillis(60000);
+        options.setMaxRequestsPerSecond(1);
+        options.setRateLimitBurst(1);
+        RestClient client = new RestClient(baseUrl, true, (HostnameVerifier) null, options);
+        try {
+            CircuitBreaker.forClient(baseUrl, options).record(true, 0);
+            assertTrue(client.isCircuitOpen());
+
+            // With a blocking rate limit of one request per second, requests
+            // that took permits would wait for several seconds.
+            long started = System.nanoTime();
+            for (int i = 0; i < 5; i++) {
+                assertNull(client.execGETFull("Me", null, null, null));
+                try {
+                    client.execGETAsync("Me", null, null, null).get(10, TimeUnit.SECONDS);
+                    fail("The open circuit breaker must reject the request");
+                } catch (ExecutionException ex) {
+                    assertTrue(ex.getCause() instanceof CircuitBreakerOpenException);
+                }
+            }
+            assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(2));
+            assertEquals(0, RateLimiter.forClient(baseUrl, options).tryAcquire());
+        } finally {
+            client.close();
+        }
+    }
+
+    private static HttpClientContext context(int responseTimeoutMillis) {
+        HttpClientContext context = HttpClientContext.create();
+        context.setRequestConfig(RequestConfig.custom().setResponseTimeout(Timeout.ofMilliseconds(responseTimeoutMillis)).build());
+        return context;
+    }
+
+    @Test
+    public void onlyTimeoutsShorterThanTheDefaultAreCallerTimeouts() throws Exception {
+        assertTrue(RequestStats.isCallerTimeout(context(200), new SocketTimeoutException()));
+        assertTrue(RequestStats.isCallerTimeout(context(200), new IOException(new SocketTimeoutException())));
+        assertFalse(RequestStats.isCallerTimeout(context(200), new IOException("Connection reset")));
+        assertFalse(RequestStats.isCallerTimeout(context(RestClient.DEFAULT_TIMEOUT_MS), new SocketTimeoutException()));
+    }
+
+    @Test
+    public void callerTimeoutsAreNotFailures() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            // Accepts connections but never answers, so every request times out.
+            Thread acceptor = new Thread(() -> {
+                try {
+                    while (true) {
+                        Socket socket = server.accept();
+                        socket.setSoTimeout(0);
+                    }
+                } catch (IOException ex) {
+                    // Closed at the end of the test
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+
+            String baseUrl = "http://127.0.0.1:" + server.getLocalPort() + "/service/core/v4";
+            ConnectionOptions options = new ConnectionOptions();
+            options.setCircuitBreakerFailureRateThreshold(50);
+            options.setCircuitBreakerWindowSize(1);
+            options.setCircuitBreakerOpenDurationMillis(60000);
+            RestClient client = new RestClient(baseUrl, true, (HostnameVerifier) null, options);
+            try {
+                assertNull(client.execGETFull("Me", null, null, 200));
+                try {
+                    client.execGETAsync("Me", null, null, 200).get(10, TimeUnit.SECONDS);
+                } catch (ExecutionException ex) {
+                    // Timed out
+                }
+                assertEquals(0, client.getFailureCount());
+                assertFalse(client.isCircuitOpen());
+            } finally {
+                client.close();
+            }
+        }
+    }
+}
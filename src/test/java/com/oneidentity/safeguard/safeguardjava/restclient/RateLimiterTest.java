@@ -0,0 +1,146 @@
+package com.oneidentity.safeguard.safeguardjava.restclient;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.oneidentity.safeguard.safeguardjava.ConnectionOptions;
+import com.oneidentity.safeguard.safeguardjava.Deadline;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.classic.ExecChain;
+import org.apache.hc.client5.http.classic.ExecChainHandler;
+import org.apache.hc.client5.http.classic.ExecRuntime;
+import org.apache.hc.client5.http.classic.methods.HttpGet;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.junit.Test;
+
+/**
+ * Verifies the token bucket of {@link RateLimiter} and that limiters are
+ * shared per appliance address.
+ */
+public class RateLimiterTest {
+
+    private static ConnectionOptions options(int requestsPerSecond, int burst) throws Exception {
+        ConnectionOptions options = new ConnectionOptions();
+        options.setMaxRequestsPerSecond(requestsPerSecond);
+        options.setRateLimitBurst(burst);
+        return options;
+    }
+
+    @Test
+    public void disabledWithoutRate() throws Exception {
+        assertNull(RateLimiter.forClient("https://disabled.example/service/core/v4", null));
+        assertNull(RateLimiter.forClient("https://disabled.example/service/core/v4", new ConnectionOptions()));
+    }
+
+    @Test
+    public void sharedPerAddress() throws Exception {
+        RateLimiter core = RateLimiter.forClient("https://shared.example/service/core/v4", options(10, 0));
+        RateLimiter a2a = RateLimiter.forClient("https://SHARED.example/service/a2a/v4", options(10, 0));
+        RateLimiter other = RateLimiter.forClient("https://other.example/service/core/v4", options(10, 0));
+
+        assertSame(core, a2a);
+        assertTrue(core != other);
+    }
+
+    @Test
+    public void otherSettingsGetOwnLimiter() throws Exception {
+        RateLimiter blocking = RateLimiter.forClient("https://settings.example/service/core/v4", options(1, 1));
+        ConnectionOptions failFast = options(1, 1);
+        failFast.setRateLimitFailFast(true);
+
+        assertTrue(blocking != RateLimiter.forClient("https://settings.example/service/core/v4", failFast));
+        assertTrue(blocking != RateLimiter.forClient("https://settings.example/service/core/v4", options(2, 1)));
+        assertSame(blocking, RateLimiter.forClient("https://settings.example/service/core/v4", options(1, 1)));
+        assertEquals(0, blocking.reserve(Long.MAX_VALUE));
+        assertTrue(blocking.reserve(Long.MAX_VALUE) > 0);
+    }
+
+    @Test
+    public void tryAcquireAllowsBurstThenRejects() throws Exception {
+        RateLimiter limiter = RateLimiter.forClient("https://burst.example/service/core/v4", options(1, 3));
+
+        assertEquals(0, limiter.tryAcquire());
+        assertEquals(0, limiter.tryAcquire());
+        assertEquals(0, limiter.tryAcquire());
+        long wait = limiter.tryAcquire();
+        assertTrue(wait > 0 && wait <= TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void reserveSpacesWaitingRequests() throws Exception {
+        RateLimiter limiter = RateLimiter.forClient("https://reserve.example/service/core/v4", options(10, 1));
+
+        assertEquals(0, limiter.reserve(Long.MAX_VALUE));
+        long first = limiter.reserve(Long.MAX_VALUE);
+        long second = limiter.reserve(Long.MAX_VALUE);
+        assertTrue(first > 0 && first <= TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(second - first > TimeUnit.MILLISECONDS.toNanos(90));
+    }
+
+    @Test
+    public void reserveTakesNoPermitBeyondMaxWait() throws Exception {
+        RateLimiter limiter = RateLimiter.forClient("https://maxwait.example/service/core/v4", options(1, 1));
+
+        assertEquals(0, limiter.reserve(0));
+        long rejected = limiter.reserve(TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(rejected < 0 && rejected >= -TimeUnit.SECONDS.toNanos(1));
+        long first = limiter.reserve(TimeUnit.SECONDS.toNanos(2));
+        assertTrue(first > 0 && first <= TimeUnit.SECONDS.toNanos(1));
+        assertTrue(limiter.reserve(TimeUnit.SECONDS.toNanos(2)) > first);
+    }
+
+    @Test
+    public void reserveBorrowsAtMostTheDefaultTimeout() throws Exception {
+        RateLimiter limiter = RateLimiter.forClient("https://debt.example/service/core/v4", options(1, 1));
+
+        int reserved = 0;
+        while (limiter.reserve(Long.MAX_VALUE) >= 0) {
+            reserved++;
+        }
+        assertTrue(reserved <= RestClient.DEFAULT_TIMEOUT_MS / 1000 + 1);
+    }
+
+    @Test
+    public void releaseReturnsPermit() throws Exception {
+        RateLimiter limiter = RateLimiter.forClient("https://release.example/service/core/v4", options(1, 1));
+
+        assertEquals(0, limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire() > 0);
+        limiter.release();
+        assertEquals(0, limiter.tryAcquire());
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void blockingHandlerRejectsWaitBeyondDeadline() throws Exception {
+        RateLimiter limiter = RateLimiter.forClient("https://deadline.example/service/core/v4", options(1, 1));
+        ExecChainHandler handler = limiter.classicHandler();
+        HttpGet request = new HttpGet("https://deadline.example/service/core/v4/Me");
+        ExecRuntime runtime = (ExecRuntime) Proxy.newProxyInstance(ExecRuntime.class.getClassLoader(),
+                new Class<?>[] {ExecRuntime.class}, (proxy, method, args) -> {
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        ExecChain.Scope scope = new ExecChain.Scope("test", new HttpRoute(new HttpHost("https", "deadline.example", 443)),
+                request, runtime, HttpClientContext.create());
+        ExecChain chain = (chainRequest, chainScope) -> new BasicClassicHttpResponse(HttpStatus.SC_OK);
+
+        assertEquals(HttpStatus.SC_OK, handler.execute(request, scope, chain).getCode());
+        long started = System.nanoTime();
+        ClassicHttpResponse response;
+        try (Deadline.Scope deadline = Deadline.after(50).enter()) {
+            response = handler.execute(request, scope, chain);
+        }
+        assertTrue(System.nanoTime() - started < TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(HttpStatus.SC_TOO_MANY_REQUESTS, response.getCode());
+        assertEquals("1", response.getFirstHeader(HttpHeaders.RETRY_AFTER).getValue());
+    }
+}
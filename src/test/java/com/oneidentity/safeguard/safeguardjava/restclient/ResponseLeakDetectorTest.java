@@ -0,0 +1,69 @@
+package com.oneidentity.safeguard.safeguardjava.restclient;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.InputStream;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.message.BasicClassicHttpResponse;
+import org.junit.Test;
+
+/**
+ * Verifies that {@link ResponseLeakDetector} stops tracking a response as
+ * soon as its connection would be released: when the body has been read to
+ * the end, or when the body or the response is closed.
+ */
+public class ResponseLeakDetectorTest {
+
+    @Test
+    public void responseIsReleasedWhenBodyIsReadToTheEnd() throws Exception {
+        ResponseLeakDetector detector = new ResponseLeakDetector(60_000);
+        try {
+            CloseableHttpResponse response = detector.track(response(200, "{\"Id\":1}"), "GET Me");
+            assertEquals(1, detector.getOutstanding());
+
+            assertEquals("{\"Id\":1}", EntityUtils.toString(response.getEntity()));
+            assertEquals(0, detector.getOutstanding());
+        } finally {
+            detector.close();
+        }
+    }
+
+    @Test
+    public void responseIsReleasedWhenClosed() throws Exception {
+        ResponseLeakDetector detector = new ResponseLeakDetector(60_000);
+        try {
+            CloseableHttpResponse headersOnly = detector.track(response(200, "{}"), "GET LoginMessage");
+            CloseableHttpResponse partiallyRead = detector.track(response(200, "[1,2,3]"), "GET Assets");
+            InputStream content = partiallyRead.getEntity().getContent();
+            content.read();
+            assertEquals(2, detector.getOutstanding());
+
+            headersOnly.close();
+            assertEquals(1, detector.getOutstanding());
+            content.close();
+            assertEquals(0, detector.getOutstanding());
+        } finally {
+            detector.close();
+        }
+    }
+
+    @Test
+    public void responseWithoutBodyIsNotTracked() throws Exception {
+        ResponseLeakDetector detector = new ResponseLeakDetector(60_000);
+        try {
+            detector.track(CloseableHttpResponse.adapt(new BasicClassicHttpResponse(204)), "DELETE Assets/1");
+            assertEquals(0, detector.getOutstanding());
+        } finally {
+            detector.close();
+        }
+    }
+
+    private static CloseableHttpResponse response(int code, String body) {
+        BasicClassicHttpResponse r = new BasicClassicHttpResponse(code);
+        r.setEntity(new StringEntity(body, ContentType.APPLICATION_JSON));
+        return CloseableHttpResponse.adapt(r);
+    }
+}
@@ -2,9 +2,17 @@ package com.oneidentity.safeguard.safeguardjava.restclient;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
+import com.oneidentity.safeguard.safeguardjava.data.CertificateContext;
+import java.io.InputStream;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.KeyStore;
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLContext;
 import org.junit.Test;
@@ -64,4 +72,80 @@ public class RestClientSSLContextTest {
         assertEquals("RestClient must request TLSv1.2, not generic TLS",
                 EXPECTED_PROTOCOL, ctx.getProtocol());
     }
+
+    /**
+     * Verifies that REST clients with the same TLS settings share one
+     * SSLContext, and therefore one TLS session cache, while clients with
+     * different trust settings do not.
+     */
+    @Test
+    public void sslContextIsSharedBetweenClientsWithSameSettings() throws Exception {
+        Method m = RestClient.class.getDeclaredMethod(
+                "getSSLContext",
+                java.security.KeyStore.class,
+                char[].class,
+                String.class,
+                com.oneidentity.safeguard.safeguardjava.data.CertificateContext.class);
+        m.setAccessible(true);
+
+        RestClient first = new RestClient("https://127.0.0.1:9999/service/core/v4", true, (HostnameVerifier) null);
+        RestClient second = new RestClient("https://127.0.0.1:9999/service/appliance/v4", true, (HostnameVerifier) null);
+        RestClient validating = new RestClient("https://127.0.0.1:9999/service/core/v4", false, (HostnameVerifier) null);
+
+        SSLContext firstCtx = (SSLContext) m.invoke(first, null, null, null, null);
+        SSLContext secondCtx = (SSLContext) m.invoke(second, null, null, null, null);
+        SSLContext validatingCtx = (SSLContext) m.invoke(validating, null, null, null, null);
+
+        assertSame("Clients with the same TLS settings must share an SSLContext", firstCtx, secondCtx);
+        assertNotSame("Clients with different trust settings must not share an SSLContext", firstCtx, validatingCtx);
+        assertEquals(EXPECTED_PROTOCOL, validatingCtx.getProtocol());
+
+        first.close();
+        second.close();
+        validating.close();
+    }
+
+    private static KeyStore load(Path path) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = Files.newInputStream(path)) {
+            keyStore.load(in, "a".toCharArray());
+        }
+        return keyStore;
+    }
+
+    /**
+     * Verifies that SSLContexts with a client key are never registered, so
+     * that the key is not kept in memory after the certificate context is
+     * disposed.
+     */
+    @Test
+    public void sslContextWithClientKeyIsNotShared() throws Exception {
+        Method m = RestClient.class.getDeclaredMethod(
+                "getSSLContext",
+                KeyStore.class,
+                char[].class,
+                String.class,
+                CertificateContext.class);
+        m.setAccessible(true);
+
+        Path certificate = Paths.get("TestFramework/TestData/CERTS/UserCert.pfx");
+        RestClient first = new RestClient("https://127.0.0.1:9999/service/a2a/v4", true, (HostnameVerifier) null);
+        RestClient second = new RestClient("https://127.0.0.1:9999/service/a2a/v4", true, (HostnameVerifier) null);
+        try {
+            KeyStore keyStore = load(certificate);
+            String alias = keyStore.aliases().nextElement();
+            int registered = SSLContextRegistry.size();
+            SSLContext firstCtx = (SSLContext) m.invoke(first, keyStore, "a".toCharArray(), alias,
+                    new CertificateContext(null, certificate.toString(), null, "a".toCharArray()));
+            SSLContext secondCtx = (SSLContext) m.invoke(second, keyStore, "a".toCharArray(), alias,
+                    new CertificateContext(null, certificate.toString(), null, "a".toCharArray()));
+
+            assertNotNull(firstCtx);
+            assertNotSame("Clients with a client key must not share an SSLContext", firstCtx, secondCtx);
+            assertEquals("SSLContexts with a client key must not be registered", registered, SSLContextRegistry.size());
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
 }
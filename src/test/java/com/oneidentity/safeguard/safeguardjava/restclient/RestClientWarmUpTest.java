@@ -0,0 +1,82 @@
+package com.oneidentity.safeguard.safeguardjava.restclient;
+
+import static org.junit.Assert.assertEquals;
+
+import com.oneidentity.safeguard.safeguardjava.ConnectionOptions;
+import com.oneidentity.safeguard.safeguardjava.TestHttpsServer;
+import com.sun.net.httpserver.HttpsServer;
+import java.lang.reflect.Field;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.HostnameVerifier;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.Test;
+
+/**
+ * Verifies that {@link RestClient#warmUp} leaves the connections it opens
+ * idle in the pool, and that it reports the connections it could not open
+ * instead of failing.
+ */
+public class RestClientWarmUpTest {
+
+    private static final String UNREACHABLE = "https://127.0.0.1:1/service/core/v4";
+
+    private static HttpsServer startServer(ExecutorService executor) throws Exception {
+        // Warmed-up connections never send a request, so each one needs its
+        // own thread rather than holding up the dispatcher
+        return TestHttpsServer.start(exchange -> {
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        }, executor);
+    }
+
+    private static PoolingHttpClientConnectionManager getPool(RestClient client) throws Exception {
+        Field field = RestClient.class.getDeclaredField("connectionManager");
+        field.setAccessible(true);
+        return (PoolingHttpClientConnectionManager) field.get(client);
+    }
+
+    @Test
+    public void warmedUpConnectionsStayInPool() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        HttpsServer server = startServer(executor);
+        ConnectionOptions options = new ConnectionOptions();
+        options.setConnectionPooling(true);
+        RestClient client = new RestClient("https://127.0.0.1:" + server.getAddress().getPort() + "/service/core/v4",
+                true, (HostnameVerifier) null, options);
+        try {
+            assertEquals(3, (int) client.warmUp(3, null).get(30, TimeUnit.SECONDS));
+            assertEquals(3, getPool(client).getTotalStats().getAvailable());
+            assertEquals(0, getPool(client).getTotalStats().getLeased());
+        } finally {
+            client.close();
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void pooledWarmUpOfUnreachableServiceOpensNothing() throws Exception {
+        ConnectionOptions options = new ConnectionOptions();
+        options.setConnectionPooling(true);
+        RestClient client = new RestClient(UNREACHABLE, true, (HostnameVerifier) null, options);
+        try {
+            assertEquals(0, (int) client.warmUp(4, null).get(30, TimeUnit.SECONDS));
+            assertEquals(0, getPool(client).getTotalStats().getAvailable());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void unpooledWarmUpOfUnreachableServiceOpensNothing() throws Exception {
+        RestClient client = new RestClient(UNREACHABLE, true, (HostnameVerifier) null);
+        try {
+            assertEquals(0, (int) client.warmUp(4, null).get(30, TimeUnit.SECONDS));
+            assertEquals(0, (int) client.warmUp(0, null).get(30, TimeUnit.SECONDS));
+        } finally {
+            client.close();
+        }
+    }
+}